@@ -0,0 +1,133 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.codegeneration.java.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hu.bme.mit.gamma.benchmark.xsts.TimerInterface;
+import hu.bme.mit.gamma.benchmark.xsts.controller.Controller;
+import hu.bme.mit.gamma.benchmark.xsts.controller.ReflectiveController;
+import hu.bme.mit.gamma.benchmark.xsts.trafficlightctrl.TrafficLightCtrl;
+import hu.bme.mit.gamma.tutorial.finish.VirtualTimerService;
+
+/**
+ * Measures the code generated by the XSTS-based generator (xsts.codegeneration.java) for the
+ * Controller and TrafficLightCtrl statecharts of the tutorial (see gamma/model/Benchmarks.ggen). The benchmarks correspond to
+ * the statechart benchmarks in YakinduCodeBenchmark, so the two generators can be compared.
+ * Composite components are measured only in YakinduCodeBenchmark, as the XSTS-based generator
+ * handles single statecharts. The same virtual timer is used as in YakinduCodeBenchmark, so the
+ * timeouts of the two generated codes are driven the same way.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class XstsCodeBenchmark {
+	
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+	
+	private VirtualTimerService timer;
+	private Controller controller;
+	private TrafficLightCtrl trafficLightCtrl;
+	private ReflectiveController reflectiveController;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		timer = new VirtualTimerService();
+		controller = new Controller();
+		controller.setTimer(new VirtualTimer(timer));
+		controller.reset();
+		trafficLightCtrl = new TrafficLightCtrl();
+		trafficLightCtrl.setTimer(new VirtualTimer(timer));
+		trafficLightCtrl.reset();
+		Controller reflectiveWrappedController = new Controller();
+		reflectiveWrappedController.setTimer(new VirtualTimer(new VirtualTimerService()));
+		reflectiveController = new ReflectiveController(reflectiveWrappedController);
+		reflectiveController.reset();
+	}
+	
+	//
+	
+	@Benchmark
+	public boolean runCycle() {
+		timer.elapse(500);
+		controller.runCycle();
+		return controller.getPriorityControl().isRaisedToggle();
+	}
+	
+	@Benchmark
+	public boolean raiseEventAndRunCycle() {
+		controller.getPoliceInterrupt().raisePolice();
+		controller.runCycle();
+		return controller.getPriorityPolice().isRaisedPolice();
+	}
+	
+	@Benchmark
+	public boolean trafficLightRaiseEventAndRunCycle() {
+		timer.elapse(500);
+		trafficLightCtrl.getControl().raiseToggle();
+		trafficLightCtrl.runCycle();
+		return trafficLightCtrl.getLightCommands().isRaisedDisplayYellow();
+	}
+	
+	@Benchmark
+	public boolean reflectiveRaiseEvent() {
+		reflectiveController.raiseEvent("PoliceInterrupt", "police", NO_ARGUMENTS);
+		reflectiveController.schedule(null);
+		return reflectiveController.isRaisedEvent("PriorityPolice", "police", NO_ARGUMENTS);
+	}
+	
+	@Benchmark
+	public boolean reflectiveIsRaisedEvent() {
+		return reflectiveController.isRaisedEvent("SecondaryControl", "toggle", NO_ARGUMENTS);
+	}
+	
+	//
+	
+	/**
+	 * Adapts the virtual timer of the tutorial to the timer interface of the XSTS-based code.
+	 */
+	private static class VirtualTimer implements TimerInterface {
+		
+		private final VirtualTimerService timer;
+		
+		public VirtualTimer(VirtualTimerService timer) {
+			this.timer = timer;
+		}
+		
+		@Override
+		public void saveTime(Object object) {
+			timer.saveTime(object);
+		}
+		
+		@Override
+		public long getElapsedTime(Object object, TimerInterface.TimeUnit timeUnit) {
+			return timer.getElapsedTime(object,
+					hu.bme.mit.gamma.tutorial.finish.TimerInterface.TimeUnit.valueOf(timeUnit.name()));
+		}
+		
+	}
+	
+}
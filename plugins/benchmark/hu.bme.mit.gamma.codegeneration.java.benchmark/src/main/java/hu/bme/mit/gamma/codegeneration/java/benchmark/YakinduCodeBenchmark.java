@@ -0,0 +1,113 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.codegeneration.java.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hu.bme.mit.gamma.tutorial.finish.VirtualTimerService;
+import hu.bme.mit.gamma.tutorial.finish.controller.Controller;
+import hu.bme.mit.gamma.tutorial.finish.controller.ReflectiveController;
+import hu.bme.mit.gamma.tutorial.finish.trafficlightctrl.TrafficLightCtrl;
+import hu.bme.mit.gamma.tutorial.finish.tutorial.Crossroad;
+
+/**
+ * Measures the code generated by the YAKINDU-based generator (codegeneration.java) for the
+ * statecharts and the synchronous composite component of the tutorial. A virtual timer is used,
+ * so the measured cycles do not depend on the wall clock. The reflective benchmarks use the
+ * Controller statechart, the same component as in XstsCodeBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class YakinduCodeBenchmark {
+	
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+	
+	private VirtualTimerService timer;
+	private Controller controller;
+	private TrafficLightCtrl trafficLightCtrl;
+	private Crossroad crossroad;
+	private ReflectiveController reflectiveController;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		timer = new VirtualTimerService();
+		controller = new Controller();
+		controller.setTimer(timer);
+		controller.reset();
+		trafficLightCtrl = new TrafficLightCtrl();
+		trafficLightCtrl.setTimer(timer);
+		trafficLightCtrl.reset();
+		crossroad = new Crossroad(timer); // Resets the component
+		reflectiveController = new ReflectiveController(new VirtualTimerService());
+		reflectiveController.reset();
+	}
+	
+	//
+	
+	@Benchmark
+	public boolean runCycle() {
+		timer.elapse(500);
+		controller.runCycle();
+		return controller.getPriorityControl().isRaisedToggle();
+	}
+	
+	@Benchmark
+	public boolean raiseEventAndRunCycle() {
+		controller.getPoliceInterrupt().raisePolice();
+		controller.runCycle();
+		return controller.getPriorityPolice().isRaisedPolice();
+	}
+	
+	@Benchmark
+	public boolean trafficLightRaiseEventAndRunCycle() {
+		timer.elapse(500);
+		trafficLightCtrl.getControl().raiseToggle();
+		trafficLightCtrl.runCycle();
+		return trafficLightCtrl.getLightCommands().isRaisedDisplayYellow();
+	}
+	
+	@Benchmark
+	public boolean compositeRunFullCycle() {
+		timer.elapse(500);
+		crossroad.getPolice().raisePolice();
+		crossroad.runFullCycle();
+		return crossroad.getPriorityOutput().isRaisedDisplayYellow();
+	}
+	
+	@Benchmark
+	public boolean reflectiveRaiseEvent() {
+		reflectiveController.raiseEvent("PoliceInterrupt", "police", NO_ARGUMENTS);
+		reflectiveController.schedule(null);
+		return reflectiveController.isRaisedEvent("PriorityPolice", "police", NO_ARGUMENTS);
+	}
+	
+	@Benchmark
+	public boolean reflectiveIsRaisedEvent() {
+		return reflectiveController.isRaisedEvent("SecondaryControl", "toggle", NO_ARGUMENTS);
+	}
+	
+}
@@ -34,6 +34,8 @@ class Namings {
 	public static final String GAMMA_TIMER_CLASS = "OneThreadedTimer"
 	public static final String UNIFIED_TIMER_CLASS = "UnifiedTimer"
 	
+	public static final String ADAPTER_EXECUTOR_CLASS = "AdapterExecutor"
+	
 	public static final String REFLECTIVE_WRAPPED_COMPONENT = "wrappedComponent"
 	public static final String REFLECTIVE_INTERFACE = "ReflectiveComponentInterface"
 	
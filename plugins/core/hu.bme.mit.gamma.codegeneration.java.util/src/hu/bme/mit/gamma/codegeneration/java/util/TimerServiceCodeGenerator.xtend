@@ -18,12 +18,26 @@ class TimerServiceCodeGenerator {
 	protected final String YAKINDU_CLASS_NAME = Namings.YAKINDU_TIMER_CLASS
 	protected final String GAMMA_CLASS_NAME = Namings.GAMMA_TIMER_CLASS
 	protected final String UNIFIED_TIMER_CLASS_NAME = Namings.UNIFIED_TIMER_CLASS
+	// Hashed timing wheel driven by a single scheduler thread instead of a java.util.Timer per instance
+	protected final boolean timingWheel
 	
 	new(String packageName) {
+		this(packageName, false)
+	}
+	
+	new(String packageName, boolean timingWheel) {
 		this.PACKAGE_NAME = packageName
+		this.timingWheel = timingWheel
+	}
+	
+	def createTimerServiceClassCode() {
+		if (timingWheel) {
+			return createTimingWheelTimerServiceClassCode
+		}
+		return createJavaTimerServiceClassCode
 	}
 	
-	def createTimerServiceClassCode() '''
+	protected def createJavaTimerServiceClassCode() '''
 		package «PACKAGE_NAME»;
 		
 		import java.util.ArrayList;
@@ -132,6 +146,257 @@ class TimerServiceCodeGenerator {
 			
 		}
 	'''
+	
+	/**
+	 * Creates a timer service whose instances share a hashed timing wheel: setting and unsetting a timer
+	 * take constant time and the timers expiring in the same tick are processed in a single batch
+	 * by a single scheduler (daemon) thread, independently of the number of timer service instances.
+	 * Like java.util.Timer, periodic timers are executed at a fixed rate, and timers set multiple times for
+	 * the same event are all kept (unsetting cancels the oldest pending one).
+	 */
+	protected def createTimingWheelTimerServiceClassCode() '''
+		package «PACKAGE_NAME»;
+		
+		import java.util.ArrayList;
+		import java.util.HashMap;
+		import java.util.Iterator;
+		import java.util.List;
+		import java.util.Map;
+		
+		public class «YAKINDU_CLASS_NAME» implements «Namings.YAKINDU_TIMER_INTERFACE» {
+			
+			// Shared by every timer service instance
+			private static final TimingWheel wheel = new TimingWheel();
+			
+			// The callbacks of the instance are executed holding this lock, so no callback runs after unsetTimer
+			private final Object lock = new Object();
+			// Guarded by the lock
+			private final Map<«Namings.TIMER_CALLBACK_INTERFACE», Map<Integer, List<TimeEventTask>>> timerTasks =
+					new HashMap<«Namings.TIMER_CALLBACK_INTERFACE», Map<Integer, List<TimeEventTask>>>();
+			
+			/**
+			 * Timer task that reflects a time event. It's internally used by
+			 * {@link TimerService}.
+			 */
+			private class TimeEventTask {
+				
+				private final «Namings.TIMER_CALLBACK_INTERFACE» callback;
+				private final int eventID;
+				private final long time;
+				private final boolean periodic;
+				// Guarded by the wheel
+				private long deadline;
+				// Set holding both the lock and the wheel
+				private boolean cancelled = false;
+				
+				public TimeEventTask(«Namings.TIMER_CALLBACK_INTERFACE» callback, int eventID, long time, boolean isPeriodic) {
+					this.callback = callback;
+					this.eventID = eventID;
+					this.time = time;
+					this.periodic = isPeriodic;
+				}
+				
+				/**
+				 * Called by the thread of the wheel without holding the wheel.
+				 */
+				public void run() {
+					synchronized (lock) {
+						if (cancelled) {
+							return; // Unset since its expiry
+						}
+						if (!periodic) {
+							remove(this);
+						}
+						callback.timeElapsed(eventID);
+					}
+				}
+				
+			}
+			
+			/**
+			 * Hashed timing wheel: a task is put into the bucket of its deadline tick (modulo the wheel size),
+			 * so only the tasks of a single bucket have to be inspected in a tick.
+			 */
+			private static class TimingWheel implements Runnable {
+				
+				private static final long TICK_DURATION = 1; // In milliseconds, the precision of java.util.Timer
+				private static final int WHEEL_SIZE = 512; // Must be a power of two
+				
+				private final List<List<TimeEventTask>> buckets = new ArrayList<List<TimeEventTask>>(WHEEL_SIZE);
+				private final long startTime = System.nanoTime();
+				private long tick = 0;
+				private int taskCount = 0;
+				private Thread thread = null;
+				
+				public TimingWheel() {
+					for (int i = 0; i < WHEEL_SIZE; ++i) {
+						buckets.add(new ArrayList<TimeEventTask>());
+					}
+				}
+				
+				public synchronized void schedule(TimeEventTask task, long delay) {
+					if (taskCount == 0) {
+						// The wheel has not been turned while it was empty
+						tick = Math.max(tick, getCurrentTick());
+					}
+					long ticks = Math.max(1, (delay + TICK_DURATION - 1) / TICK_DURATION);
+					task.deadline = Math.max(tick, getCurrentTick()) + ticks;
+					add(task);
+					if (thread == null) {
+						thread = new Thread(this, "Gamma timing wheel");
+						thread.setDaemon(true);
+						thread.start();
+					}
+					notifyAll(); // The thread is waiting if there were no tasks
+				}
+				
+				private void reschedule(TimeEventTask task) {
+					long ticks = Math.max(1, (task.time + TICK_DURATION - 1) / TICK_DURATION);
+					// Fixed rate: measured from the previous deadline, catching up one tick at a time
+					task.deadline = Math.max(task.deadline + ticks, tick + 1);
+					add(task);
+				}
+				
+				private void add(TimeEventTask task) {
+					buckets.get((int) (task.deadline & (WHEEL_SIZE - 1))).add(task);
+					++taskCount;
+				}
+				
+				public synchronized void cancel(TimeEventTask task) {
+					// The task is removed from its bucket lazily, when the bucket is inspected
+					task.cancelled = true;
+				}
+				
+				private long getCurrentTick() {
+					return (System.nanoTime() - startTime) / (TICK_DURATION * 1000000);
+				}
+				
+				@Override
+				public void run() {
+					List<TimeEventTask> expiredTasks = new ArrayList<TimeEventTask>();
+					while (true) {
+						synchronized (this) {
+							try {
+								while (taskCount == 0) {
+									wait();
+								}
+								long currentTick = getCurrentTick();
+								if (tick >= currentTick) {
+									long nextTickTime = (tick + 1) * TICK_DURATION * 1000000 + startTime;
+									long waitTime = (nextTickTime - System.nanoTime()) / 1000000;
+									wait(Math.max(1, waitTime));
+									continue;
+								}
+								// Processing every tick that has elapsed since the last one (batch expiry)
+								while (tick < currentTick) {
+									++tick;
+									List<TimeEventTask> bucket = buckets.get((int) (tick & (WHEEL_SIZE - 1)));
+									for (Iterator<TimeEventTask> iterator = bucket.iterator(); iterator.hasNext(); ) {
+										TimeEventTask task = iterator.next();
+										if (task.cancelled) {
+											iterator.remove();
+											--taskCount;
+										}
+										else if (task.deadline <= tick) {
+											iterator.remove();
+											--taskCount;
+											expiredTasks.add(task);
+										}
+									}
+								}
+								for (TimeEventTask task : expiredTasks) {
+									if (task.periodic) {
+										reschedule(task);
+									}
+								}
+							} catch (InterruptedException e) {
+								return;
+							}
+						}
+						// The callbacks are executed holding the locks of their timer services (not the wheel),
+						// so they can set and unset timers, and cancelled tasks are not executed
+						for (TimeEventTask task : expiredTasks) {
+							task.run();
+						}
+						expiredTasks.clear();
+					}
+				}
+				
+			}
+			
+			public void setTimer(«Namings.TIMER_CALLBACK_INTERFACE» callback, int eventID,
+					long time, boolean isPeriodic) {
+				// Same checks as in java.util.Timer
+				if (time < 0) {
+					throw new IllegalArgumentException("Negative delay.");
+				}
+				if (isPeriodic && time <= 0) {
+					throw new IllegalArgumentException("Non-positive period.");
+				}
+				TimeEventTask timerTask = new TimeEventTask(callback, eventID, time, isPeriodic);
+				synchronized (lock) {
+					Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(callback);
+					if (callbackTasks == null) {
+						callbackTasks = new HashMap<Integer, List<TimeEventTask>>();
+						timerTasks.put(callback, callbackTasks);
+					}
+					List<TimeEventTask> eventTasks = callbackTasks.get(eventID);
+					if (eventTasks == null) {
+						eventTasks = new ArrayList<TimeEventTask>();
+						callbackTasks.put(eventID, eventTasks);
+					}
+					eventTasks.add(timerTask);
+					wheel.schedule(timerTask, time);
+				}
+			}
+			
+			public void unsetTimer(«Namings.TIMER_CALLBACK_INTERFACE» callback, int eventID) {
+				synchronized (lock) {
+					Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(callback);
+					if (callbackTasks != null) {
+						List<TimeEventTask> eventTasks = callbackTasks.get(eventID);
+						if (eventTasks != null) {
+							TimeEventTask timerTask = eventTasks.get(0);
+							remove(timerTask);
+							wheel.cancel(timerTask);
+						}
+					}
+				}
+			}
+			
+			// Holding the lock
+			private void remove(TimeEventTask task) {
+				Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(task.callback);
+				List<TimeEventTask> eventTasks = callbackTasks.get(task.eventID);
+				eventTasks.remove(task);
+				if (eventTasks.isEmpty()) {
+					callbackTasks.remove(task.eventID);
+				}
+			}
+			
+			/**
+			 * Cancel timer service. Use this to end possible timing threads and free
+			 * memory resources.
+			 */
+			public void cancel() {
+				reset();
+			}
+			
+			public void reset() {
+				synchronized (lock) {
+					for (Map<Integer, List<TimeEventTask>> callbackTasks : timerTasks.values()) {
+						for (List<TimeEventTask> eventTasks : callbackTasks.values()) {
+							for (TimeEventTask timerTask : eventTasks) {
+								wheel.cancel(timerTask);
+							}
+						}
+					}
+					timerTasks.clear();
+				}
+			}
+			
+		}
+	'''
 
 	def createGammaTimerClassCode() '''
 		package «PACKAGE_NAME»;
@@ -16,15 +16,29 @@ class VirtualTimerServiceCodeGenerator {
 	protected final String CLASS_NAME = "VirtualTimerService"
 	protected final String UNIFIED_TIMER_INTERFACE_NAME = Namings.UNIFIED_TIMER_INTERFACE
 	protected final String ITIMER_CALLBACK_INTERFACE_NAME = Namings.TIMER_CALLBACK_INTERFACE
+	// Hashed timing wheel instead of a list of tasks inspected in every elapse
+	protected final boolean timingWheel
 	
 	new(String packageName) {
+		this(packageName, false)
+	}
+	
+	new(String packageName, boolean timingWheel) {
 		this.PACKAGE_NAME = packageName
+		this.timingWheel = timingWheel
 	}
 	
 	/**
 	 * Creates the virtual timer class for the timings in the generated test cases.
 	 */
-	def createVirtualTimerClassCode() '''
+	def createVirtualTimerClassCode() {
+		if (timingWheel) {
+			return createTimingWheelVirtualTimerClassCode
+		}
+		return createListVirtualTimerClassCode
+	}
+	
+	protected def createListVirtualTimerClassCode() '''
 		package «PACKAGE_NAME»;
 		
 		import java.util.List;
@@ -140,6 +154,189 @@ class VirtualTimerServiceCodeGenerator {
 		}
 	'''
 	
+	/**
+	 * Creates a virtual timer class that stores the timers in a hashed timing wheel: setting and unsetting
+	 * a timer take constant time and an elapse inspects only the buckets of the elapsed ticks.
+	 * The semantics is the same as the one of the list-based implementation: a timer fires at most once
+	 * in an elapse, the timers expiring in the same elapse fire in the order of their setting, timers with
+	 * a non-positive time never fire, and timers set multiple times for the same event are all kept.
+	 */
+	protected def createTimingWheelVirtualTimerClassCode() '''
+		package «PACKAGE_NAME»;
+		
+		import java.util.ArrayList;
+		import java.util.Comparator;
+		import java.util.HashMap;
+		import java.util.Iterator;
+		import java.util.List;
+		import java.util.Map;
+		
+		/**
+		 * Virtual timer service implementation based on a hashed timing wheel.
+		 */
+		public class «CLASS_NAME» implements «UNIFIED_TIMER_INTERFACE_NAME» {
+			
+			private static final int WHEEL_SIZE = 256; // Must be a power of two
+			
+			// Yakindu timer
+			private final List<List<TimeEventTask>> buckets = new ArrayList<List<TimeEventTask>>(WHEEL_SIZE);
+			private final Map<«ITIMER_CALLBACK_INTERFACE_NAME», Map<Integer, List<TimeEventTask>>> timerTasks =
+					new HashMap<«ITIMER_CALLBACK_INTERFACE_NAME», Map<Integer, List<TimeEventTask>>>();
+			private final List<TimeEventTask> expiredTasks = new ArrayList<TimeEventTask>();
+			private long currentTime = 0;
+			private long setCount = 0; // The timers fire in the order of their setting (like in a list)
+			// Gamma timer: the virtual time of the saving is stored, so an elapse does not have to update the entries
+			private Map<Object, Long> savedTime = new HashMap<Object, Long>();
+			
+			/**
+			 * Timer task that reflects a time event. It's internally used by TimerService.
+			 */
+			private class TimeEventTask {
+				
+				private final «ITIMER_CALLBACK_INTERFACE_NAME» callback;
+				private final int eventID;
+				private final long time;
+				private final boolean periodic;
+				private final long index;
+				private long deadline;
+				private boolean cancelled = false;
+				
+				public TimeEventTask(«ITIMER_CALLBACK_INTERFACE_NAME» callback, int eventID, long time, boolean isPeriodic,
+						long index) {
+					this.callback = callback;
+					this.eventID = eventID;
+					this.time = time;
+					this.periodic = isPeriodic;
+					this.index = index;
+				}
+				
+				public void run() {
+					callback.timeElapsed(eventID);
+				}
+				
+			}
+			
+			public «CLASS_NAME»() {
+				for (int i = 0; i < WHEEL_SIZE; ++i) {
+					buckets.add(new ArrayList<TimeEventTask>());
+				}
+			}
+			
+			private void schedule(TimeEventTask task) {
+				task.deadline = currentTime + task.time;
+				buckets.get((int) (task.deadline & (WHEEL_SIZE - 1))).add(task);
+			}
+			
+			public void setTimer(«ITIMER_CALLBACK_INTERFACE_NAME» callback, int eventID, long time, boolean isPeriodic) {
+				TimeEventTask timerTask = new TimeEventTask(callback, eventID, time, isPeriodic, setCount++);
+				Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(callback);
+				if (callbackTasks == null) {
+					callbackTasks = new HashMap<Integer, List<TimeEventTask>>();
+					timerTasks.put(callback, callbackTasks);
+				}
+				List<TimeEventTask> eventTasks = callbackTasks.get(eventID);
+				if (eventTasks == null) {
+					eventTasks = new ArrayList<TimeEventTask>();
+					callbackTasks.put(eventID, eventTasks);
+				}
+				eventTasks.add(timerTask);
+				if (time > 0) { // Timers with non-positive time never fire
+					schedule(timerTask);
+				}
+			}
+			
+			public void unsetTimer(«ITIMER_CALLBACK_INTERFACE_NAME» callback, int eventID) {
+				Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(callback);
+				if (callbackTasks != null) {
+					List<TimeEventTask> eventTasks = callbackTasks.remove(eventID);
+					if (eventTasks != null) {
+						for (TimeEventTask timerTask : eventTasks) {
+							// The task is removed from its bucket lazily, when the bucket is inspected
+							timerTask.cancelled = true;
+						}
+					}
+				}
+			}
+			
+			private void remove(TimeEventTask task) {
+				Map<Integer, List<TimeEventTask>> callbackTasks = timerTasks.get(task.callback);
+				List<TimeEventTask> eventTasks = callbackTasks.get(task.eventID);
+				eventTasks.remove(task);
+				if (eventTasks.isEmpty()) {
+					callbackTasks.remove(task.eventID);
+				}
+			}
+			
+			public void elapse(long amount) {
+				if (amount <= 0) {
+					return;
+				}
+				long newTime = currentTime + amount;
+				// Every bucket has to be inspected at most once, even if the amount is larger than the wheel
+				long lastTick = currentTime + Math.min(amount, WHEEL_SIZE);
+				for (long tick = currentTime + 1; tick <= lastTick; ++tick) {
+					List<TimeEventTask> bucket = buckets.get((int) (tick & (WHEEL_SIZE - 1)));
+					for (Iterator<TimeEventTask> iterator = bucket.iterator(); iterator.hasNext(); ) {
+						TimeEventTask task = iterator.next();
+						if (task.cancelled) {
+							iterator.remove();
+						}
+						else if (task.deadline <= newTime) {
+							iterator.remove();
+							expiredTasks.add(task);
+						}
+					}
+				}
+				currentTime = newTime;
+				expiredTasks.sort(Comparator.comparingLong(it -> it.index));
+				for (TimeEventTask task : expiredTasks) {
+					if (task.cancelled) {
+						continue; // Unset by a previous callback
+					}
+					if (task.periodic) {
+						schedule(task); // And not from the deadline
+					}
+					else {
+						task.cancelled = true;
+						remove(task);
+					}
+					task.run();
+				}
+				expiredTasks.clear();
+			}
+			
+			public void saveTime(Object object) {
+				savedTime.put(object, currentTime);
+			}
+			
+			public long getElapsedTime(Object object, TimeUnit timeUnit) {
+				long elapsedTime = currentTime - this.savedTime.get(object);
+				switch (timeUnit) {
+					case MILLISECOND:
+						return elapsedTime;
+					default:
+						throw new IllegalArgumentException("Not supported time unit: " + timeUnit);
+				}
+			}
+			
+			public void reset() {
+				for (Map<Integer, List<TimeEventTask>> callbackTasks : timerTasks.values()) {
+					for (List<TimeEventTask> eventTasks : callbackTasks.values()) {
+						for (TimeEventTask timerTask : eventTasks) {
+							timerTask.cancelled = true; // In case of a reset in a callback
+						}
+					}
+				}
+				for (List<TimeEventTask> bucket : buckets) {
+					bucket.clear();
+				}
+				timerTasks.clear();
+				savedTime.clear();
+			}
+		
+		}
+	'''
+	
 	def getClassName() {
 		return CLASS_NAME
 	}
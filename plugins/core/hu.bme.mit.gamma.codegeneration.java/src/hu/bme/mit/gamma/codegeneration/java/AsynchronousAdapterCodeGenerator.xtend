@@ -32,6 +32,8 @@ import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartMo
 class AsynchronousAdapterCodeGenerator {
 	
 	protected final String PACKAGE_NAME
+	// Adapters processing their queues on a shared executor instead of their own threads
+	protected final boolean sharedExecutor
 	// 
 	protected final extension TimingDeterminer timingDeterminer = TimingDeterminer.INSTANCE
 	protected final extension ExpressionSerializer expressionSerializer = ExpressionSerializer.INSTANCE
@@ -46,7 +48,12 @@ class AsynchronousAdapterCodeGenerator {
 	protected final String EVENT_INSTANCE_NAME = "event"
 
 	new(String packageName, Trace trace) {
+		this(packageName, trace, false)
+	}
+	
+	new(String packageName, Trace trace, boolean sharedExecutor) {
 		this.PACKAGE_NAME = packageName
+		this.sharedExecutor = sharedExecutor
 		this.trace = trace
 		this.nameGenerator = new NameGenerator(this.PACKAGE_NAME)
 		this.typeTransformer = new TypeTransformer(trace)
@@ -66,8 +73,19 @@ class AsynchronousAdapterCodeGenerator {
 		«component.generateWrapperImports»
 		
 		public class «component.generateComponentClassName» implements Runnable, «component.generatePortOwnerInterfaceName» { 
-			// Thread running this wrapper instance
-			private Thread thread;
+			«IF sharedExecutor»
+				// Executor shared by the wrapper instances, the main queue of an instance is its mailbox
+				private static final Executor executor = «ADAPTER_EXECUTOR_CLASS».getExecutor();
+				// Maximum number of events processed in a single run, so other instances are not starved
+				private static final int MAX_EVENTS_PER_RUN = 64;
+				// Indicates whether this wrapper instance has been started (and not interrupted)
+				private volatile boolean running = false;
+				// Indicates whether the main queue is being processed (submitted to the executor or scheduled manually)
+				private final AtomicBoolean scheduled = new AtomicBoolean(false);
+			«ELSE»
+				// Thread running this wrapper instance
+				private Thread thread;
+			«ENDIF»
 			// Wrapped synchronous instance
 			private «component.wrappedComponent.type.generateComponentClassName» «component.generateWrappedComponentName»;
 			// Control port instances
@@ -170,6 +188,9 @@ class AsynchronousAdapterCodeGenerator {
 								«FOR match : QueuesOfClocks.Matcher.on(engine).getAllMatches(component, null, null)»
 									case «match.clock.name»:
 										«match.queue.name».«match.queue.additionMethodName»(new Event("«match.clock.name»"));
+										«IF sharedExecutor»
+											signal();
+										«ENDIF»
 									break;
 								«ENDFOR»
 								default:
@@ -236,30 +257,83 @@ class AsynchronousAdapterCodeGenerator {
 				}
 			«ENDFOR»
 			
-			/** Manual scheduling. */
-			public void schedule() {
-				«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.poll();
-				if («EVENT_INSTANCE_NAME» == null) {
-					// There was no event in the queue
-					return;
+			«IF sharedExecutor»
+				/** Manual scheduling: processes a single event, unless the main queue is being processed by the executor. */
+				public void schedule() {
+					if (!scheduled.compareAndSet(false, true)) {
+						return; // The events are processed by the executor
+					}
+					try {
+						«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.poll();
+						if («EVENT_INSTANCE_NAME» == null) {
+							// There was no event in the queue
+							return;
+						}
+						processEvent(«EVENT_INSTANCE_NAME»);
+						«IF component.hasInternalPort»handleInternalEvents();«ENDIF»
+					} finally {
+						scheduled.set(false);
+						// Events may have arrived in the meantime, whose signals have been ignored
+						if (!__asyncQueue.isEmpty()) {
+							signal();
+						}
+					}
 				}
-				processEvent(«EVENT_INSTANCE_NAME»);
-				«IF component.hasInternalPort»handleInternalEvents();«ENDIF»
-			}
+			«ELSE»
+				/** Manual scheduling. */
+				public void schedule() {
+					«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.poll();
+					if («EVENT_INSTANCE_NAME» == null) {
+						// There was no event in the queue
+						return;
+					}
+					processEvent(«EVENT_INSTANCE_NAME»);
+					«IF component.hasInternalPort»handleInternalEvents();«ENDIF»
+				}
+			«ENDIF»
 			
-			/** Operation. */
-			@Override
-			public void run() {
-				while (!Thread.currentThread().isInterrupted()) {
-					try {
-						«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.take();		
+			«IF sharedExecutor»
+				/** Operation: processes the events of the main queue in a run-to-completion manner on the shared executor. */
+				@Override
+				public void run() {
+					int eventCount = 0;
+					while (running && eventCount < MAX_EVENTS_PER_RUN) {
+						«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.poll();
+						if («EVENT_INSTANCE_NAME» == null) {
+							break;
+						}
 						processEvent(«EVENT_INSTANCE_NAME»);
 						«IF component.hasInternalPort»handleInternalEvents();«ENDIF»
-					} catch (InterruptedException e) {
-						interrupt();
+						++eventCount;
+					}
+					scheduled.set(false);
+					// Events may have arrived since the last poll
+					if (!__asyncQueue.isEmpty()) {
+						signal();
 					}
 				}
-			}
+				
+				/** Submits the processing of the main queue to the executor if it has not been submitted yet. */
+				private void signal() {
+					if (running && scheduled.compareAndSet(false, true)) {
+						executor.execute(this);
+					}
+				}
+			«ELSE»
+				/** Operation. */
+				@Override
+				public void run() {
+					while (!Thread.currentThread().isInterrupted()) {
+						try {
+							«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = __asyncQueue.take();		
+							processEvent(«EVENT_INSTANCE_NAME»);
+							«IF component.hasInternalPort»handleInternalEvents();«ENDIF»
+						} catch (InterruptedException e) {
+							interrupt();
+						}
+					}
+				}
+			«ENDIF»
 			
 			private void processEvent(«GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME») {
 				if (!isControlEvent(«EVENT_INSTANCE_NAME»)) {
@@ -319,23 +393,42 @@ class AsynchronousAdapterCodeGenerator {
 				«ENDFOR»
 			}
 			
-			/** Starts this wrapper instance on a thread. */
-			@Override
-			public void start() {
-				thread = new Thread(this);
-				thread.start();
-			}
-			
-			public boolean isWaiting() {
-				return thread.getState() == Thread.State.WAITING;
-			}
-			
-			/** Stops the thread running this wrapper instance. */
-			public void interrupt() {
-				if (thread != null) {
-					thread.interrupt();
+			«IF sharedExecutor»
+				/** Starts this wrapper instance on the shared executor. */
+				@Override
+				public void start() {
+					running = true;
+					signal();
 				}
-			}
+				
+				/** Returns whether this wrapper instance is waiting for events, i.e., its processing is not submitted. */
+				public boolean isWaiting() {
+					return !scheduled.get();
+				}
+				
+				/** Stops the processing of the events of this wrapper instance (after the currently processed one). */
+				public void interrupt() {
+					running = false;
+				}
+			«ELSE»
+				/** Starts this wrapper instance on a thread. */
+				@Override
+				public void start() {
+					thread = new Thread(this);
+					thread.start();
+				}
+				
+				public boolean isWaiting() {
+					return thread.getState() == Thread.State.WAITING;
+				}
+				
+				/** Stops the thread running this wrapper instance. */
+				public void interrupt() {
+					if (thread != null) {
+						thread.interrupt();
+					}
+				}
+			«ENDIF»
 			
 			public «component.wrappedComponent.type.generateComponentClassName» get«component.generateWrappedComponentName.toFirstUpper»() {
 				return «component.generateWrappedComponentName»;
@@ -356,12 +449,44 @@ class AsynchronousAdapterCodeGenerator {
 		'''
 	}
 	
+	/**
+	 * Creates the Java code of the executor shared by the asynchronous adapters. It has its own (daemon)
+	 * threads, as the adapters may block (e.g., in the listeners of their wrapped components), which must not
+	 * starve the common fork-join pool.
+	 */
+	def createAdapterExecutorClass() '''
+		package «PACKAGE_NAME»;
+		
+		import java.util.concurrent.Executor;
+		import java.util.concurrent.ExecutorService;
+		import java.util.concurrent.Executors;
+		
+		public class «ADAPTER_EXECUTOR_CLASS» {
+			
+			private static final ExecutorService executor = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(), runnable -> {
+						Thread thread = new Thread(runnable, "Gamma adapter executor");
+						thread.setDaemon(true);
+						return thread;
+					});
+			
+			public static Executor getExecutor() {
+				return executor;
+			}
+			
+		}
+	'''
+	
 	/**
 	 * Generates the needed Java imports in case of the given composite component.
 	 */
 	protected def generateWrapperImports(AsynchronousAdapter component) '''
 		import java.util.Collections;
 		import java.util.List;
+		«IF sharedExecutor»
+			import java.util.concurrent.Executor;
+			import java.util.concurrent.atomic.AtomicBoolean;
+		«ENDIF»
 		
 		import «PACKAGE_NAME».*;
 
@@ -400,6 +525,9 @@ class AsynchronousAdapterCodeGenerator {
 				«FOR queue : QueuesOfEvents.Matcher.on(engine).getAllValuesOfqueue(port, event) SEPARATOR System.lineSeparator»
 					«queue.name».«queue.additionMethodName»(new Event("«port.name».«event.name»"«IF event.generateArguments.length != 0», «ENDIF»«event.generateArguments»));
 				«ENDFOR»
+				«IF sharedExecutor»
+					signal();
+				«ENDIF»
 			}
 		«ENDFOR»
 	'''
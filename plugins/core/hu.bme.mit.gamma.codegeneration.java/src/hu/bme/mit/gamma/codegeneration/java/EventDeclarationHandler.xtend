@@ -13,11 +13,14 @@ package hu.bme.mit.gamma.codegeneration.java
 import hu.bme.mit.gamma.statechart.interface_.Event
 import hu.bme.mit.gamma.statechart.interface_.EventDirection
 import hu.bme.mit.gamma.statechart.interface_.Interface
+import hu.bme.mit.gamma.statechart.interface_.Port
 import java.util.Collections
 import java.util.HashSet
 import java.util.Set
 import hu.bme.mit.gamma.expression.model.ParameterDeclaration
 
+import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartModelDerivedFeatures.*
+
 class EventDeclarationHandler {
 	
 	protected final extension TypeTransformer typeTransformer
@@ -35,6 +38,25 @@ class EventDeclarationHandler {
 	
 	def generateName(ParameterDeclaration parameter) '''«parameter.name.toFirstLower»'''
 	
+	/**
+	 * Returns the name of the int constant identifying the given in event of the given port, e.g., Control$start.
+	 * The separator cannot appear in Gamma names and the names are not case-converted, so the constants of
+	 * different port-event pairs do not collide.
+	 */
+	def generateEventCodeName(Port port, Event event) '''«port.name»$«event.name»'''
+	
+	/**
+	 * Returns the declarations of the int constants identifying the in events of the given ports.
+	 */
+	def generateEventCodeDeclarations(Iterable<Port> ports) {
+		val portEvents = ports.map[port | port.inputEvents.map[port -> it]].flatten.toList
+		return '''
+			«FOR i : 0 ..< portEvents.size»
+				public static final int «portEvents.get(i).key.generateEventCodeName(portEvents.get(i).value)» = «i»;
+			«ENDFOR»
+		'''
+	}
+	
 	/** 
 	 * Returns all events of a given interface whose direction is not oppositeDirection.
 	 * The parent interfaces are taken into considerations as well.
@@ -61,6 +61,8 @@ class GlueCodeGenerator {
 	protected final String BASE_PACKAGE_NAME
 	// The base of the package name of the generated Yakindu components, not org.yakindu.scr anymore
 	protected final String YAKINDU_PACKAGE_NAME
+	// Asynchronous adapters without their own threads
+	protected final boolean sharedExecutorAdapters
 	// Auxiliary transformer objects
 	protected final extension TimingDeterminer timingDeterminer = TimingDeterminer.INSTANCE
 	protected final extension TypeDeclarationGenerator typeDeclarationGenerator
@@ -92,8 +94,30 @@ class GlueCodeGenerator {
 	protected BatchTransformationRule<? extends IPatternMatch, ? extends ViatraQueryMatcher<?>> asynchronousCompositeComponentsRule
 	
 	new(ResourceSet resourceSet, String basePackageName, String srcGenFolderUri) {
+		this(resourceSet, basePackageName, srcGenFolderUri, false)
+	}
+	
+	new(ResourceSet resourceSet, String basePackageName, String srcGenFolderUri, boolean intCodedEvents) {
+		this(resourceSet, basePackageName, srcGenFolderUri, intCodedEvents, false)
+	}
+	
+	new(ResourceSet resourceSet, String basePackageName, String srcGenFolderUri, boolean intCodedEvents,
+			boolean timingWheelTimers) {
+		this(resourceSet, basePackageName, srcGenFolderUri, intCodedEvents, timingWheelTimers, false)
+	}
+	
+	/**
+	 * If intCodedEvents is true, statechart wrappers store int-coded events in preallocated ring buffers,
+	 * so raising an event allocates no Event object and the dispatching does not switch on strings.
+	 * If timingWheelTimers is true, the (virtual) timer services are based on hashed timing wheels.
+	 * If sharedExecutorAdapters is true, asynchronous adapters process their queues on a shared executor
+	 * instead of their own threads.
+	 */
+	new(ResourceSet resourceSet, String basePackageName, String srcGenFolderUri, boolean intCodedEvents,
+			boolean timingWheelTimers, boolean sharedExecutorAdapters) {
 		this.BASE_PACKAGE_NAME = basePackageName
 		this.YAKINDU_PACKAGE_NAME = basePackageName
+		this.sharedExecutorAdapters = sharedExecutorAdapters
 		resourceSet.loadModels
 		this.engine = ViatraQueryEngine.on(new EMFScope(resourceSet))
 		this.BASE_FOLDER_URI = srcGenFolderUri
@@ -104,16 +128,16 @@ class GlueCodeGenerator {
 		this.nameGenerator = new NameGenerator(this.BASE_PACKAGE_NAME)
 		this.typeDeclarationGenerator = new TypeDeclarationGenerator(this.BASE_PACKAGE_NAME)
 		this.eventCodeGenerator = new EventCodeGenerator(this.BASE_PACKAGE_NAME)
-		this.virtualTimerServiceCodeGenerator = new VirtualTimerServiceCodeGenerator(this.BASE_PACKAGE_NAME)
+		this.virtualTimerServiceCodeGenerator = new VirtualTimerServiceCodeGenerator(this.BASE_PACKAGE_NAME, timingWheelTimers)
 		this.timerInterfaceGenerator = new TimerInterfaceGenerator(this.BASE_PACKAGE_NAME)
 		this.timerCallbackInterfaceGenerator = new TimerCallbackInterfaceGenerator(this.BASE_PACKAGE_NAME)
-		this.timerServiceCodeGenerator = new TimerServiceCodeGenerator(this.BASE_PACKAGE_NAME)
+		this.timerServiceCodeGenerator = new TimerServiceCodeGenerator(this.BASE_PACKAGE_NAME, timingWheelTimers)
 		this.portInterfaceGenerator  = new PortInterfaceGenerator(this.BASE_PACKAGE_NAME, trace) // Needed, as there is back-annotation here from integers to strings
 		this.componentInterfaceGenerator = new ComponentInterfaceGenerator(this.BASE_PACKAGE_NAME)
 		this.reflectiveComponentCodeGenerator = new ReflectiveComponentCodeGenerator(this.BASE_PACKAGE_NAME, trace)
-		this.statechartWrapperCodeGenerator = new StatechartWrapperCodeGenerator(this.BASE_PACKAGE_NAME, this.YAKINDU_PACKAGE_NAME, trace)
+		this.statechartWrapperCodeGenerator = new StatechartWrapperCodeGenerator(this.BASE_PACKAGE_NAME, this.YAKINDU_PACKAGE_NAME, trace, intCodedEvents)
 		this.synchronousCompositeComponentCodeGenerator = new SynchronousCompositeComponentCodeGenerator(this.BASE_PACKAGE_NAME, this.YAKINDU_PACKAGE_NAME, trace)
-		this.synchronousComponentWrapperCodeGenerator = new AsynchronousAdapterCodeGenerator(this.BASE_PACKAGE_NAME, trace)
+		this.synchronousComponentWrapperCodeGenerator = new AsynchronousAdapterCodeGenerator(this.BASE_PACKAGE_NAME, trace, sharedExecutorAdapters)
 		this.linkedBlockingQueueSourceGenerator = new LinkedBlockingQueueSource(this.BASE_PACKAGE_NAME)
 		this.channelInterfaceGenerator = new ChannelInterfaceGenerator(this.BASE_PACKAGE_NAME)
 		this.channelCodeGenerator = new ChannelCodeGenerator(this.BASE_PACKAGE_NAME)
@@ -159,6 +183,9 @@ class GlueCodeGenerator {
 		getSynchronousCompositeComponentsRule.fireAllCurrent
 		if (hasSynchronousWrapper) {
 			generateLinkedBlockingMultiQueueClasses
+			if (sharedExecutorAdapters) {
+				generateAdapterExecutorClass
+			}
 		}
 		getAsynchronousAdapterRule.fireAllCurrent
 		if (hasAsynchronousComposite) {
@@ -320,6 +347,10 @@ class GlueCodeGenerator {
 		generatePollable.saveCode(compositeSystemUri + File.separator + "Pollable.java")
 	}
 	
+	protected def void generateAdapterExecutorClass() {
+		createAdapterExecutorClass.saveCode(BASE_PACKAGE_URI + File.separator + Namings.ADAPTER_EXECUTOR_CLASS + ".java")
+	}
+	
 	protected def getAsynchronousAdapterRule() {
 		if (synchronousComponentWrapperRule === null) {
 			 synchronousComponentWrapperRule = createRule(SynchronousComponentWrappers.instance).action [
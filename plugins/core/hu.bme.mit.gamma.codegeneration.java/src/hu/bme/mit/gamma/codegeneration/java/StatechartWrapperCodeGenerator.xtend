@@ -17,6 +17,7 @@ import hu.bme.mit.gamma.statechart.interface_.Component
 import hu.bme.mit.gamma.statechart.interface_.Persistency
 import hu.bme.mit.gamma.statechart.interface_.Port
 import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition
+import java.util.Set
 import org.yakindu.base.types.Direction
 import org.yakindu.base.types.Event
 import org.yakindu.base.types.TypedDeclaration
@@ -32,6 +33,8 @@ class StatechartWrapperCodeGenerator {
 
 	protected final String PACKAGE_NAME
 	protected final String YAKINDU_PACKAGE_NAME
+	// Int-coded events in preallocated ring buffers instead of Event objects in linked lists
+	protected final boolean intCodedEvents
 	//
 	protected final extension TimingDeterminer timingDeterminer = TimingDeterminer.INSTANCE
 	protected final extension YakinduDefaultExpressionRetriever yakinduDefaultExpressionRetriever =
@@ -46,10 +49,19 @@ class StatechartWrapperCodeGenerator {
 	protected final String PROCESS_QUEUE = "processQueue"
 	protected final String EVENT_QUEUE = "eventQueue"
 	protected final String EVENT_INSTANCE_NAME = "event"
+	protected final String INT_EVENT_QUEUE_CLASS = "IntEventQueue"
+	protected final int INT_EVENT_QUEUE_CAPACITY = 16 // Must be a power of two
+	// Parameter types stored in the long payload of int-coded events, other ones are stored as references
+	protected final Set<String> INT_EVENT_PAYLOAD_TYPES = #{"int", "boolean", "double"}
 
 	new(String packageName, String yakinduPackageName, Trace trace) {
+		this(packageName, yakinduPackageName, trace, false)
+	}
+	
+	new(String packageName, String yakinduPackageName, Trace trace, boolean intCodedEvents) {
 		this.PACKAGE_NAME = packageName
 		this.YAKINDU_PACKAGE_NAME = yakinduPackageName
+		this.intCodedEvents = intCodedEvents
 		this.trace = trace
 		this.nameGenerator = new NameGenerator(this.PACKAGE_NAME)
 		this.typeTransformer = new TypeTransformer(trace)
@@ -76,8 +88,12 @@ class StatechartWrapperCodeGenerator {
 			private boolean «INSERT_QUEUE» = true;
 			private boolean «PROCESS_QUEUE» = false;
 			// Event queues for the synchronization of statecharts
-			private Queue<«Namings.GAMMA_EVENT_CLASS»> «EVENT_QUEUE»1 = new LinkedList<«Namings.GAMMA_EVENT_CLASS»>();
-			private Queue<«Namings.GAMMA_EVENT_CLASS»> «EVENT_QUEUE»2 = new LinkedList<«Namings.GAMMA_EVENT_CLASS»>();
+			private «component.eventQueueType» «EVENT_QUEUE»1 = new «component.eventQueueImplementationType»();
+			private «component.eventQueueType» «EVENT_QUEUE»2 = new «component.eventQueueImplementationType»();
+			«IF intCodedEvents»
+				// Codes of the in events
+				«component.ports.generateEventCodeDeclarations»
+			«ENDIF»
 			«component.generateParameterDeclarationFields»
 		
 		
@@ -145,7 +161,7 @@ class StatechartWrapperCodeGenerator {
 			}
 			
 			/** Returns the event queue into which events should be put in the particular cycle. */
-			private Queue<«Namings.GAMMA_EVENT_CLASS»> getInsertQueue() {
+			private «component.eventQueueType» getInsertQueue() {
 				if («INSERT_QUEUE») {
 					return «EVENT_QUEUE»1;
 				}
@@ -153,7 +169,7 @@ class StatechartWrapperCodeGenerator {
 			}
 			
 			/** Returns the event queue from which events should be inspected in the particular cycle. */
-			private Queue<«Namings.GAMMA_EVENT_CLASS»> getProcessQueue() {
+			private «component.eventQueueType» getProcessQueue() {
 				if («PROCESS_QUEUE») {
 					return «EVENT_QUEUE»1;
 				}
@@ -177,10 +193,15 @@ class StatechartWrapperCodeGenerator {
 			/** Initiates a cycle run without changing the event queues. It is needed if this component is contained (wrapped) by another component.
 			Should be used only be the container (composite system) class. */
 			public void runComponent() {
-				Queue<«Namings.GAMMA_EVENT_CLASS»> «EVENT_QUEUE» = getProcessQueue();
+				«component.eventQueueType» «EVENT_QUEUE» = getProcessQueue();
 				while (!«EVENT_QUEUE».isEmpty()) {
-						«Namings.GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = «EVENT_QUEUE».remove();
-						switch («EVENT_INSTANCE_NAME».getEvent()) {
+						«IF intCodedEvents»
+							int «EVENT_INSTANCE_NAME» = «EVENT_QUEUE».remove();
+							switch («EVENT_INSTANCE_NAME») {
+						«ELSE»
+							«Namings.GAMMA_EVENT_CLASS» «EVENT_INSTANCE_NAME» = «EVENT_QUEUE».remove();
+							switch («EVENT_INSTANCE_NAME».getEvent()) {
+						«ENDIF»
 							«component.generateEventHandlers()»
 							default:
 								throw new IllegalArgumentException("No such event!");
@@ -298,8 +319,170 @@ class StatechartWrapperCodeGenerator {
 			
 			public void setHandleInternalEvents(boolean handleInternalEvents) {}
 			
+			«IF intCodedEvents»
+				«component.generateIntEventQueueClass»
+			
+			«ENDIF»
 		}
 	'''
+	
+	protected def getEventQueueType(Component component) {
+		if (intCodedEvents) {
+			return INT_EVENT_QUEUE_CLASS
+		}
+		return "Queue<" + Namings.GAMMA_EVENT_CLASS + ">"
+	}
+	
+	protected def getEventQueueImplementationType(Component component) {
+		if (intCodedEvents) {
+			return INT_EVENT_QUEUE_CLASS
+		}
+		return "LinkedList<" + Namings.GAMMA_EVENT_CLASS + ">"
+	}
+	
+	/**
+	 * Generates a ring buffer storing int-coded events and their parameter values in preallocated arrays,
+	 * so raising an event does not allocate (apart from the rare growth of the buffer). Primitive values
+	 * are encoded into longs; the array of references is generated only if other values are needed.
+	 */
+	protected def generateIntEventQueueClass(Component component) {
+		val hasReferences = component.ports.map[it.inputEvents].flatten.exists[!it.primitivePayload]
+		return '''
+			/** Ring buffer of int-coded events. Not thread-safe, just like the event queues of the default mode. */
+			private static class «INT_EVENT_QUEUE_CLASS» {
+				private int[] events = new int[«INT_EVENT_QUEUE_CAPACITY»];
+				private long[] values = new long[«INT_EVENT_QUEUE_CAPACITY»];
+				«IF hasReferences»
+					private Object[] references = new Object[«INT_EVENT_QUEUE_CAPACITY»];
+				«ENDIF»
+				private int head = 0;
+				private int size = 0;
+				// The parameter value of the last removed event
+				private long value = 0;
+				«IF hasReferences»
+					private Object reference = null;
+				«ENDIF»
+				
+				public void add(int event, long value) {
+					if (size == events.length) {
+						grow();
+					}
+					int tail = (head + size) & (events.length - 1);
+					events[tail] = event;
+					values[tail] = value;
+					++size;
+				}
+				«IF hasReferences»
+					
+					public void add(int event, Object reference) {
+						add(event, 0L);
+						references[(head + size - 1) & (events.length - 1)] = reference;
+					}
+				«ENDIF»
+				
+				public int remove() {
+					int event = events[head];
+					value = values[head];
+					«IF hasReferences»
+						reference = references[head];
+						references[head] = null;
+					«ENDIF»
+					head = (head + 1) & (events.length - 1);
+					--size;
+					return event;
+				}
+				
+				public long getValue() {
+					return value;
+				}
+				«IF hasReferences»
+					
+					public Object getReference() {
+						return reference;
+					}
+				«ENDIF»
+				
+				public boolean isEmpty() {
+					return size == 0;
+				}
+				
+				public void clear() {
+					while (size > 0) {
+						remove();
+					}
+					head = 0;
+					value = 0;
+					«IF hasReferences»
+						reference = null;
+					«ENDIF»
+				}
+				
+				private void grow() {
+					int[] newEvents = new int[events.length * 2];
+					long[] newValues = new long[values.length * 2];
+					«IF hasReferences»
+						Object[] newReferences = new Object[references.length * 2];
+					«ENDIF»
+					for (int i = 0; i < size; ++i) {
+						int index = (head + i) & (events.length - 1);
+						newEvents[i] = events[index];
+						newValues[i] = values[index];
+						«IF hasReferences»
+							newReferences[i] = references[index];
+						«ENDIF»
+					}
+					events = newEvents;
+					values = newValues;
+					«IF hasReferences»
+						references = newReferences;
+					«ENDIF»
+					head = 0;
+				}
+			}
+		'''
+	}
+	
+	protected def isPrimitivePayload(hu.bme.mit.gamma.statechart.interface_.Event event) {
+		val parameter = event.parameterDeclarations.head
+		return parameter === null || INT_EVENT_PAYLOAD_TYPES.contains(parameter.type.transformType)
+	}
+	
+	/**
+	 * Returns the parameter value of the given event encoded into the payload of the int-coded event queue.
+	 */
+	protected def encodeArgument(hu.bme.mit.gamma.statechart.interface_.Event event) {
+		val parameter = event.parameterDeclarations.head
+		if (parameter === null) {
+			return "0L"
+		}
+		val name = parameter.generateName
+		switch (parameter.type.transformType) {
+			case "boolean":
+				return name + " ? 1L : 0L"
+			case "double":
+				return "Double.doubleToRawLongBits(" + name + ")"
+			default:
+				return name.toString // Integers and references
+		}
+	}
+	
+	/**
+	 * Returns the parameter value of the given event decoded from the payload of the int-coded event queue.
+	 */
+	protected def decodeArgument(hu.bme.mit.gamma.statechart.interface_.Event event, Event yakinduEvent) {
+		val parameter = event.parameterDeclarations.head
+		val type = (parameter === null) ? null : parameter.type.transformType
+		switch (type) {
+			case "boolean":
+				return EVENT_QUEUE + ".getValue() != 0"
+			case "double":
+				return "Double.longBitsToDouble(" + EVENT_QUEUE + ".getValue())"
+			case "int":
+				return "(int) " + EVENT_QUEUE + ".getValue()"
+			default:
+				return "(" + yakinduEvent.type.eventParameterType.toFirstUpper + ") " + EVENT_QUEUE + ".getReference()"
+		}
+	}
 
 	/**
 	 * Returns the imports needed for the simple component classes.
@@ -328,8 +511,12 @@ class StatechartWrapperCodeGenerator {
 «««		It is done this way, so all Yakindu interfaces mapped to the same Gamma interface can process the same event
 		«FOR port : component.ports»
 			«FOR event : port.inputEvents»
-				case "«port.name.toFirstUpper».«event.name.toFirstUpper»": 
-					«event.toYakinduEvent(port).delegateCall(component, port)»
+				«IF intCodedEvents»
+					case «port.generateEventCodeName(event)»:
+				«ELSE»
+					case "«port.name.toFirstUpper».«event.name.toFirstUpper»": 
+				«ENDIF»
+					«event.toYakinduEvent(port).delegateCall(component, port, event)»
 				break;
 			«ENDFOR»
 		«ENDFOR»
@@ -338,16 +525,17 @@ class StatechartWrapperCodeGenerator {
 	/**
 	 * Generates code raising the Yakindu statechart event "connected" to the given port and component.
 	 */
-	protected def delegateCall(Event event, Component component, Port port) '''
-		«component.generateStatemachineInstanceName».get«port.yakinduInterfaceName»().raise«event.name.toFirstUpper»(«event.castArgument»);
+	protected def delegateCall(Event event, Component component, Port port,
+			hu.bme.mit.gamma.statechart.interface_.Event gammaEvent) '''
+		«component.generateStatemachineInstanceName».get«port.yakinduInterfaceName»().raise«event.name.toFirstUpper»(«event.castArgument(gammaEvent)»);
 	'''
 
 	/**
 	 * Returns a string that contains a cast and the value of the event if needed. E.g., (Long) event.getValue();
 	 */
-	protected def castArgument(Event event) '''
+	protected def castArgument(Event event, hu.bme.mit.gamma.statechart.interface_.Event gammaEvent) '''
 	«IF event.type !== null»
-		(«event.type.eventParameterType.toFirstUpper») «EVENT_INSTANCE_NAME».getValue()[0]«ENDIF»'''
+		«IF intCodedEvents»«gammaEvent.decodeArgument(event)»«ELSE»(«event.type.eventParameterType.toFirstUpper») «EVENT_INSTANCE_NAME».getValue()[0]«ENDIF»«ENDIF»'''
 
 	/**
 	 * Generates methods that for in-event raisings in case of simple components.
@@ -356,7 +544,11 @@ class StatechartWrapperCodeGenerator {
 		«FOR event : port.inputEvents SEPARATOR System.lineSeparator»
 			@Override
 			public void raise«event.name.toFirstUpper»(«event.generateParameters») {
-				getInsertQueue().add(new «Namings.GAMMA_EVENT_CLASS»("«port.name.toFirstUpper».«event.name.toFirstUpper»"«IF event.generateArguments.length != 0», «ENDIF»«event.generateArguments»));
+				«IF intCodedEvents»
+					getInsertQueue().add(«port.generateEventCodeName(event)», «event.encodeArgument»);
+				«ELSE»
+					getInsertQueue().add(new «Namings.GAMMA_EVENT_CLASS»("«port.name.toFirstUpper».«event.name.toFirstUpper»"«IF event.generateArguments.length != 0», «ENDIF»«event.generateArguments»));
+				«ENDIF»
 			}
 		«ENDFOR»
 	'''
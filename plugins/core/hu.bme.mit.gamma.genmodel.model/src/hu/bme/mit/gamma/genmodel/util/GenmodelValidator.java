@@ -11,6 +11,7 @@
 package hu.bme.mit.gamma.genmodel.util;
 
 import java.io.File;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -250,7 +251,25 @@ public class GenmodelValidator extends ExpressionModelValidator {
 					"derivation of the analysis model ('file' setting is not used in the analysis task)",
 						new ReferenceInfo(GenmodelModelPackage.Literals.VERIFICATION__BACK_ANNOTATE_TO_ORIGINAL)));
 		}
-		
+		if (languages.contains(AnalysisLanguage.PORTFOLIO)) {
+			if (!queryFiles.isEmpty()) {
+				validationResultMessages.add(new ValidationResultMessage(ValidationResult.ERROR,
+					"Portfolio verification supports only property models, as queries are serialized for every model checker",
+						new ReferenceInfo(GenmodelModelPackage.Literals.VERIFICATION__QUERY_FILES)));
+			}
+			if (!verification.getVerificationArguments().isEmpty()) {
+				validationResultMessages.add(new ValidationResultMessage(ValidationResult.ERROR,
+					"Portfolio verification supports only the default arguments of the model checkers",
+						new ReferenceInfo(GenmodelModelPackage.Literals.VERIFICATION__VERIFICATION_ARGUMENTS)));
+			}
+		}
+		BigInteger parallelism = verification.getParallelism();
+		if (parallelism != null && parallelism.signum() <= 0) {
+			validationResultMessages.add(new ValidationResultMessage(ValidationResult.ERROR,
+				"The parallelism must be a positive integer",
+					new ReferenceInfo(GenmodelModelPackage.Literals.VERIFICATION__PARALLELISM)));
+		}
+
 		return validationResultMessages;
 	}
 	
@@ -25,6 +25,7 @@ import hu.bme.mit.gamma.statechart.statechart.State
 import hu.bme.mit.gamma.transformation.util.queries.TopSyncSystemInEvents
 import hu.bme.mit.gamma.transformation.util.queries.TopSyncSystemOutEvents
 import hu.bme.mit.gamma.util.Triple
+import java.util.Collection
 import java.util.List
 import org.eclipse.viatra.query.runtime.api.ViatraQueryEngine
 import org.eclipse.viatra.query.runtime.emf.EMFScope
@@ -38,6 +39,12 @@ abstract class AbstractQueryGenerator {
 	protected final Component component
 	protected final ViatraQueryEngine engine
 	
+	// Snapshots of the matches, set by freezeMatches
+	protected Collection<InstanceStates.Match> instanceStateMatches
+	protected Collection<InstanceVariables.Match> instanceVariableMatches
+	protected Collection<TopSyncSystemInEvents.Match> synchronousSystemInEventMatches
+	protected Collection<TopSyncSystemOutEvents.Match> synchronousSystemOutEventMatches
+	
 	new(Component component) {
 		this.component = component
 		val scope = new EMFScope(component.eResource.resourceSet)
@@ -48,6 +55,22 @@ abstract class AbstractQueryGenerator {
 		return component
 	}
 	
+	/**
+	 * Stores the current matches of the queries, so the generator does not access the (non-thread-safe)
+	 * VIATRA engine afterwards and can be used by multiple threads. The model must not be modified
+	 * after this call.
+	 */
+	def void freezeMatches() {
+		instanceStateMatches = InstanceStates.Matcher.on(engine).allMatches.toList
+		instanceVariableMatches = InstanceVariables.Matcher.on(engine).allMatches.toList
+		synchronousSystemInEventMatches = TopSyncSystemInEvents.Matcher.on(engine).allMatches.toList
+		synchronousSystemOutEventMatches = TopSyncSystemOutEvents.Matcher.on(engine).allMatches.toList
+	}
+	
+	def isFrozen() {
+		return instanceStateMatches !== null
+	}
+	
 	def wrap(String id) {
 		return "(" + id + ")"
 	}
@@ -66,7 +89,10 @@ abstract class AbstractQueryGenerator {
 	
 	// Gamma identifiers
 	
-	def getInstanceStates() {
+	def Collection<InstanceStates.Match> getInstanceStates() {
+		if (frozen) {
+			return instanceStateMatches
+		}
 		return InstanceStates.Matcher.on(engine).allMatches
 	}
 	
@@ -86,7 +112,10 @@ abstract class AbstractQueryGenerator {
 		return (instance.name + "." + getFullRegionPathName(parentRegion) + "." + state.name).wrap
 	}
 	
-	def getInstanceVariables() {
+	def Collection<InstanceVariables.Match> getInstanceVariables() {
+		if (frozen) {
+			return instanceVariableMatches
+		}
 		return InstanceVariables.Matcher.on(engine).allMatches
 	}
 	
@@ -103,11 +132,17 @@ abstract class AbstractQueryGenerator {
 		return (instance.name + "." + variable.name).wrap
 	}
 	
-	def getSynchronousSystemInEvents() {
+	def Collection<TopSyncSystemInEvents.Match> getSynchronousSystemInEvents() {
+		if (frozen) {
+			return synchronousSystemInEventMatches
+		}
 		return TopSyncSystemInEvents.Matcher.on(engine).allMatches
 	}
 	
-	def getSynchronousSystemOutEvents() {
+	def Collection<TopSyncSystemOutEvents.Match> getSynchronousSystemOutEvents() {
+		if (frozen) {
+			return synchronousSystemOutEventMatches
+		}
 		return TopSyncSystemOutEvents.Matcher.on(engine).allMatches
 	}
 	
@@ -227,7 +262,11 @@ abstract class AbstractQueryGenerator {
 	
 	protected def String getTargetStateName(String stateName) {
 		val splittedStateName = stateName.unwrap.split("\\.")
-		val matches = InstanceStates.Matcher.on(engine).getAllMatches(null, splittedStateName.get(0),
+		val matches = frozen ? instanceStateMatches.filter[
+					it.instanceName == splittedStateName.get(0) &&
+					it.regionName == splittedStateName.get(splittedStateName.length - 2) &&
+					it.stateName == splittedStateName.get(splittedStateName.length - 1)].toList :
+				InstanceStates.Matcher.on(engine).getAllMatches(null, splittedStateName.get(0),
 				null, splittedStateName.get(splittedStateName.length - 2) /* parent region */,
 				null, splittedStateName.get(splittedStateName.length - 1) /* state */)
 		checkArgument(matches.size == 1, "Not known state: " + stateName)
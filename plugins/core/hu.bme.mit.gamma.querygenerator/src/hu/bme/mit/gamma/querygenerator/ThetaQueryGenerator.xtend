@@ -28,6 +28,7 @@ import hu.bme.mit.gamma.statechart.statechart.Region
 import hu.bme.mit.gamma.statechart.statechart.State
 import hu.bme.mit.gamma.xsts.transformation.util.Namings
 import java.util.List
+import java.util.Map
 
 import static extension hu.bme.mit.gamma.expression.derivedfeatures.ExpressionModelDerivedFeatures.*
 import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartModelDerivedFeatures.*
@@ -36,6 +37,9 @@ import static extension hu.bme.mit.gamma.xsts.transformation.util.Namings.*
 class ThetaQueryGenerator extends AbstractQueryGenerator {
 	//
 	protected final extension ComplexTypeUtil complexTypeUtil = ComplexTypeUtil.INSTANCE
+	// Index for back-annotation, set by buildBackAnnotationIndex
+	protected Map<String, Pair<State, SynchronousComponentInstance>> sourceStates
+	protected Map<String, Pair<VariableDeclaration, SynchronousComponentInstance>> sourceVariables
 	//
 	new(Component component) {
 		super(component)
@@ -97,6 +101,28 @@ class ThetaQueryGenerator extends AbstractQueryGenerator {
 	
 	// Auxiliary methods for back-annotation
 	
+	/**
+	 * Freezes the matches and indexes the target names of states and variables, so the lookups
+	 * of the back-annotation (executed for every line of a trace) take constant time and
+	 * do not access the VIATRA engine, i.e., the generator can be shared by multiple threads.
+	 */
+	def void buildBackAnnotationIndex() {
+		freezeMatches
+		val sourceStates = <String, Pair<State, SynchronousComponentInstance>>newHashMap
+		for (match : instanceStates) {
+			val name = getSingleTargetStateName(match.state, match.parentRegion, match.instance)
+			sourceStates.putIfAbsent(name, new Pair(match.state, match.instance)) // First match as in getSourceState
+		}
+		val sourceVariables = <String, Pair<VariableDeclaration, SynchronousComponentInstance>>newHashMap
+		for (match : instanceVariables) {
+			for (name : getTargetVariableNames(match.variable, match.instance)) {
+				sourceVariables.putIfAbsent(name, new Pair(match.variable, match.instance))
+			}
+		}
+		this.sourceStates = sourceStates
+		this.sourceVariables = sourceVariables
+	}
+	
 	// Checkers
 	
 	def isSourceState(String targetStateName) {
@@ -212,6 +238,13 @@ class ThetaQueryGenerator extends AbstractQueryGenerator {
 	// Getters
 	
 	def getSourceState(String targetStateName) {
+		if (sourceStates !== null) {
+			val sourceState = sourceStates.get(targetStateName)
+			if (sourceState === null) {
+				throw new IllegalArgumentException("Not known id")
+			}
+			return sourceState
+		}
 		for (match : instanceStates) {
 			val name = getSingleTargetStateName(match.state, match.parentRegion, match.instance)
 			if (name.equals(targetStateName)) {
@@ -222,6 +255,13 @@ class ThetaQueryGenerator extends AbstractQueryGenerator {
 	}
 	
 	def getSourceVariable(String targetVariableName) {
+		if (sourceVariables !== null) {
+			val sourceVariable = sourceVariables.get(targetVariableName)
+			if (sourceVariable === null) {
+				throw new IllegalArgumentException("Not known id")
+			}
+			return sourceVariable
+		}
 		for (match : instanceVariables) {
 			val names = getTargetVariableNames(match.variable, match.instance)
 			if (names.contains(targetVariableName)) {
@@ -32,29 +32,37 @@ class StatechartContractToTraceTransformer {
 	}
 	
 	def execute(StatechartDefinition statechart, boolean addReset) {
-		val paths = newArrayList
-		for (topRegion : statechart.regions) {
-			paths += topRegion.retrievePaths
-		}
+		return execute(statechart, addReset, 0, 0)
+	}
+	
+	/**
+	 * Transforms the loopless paths of the statechart into traces while the paths are enumerated,
+	 * so the paths are not stored. Non-positive limits denote unlimited path length and trace count.
+	 */
+	def execute(StatechartDefinition statechart, boolean addReset, int maxDepth, int maxCount) {
 		val traces = newArrayList
-		for (path : paths) {
-			val trace = createExecutionTrace => [
-				it.import = statechart.containingPackage
-				it.component = statechart
-				// Not adding arguments
-			]
-			traces += trace
-			val steps = trace.steps
-			for (transition : path.transitions) {
-				steps += transition.execute
-			}
-			// Putting out-events after the scheduling step
-			steps.mergeSteps
-			// Adding reset in the first step if necessary
-			if (addReset) {
-				if (!steps.empty) {
-					val firstStep = steps.head
-					firstStep.actions.add(0, createReset)
+		for (topRegion : statechart.regions) {
+			val paths = topRegion.iteratePaths(maxDepth)
+			while (paths.hasNext && (maxCount <= 0 || traces.size < maxCount)) {
+				val path = paths.next
+				val trace = createExecutionTrace => [
+					it.import = statechart.containingPackage
+					it.component = statechart
+					// Not adding arguments
+				]
+				traces += trace
+				val steps = trace.steps
+				for (transition : path.transitions) {
+					steps += transition.execute
+				}
+				// Putting out-events after the scheduling step
+				steps.mergeSteps
+				// Adding reset in the first step if necessary
+				if (addReset) {
+					if (!steps.empty) {
+						val firstStep = steps.head
+						firstStep.actions.add(0, createReset)
+					}
 				}
 			}
 		}
@@ -2189,13 +2189,17 @@ public class StatechartModelDerivedFeatures extends ActionModelDerivedFeatures {
 	
 	public static List<Transition> getOutgoingTransitions(StateNode node) {
 		StatechartDefinition statechart = getContainingStatechart(node);
+		StatechartTopologyIndex index = StatechartTopologyIndex.getIndex(statechart);
+		if (index != null) {
+			return index.getOutgoingTransitions(node);
+		}
 		return statechart.getTransitions().stream().filter(it -> it.getSourceState() == node)
 				.collect(Collectors.toList());
 	}
 	
 	public static List<Transition> getAllOutgoingTransitions(StateNode node) {
-		List<StateNode> allStateNodes = ecoreUtil
-				.getSelfAndAllContentsOfType(node, StateNode.class);
+		Set<StateNode> allStateNodes = new HashSet<StateNode>(ecoreUtil
+				.getSelfAndAllContentsOfType(node, StateNode.class));
 		StatechartDefinition statechart = getContainingStatechart(node);
 		return statechart.getTransitions().stream()
 				.filter(it -> allStateNodes.contains(it.getSourceState()))
@@ -2219,13 +2223,17 @@ public class StatechartModelDerivedFeatures extends ActionModelDerivedFeatures {
 	
 	public static List<Transition> getIncomingTransitions(StateNode node) {
 		StatechartDefinition statechart = getContainingStatechart(node);
+		StatechartTopologyIndex index = StatechartTopologyIndex.getIndex(statechart);
+		if (index != null) {
+			return index.getIncomingTransitions(node);
+		}
 		return statechart.getTransitions().stream().filter(it -> it.getTargetState() == node)
 				.collect(Collectors.toList());
 	}
 	
 	public static List<Transition> getAllIncomingTransitions(StateNode node) {
-		List<StateNode> allStateNodes = ecoreUtil
-				.getSelfAndAllContentsOfType(node, StateNode.class);
+		Set<StateNode> allStateNodes = new HashSet<StateNode>(ecoreUtil
+				.getSelfAndAllContentsOfType(node, StateNode.class));
 		StatechartDefinition statechart = getContainingStatechart(node);
 		return statechart.getTransitions().stream()
 				.filter(it -> allStateNodes.contains(it.getTargetState()))
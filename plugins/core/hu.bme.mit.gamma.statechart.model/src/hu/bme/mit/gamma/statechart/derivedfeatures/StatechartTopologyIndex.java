@@ -0,0 +1,203 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.statechart.derivedfeatures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import hu.bme.mit.gamma.statechart.statechart.StateNode;
+import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition;
+import hu.bme.mit.gamma.statechart.statechart.StatechartModelPackage;
+import hu.bme.mit.gamma.statechart.statechart.Transition;
+
+/**
+ * Lazily built index of the outgoing and incoming transitions of the state nodes of a statechart,
+ * so topology queries do not have to filter every transition of the statechart.
+ * The index is attached to the statechart (and its transitions) as an adapter and is invalidated
+ * if a transition is added or removed, or its source or target is changed; it is rebuilt by the
+ * next query.
+ */
+public class StatechartTopologyIndex extends AdapterImpl {
+	
+	private final StatechartDefinition statechart;
+	
+	private volatile Topology topology;
+	
+	private StatechartTopologyIndex(StatechartDefinition statechart) {
+		this.statechart = statechart;
+	}
+	
+	/**
+	 * Returns the index of the statechart, or null if the statechart does not deliver notifications,
+	 * in which case the index could not be kept up to date.
+	 */
+	public static StatechartTopologyIndex getIndex(StatechartDefinition statechart) {
+		if (!statechart.eDeliver()) {
+			return null;
+		}
+		synchronized (statechart) {
+			StatechartTopologyIndex index = (StatechartTopologyIndex) EcoreUtil.getExistingAdapter(
+					statechart, StatechartTopologyIndex.class);
+			if (index == null) {
+				index = new StatechartTopologyIndex(statechart);
+				statechart.eAdapters().add(index);
+				for (Transition transition : statechart.getTransitions()) {
+					transition.eAdapters().add(index);
+				}
+			}
+			return index;
+		}
+	}
+	
+	//
+	
+	public List<Transition> getOutgoingTransitions(StateNode node) {
+		return getTopology().getOutgoingTransitions(node);
+	}
+	
+	public List<Transition> getIncomingTransitions(StateNode node) {
+		return getTopology().getIncomingTransitions(node);
+	}
+	
+	//
+	
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == StatechartTopologyIndex.class;
+	}
+	
+	@Override
+	public void notifyChanged(Notification notification) {
+		if (notification.isTouch() || notification.getEventType() == Notification.RESOLVE) {
+			return;
+		}
+		Object feature = notification.getFeature();
+		if (feature == StatechartModelPackage.Literals.STATECHART_DEFINITION__TRANSITIONS) {
+			// Following the added and removed transitions
+			switch (notification.getEventType()) {
+				case Notification.ADD:
+				case Notification.SET:
+					addAdapter(notification.getNewValue());
+					removeAdapter(notification.getOldValue());
+					break;
+				case Notification.ADD_MANY:
+					addAdapters(notification.getNewValue());
+					break;
+				case Notification.REMOVE:
+					removeAdapter(notification.getOldValue());
+					break;
+				case Notification.REMOVE_MANY:
+					removeAdapters(notification.getOldValue());
+					break;
+			}
+			invalidate();
+		}
+		else if (feature == StatechartModelPackage.Literals.TRANSITION__SOURCE_STATE ||
+				feature == StatechartModelPackage.Literals.TRANSITION__TARGET_STATE) {
+			invalidate();
+		}
+	}
+	
+	public void invalidate() {
+		topology = null;
+	}
+	
+	//
+	
+	private Topology getTopology() {
+		Topology topology = this.topology;
+		if (topology == null) {
+			synchronized (this) {
+				topology = this.topology;
+				if (topology == null) {
+					topology = new Topology(statechart);
+					this.topology = topology;
+				}
+			}
+		}
+		return topology;
+	}
+	
+	private void addAdapter(Object object) {
+		if (object instanceof Notifier notifier && !notifier.eAdapters().contains(this)) {
+			notifier.eAdapters().add(this);
+		}
+	}
+	
+	private void removeAdapter(Object object) {
+		if (object instanceof Notifier notifier) {
+			notifier.eAdapters().remove(this);
+		}
+	}
+	
+	private void addAdapters(Object objects) {
+		if (objects instanceof List<?> list) {
+			for (Object object : list) {
+				addAdapter(object);
+			}
+		}
+	}
+	
+	private void removeAdapters(Object objects) {
+		if (objects instanceof List<?> list) {
+			for (Object object : list) {
+				removeAdapter(object);
+			}
+		}
+	}
+	
+	//
+	
+	private static class Topology {
+		
+		private final Map<StateNode, List<Transition>> outgoingTransitions =
+				new HashMap<StateNode, List<Transition>>();
+		private final Map<StateNode, List<Transition>> incomingTransitions =
+				new HashMap<StateNode, List<Transition>>();
+		
+		private Topology(StatechartDefinition statechart) {
+			// The order of the transitions in the statechart is kept
+			for (Transition transition : statechart.getTransitions()) {
+				StateNode source = transition.getSourceState();
+				outgoingTransitions.computeIfAbsent(source, it -> new ArrayList<Transition>())
+						.add(transition);
+				StateNode target = transition.getTargetState();
+				incomingTransitions.computeIfAbsent(target, it -> new ArrayList<Transition>())
+						.add(transition);
+			}
+		}
+		
+		private List<Transition> getOutgoingTransitions(StateNode node) {
+			return copy(outgoingTransitions.get(node));
+		}
+		
+		private List<Transition> getIncomingTransitions(StateNode node) {
+			return copy(incomingTransitions.get(node));
+		}
+		
+		private List<Transition> copy(List<Transition> transitions) {
+			// Callers are allowed to modify the returned lists
+			if (transitions == null) {
+				return new ArrayList<Transition>();
+			}
+			return new ArrayList<Transition>(transitions);
+		}
+		
+	}
+	
+}
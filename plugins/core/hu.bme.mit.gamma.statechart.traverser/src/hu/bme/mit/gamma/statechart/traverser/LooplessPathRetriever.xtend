@@ -1,5 +1,5 @@
 /********************************************************************************
- * Copyright (c) 2018-2020 Contributors to the Gamma project
+ * Copyright (c) 2018-2024 Contributors to the Gamma project
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,9 +12,20 @@ package hu.bme.mit.gamma.statechart.traverser
 
 import hu.bme.mit.gamma.statechart.statechart.Region
 import hu.bme.mit.gamma.statechart.statechart.StateNode
+import hu.bme.mit.gamma.statechart.statechart.Transition
+import java.util.ArrayDeque
 import java.util.Collection
+import java.util.Iterator
+import java.util.NoSuchElementException
+import java.util.Queue
+import java.util.Set
+import java.util.Spliterator
+import java.util.Spliterators
 import java.util.logging.Level
 import java.util.logging.Logger
+import java.util.stream.Collectors
+import java.util.stream.Stream
+import java.util.stream.StreamSupport
 
 import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartModelDerivedFeatures.*
 
@@ -23,47 +34,97 @@ class LooplessPathRetriever {
 	val logger = Logger.getLogger("GammaLogger")
 	
 	def Collection<Path> retrievePaths(Region region) {
-		var entryState = region.entryState
+		return region.streamPaths(0, 0).collect(Collectors.toList)
+	}
+	
+	/**
+	 * Returns the loopless paths that start and end in one of the first active states of the region.
+	 * The paths are enumerated lazily; non-positive limits denote unlimited depth and count.
+	 */
+	def Stream<Path> streamPaths(Region region, int maxDepth, long maxCount) {
+		val paths = region.iteratePaths(maxDepth)
+		val stream = StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(paths, Spliterator.ORDERED.bitwiseOr(Spliterator.NONNULL)), false)
+		return (maxCount > 0) ? stream.limit(maxCount) : stream
+	}
+	
+	def Iterator<Path> iteratePaths(Region region, int maxDepth) {
+		val entryState = region.entryState
 		val firstActiveStates = entryState.reachableStates
-		val pathsUnderExamination = newArrayList
-		val finalPaths = newArrayList
-		for (firstActiveState : firstActiveStates) {
-			val visitedStates = <StateNode>newHashSet(firstActiveState)
-			// Looking for loops resulting in the respective first active states (separately)
-			for (firstOutgoingTransition : firstActiveState.outgoingTransitions) {
-				pathsUnderExamination += new Path(firstOutgoingTransition)
-				while (!pathsUnderExamination.empty) {
-					// Copying the paths under examination so that an exception is not thrown
-					val copiedPathsUnderExamination = newArrayList
-					copiedPathsUnderExamination += pathsUnderExamination
-					for (pathUnderExamination : copiedPathsUnderExamination) {
-						// Removing the path from the queue
-						pathsUnderExamination -= pathUnderExamination
-						val targetState = pathUnderExamination.last.targetState
-						if (targetState === firstActiveState) {
-							// Found a loop
-							finalPaths += pathUnderExamination
-						}
-						else if (visitedStates.contains(targetState)) {
-							// We found a loop that does not end in the first active state
-							logger.log(Level.INFO, "Found a circle: " + pathUnderExamination)
-						}
-						else {
-							for (outgoingTransition : targetState.outgoingTransitions) {
-								val extendedPath = new Path(pathUnderExamination)
-								// Extending with one new transition
-								extendedPath.extend(outgoingTransition)
-								// Putting it into the queue
-								pathsUnderExamination += extendedPath
-								// Store visited state
-								visitedStates += targetState
-							}
-						}
+		// Looking for loops resulting in the respective first active states (separately)
+		return firstActiveStates.iterator.map[new LooplessPathIterator(it, maxDepth, logger) as Iterator<Path>]
+				.flatten
+	}
+	
+	/**
+	 * Breadth-first enumeration of the paths leading back to the first active state. The visited states
+	 * are shared by the paths starting with the different outgoing transitions of the first active state,
+	 * so every state is expanded at most once per outgoing transition and only the paths of the current
+	 * and next depths are stored in the queue.
+	 */
+	static class LooplessPathIterator implements Iterator<Path> {
+		
+		final StateNode firstActiveState
+		final int maxDepth
+		final Logger logger
+		
+		final Iterator<Transition> firstOutgoingTransitions
+		final Set<StateNode> visitedStates = newHashSet
+		final Queue<Path> pathsUnderExamination = new ArrayDeque
+		Path nextPath = null
+		
+		new(StateNode firstActiveState, int maxDepth, Logger logger) {
+			this.firstActiveState = firstActiveState
+			this.maxDepth = maxDepth
+			this.logger = logger
+			this.firstOutgoingTransitions = firstActiveState.outgoingTransitions.iterator
+			visitedStates += firstActiveState
+		}
+		
+		override hasNext() {
+			if (nextPath === null) {
+				nextPath = findNext
+			}
+			return nextPath !== null
+		}
+		
+		override next() {
+			if (!hasNext) {
+				throw new NoSuchElementException
+			}
+			val path = nextPath
+			nextPath = null
+			return path
+		}
+		
+		protected def Path findNext() {
+			while (!pathsUnderExamination.empty || firstOutgoingTransitions.hasNext) {
+				if (pathsUnderExamination.empty) {
+					pathsUnderExamination += new Path(firstOutgoingTransitions.next)
+				}
+				val path = pathsUnderExamination.poll
+				val targetState = path.last.targetState
+				if (targetState === firstActiveState) {
+					// Found a loop
+					return path
+				}
+				if (visitedStates.contains(targetState)) {
+					// We found a loop that does not end in the first active state
+					logger.log(Level.FINE, "Found a circle: " + path)
+				}
+				else if (maxDepth <= 0 || path.size < maxDepth) {
+					val outgoingTransitions = targetState.outgoingTransitions
+					for (outgoingTransition : outgoingTransitions) {
+						pathsUnderExamination += path.extend(outgoingTransition)
+					}
+					if (!outgoingTransitions.empty) {
+						visitedStates += targetState
 					}
 				}
 			}
+			return null
 		}
-		return finalPaths
+		
 	}
 	
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /********************************************************************************
- * Copyright (c) 2018-2020 Contributors to the Gamma project
+ * Copyright (c) 2018-2024 Contributors to the Gamma project
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,36 +13,61 @@ package hu.bme.mit.gamma.statechart.traverser
 import hu.bme.mit.gamma.statechart.statechart.Transition
 import java.util.List
 
+/**
+ * Immutable path of transitions: extended paths share their prefix with the original one.
+ */
 class Path {
 	
-	List<Transition> transitions = newArrayList
+	final Path prefix // Null in the case of the first transition
+	final Transition lastTransition
+	final int transitionCount
 	
 	new(Transition transition) {
-		this.transitions += transition
+		this(null, transition)
 	}
 	
 	new(List<Transition> transitions) {
-		this.transitions += transitions
+		this((transitions.size > 1) ? new Path(transitions.subList(0, transitions.size - 1)) : null,
+			transitions.last)
 	}
 	
 	new(Path path) {
-		this.transitions += path.getTransitions
+		this(path.prefix, path.lastTransition) // The prefix can be shared as paths are immutable
+	}
+	
+	protected new(Path prefix, Transition transition) {
+		this.prefix = prefix
+		this.lastTransition = transition
+		this.transitionCount = (prefix === null) ? 1 : prefix.transitionCount + 1
 	}
 	
 	def last() {
-		return transitions.last
+		return lastTransition
+	}
+	
+	def size() {
+		return transitionCount
 	}
 	
+	/**
+	 * Returns a new path extended with the transition; this path is not modified.
+	 */
 	def extend(Transition transition) {
-		transitions += transition
+		return new Path(this, transition)
 	}
 	
-	def getTransitions() {
-		return transitions
+	def List<Transition> getTransitions() {
+		val transitions = <Transition>newArrayList
+		var path = this
+		while (path !== null) {
+			transitions += path.lastTransition
+			path = path.prefix
+		}
+		return transitions.reverse
 	}
 	
 	override toString() '''
-		«IF !transitions.empty»«transitions.head.sourceState.name»«ENDIF»«FOR transition : transitions» -> «transition.targetState.name»«ENDFOR»
+		«transitions.head.sourceState.name»«FOR transition : transitions» -> «transition.targetState.name»«ENDFOR»
 	'''
 	
 }
\ No newline at end of file
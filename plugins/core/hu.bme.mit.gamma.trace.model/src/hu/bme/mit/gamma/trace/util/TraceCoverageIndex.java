@@ -0,0 +1,174 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.trace.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import hu.bme.mit.gamma.trace.model.Act;
+import hu.bme.mit.gamma.trace.model.Step;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+
+/**
+ * Prefix trie of step lists, in which the steps are keyed by the hash-indexed set of their actions.
+ * Checking whether a step list is covered by (the prefix of) an indexed step list in the sense of
+ * {@link TraceUtil#isCovered(List, List)} is a lookup instead of the pairwise comparison of the steps.
+ */
+public class TraceCoverageIndex<T> {
+	
+	private final Node<T> root = new Node<T>();
+	
+	protected static final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+	
+	public void add(T owner, List<Step> steps) {
+		Node<T> node = root;
+		node.owners.add(owner);
+		for (Step step : steps) {
+			node = node.children.computeIfAbsent(new StepKey(step), it -> new Node<T>());
+			node.owners.add(owner);
+		}
+	}
+	
+	/**
+	 * Returns the owners of the indexed step lists that cover the given step list.
+	 */
+	public Set<T> getCoveringOwners(List<Step> steps) {
+		List<Node<T>> nodes = List.of(root);
+		for (Step step : steps) {
+			StepKey key = new StepKey(step);
+			List<Node<T>> nextNodes = new ArrayList<Node<T>>();
+			for (Node<T> node : nodes) {
+				if (key.hasRepeatedActs()) {
+					// Covering steps can contain these acts in other multiplicities
+					for (Entry<StepKey, Node<T>> child : node.children.entrySet()) {
+						if (key.isCoveredBy(child.getKey())) {
+							nextNodes.add(child.getValue());
+						}
+					}
+				}
+				else {
+					// With no repeated acts, only a step with the same set of acts covers this one
+					Node<T> child = node.children.get(key);
+					if (child != null) {
+						nextNodes.add(child);
+					}
+				}
+			}
+			if (nextNodes.isEmpty()) {
+				return Collections.emptySet();
+			}
+			nodes = nextNodes;
+		}
+		if (nodes.size() == 1) {
+			return Collections.unmodifiableSet(nodes.get(0).owners);
+		}
+		Set<T> owners = new LinkedHashSet<T>();
+		for (Node<T> node : nodes) {
+			owners.addAll(node.owners);
+		}
+		return owners;
+	}
+	
+	public boolean isCovered(List<Step> steps) {
+		return !getCoveringOwners(steps).isEmpty();
+	}
+	
+	//
+	
+	private static class Node<T> {
+		
+		private final Set<T> owners = new LinkedHashSet<T>(); // Owners of the step lists going through
+		private final Map<StepKey, Node<T>> children = new HashMap<StepKey, Node<T>>();
+		
+	}
+	
+	/**
+	 * The number and the set of acts of a step: a step is covered by another one if they have the same
+	 * number of acts and the acts of the former are contained by the latter.
+	 */
+	protected static class StepKey {
+		
+		private final int actCount;
+		private final Set<ActKey> acts = new HashSet<ActKey>();
+		
+		public StepKey(Step step) {
+			List<Act> actions = step.getActions();
+			this.actCount = actions.size();
+			for (Act act : actions) {
+				acts.add(new ActKey(act));
+			}
+		}
+		
+		public boolean hasRepeatedActs() {
+			return acts.size() < actCount;
+		}
+		
+		public boolean isCoveredBy(StepKey covering) {
+			return actCount == covering.actCount && covering.acts.containsAll(acts);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * actCount + acts.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (object instanceof StepKey key) {
+				return actCount == key.actCount && acts.equals(key.acts);
+			}
+			return false;
+		}
+		
+	}
+	
+	/**
+	 * Act with a structural hash code and equality, the same as in {@link TraceUtil#isCovered(Step, Step)}.
+	 */
+	protected static class ActKey {
+		
+		private final Act act;
+		private final int hashCode;
+		
+		public ActKey(Act act) {
+			this.act = act;
+			this.hashCode = ecoreUtil.helperHashCode(act);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (object instanceof ActKey key) {
+				return hashCode == key.hashCode && ecoreUtil.helperEquals(act, key.act);
+			}
+			return false;
+		}
+		
+	}
+	
+}
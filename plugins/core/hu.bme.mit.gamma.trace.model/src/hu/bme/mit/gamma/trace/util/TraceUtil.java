@@ -13,8 +13,11 @@ package hu.bme.mit.gamma.trace.util;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -188,23 +191,9 @@ public class TraceUtil extends StatechartUtil {
 	// Trace coverage
 	
 	public void removeCoveredExecutionTraces(List<ExecutionTrace> traces) {
-		for (int i = 0; i < traces.size() - 1; ++i) {
-			ExecutionTrace lhs = traces.get(i);
-			boolean isLhsDeleted = false;
-			for (int j = i + 1; j < traces.size() && !isLhsDeleted; ++j) {
-				ExecutionTrace rhs = traces.get(j);
-				if (isCovered(rhs, lhs)) {
-					traces.remove(j);
-					--j;
-				}
-				else if (isCovered(lhs, rhs)) {
-					// Else is important, as it is possible that both cover the other one
-					isLhsDeleted = true;
-					traces.remove(i);
-					--i;
-				}
-			}
-		}
+		Set<Integer> coveredIndexes = getCoveredIndexes(traces,
+				it -> it.getSteps(), it -> identifySeparateTracesByReset(it));
+		removeIndexes(traces, coveredIndexes);
 	}
 	
 	public void removeCoveredSteps(ExecutionTrace trace) {
@@ -232,34 +221,87 @@ public class TraceUtil extends StatechartUtil {
 	}
 	
 	public void removeCoveredStepLists(List<List<Step>> traces) {
-		for (int i = 0; i < traces.size() - 1; ++i) {
-			List<Step> lhs = traces.get(i);
-			boolean isLhsDeleted = false;
-			for (int j = i + 1; j < traces.size() && !isLhsDeleted; ++j) {
-				List<Step> rhs = traces.get(j);
-				if (isCovered(rhs, lhs)) {
-					traces.remove(j);
-					EcoreUtil.removeAll(rhs);
-					--j;
+		Set<Integer> coveredIndexes = getCoveredIndexes(traces, it -> it, it -> List.of(it));
+		for (Integer coveredIndex : coveredIndexes) {
+			EcoreUtil.removeAll(traces.get(coveredIndex));
+		}
+		removeIndexes(traces, coveredIndexes);
+	}
+	
+	/**
+	 * Returns the indexes of the elements whose steps are covered by the steps of another element.
+	 * Of elements covering each other, only the first one is kept, and every returned element is covered
+	 * by an element that is not returned. The coverage is checked using a prefix trie.
+	 */
+	protected <T> Set<Integer> getCoveredIndexes(List<T> elements, Function<T, List<Step>> coveredSteps,
+			Function<T, List<List<Step>>> coveringStepLists) {
+		TraceCoverageIndex<Integer> index = new TraceCoverageIndex<Integer>();
+		for (int i = 0; i < elements.size(); i++) {
+			for (List<Step> steps : coveringStepLists.apply(elements.get(i))) {
+				index.add(i, steps);
+			}
+		}
+		List<Set<Integer>> coveringIndexes = new ArrayList<Set<Integer>>();
+		for (T element : elements) {
+			coveringIndexes.add(index.getCoveringOwners(coveredSteps.apply(element)));
+		}
+		
+		Set<Integer> coveredIndexes = new LinkedHashSet<Integer>();
+		for (int i = 0; i < elements.size(); i++) {
+			for (int j : coveringIndexes.get(i)) {
+				// Either strictly covered or covered by a preceding equivalent one
+				if (j != i && (j < i || !coveringIndexes.get(j).contains(i))) {
+					coveredIndexes.add(i);
+					break;
 				}
-				else if (isCovered(lhs, rhs)) {
-					// Else is important, as it is possible that both cover the other one
-					isLhsDeleted = true;
-					traces.remove(i);
-					EcoreUtil.removeAll(lhs);
-					--i;
+			}
+		}
+		// The coverage of reset-separated step lists is not necessarily transitive,
+		// so elements covered only by removed elements are kept
+		boolean isChanged = true;
+		while (isChanged) {
+			isChanged = false;
+			for (Iterator<Integer> iterator = coveredIndexes.iterator(); iterator.hasNext(); ) {
+				int i = iterator.next();
+				boolean isCoveredByKept = coveringIndexes.get(i).stream()
+						.anyMatch(j -> j != i && !coveredIndexes.contains(j));
+				if (!isCoveredByKept) {
+					iterator.remove();
+					isChanged = true;
 				}
 			}
 		}
+		return coveredIndexes;
 	}
 	
-	public boolean isCovered(ExecutionTrace covered, List<ExecutionTrace> covering) {
-		for (ExecutionTrace coveringTrace : covering) {
-			if (isCovered(covered, coveringTrace)) {
-				return true;
+	private void removeIndexes(List<?> elements, Set<Integer> indexes) {
+		for (int i = elements.size() - 1; i >= 0; i--) {
+			if (indexes.contains(i)) {
+				elements.remove(i);
 			}
 		}
-		return false;
+	}
+	
+	public boolean isCovered(ExecutionTrace covered, List<ExecutionTrace> covering) {
+		return isCovered(covered, createCoverageIndex(covering));
+	}
+	
+	public boolean isCovered(ExecutionTrace covered, TraceCoverageIndex<ExecutionTrace> covering) {
+		return covering.isCovered(covered.getSteps());
+	}
+	
+	public TraceCoverageIndex<ExecutionTrace> createCoverageIndex(Collection<ExecutionTrace> traces) {
+		TraceCoverageIndex<ExecutionTrace> index = new TraceCoverageIndex<ExecutionTrace>();
+		for (ExecutionTrace trace : traces) {
+			addToCoverageIndex(index, trace);
+		}
+		return index;
+	}
+	
+	public void addToCoverageIndex(TraceCoverageIndex<ExecutionTrace> index, ExecutionTrace trace) {
+		for (List<Step> steps : identifySeparateTracesByReset(trace)) {
+			index.add(trace, steps);
+		}
 	}
 	
 	public boolean isCovered(ExecutionTrace covered, ExecutionTrace covering) {
@@ -23,6 +23,7 @@ import hu.bme.mit.gamma.statechart.interface_.Component
 import hu.bme.mit.gamma.statechart.interface_.EventParameterReferenceExpression
 import hu.bme.mit.gamma.trace.model.RaiseEventAct
 import hu.bme.mit.gamma.util.GammaEcoreUtil
+import java.util.List
 
 import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartModelDerivedFeatures.*
 
@@ -92,7 +93,16 @@ class ExpressionSerializer extends hu.bme.mit.gamma.codegeneration.java.util.Exp
 	
 	
 	protected def getFullContainmentHierarchy(ComponentInstanceReferenceExpression instanceReference) {
-		val instanceNames = newArrayList
+		val instanceNames = instanceReference.instanceNames
+		return '''«FOR instanceName : instanceNames SEPARATOR '.'»getComponent("«instanceName»")«ENDFOR»'''
+	}
+	
+	/**
+	 * Returns the names to be passed to the getComponent calls of the reflective classes
+	 * to reach the referenced instance from the tested component.
+	 */
+	def List<String> getInstanceNames(ComponentInstanceReferenceExpression instanceReference) {
+		val List<String> instanceNames = newArrayList
 		if (instanceReference !== null) {
 			val instances = instanceReference.componentInstanceChain
 			if (component.unfolded) {
@@ -119,7 +129,7 @@ class ExpressionSerializer extends hu.bme.mit.gamma.codegeneration.java.util.Exp
 				instanceNames += instances.map[it.name]
 			}
 		}
-		return '''«FOR instanceName : instanceNames SEPARATOR '.'»getComponent("«instanceName»")«ENDFOR»'''
+		return instanceNames
 	}
 	
 }
@@ -0,0 +1,754 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.trace.testgeneration.java
+
+import hu.bme.mit.gamma.expression.model.AddExpression
+import hu.bme.mit.gamma.expression.model.AndExpression
+import hu.bme.mit.gamma.expression.model.ArrayAccessExpression
+import hu.bme.mit.gamma.expression.model.ArrayLiteralExpression
+import hu.bme.mit.gamma.expression.model.ConstantDeclaration
+import hu.bme.mit.gamma.expression.model.DecimalLiteralExpression
+import hu.bme.mit.gamma.expression.model.Declaration
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression
+import hu.bme.mit.gamma.expression.model.DivideExpression
+import hu.bme.mit.gamma.expression.model.EnumerationLiteralExpression
+import hu.bme.mit.gamma.expression.model.EqualityExpression
+import hu.bme.mit.gamma.expression.model.Expression
+import hu.bme.mit.gamma.expression.model.FalseExpression
+import hu.bme.mit.gamma.expression.model.GreaterEqualExpression
+import hu.bme.mit.gamma.expression.model.GreaterExpression
+import hu.bme.mit.gamma.expression.model.IfThenElseExpression
+import hu.bme.mit.gamma.expression.model.ImplyExpression
+import hu.bme.mit.gamma.expression.model.InequalityExpression
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression
+import hu.bme.mit.gamma.expression.model.IntegerTypeDefinition
+import hu.bme.mit.gamma.expression.model.LessEqualExpression
+import hu.bme.mit.gamma.expression.model.LessExpression
+import hu.bme.mit.gamma.expression.model.ModExpression
+import hu.bme.mit.gamma.expression.model.MultiplyExpression
+import hu.bme.mit.gamma.expression.model.NotExpression
+import hu.bme.mit.gamma.expression.model.OrExpression
+import hu.bme.mit.gamma.expression.model.RationalLiteralExpression
+import hu.bme.mit.gamma.expression.model.RecordLiteralExpression
+import hu.bme.mit.gamma.expression.model.SubtractExpression
+import hu.bme.mit.gamma.expression.model.TrueExpression
+import hu.bme.mit.gamma.expression.model.UnaryMinusExpression
+import hu.bme.mit.gamma.expression.model.UnaryPlusExpression
+import hu.bme.mit.gamma.expression.model.XorExpression
+import hu.bme.mit.gamma.expression.util.ExpressionEvaluator
+import hu.bme.mit.gamma.statechart.composite.ComponentInstanceReferenceExpression
+import hu.bme.mit.gamma.statechart.composite.ComponentInstanceStateReferenceExpression
+import hu.bme.mit.gamma.statechart.composite.ComponentInstanceVariableReferenceExpression
+import hu.bme.mit.gamma.statechart.interface_.Component
+import hu.bme.mit.gamma.statechart.interface_.EventParameterReferenceExpression
+import hu.bme.mit.gamma.statechart.interface_.Package
+import hu.bme.mit.gamma.trace.model.Act
+import hu.bme.mit.gamma.trace.model.AssignmentAct
+import hu.bme.mit.gamma.trace.model.ComponentSchedule
+import hu.bme.mit.gamma.trace.model.ExecutionTrace
+import hu.bme.mit.gamma.trace.model.InstanceSchedule
+import hu.bme.mit.gamma.trace.model.RaiseEventAct
+import hu.bme.mit.gamma.trace.model.Reset
+import hu.bme.mit.gamma.trace.model.Step
+import hu.bme.mit.gamma.trace.model.TimeElapse
+import hu.bme.mit.gamma.trace.testgeneration.java.util.TestGeneratorUtil
+import hu.bme.mit.gamma.util.FileUtil
+import hu.bme.mit.gamma.util.GammaEcoreUtil
+import java.io.File
+import java.lang.reflect.Array
+import java.lang.reflect.Constructor
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.util.List
+import java.util.Map
+import java.util.Objects
+import java.util.Queue
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.logging.Logger
+import org.eclipse.emf.ecore.resource.ResourceSet
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.xtend.lib.annotations.Data
+
+import static com.google.common.base.Preconditions.checkState
+
+import static extension hu.bme.mit.gamma.codegeneration.java.util.Namings.*
+import static extension hu.bme.mit.gamma.expression.derivedfeatures.ExpressionModelDerivedFeatures.*
+import static extension hu.bme.mit.gamma.statechart.derivedfeatures.StatechartModelDerivedFeatures.*
+import static extension hu.bme.mit.gamma.trace.derivedfeatures.TraceModelDerivedFeatures.*
+
+/**
+ * Replays execution traces on the compiled code generated for their components without generating,
+ * compiling and running JUnit tests. The components are driven through their reflective classes
+ * (ReflectiveComponentInterface), and the asserts are evaluated directly with the semantics of the tests
+ * generated by the TestGenerator. The traces are replayed in parallel; the component instances are pooled
+ * and reset between the traces instead of being created for every trace.
+ */
+class TraceReplayer {
+	// Constant strings
+	protected final String BASE_PACKAGE
+	protected final String TIMER_CLASS_NAME = "VirtualTimerService"
+	protected final String TRACE_EXTENSION = "get"
+	
+	protected final ClassLoader classLoader // Must see the generated (and compiled) code
+	protected final int cycleIterationCount
+	
+	// Methods of the generated ReflectiveComponentInterface and VirtualTimerService
+	protected final Class<?> timerClass
+	protected final Method resetMethod
+	protected final Method raiseEventMethod
+	protected final Method isRaisedEventMethod
+	protected final Method getEventParameterValuesMethod
+	protected final Method scheduleMethod
+	protected final Method isStateActiveMethod
+	protected final Method getValueMethod
+	protected final Method getComponentMethod
+	protected final Method timerResetMethod
+	protected final Method elapseMethod
+	
+	// Instances not used by running replays; key: reflective class name and arguments
+	protected final Map<String, Queue<ReplayedComponent>> componentPool = new ConcurrentHashMap
+	protected final Map<String, Class<?>> loadedClasses = new ConcurrentHashMap
+	
+	protected final ExpressionEvaluator evaluator = ExpressionEvaluator.INSTANCE
+	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	protected final extension FileUtil fileUtil = FileUtil.INSTANCE
+	protected final Logger logger = Logger.getLogger("GammaLogger")
+	
+	new(ClassLoader classLoader, String basePackage, int cycleIterationCount) {
+		this.classLoader = classLoader
+		this.BASE_PACKAGE = basePackage
+		this.cycleIterationCount = cycleIterationCount
+		
+		val reflectiveInterface = '''«BASE_PACKAGE».«REFLECTIVE_INTERFACE»'''.loadClass
+		this.resetMethod = reflectiveInterface.getMethod("reset")
+		this.raiseEventMethod = reflectiveInterface.getMethod("raiseEvent", String, String, typeof(Object[]))
+		this.isRaisedEventMethod = reflectiveInterface.getMethod("isRaisedEvent", String, String, typeof(Object[]))
+		this.getEventParameterValuesMethod = reflectiveInterface.getMethod("getEventParameterValues", String, String)
+		this.scheduleMethod = reflectiveInterface.getMethod("schedule", String)
+		this.isStateActiveMethod = reflectiveInterface.getMethod("isStateActive", String, String)
+		this.getValueMethod = reflectiveInterface.getMethod("getValue", String)
+		this.getComponentMethod = reflectiveInterface.getMethod("getComponent", String)
+		
+		// Not generated if there are no timed components
+		this.timerClass = try {
+			'''«BASE_PACKAGE».«TIMER_CLASS_NAME»'''.loadClass
+		} catch (ClassNotFoundException e) {
+			null
+		}
+		this.timerResetMethod = timerClass?.getMethod("reset")
+		this.elapseMethod = timerClass?.getMethod("elapse", typeof(long))
+	}
+	
+	new(ClassLoader classLoader, String basePackage) {
+		this(classLoader, basePackage, 2)
+	}
+	
+	/**
+	 * Loads the traces from the given .get file, or from the .get files contained by the given folder.
+	 * The traces are loaded into a single resource set, so the referenced models are loaded only once.
+	 */
+	def List<ExecutionTrace> loadTraces(File file) {
+		val ResourceSet resourceSet = new ResourceSetImpl
+		val traceFiles = file.directory ? file.allContainedFiles
+				.filter[it.extension == TRACE_EXTENSION].sortBy[it.absolutePath] : #[file]
+		val traces = <ExecutionTrace>newArrayList
+		for (traceFile : traceFiles) {
+			traces += traceFile.normalLoad(resourceSet) as ExecutionTrace
+		}
+		resourceSet.resolveAll // No proxy resolution during the parallel replays
+		return traces
+	}
+	
+	/**
+	 * Replays the traces on the given number of threads and returns the results in the order of the traces.
+	 */
+	def List<Result> replay(List<ExecutionTrace> traces, int threadCount) {
+		// Model elements are prepared sequentially, the replays only read the models
+		val replays = traces.map[it.prepare].toList
+		val executor = Executors.newFixedThreadPool(threadCount)
+		try {
+			val List<Future<Result>> futures = newArrayList
+			for (preparedTrace : replays) {
+				futures += executor.submit([preparedTrace.replay] as Callable<Result>)
+			}
+			return futures.map[it.get].toList
+		} finally {
+			executor.shutdownNow
+		}
+	}
+	
+	def List<Result> replay(List<ExecutionTrace> traces) {
+		return traces.replay(Runtime.runtime.availableProcessors)
+	}
+	
+	def Result replay(ExecutionTrace trace) {
+		return trace.prepare.replay
+	}
+	
+	//
+	
+	protected def prepare(ExecutionTrace trace) {
+		val component = trace.component
+		val steps = <Step>newArrayList
+		steps += trace.steps
+		val cycle = trace.cycle
+		if (cycle !== null) {
+			// Cycle steps are not handled differently: we unfold the steps (like in the generated tests)
+			for (var i = 0; i < cycleIterationCount; i++) {
+				steps += cycle.steps.map[it.clone]
+			}
+		}
+		val testGeneratorUtil = new TestGeneratorUtil(component)
+		val preparedSteps = steps.map[new PreparedStep(it.actions, testGeneratorUtil.filterAsserts(it))].toList
+		
+		var min = -1
+		var max = -1
+		if (trace.hasAllowedWaitingAnnotation) {
+			val waitingAnnotation = trace.allowedWaitingAnnotation
+			min = evaluator.evaluateInteger(waitingAnnotation.lowerLimit)
+			max = evaluator.evaluateInteger(waitingAnnotation.upperLimit)
+		}
+		return new PreparedTrace(trace, component, preparedSteps, min, max,
+			new ExpressionSerializer(component, component.reflectiveClassName.toFirstLower))
+	}
+	
+	protected def Result replay(PreparedTrace trace) {
+		val executionTrace = trace.trace
+		val negative = executionTrace.negativeTest
+		try {
+			val replayedComponent = trace.acquireComponent
+			var stepIndex = 0
+			try {
+				for (step : trace.steps) {
+					// Act
+					for (act : step.acts) {
+						act.execute(replayedComponent, trace)
+					}
+					// Assert
+					if (!step.asserts.empty) {
+						if (trace.hasWaiting) {
+							step.asserts.checkAssertsWithWaiting(replayedComponent, trace, stepIndex)
+						}
+						else {
+							for (assert : step.asserts) {
+								assert.checkAssert(replayedComponent, trace, stepIndex)
+							}
+						}
+					}
+					stepIndex++
+				}
+			} catch (AssertionError e) {
+				trace.releaseComponent(replayedComponent)
+				return new Result(executionTrace, negative, negative ? null : e.message)
+			}
+			trace.releaseComponent(replayedComponent)
+			return new Result(executionTrace, !negative,
+				negative ? "The negative test passed on the component" : null)
+		} catch (Throwable e) {
+			// Errors of the generated code (rethrown causes) must not abort the other traces either
+			// The instance is not put back into the pool, as its state is unknown
+			logger.info("Error while replaying trace " + executionTrace.name + ": " + e.message)
+			return new Result(executionTrace, false, e.class.simpleName + ": " + e.message)
+		}
+	}
+	
+	protected def checkAssert(Expression assert, ReplayedComponent replayedComponent,
+			PreparedTrace trace, int stepIndex) {
+		if (!assert.evaluateBoolean(replayedComponent, trace)) {
+			throw new AssertionError('''Step «stepIndex»: «trace.serializer.serializeAssert(assert)» is false''')
+		}
+	}
+	
+	protected def checkAssertsWithWaiting(List<Expression> asserts, ReplayedComponent replayedComponent,
+			PreparedTrace trace, int stepIndex) {
+		// Scheduling the component until the asserts hold, the same way as the generated checkGeneralAsserts
+		var done = false
+		var index = 0
+		while (!done) {
+			var wasPresent = true
+			try {
+				for (assert : asserts) {
+					assert.checkAssert(replayedComponent, trace, stepIndex)
+				}
+			} catch (AssertionError error) {
+				wasPresent = false
+				if (index > trace.max) {
+					throw error
+				}
+			}
+			if (wasPresent && index >= trace.min) {
+				done = true
+			}
+			else {
+				replayedComponent.instance.schedule
+			}
+			index++
+		}
+	}
+	
+	protected def schedule(Object instance) {
+		val Object[] arguments = newArrayOfSize(1) // schedule(null)
+		instance.call(scheduleMethod, arguments)
+	}
+	
+	protected def serializeAssert(ExpressionSerializer serializer, Expression assert) {
+		try {
+			return serializer.serialize(assert)
+		} catch (Exception e) {
+			return assert.toString
+		}
+	}
+	
+	// Acts
+	
+	protected def dispatch void execute(Act act, ReplayedComponent replayedComponent, PreparedTrace trace) {
+		throw new IllegalArgumentException("Not supported act: " + act)
+	}
+	
+	protected def dispatch void execute(Reset reset, ReplayedComponent replayedComponent, PreparedTrace trace) {
+		if (trace.component.timed) {
+			replayedComponent.timer.call(timerResetMethod) // Timer before the system
+		}
+		replayedComponent.instance.call(resetMethod)
+	}
+	
+	protected def dispatch void execute(RaiseEventAct raiseEvent, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		replayedComponent.instance.call(raiseEventMethod, raiseEvent.port.name, raiseEvent.event.name,
+			raiseEvent.arguments.evaluateArguments(replayedComponent, trace))
+	}
+	
+	protected def dispatch void execute(TimeElapse elapse, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		if (trace.component.timed) {
+			val elapsedTime = elapse.elapsedTime.evaluate(replayedComponent, trace) as Number
+			replayedComponent.timer.call(elapseMethod, elapsedTime.longValue)
+		}
+	}
+	
+	protected def dispatch void execute(AssignmentAct assignment, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val lhs = assignment.lhs
+		checkState(lhs instanceof DirectReferenceExpression, "Only trace variables can be assigned: " + lhs)
+		val declaration = (lhs as DirectReferenceExpression).declaration
+		var value = assignment.rhs.evaluate(replayedComponent, trace)
+		if (declaration.typeDefinition instanceof IntegerTypeDefinition && value instanceof Number) {
+			value = (value as Number).intValue // Cast in the generated tests
+		}
+		replayedComponent.variables.put(declaration, value)
+	}
+	
+	protected def dispatch void execute(InstanceSchedule schedule, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		schedule.instanceReference.getInstance(replayedComponent, trace).schedule
+	}
+	
+	protected def dispatch void execute(ComponentSchedule schedule, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		replayedComponent.instance.schedule
+	}
+	
+	// Expressions: the values are the same (boxed) Java objects as in the generated tests
+	
+	protected def boolean evaluateBoolean(Expression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.evaluate(replayedComponent, trace) as Boolean
+	}
+	
+	protected def dispatch Object evaluate(Expression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		throw new IllegalArgumentException("Not supported expression: " + expression)
+	}
+	
+	protected def dispatch Object evaluate(TrueExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return true
+	}
+	
+	protected def dispatch Object evaluate(FalseExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return false
+	}
+	
+	protected def dispatch Object evaluate(IntegerLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return expression.value.intValue
+	}
+	
+	protected def dispatch Object evaluate(DecimalLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return expression.value.doubleValue
+	}
+	
+	protected def dispatch Object evaluate(RationalLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return expression.numerator.doubleValue / expression.denominator.doubleValue
+	}
+	
+	protected def dispatch Object evaluate(EnumerationLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val literal = expression.reference
+		val typeDeclaration = literal.typeDeclaration
+		val enumClass = '''«typeDeclaration.getPackageString(BASE_PACKAGE)».«typeDeclaration.name»'''.loadClass
+		return enumClass.enumConstants.findFirst[(it as Enum<?>).name == literal.name]
+	}
+	
+	protected def dispatch Object evaluate(ArrayLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val values = expression.operands.map[it.evaluate(replayedComponent, trace)].toList
+		// Primitive arrays, as the types of the generated code are primitive
+		val head = values.head
+		val Class<?> elementClass = switch (head) {
+			case null: Object
+			Integer: typeof(int)
+			Double: typeof(double)
+			Boolean: typeof(boolean)
+			default: head.class
+		}
+		val array = Array.newInstance(elementClass, values.size)
+		for (var i = 0; i < values.size; i++) {
+			Array.set(array, i, values.get(i))
+		}
+		return array
+	}
+	
+	protected def dispatch Object evaluate(RecordLiteralExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val typeDeclaration = expression.typeDeclaration
+		val recordClass = '''«typeDeclaration.getPackageString(BASE_PACKAGE)».«typeDeclaration.name»'''.loadClass
+		val values = expression.fieldAssignments.map[it.value.evaluate(replayedComponent, trace)].toList
+		val constructor = recordClass.constructors.findFirst[it.parameterCount == values.size]
+		return constructor.newInstance(values.toArray)
+	}
+	
+	protected def dispatch Object evaluate(DirectReferenceExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val declaration = expression.declaration
+		if (declaration instanceof ConstantDeclaration) {
+			return declaration.expression.evaluate(replayedComponent, trace)
+		}
+		val variables = replayedComponent.variables
+		if (!variables.containsKey(declaration)) {
+			// Trace variables are initialized lazily, as the acts can reference them before the asserts
+			val variableDeclaration = trace.trace.variableDeclarations.findFirst[it === declaration]
+			checkState(variableDeclaration !== null, "Not known declaration: " + declaration.name)
+			val initialExpression = variableDeclaration.expression
+			variables.put(declaration, (initialExpression === null) ? null :
+				initialExpression.evaluate(replayedComponent, trace))
+		}
+		return variables.get(declaration)
+	}
+	
+	protected def dispatch Object evaluate(ArrayAccessExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val array = expression.operand.evaluate(replayedComponent, trace)
+		val index = expression.index.evaluate(replayedComponent, trace) as Number
+		return Array.get(array, index.intValue)
+	}
+	
+	protected def dispatch Object evaluate(NotExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return !expression.operand.evaluateBoolean(replayedComponent, trace)
+	}
+	
+	protected def dispatch Object evaluate(AndExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.operands.forall[it.evaluateBoolean(replayedComponent, trace)]
+	}
+	
+	protected def dispatch Object evaluate(OrExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.operands.exists[it.evaluateBoolean(replayedComponent, trace)]
+	}
+	
+	protected def dispatch Object evaluate(XorExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.operands.map[it.evaluateBoolean(replayedComponent, trace)]
+				.reduce[a, b | a.xor(b)]
+	}
+	
+	protected def dispatch Object evaluate(ImplyExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return !expression.leftOperand.evaluateBoolean(replayedComponent, trace) ||
+				expression.rightOperand.evaluateBoolean(replayedComponent, trace)
+	}
+	
+	protected def dispatch Object evaluate(IfThenElseExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return expression.condition.evaluateBoolean(replayedComponent, trace) ?
+				expression.then.evaluate(replayedComponent, trace) :
+				expression.^else.evaluate(replayedComponent, trace)
+	}
+	
+	protected def dispatch Object evaluate(EqualityExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return Objects.deepEquals(expression.leftOperand.evaluate(replayedComponent, trace),
+				expression.rightOperand.evaluate(replayedComponent, trace))
+	}
+	
+	protected def dispatch Object evaluate(InequalityExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return !Objects.deepEquals(expression.leftOperand.evaluate(replayedComponent, trace),
+				expression.rightOperand.evaluate(replayedComponent, trace))
+	}
+	
+	protected def dispatch Object evaluate(LessExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.leftOperand.compare(expression.rightOperand, replayedComponent, trace) < 0
+	}
+	
+	protected def dispatch Object evaluate(LessEqualExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.leftOperand.compare(expression.rightOperand, replayedComponent, trace) <= 0
+	}
+	
+	protected def dispatch Object evaluate(GreaterExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.leftOperand.compare(expression.rightOperand, replayedComponent, trace) > 0
+	}
+	
+	protected def dispatch Object evaluate(GreaterEqualExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return expression.leftOperand.compare(expression.rightOperand, replayedComponent, trace) >= 0
+	}
+	
+	protected def compare(Expression left, Expression right, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		// Like in the generated tests, we "cast" to double
+		val leftValue = left.evaluate(replayedComponent, trace) as Number
+		val rightValue = right.evaluate(replayedComponent, trace) as Number
+		return Double.compare(leftValue.doubleValue, rightValue.doubleValue)
+	}
+	
+	protected def dispatch Object evaluate(AddExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val values = expression.operands.map[it.evaluate(replayedComponent, trace) as Number].toList
+		if (values.forall[it instanceof Integer]) {
+			return values.map[it.intValue].reduce[a, b | a + b]
+		}
+		return values.map[it.doubleValue].reduce[a, b | a + b]
+	}
+	
+	protected def dispatch Object evaluate(MultiplyExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val values = expression.operands.map[it.evaluate(replayedComponent, trace) as Number].toList
+		if (values.forall[it instanceof Integer]) {
+			return values.map[it.intValue].reduce[a, b | a * b]
+		}
+		return values.map[it.doubleValue].reduce[a, b | a * b]
+	}
+	
+	protected def dispatch Object evaluate(SubtractExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val left = expression.leftOperand.evaluate(replayedComponent, trace) as Number
+		val right = expression.rightOperand.evaluate(replayedComponent, trace) as Number
+		if (left instanceof Integer && right instanceof Integer) {
+			return left.intValue - right.intValue
+		}
+		return left.doubleValue - right.doubleValue
+	}
+	
+	protected def dispatch Object evaluate(DivideExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val left = expression.leftOperand.evaluate(replayedComponent, trace) as Number
+		val right = expression.rightOperand.evaluate(replayedComponent, trace) as Number
+		if (left instanceof Integer && right instanceof Integer) {
+			return left.intValue / right.intValue
+		}
+		return left.doubleValue / right.doubleValue
+	}
+	
+	protected def dispatch Object evaluate(ModExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		val left = expression.leftOperand.evaluate(replayedComponent, trace) as Number
+		val right = expression.rightOperand.evaluate(replayedComponent, trace) as Number
+		return left.intValue % right.intValue
+	}
+	
+	protected def dispatch Object evaluate(UnaryPlusExpression expression, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return expression.operand.evaluate(replayedComponent, trace)
+	}
+	
+	protected def dispatch Object evaluate(UnaryMinusExpression expression,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val value = expression.operand.evaluate(replayedComponent, trace) as Number
+		if (value instanceof Integer) {
+			return -value.intValue
+		}
+		return -value.doubleValue
+	}
+	
+	// Asserts on the component
+	
+	protected def dispatch Object evaluate(RaiseEventAct assert, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		return replayedComponent.instance.call(isRaisedEventMethod, assert.port.name, assert.event.name,
+			assert.arguments.evaluateArguments(replayedComponent, trace))
+	}
+	
+	protected def dispatch Object evaluate(EventParameterReferenceExpression assert,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val values = replayedComponent.instance.call(getEventParameterValuesMethod,
+				assert.port.name, assert.event.name) as Object[]
+		return values.get(assert.parameter.index)
+	}
+	
+	protected def dispatch Object evaluate(ComponentInstanceStateReferenceExpression assert,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		val state = assert.state
+		return assert.instance.getInstance(replayedComponent, trace).call(isStateActiveMethod,
+			state.parentRegion.name, state.name)
+	}
+	
+	protected def dispatch Object evaluate(ComponentInstanceVariableReferenceExpression assert,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		return assert.instance.getInstance(replayedComponent, trace).call(getValueMethod,
+			assert.variableDeclaration.name)
+	}
+	
+	protected def Object[] evaluateArguments(List<Expression> arguments, ReplayedComponent replayedComponent,
+			PreparedTrace trace) {
+		if (arguments.empty) {
+			return null
+		}
+		return arguments.map[it.evaluate(replayedComponent, trace)].toArray
+	}
+	
+	protected def getInstance(ComponentInstanceReferenceExpression instanceReference,
+			ReplayedComponent replayedComponent, PreparedTrace trace) {
+		var instance = replayedComponent.instance
+		for (instanceName : trace.serializer.getInstanceNames(instanceReference)) {
+			instance = instance.call(getComponentMethod, instanceName)
+		}
+		return instance
+	}
+	
+	// Component instances
+	
+	protected def acquireComponent(PreparedTrace trace) {
+		val pool = componentPool.computeIfAbsent(trace.poolKey)[new ConcurrentLinkedQueue]
+		val pooledComponent = pool.poll
+		if (pooledComponent !== null) {
+			// Instead of a new instance, the state of a pooled one is reset (the timer first)
+			if (pooledComponent.timer !== null) {
+				pooledComponent.timer.call(timerResetMethod)
+			}
+			pooledComponent.instance.call(resetMethod)
+			pooledComponent.variables.clear
+			return pooledComponent
+		}
+		return trace.createComponent
+	}
+	
+	protected def releaseComponent(PreparedTrace trace, ReplayedComponent replayedComponent) {
+		componentPool.get(trace.poolKey).offer(replayedComponent)
+	}
+	
+	protected def getPoolKey(PreparedTrace trace) {
+		// Traces of the same component class with the same arguments can share instances
+		val component = trace.component
+		return component.getPackageName + "." + component.reflectiveClassName + trace.serializeArguments
+	}
+	
+	protected def createComponent(PreparedTrace trace) {
+		val component = trace.component
+		val reflectiveClass = '''«component.getPackageName».«component.reflectiveClassName»'''.loadClass
+		val arguments = <Object>newArrayList
+		val replayedComponent = new ReplayedComponent
+		for (argument : trace.trace.arguments) {
+			arguments += argument.evaluate(replayedComponent, trace)
+		}
+		if (component.timed) {
+			replayedComponent.timer = timerClass.getConstructor.newInstance // Virtual timer is set
+			arguments += replayedComponent.timer
+		}
+		val constructor = reflectiveClass.getConstructor(component, arguments.size)
+		replayedComponent.instance = constructor.newInstance(arguments.toArray)
+		return replayedComponent
+	}
+	
+	protected def Constructor<?> getConstructor(Class<?> reflectiveClass, Component component,
+			int parameterCount) {
+		val timed = component.timed
+		val wrappedClassName = component.componentClassName
+		val constructor = reflectiveClass.constructors.findFirst[
+			it.parameterCount == parameterCount && (timed ?
+				it.parameterTypes.last.isAssignableFrom(timerClass) :
+				// Not the constructor expecting a wrapped component
+				!it.parameterTypes.exists[it.simpleName == wrappedClassName])
+		]
+		checkState(constructor !== null, "Not found constructor in " + reflectiveClass.name)
+		return constructor
+	}
+	
+	protected def getPackageName(Component component) {
+		// The same as in the TestGenerator
+		val suffix = "view"
+		val name = (component.eContainer as Package).name.toLowerCase
+		val finalName = name.endsWith(suffix) ? name.substring(0, name.length - suffix.length) : name
+		return BASE_PACKAGE + "." + finalName
+	}
+	
+	protected def Class<?> loadClass(CharSequence className) {
+		return loadedClasses.computeIfAbsent(className.toString)[classLoader.loadClass(it)]
+	}
+	
+	protected def Object call(Object object, Method method, Object... arguments) {
+		try {
+			return method.invoke(object, arguments)
+		} catch (InvocationTargetException e) {
+			throw e.cause // The exceptions (and assertion errors) of the generated code are propagated
+		}
+	}
+	
+	// Auxiliary classes
+	
+	@Data
+	static class Result {
+		ExecutionTrace trace
+		boolean passed
+		String message // Reason of the failure, if the trace did not pass
+	}
+	
+	@Data
+	protected static class PreparedStep {
+		List<Act> acts
+		List<Expression> asserts
+	}
+	
+	@Data
+	protected static class PreparedTrace {
+		ExecutionTrace trace
+		Component component
+		List<PreparedStep> steps
+		int min
+		int max
+		ExpressionSerializer serializer
+		
+		def hasWaiting() {
+			return min >= 0 && max >= 0
+		}
+		
+		protected def serializeArguments() '''(«FOR argument : trace.arguments SEPARATOR ", "»«serializer.serialize(argument)»«ENDFOR»)'''
+	}
+	
+	protected static class ReplayedComponent {
+		public Object instance
+		public Object timer
+		public final Map<Declaration, Object> variables = newHashMap
+	}
+	
+}
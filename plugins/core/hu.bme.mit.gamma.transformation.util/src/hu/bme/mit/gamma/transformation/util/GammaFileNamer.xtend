@@ -71,6 +71,7 @@ class GammaFileNamer {
 	def String getHiddenEmfPropertyFileName(String fileName) '''«fileName.extensionlessName.toHiddenFileName».«PROPERTY_EMF_EXTENSION»'''
 	
 	def String getHiddenSerializedPropertyFileName(String fileName) '''«fileName.extensionlessName.toHiddenFileName».«PROPERTY_SERIALIZED_EXTENSION»'''
+	def String getHiddenSerializedPropertyFileName(String fileName, String postfix) '''«fileName.extensionlessName.toHiddenFileName»-«postfix».«PROPERTY_SERIALIZED_EXTENSION»'''
 	
 	def String getXmlUppaalFileName(String fileName) '''«fileName.extensionlessName».«UPPAAL_MODEL_EXTENSION»'''
 	
@@ -111,7 +112,7 @@ class GammaFileNamer {
 			case "UPPAAL", case "XSTS_UPPAAL": {
 				return UPPAAL_MODEL_EXTENSION
 			}
-			case "THETA", case "XSTS": {
+			case "THETA", case "XSTS", case "PORTFOLIO": { // Portfolio models are referenced via the XSTS model
 				return XSTS_XTEXT_EXTENSION
 			}
 			case "SPIN", case "PROMELA": {
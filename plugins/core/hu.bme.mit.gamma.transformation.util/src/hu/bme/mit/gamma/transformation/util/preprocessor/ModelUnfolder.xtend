@@ -48,6 +48,8 @@ import static extension hu.bme.mit.gamma.transformation.util.Namings.*
 class ModelUnfolder {
 	
 	protected final Package gammaPackage
+	// Original package -> clone, whose components are cloned for the instances (and clone -> clone)
+	protected final Map<Package, Package> packageTemplates = newHashMap
 	
 	protected final extension JavaUtil javaUtil = JavaUtil.INSTANCE
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
@@ -105,9 +107,8 @@ class ModelUnfolder {
 			Package gammaPackage, Trace trace) {
 		for (instance : component.components) {
 			val type = instance.type
-			val clonedPackage = type.containingPackage.clone
-			val clonedComponent = clonedPackage.components
-					.findFirst[it.helperEquals(type)] as SynchronousComponent // Sync composite or Statechart
+			val clonedPackage = type.packageTemplate
+			val clonedComponent = type.cloneFromTemplate as SynchronousComponent // Sync composite or Statechart
 			clonedComponent.removeAnnotations // To prevent importing unnecessary resources into the resource set
 			gammaPackage.components += clonedComponent // Adding it to the "Instance container"
 			instance.type = clonedComponent // Setting the type to the new declaration
@@ -133,9 +134,8 @@ class ModelUnfolder {
 		for (instance : component.components) {
 			val type = instance.type
 			
-			val clonedPackage = type.containingPackage.clone
-			val clonedComponent = clonedPackage.components
-						.findFirst[it.helperEquals(type)] as AsynchronousComponent
+			val clonedPackage = type.packageTemplate
+			val clonedComponent = type.cloneFromTemplate as AsynchronousComponent
 			gammaPackage.components += clonedComponent
 			
 			instance.type = clonedComponent
@@ -158,9 +158,8 @@ class ModelUnfolder {
 	private dispatch def void copyComponents(AsynchronousAdapter component, Package gammaPackage,
 			Trace trace) {
 		val type = component.wrappedComponent.type
-		val clonedPackage = type.containingPackage.clone
-		val clonedComponent = clonedPackage.components
-				.findFirst[it.helperEquals(type)] as SynchronousComponent  // Sync composite or Statechart
+		val clonedPackage = type.packageTemplate
+		val clonedComponent = type.cloneFromTemplate as SynchronousComponent  // Sync composite or Statechart
 		gammaPackage.components += clonedComponent // Adding it to the "Instance container"
 		component.wrappedComponent.type = clonedComponent // Setting the type to the new declaration
 		// Declarations must be copied AFTER moving component instances to enable reference changes
@@ -177,6 +176,7 @@ class ModelUnfolder {
 	
 	private dispatch def void copyComponents(AsynchronousStatechartDefinition component,
 			Package gammaPackage, Trace trace) {
+		// The component is already in the (changing) "Instance container", so no template is used
 		val clonedPackage = component.containingPackage.clone
 		val clonedComponent = clonedPackage.components
 				.findFirst[it.helperEquals(component)] as AsynchronousStatechartDefinition
@@ -406,6 +406,29 @@ class ModelUnfolder {
 		return topComponent
 	}
 	
+	// Instead of cloning the containing package for every instance, the package is cloned only once,
+	// and the components of the instances are cloned from this template. The references of the
+	// component clones to the declarations of the template are retargeted by addDeclarations.
+	
+	protected def getPackageTemplate(Component type) {
+		val _package = type.containingPackage
+		var template = packageTemplates.get(_package)
+		if (template === null) {
+			template = _package.clone
+			packageTemplates.put(_package, template)
+			packageTemplates.put(template, template) // Types of cloned composites are in the template
+		}
+		return template
+	}
+	
+	protected def cloneFromTemplate(Component type) {
+		val _package = type.containingPackage
+		val template = type.packageTemplate
+		// The template is a clone of the package, so the component is at the same index
+		val index = _package.components.indexOf(type)
+		return template.components.get(index).clone
+	}
+	
 	protected def addDeclarations(Package gammaPackage, Package clonedPackage) {
 		val selfAndImports = clonedPackage.selfAndImports
 		// As constants and functions can be imported - is the fact that imported packages are not cloned a problem? 
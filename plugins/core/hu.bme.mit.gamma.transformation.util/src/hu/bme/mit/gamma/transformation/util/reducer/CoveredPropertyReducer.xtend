@@ -10,6 +10,7 @@
  ********************************************************************************/
 package hu.bme.mit.gamma.transformation.util.reducer
 
+import hu.bme.mit.gamma.expression.model.Expression
 import hu.bme.mit.gamma.expression.model.ExpressionModelFactory
 import hu.bme.mit.gamma.expression.util.ExpressionEvaluator
 import hu.bme.mit.gamma.property.model.AtomicFormula
@@ -20,11 +21,16 @@ import hu.bme.mit.gamma.statechart.composite.ComponentInstanceEventParameterRefe
 import hu.bme.mit.gamma.statechart.composite.ComponentInstanceEventReferenceExpression
 import hu.bme.mit.gamma.statechart.composite.ComponentInstanceStateReferenceExpression
 import hu.bme.mit.gamma.statechart.composite.ComponentInstanceVariableReferenceExpression
+import hu.bme.mit.gamma.statechart.interface_.EventParameterReferenceExpression
 import hu.bme.mit.gamma.trace.model.ExecutionTrace
+import hu.bme.mit.gamma.trace.model.RaiseEventAct
 import hu.bme.mit.gamma.trace.model.Step
 import hu.bme.mit.gamma.transformation.util.UnfoldingTraceability
 import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.util.JavaUtil
 import java.util.Collection
+import java.util.List
+import java.util.Map
 import java.util.logging.Level
 import java.util.logging.Logger
 
@@ -37,15 +43,15 @@ class CoveredPropertyReducer {
 	protected final Collection<StateFormula> formulas
 	protected final Collection<ExecutionTrace> traces
 	
-	protected final extension ExpressionModelFactory expressionModelFactory = ExpressionModelFactory.eINSTANCE
-	
 	protected final extension PropertyUtil propertyUtil = PropertyUtil.INSTANCE
-	protected final extension ExpressionEvaluator expressionEvaluator = ExpressionEvaluator.INSTANCE
 	protected final extension GammaEcoreUtil gammaEcoreUtil = GammaEcoreUtil.INSTANCE
 	protected final extension UnfoldingTraceability traceability = UnfoldingTraceability.INSTANCE
 	//
 	protected final Logger logger = Logger.getLogger("GammaLogger")
 	
+	protected static final Expression TRUE = ExpressionModelFactory.eINSTANCE.createTrueExpression
+	protected static final Expression FALSE = ExpressionModelFactory.eINSTANCE.createFalseExpression
+	
 	new(Collection<StateFormula> formulas, ExecutionTrace trace) {
 		this(formulas, #[trace])
 	}
@@ -57,33 +63,20 @@ class CoveredPropertyReducer {
 	
 	def execute() {
 		val unnecessaryFormulas = newArrayList
+		// Every step is indexed only once, the formulas are evaluated on these snapshots without cloning
+		val snapshots = traces.flatMap[it.steps].map[new StepSnapshot(it)].toList
+		val snapshotEvaluator = new StepSnapshotEvaluator(this)
 		for (formula : formulas) {
 			val egLessFormula = formula.egLessFormula
 			if (egLessFormula !== null) {
 				if (egLessFormula instanceof AtomicFormula) {
-					var isUnnecessary = false
-					for (var i = 0; i < traces.size && !isUnnecessary; i++)  {
-						val trace = traces.get(i)
-						val steps = trace.steps
-						for (var j = 0; j < steps.size && !isUnnecessary; j++) {
-							// New formula is cloned for each step
-							val clonedFormula = egLessFormula.clone
-							val step = steps.get(j)
-							for (instanceStateExpression : clonedFormula
-									.getAllContentsOfType(ComponentInstanceElementReferenceExpression)) {
-								val evaluation = instanceStateExpression.evaluate(step)
-								evaluation.replace(instanceStateExpression)
-							}
-							// No transient variables in traces (as they are also default)
-							// Resettable variable cannot be removed, think of
-							// transition-pair coverage
-							val expression = clonedFormula.expression
-							val evaluation = expression.definitelyTrueExpression
-							if (evaluation) {
-								isUnnecessary = true
-								unnecessaryFormulas += formula
-							}
-						}
+					// No transient variables in traces (as they are also default)
+					// Resettable variable cannot be removed, think of
+					// transition-pair coverage
+					val expression = egLessFormula.expression
+					val isUnnecessary = snapshots.exists[snapshotEvaluator.isDefinitelyTrueExpression(expression, it)]
+					if (isUnnecessary) {
+						unnecessaryFormulas += formula
 					}
 				}
 			}
@@ -91,82 +84,84 @@ class CoveredPropertyReducer {
 		return unnecessaryFormulas
 	}
 	
-	protected def dispatch evaluate(ComponentInstanceEventParameterReferenceExpression expression, Step step) {
+	/**
+	 * Returns the value of the reference in the step, or null if it cannot be evaluated.
+	 * The returned expressions are contained by the trace, so they must not be modified.
+	 */
+	protected def dispatch Expression evaluate(ComponentInstanceEventParameterReferenceExpression expression,
+			StepSnapshot step) {
 		val topComponentPort = expression.port.boundTopComponentPort
 		val event = expression.event
 		val parameter = expression.parameterDeclaration
 		val parameterIndex = parameter.index
 		
-		for (raiseEventAct : step.outEvents) {
+		for (raiseEventAct : step.getOutEvents(event.name)) {
 			val raisedPort = raiseEventAct.port
 			val rasiedEvent = raiseEventAct.event
 			val arguments = raiseEventAct.arguments
 			
 			if (topComponentPort.helperEquals(raisedPort) && event.helperEquals(rasiedEvent)) {
-				return arguments.get(parameterIndex).clone
+				return arguments.get(parameterIndex)
 			}
 		}
 		// EventParameterReferenceExpressions too
-		for (eventParameterReference : step.eventParameterReferences) {
+		for (eventParameterReference : step.getEventParameterReferences(event.name)) {
 			val referencedPort = eventParameterReference.port
 			val referencedEvent = eventParameterReference.event
 			
 			if (topComponentPort.helperEquals(referencedPort) && event.helperEquals(referencedEvent)) {
-				val value = eventParameterReference.otherOperandIfContainedByEquality
-				if (value === null) {
-					return expression.clone // Cannot evaluate it, returning the unknown reference
-				}
-				return value.clone
+				// Null if it cannot be evaluated
+				return eventParameterReference.otherOperandIfContainedByEquality
 			}
 		}
 		
-		return createFalseExpression
+		return FALSE
 	}
 	
-	protected def dispatch evaluate(ComponentInstanceEventReferenceExpression expression, Step step) {
+	protected def dispatch Expression evaluate(ComponentInstanceEventReferenceExpression expression,
+			StepSnapshot step) {
 		val topComponentPort = expression.port.boundTopComponentPort
 		val event = expression.event
 		
-		for (raiseEventAct : step.outEvents) {
+		for (raiseEventAct : step.getOutEvents(event.name)) {
 			val raisedPort = raiseEventAct.port
 			val rasiedEvent = raiseEventAct.event
 			
 			if (topComponentPort.helperEquals(raisedPort) && event.helperEquals(rasiedEvent)) {
-				return createTrueExpression
+				return TRUE
 			}
 		}
-		return createFalseExpression
+		return FALSE
 	}
 	
-	protected def dispatch evaluate(ComponentInstanceStateReferenceExpression expression, Step step) {
+	protected def dispatch Expression evaluate(ComponentInstanceStateReferenceExpression expression,
+			StepSnapshot step) {
 		val instance = expression.instance
 		val state = expression.state
 		
-		for (stateConfiguration : step.instanceStateConfigurations) {
+		for (stateConfiguration : step.getInstanceStateConfigurations(state.name)) {
 			val stateInstance = stateConfiguration.instance.lastInstance // Only one expected
 			val stateVariable = stateConfiguration.state
 			
 			if (traceability.contains(instance, stateInstance) && state.helperEquals(stateVariable)) {
-				return createTrueExpression
+				return TRUE
 			}
 		}
-		return createFalseExpression
+		return FALSE
 	}
 	
-	protected def dispatch evaluate(ComponentInstanceVariableReferenceExpression expression, Step step) {
+	protected def dispatch Expression evaluate(ComponentInstanceVariableReferenceExpression expression,
+			StepSnapshot step) {
 		val instance = expression.instance
 		val variable = expression.variableDeclaration
 		
-		for (variableReference : step.instanceVariableStates) {
+		for (variableReference : step.getInstanceVariableStates(variable.name)) {
 			val stateInstance = variableReference.instance.lastInstance // Only one expected
 			val stateVariable = variableReference.variableDeclaration
 			
 			if (traceability.contains(instance, stateInstance) && variable.helperEquals(stateVariable)) {
-				val value = variableReference.otherOperandIfContainedByEquality
-				if (value === null) {
-					return expression.clone // Cannot evaluate it, returning the unknown reference
-				}
-				return value.clone
+				// Null if it cannot be evaluated
+				return variableReference.otherOperandIfContainedByEquality
 			}
 		}
 		val isInjected = variable.injected
@@ -179,5 +174,96 @@ class CoveredPropertyReducer {
 		// Maybe Theta did not return the necessary variables, that is why they cannot be found in the trace
 		// (This is a known Theta-bug). On the other hand, UPPAAL always returns all variables
 	}
+	
+	//
+	
+	/**
+	 * The asserts and out events of a step indexed by the names of the referenced elements,
+	 * so a reference is compared only with the elements of the same name.
+	 */
+	static class StepSnapshot {
+		
+		final Map<String, List<RaiseEventAct>> outEvents = newHashMap
+		final Map<String, List<EventParameterReferenceExpression>> eventParameterReferences = newHashMap
+		final Map<String, List<ComponentInstanceStateReferenceExpression>> instanceStateConfigurations = newHashMap
+		final Map<String, List<ComponentInstanceVariableReferenceExpression>> instanceVariableStates = newHashMap
+		
+		protected final extension JavaUtil javaUtil = JavaUtil.INSTANCE
+		
+		new(Step step) {
+			for (outEvent : step.outEvents) {
+				outEvents.getOrCreateList(outEvent.event.name) += outEvent
+			}
+			for (eventParameterReference : step.eventParameterReferences) {
+				eventParameterReferences.getOrCreateList(eventParameterReference.event.name) += eventParameterReference
+			}
+			for (stateConfiguration : step.instanceStateConfigurations) {
+				instanceStateConfigurations.getOrCreateList(stateConfiguration.state.name) += stateConfiguration
+			}
+			for (variableState : step.instanceVariableStates) {
+				instanceVariableStates.getOrCreateList(variableState.variableDeclaration.name) += variableState
+			}
+		}
+		
+		def getOutEvents(String eventName) {
+			return outEvents.getOrDefault(eventName, #[])
+		}
+		
+		def getEventParameterReferences(String eventName) {
+			return eventParameterReferences.getOrDefault(eventName, #[])
+		}
+		
+		def getInstanceStateConfigurations(String stateName) {
+			return instanceStateConfigurations.getOrDefault(stateName, #[])
+		}
+		
+		def getInstanceVariableStates(String variableName) {
+			return instanceVariableStates.getOrDefault(variableName, #[])
+		}
+		
+	}
+	
+	/**
+	 * Evaluates expressions replacing the component instance element references with their values
+	 * in a step snapshot on the fly, instead of replacing them in a clone of the expression.
+	 */
+	static class StepSnapshotEvaluator extends ExpressionEvaluator {
+		
+		final CoveredPropertyReducer reducer
+		StepSnapshot snapshot
+		
+		new(CoveredPropertyReducer reducer) {
+			this.reducer = reducer
+		}
+		
+		def isDefinitelyTrueExpression(Expression expression, StepSnapshot snapshot) {
+			this.snapshot = snapshot
+			return expression.isDefinitelyTrueExpression
+		}
+		
+		override evaluateInteger(Expression expression) {
+			return super.evaluateInteger(expression.resolve)
+		}
 		
+		override evaluateDecimal(Expression expression) {
+			return super.evaluateDecimal(expression.resolve)
+		}
+		
+		override evaluateBoolean(Expression expression) {
+			return super.evaluateBoolean(expression.resolve)
+		}
+		
+		protected def resolve(Expression expression) {
+			if (expression instanceof ComponentInstanceElementReferenceExpression) {
+				val value = reducer.evaluate(expression, snapshot)
+				if (value === null) {
+					throw new IllegalArgumentException("Not evaluable reference: " + expression)
+				}
+				return value
+			}
+			return expression
+		}
+		
+	}
+	
 }
\ No newline at end of file
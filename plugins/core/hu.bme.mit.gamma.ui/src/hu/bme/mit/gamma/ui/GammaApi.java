@@ -75,12 +75,26 @@ import hu.bme.mit.gamma.ui.taskhandler.VerificationHandler;
 import hu.bme.mit.gamma.ui.util.DefaultResourceSetCreator;
 import hu.bme.mit.gamma.ui.util.DefaultTaskHook;
 import hu.bme.mit.gamma.ui.util.ResourceSetCreator;
+import hu.bme.mit.gamma.ui.util.TaskFingerprintStore;
+import hu.bme.mit.gamma.ui.util.TaskFingerprintStore.TaskExecution;
 import hu.bme.mit.gamma.ui.util.TaskHook;
 
 public class GammaApi {
 	//
 	protected Logger logger = Logger.getLogger("GammaLogger");
 	//
+	public static final String INCREMENTAL_PROPERTY = "gamma.incremental";
+	// Tasks are skipped if their input models and generated files have not changed since their last execution
+	protected final boolean incremental;
+	//
+	
+	public GammaApi() {
+		this(Boolean.getBoolean(INCREMENTAL_PROPERTY));
+	}
+	
+	public GammaApi(boolean incremental) {
+		this.incremental = incremental;
+	}
 	
 	/**
 	 * Executes the Gamma tasks based on the ggen model specified by the fullPath parameter,
@@ -108,6 +122,8 @@ public class GammaApi {
 			IWorkspaceRoot workspaceRoot = ResourcesPlugin.getWorkspace().getRoot();
 			IFile file = workspaceRoot.getFile(new Path(fileURI.toPlatformString(true)));
 			IProject project = file.getProject();
+			TaskFingerprintStore fingerprintStore = incremental ?
+					new TaskFingerprintStore(project.getLocation().toFile()) : null;
 			// Multiple compilations due to the dependencies between models
 			final int MAX_ITERATION_COUNT = 6;
 			for (int i = 0; i < MAX_ITERATION_COUNT; ++i) {
@@ -127,6 +143,14 @@ public class GammaApi {
 					// Sorting: InterfaceCompilation < StatechartCompilation < else does not work as the generated models are not reloaded
 					List<Task> tasks = orderTasks(genmodel, i);
 					for (Task task : tasks) {
+						TaskExecution taskExecution = null;
+						if (fingerprintStore != null && isSkippable(task)) {
+							if (fingerprintStore.isUpToDate(task)) {
+								logger.info("Skipping up-to-date task: " + task.eClass().getName());
+								continue;
+							}
+							taskExecution = fingerprintStore.startExecution(task);
+						}
 						// Initializing the hook for potential measurements
 						hook.startTaskProcess(task);
 						//
@@ -294,6 +318,10 @@ public class GammaApi {
 						logger.info("Refreshing project");
 						project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
 						logger.info("Refreshing project has been finished");
+						//
+						if (taskExecution != null) {
+							fingerprintStore.endExecution(taskExecution);
+						}
 					}
 				}
 				else {
@@ -307,6 +335,22 @@ public class GammaApi {
 		}
 	}
 
+	/**
+	 * Tasks that only transform models into files, that is, whose results are determined by their inputs.
+	 */
+	private boolean isSkippable(Task task) {
+		if (task instanceof AnalysisModelTransformation analysisModelTransformation) {
+			return !GenmodelDerivedFeatures.isVerifyAnalysisTask(analysisModelTransformation);
+		}
+		if (task instanceof TestGeneration testGeneration) {
+			// Replaying a trace does not write files, it checks the compiled code
+			return !testGeneration.isReplay();
+		}
+		return task instanceof YakinduCompilation || task instanceof EventPriorityTransformation ||
+				task instanceof PhaseStatechartGeneration || task instanceof CodeGeneration ||
+				task instanceof Slicing;
+	}
+	
 	/** 
 	 * Compilation order: interfaces <- statecharts <- event priority <- analysis model, code <- test.
 	 * As everything depends on statecharts and statecharts depend on interfaces.
@@ -61,53 +61,61 @@ public class AnalysisModelTransformationAndVerificationHandler extends TaskHandl
 		List<CommentableStateFormula> savedFormulas = new ArrayList<CommentableStateFormula>(formulas);
 		int size = savedFormulas.size();
 		
-		formulas.clear();
-		for (CommentableStateFormula commentableStateFormula : savedFormulas) {
-			int index = savedFormulas.indexOf(commentableStateFormula);
-			formulas.add(commentableStateFormula); // One by one
-			
-			AnalysisModelTransformationHandler transformationHandler = new AnalysisModelTransformationHandler(file);
-			transformation.setPropertyPackage(null); // No slicing - deprecated
-			transformationHandler.execute(transformation);
-			logger.info("Analysis transformation " + index + "/" + size + " finished");
-			
-			String folder = transformation.getTargetFolder().get(0);
-			String plainFileName = fileUtil.getExtensionlessName(
-					transformation.getFileName().get(0));
-			String extension = fileNamer.getFileExtension(language);
-			String fileName = folder + File.separator + plainFileName + "." + extension;
-			
-			Verification verification = factory.createVerification();
-			verification.getAnalysisLanguages().add(language);
-			verification.getFileName().add(fileName);
-			verification.getTargetFolder().addAll(
-					List.of("trace"));
-			verification.getPropertyPackages().add(propertyPackage);
-			verification.setOptimize(true);
-			verification.setOptimizeModel(optimizeModel);
-			verification.setBackAnnotateToOriginal(backAnnotateToOriginal);
-			if (testLanguage != null) {
-				verification.getProgrammingLanguages().add(testLanguage);
-			}
-			
-			if (optimizeModel) {
-				OptimizerAndVerificationHandler verificationHandler =
-						new OptimizerAndVerificationHandler(file, serializeTraces);
-				verificationHandler.execute(verification);
+		// The verifications use the in-memory models, so the EMF models are serialized in the background
+		boolean isAsynchronousSerialization = modelRegistry.isAsynchronousSerialization();
+		modelRegistry.setAsynchronousSerialization(true);
+		try {
+			formulas.clear();
+			for (CommentableStateFormula commentableStateFormula : savedFormulas) {
+				int index = savedFormulas.indexOf(commentableStateFormula);
+				formulas.add(commentableStateFormula); // One by one
 				
-				traces.addAll(
-						verificationHandler.getTraces());
-			}
-			else {
-				VerificationHandler verificationHandler =
-						new VerificationHandler(file, serializeTraces);
-				verificationHandler.execute(verification);
+				AnalysisModelTransformationHandler transformationHandler = new AnalysisModelTransformationHandler(file);
+				transformation.setPropertyPackage(null); // No slicing - deprecated
+				transformationHandler.execute(transformation);
+				logger.info("Analysis transformation " + index + "/" + size + " finished");
+				
+				String folder = transformation.getTargetFolder().get(0);
+				String plainFileName = fileUtil.getExtensionlessName(
+						transformation.getFileName().get(0));
+				String extension = fileNamer.getFileExtension(language);
+				String fileName = folder + File.separator + plainFileName + "." + extension;
+				
+				Verification verification = factory.createVerification();
+				verification.getAnalysisLanguages().add(language);
+				verification.getFileName().add(fileName);
+				verification.getTargetFolder().addAll(
+						List.of("trace"));
+				verification.getPropertyPackages().add(propertyPackage);
+				verification.setOptimize(true);
+				verification.setOptimizeModel(optimizeModel);
+				verification.setBackAnnotateToOriginal(backAnnotateToOriginal);
+				if (testLanguage != null) {
+					verification.getProgrammingLanguages().add(testLanguage);
+				}
+				
+				if (optimizeModel) {
+					OptimizerAndVerificationHandler verificationHandler =
+							new OptimizerAndVerificationHandler(file, serializeTraces);
+					verificationHandler.execute(verification);
+					
+					traces.addAll(
+							verificationHandler.getTraces());
+				}
+				else {
+					VerificationHandler verificationHandler =
+							new VerificationHandler(file, serializeTraces);
+					verificationHandler.execute(verification);
+					
+					traces.addAll(
+							verificationHandler.getTraces());
+				}
 				
-				traces.addAll(
-						verificationHandler.getTraces());
+				logger.info("Verification " + index + "/" + size + " finished");
 			}
-			
-			logger.info("Verification " + index + "/" + size + " finished");
+		} finally {
+			modelRegistry.setAsynchronousSerialization(isAsynchronousSerialization);
+			modelRegistry.awaitSerializations();
 		}
 	}
 	
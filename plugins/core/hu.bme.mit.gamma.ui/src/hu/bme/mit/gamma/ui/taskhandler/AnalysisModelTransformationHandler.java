@@ -87,6 +87,9 @@ import hu.bme.mit.gamma.xsts.uppaal.transformation.api.Xsts2UppaalTransformerSer
 
 public class AnalysisModelTransformationHandler extends TaskHandler {
 	
+	public static final List<AnalysisLanguage> PORTFOLIO_LANGUAGES = List.of(
+			AnalysisLanguage.THETA, AnalysisLanguage.NUXMV, AnalysisLanguage.PROMELA);
+	
 	public AnalysisModelTransformationHandler(IFile file) {
 		super(file);
 	}
@@ -99,6 +102,10 @@ public class AnalysisModelTransformationHandler extends TaskHandler {
 		setAnalysisModelTransformation(transformation);
 		Set<AnalysisLanguage> languagesSet = new LinkedHashSet<AnalysisLanguage>(
 				transformation.getLanguages()); // To retain order
+		if (languagesSet.remove(AnalysisLanguage.PORTFOLIO)) {
+			// Every model checker of the portfolio needs its own model
+			languagesSet.addAll(PORTFOLIO_LANGUAGES);
+		}
 		for (AnalysisLanguage analysisLanguage : languagesSet) {
 			AnalysisModelTransformer transformer;
 			switch (analysisLanguage) {
@@ -154,6 +161,7 @@ public class AnalysisModelTransformationHandler extends TaskHandler {
 	public String getFileName(String plainFileName, AnalysisLanguage analysisLanguage) {
 		switch (analysisLanguage) {
 		case THETA:
+		case PORTFOLIO:
 			return fileNamer.getXtextXStsFileName(plainFileName);
 		case UPPAAL:
 			return fileNamer.getXmlUppaalFileName(plainFileName);
@@ -534,7 +542,8 @@ public class AnalysisModelTransformationHandler extends TaskHandler {
 						dataflowTestedVariables, dataflowCoverageCriterion,
 						testedComponentsForInteractionDataflow, interactionDataflowCoverageCriterion
 					),
-					transformation.getInitialState(), initialStateSetting
+					transformation.getInitialState(), initialStateSetting,
+					transformation.isTransformInParallel()
 			);
 			transformer.execute();
 			// Property serialization
@@ -150,7 +150,8 @@ public class CodeGenerationHandler extends TaskHandler {
 			}
 			String parent = resourceFile.getParent();
 			singleStatechartCommandHandler.run(statechart, parent,
-					targetFolderUri, codeGeneration.getPackageName().get(0));
+					targetFolderUri, codeGeneration.getPackageName().get(0),
+					codeGeneration.isTimingWheelTimers(), codeGeneration.isSwitchDispatch());
 		}
 		else {
 			logger.info("Starting composite component code generation: " + componentName);
@@ -160,7 +161,9 @@ public class CodeGenerationHandler extends TaskHandler {
 			// The presence of the top level component and statechart traces are sufficient in the resource set
 			// Contained composite components are automatically resolved by VIATRA
 			GlueCodeGenerator generator = new GlueCodeGenerator(codeGenerationResourceSet,
-					codeGeneration.getPackageName().get(0), targetFolderUri);
+					codeGeneration.getPackageName().get(0), targetFolderUri,
+					codeGeneration.isIntCodedEvents(), codeGeneration.isTimingWheelTimers(),
+					codeGeneration.isSharedExecutorAdapters());
 			generator.execute();
 			generator.dispose();
 		}
@@ -39,6 +39,7 @@ public class ModelMutationHandler extends TaskHandler {
 	protected Integer mutationIteration;
 	
 	protected int actualIteration = 0;
+	protected final int MAX_ATTEMPT_COUNT = 100; // For generating a distinct mutant
 	
 	protected final List<Package> mutatedModels = new ArrayList<Package>();
 	
@@ -76,16 +77,32 @@ public class ModelMutationHandler extends TaskHandler {
 		Package newPackage = StatechartModelDerivedFeatures.getContainingPackage(newTopComponent);
 		
 		for (int i = 0; i < mutationIteration; i++) {
-			Package clonedNewPackage =  ecoreUtil.clone(newPackage);
-			Component clonedNewTopComponent = StatechartModelDerivedFeatures
-					.getFirstComponent(clonedNewPackage);
-			String componentName = clonedNewTopComponent.getName();
-			clonedNewTopComponent.setName(componentName + "Mutant");
-			
-			serializer.saveModel(clonedNewPackage, targetFolderUri,
-					fileNamer.getUnfoldedPackageFileName(fileName + "_Mutant_" + actualIteration++));
-			// Note that caching from the previous cycle does not work due to the cloning above
-			mutator.execute(clonedNewTopComponent);
+			Package clonedNewPackage = null;
+			int attemptCount = 0;
+			do {
+				if (clonedNewPackage != null) {
+					// Equivalent or duplicate mutants do not reach the verification
+					ecoreUtil.deleteResource(clonedNewPackage);
+				}
+				clonedNewPackage =  ecoreUtil.clone(newPackage);
+				Component clonedNewTopComponent = StatechartModelDerivedFeatures
+						.getFirstComponent(clonedNewPackage);
+				String componentName = clonedNewTopComponent.getName();
+				clonedNewTopComponent.setName(componentName + "Mutant");
+				
+				serializer.saveModel(clonedNewPackage, targetFolderUri,
+						fileNamer.getUnfoldedPackageFileName(fileName + "_Mutant_" + actualIteration));
+				// Note that caching from the previous cycle does not work due to the cloning above
+				mutator.execute(clonedNewTopComponent);
+			} while (!mutator.isLastMutantDistinct() && ++attemptCount < MAX_ATTEMPT_COUNT);
+			if (!mutator.isLastMutantDistinct()) {
+				// Equivalent or duplicate mutants do not reach the verification even if no other one can be generated
+				ecoreUtil.deleteResource(clonedNewPackage);
+				logger.warning("Could not generate a distinct mutant in " + MAX_ATTEMPT_COUNT +
+						" attempts, returning " + i + " mutants instead of " + mutationIteration);
+				break;
+			}
+			actualIteration++;
 			//
 			ecoreUtil.save(clonedNewPackage);
 			
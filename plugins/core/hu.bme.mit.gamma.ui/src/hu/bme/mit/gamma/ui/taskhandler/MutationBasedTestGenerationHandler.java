@@ -17,14 +17,20 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -70,7 +76,7 @@ import hu.bme.mit.gamma.trace.model.RaiseEventAct;
 import hu.bme.mit.gamma.trace.model.Step;
 import hu.bme.mit.gamma.transformation.util.GammaFileNamer;
 import hu.bme.mit.gamma.ui.taskhandler.VerificationHandler.ExecutionTraceSerializer;
-import hu.bme.mit.gamma.util.ScannerLogger;
+import hu.bme.mit.gamma.ui.util.MutantTestRunner;
 
 public class MutationBasedTestGenerationHandler extends TaskHandler {
 	//
@@ -82,8 +88,9 @@ public class MutationBasedTestGenerationHandler extends TaskHandler {
 	protected ProgrammingLanguage programmingLanguage;
 	
 	//
-	protected final String ENVIRONMENT_VARIABLE_FOR_JUNIT_JAR = "JUNIT";
 	protected final int MAX_TEST_RUN = 10;
+	protected final long MUTANT_TEST_TIMEOUT = 60000; // In milliseconds, a mutant is killed if its tests time out
+	protected final String MUTANT_FOLDER_NAME = ".mutants"; // Generated code of the mutants under test
 	//
 	protected final PropertyUtil propertyUtil = PropertyUtil.INSTANCE;
 	protected final ExecutionTraceSerializer traceSerializer = ExecutionTraceSerializer.INSTANCE;
@@ -357,16 +364,23 @@ public class MutationBasedTestGenerationHandler extends TaskHandler {
 	//
 
 	private Collection<Package> killMutantsWithExistingTests(Component originalTopComponent, Collection<? extends Package> mutatedModels,
-				String testFilePattern) throws CoreException, IOException {
+				String testFilePattern) throws IOException, InterruptedException, CoreException {
 		List<Package> unnecessaryMutations = new ArrayList<Package>();
 		
 		if (testFilePattern != null) {
 			Set<Component> allOriginalComponents = StatechartModelDerivedFeatures.getSelfAndAllComponents(originalTopComponent);
-			// Compile tests once if not using the bin folder
+			// The tests and the original code are used from the bin folder, so the project is built once
+			// (incrementally) to compile the tests generated in the previous iterations
 			IProject project = file.getProject();
+			project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD,
+					"org.eclipse.jdt.core.javabuilder", null, new NullProgressMonitor());
+			String packageName = project.getName();
+			String binFolderPath = getBinUri();
+			List<String> testClassNames = getTestClassNames(binFolderPath, testFilePattern);
 			
-			CodeGeneration codeGeneration = factory.createCodeGeneration();
-			codeGeneration.getProgrammingLanguages().add(ProgrammingLanguage.JAVA);
+			// Generating the code of the mutants one by one (their models are adjusted), each into its own folder
+			Map<Package, File> mutantSourceFolders = new LinkedHashMap<Package, File>();
 			for (Package mutatedModel : mutatedModels) {
 				String mutatedPackageName = mutatedModel.getName();
 				List<Package> mutantImports = new ArrayList<Package>(mutatedModel.getImports());
@@ -400,66 +414,73 @@ public class MutationBasedTestGenerationHandler extends TaskHandler {
 				mutatedModel.getImports().clear();
 				mutatedModel.getImports().addAll(originalImports);
 				
-				// Generate code for component
+				// Generate code for component into a folder of the mutant
+				String mutantFolder = MUTANT_FOLDER_NAME + File.separator + "mutant" + mutantSourceFolders.size();
+				CodeGeneration codeGeneration = factory.createCodeGeneration();
+				codeGeneration.getProgrammingLanguages().add(ProgrammingLanguage.JAVA);
+				codeGeneration.getTargetFolder().add(mutantFolder);
 				codeGeneration.setComponent(mutatedComponent);
 				CodeGenerationHandler handler = new CodeGenerationHandler(file);
-				String packageName = project.getName();
 				handler.execute(codeGeneration, packageName);
-				project.build(IncrementalProjectBuilder.FULL_BUILD,
-						"org.eclipse.jdt.core.javabuilder", null, new NullProgressMonitor());
+				mutantSourceFolders.put(mutatedModel,
+						new File(handler.getTargetFolderUri()));
 				
 				// Reinstating original mutation model
 				mutatedModel.setName(mutatedPackageName);
 				mutatedModel.getImports().clear();
 				mutatedModel.getImports().addAll(mutantImports);
-				
-				// Running tests to see if mutant can be killed
-				// java -jar C:\Users\grben\git\gamma\plugins\mutation\mutation-bin\junit-platform-console-standalone-1.9.3.jar -cp bin -c hu.bme.mit.gamma.tutorial.finish.tutorial.ExecutionTraceSimulation5 -c hu.bme.mit.gamma.tutorial.finish.tutorial.ExecutionTraceSimulation7
-				String jUnit = System.getenv(ENVIRONMENT_VARIABLE_FOR_JUNIT_JAR);
-				String binFolderName = "bin";
-				String binFolderPath = projectLocation + File.separator + binFolderName;
-				File binFolder = new File(binFolderPath);
-				List<File> binFiles = fileUtil.getAllContainedFiles(binFolder);
-				
-				List<String> commandElements = new ArrayList<String>(
-						List.of("java", "-jar", jUnit, "-cp", binFolderPath));
-				final String CLASS_ENDING = ".class";
-				for (String binFilePath : binFiles.stream()
-							.map(it -> it.getAbsolutePath())
-							.filter(it -> it.matches(testFilePattern) && it.endsWith(CLASS_ENDING) && !it.contains("$")).toList()) {
-					String javaClassName = binFilePath.substring(1 + binFolderPath.length())
-								.replaceAll("\\\\", ".").replaceAll("/", ".");
-					javaClassName = javaClassName.substring(0,
-							javaClassName.length() - CLASS_ENDING.length());
-					
-					commandElements.addAll(
-							List.of("-c", javaClassName));
+			}
+			
+			// Running tests to see if mutants can be killed: in parallel, each mutant in its own class loader
+			MutantTestRunner testRunner = new MutantTestRunner(
+					new File(binFolderPath), testClassNames, MUTANT_TEST_TIMEOUT);
+			int parallelism = Math.min(mutantSourceFolders.size(), Runtime.getRuntime().availableProcessors());
+			ExecutorService executor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+			try {
+				Map<Package, Future<Boolean>> testResults = new LinkedHashMap<Package, Future<Boolean>>();
+				for (Entry<Package, File> mutantSourceFolder : mutantSourceFolders.entrySet()) {
+					File sourceFolder = mutantSourceFolder.getValue();
+					testResults.put(mutantSourceFolder.getKey(),
+							executor.submit(() -> testRunner.isKilled(sourceFolder)));
 				}
-				String[] command = commandElements.stream().toArray(String[] ::new);
-				Runtime runtime = Runtime.getRuntime();
-				Process jUnitProcess = runtime.exec(command);
-				
-				Scanner jUnitOutput = new Scanner(jUnitProcess.getInputStream());
-				
-				ScannerLogger logger = new ScannerLogger(jUnitOutput, "Failures (", false);
-				logger.start();
-				logger.join();
-				
-				if (logger.isError()) {
-					unnecessaryMutations.add(mutatedModel);
+				for (Entry<Package, Future<Boolean>> testResult : testResults.entrySet()) {
+					try {
+						if (testResult.getValue().get()) {
+							unnecessaryMutations.add(testResult.getKey());
+						}
+					} catch (ExecutionException e) {
+						throw new IllegalStateException(e.getCause());
+					}
 				}
-				
-				// Restoring original code
-				codeGeneration.setComponent(originalComponent);
-				handler.execute(codeGeneration, packageName);
-				project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD,
-						"org.eclipse.jdt.core.javabuilder", null, new NullProgressMonitor());
+			} finally {
+				executor.shutdownNow();
+				fileUtil.forceDelete(
+						new File(projectLocation + File.separator + MUTANT_FOLDER_NAME));
 			}
 		}
 		
 		return unnecessaryMutations;
 	}
 	
+	private List<String> getTestClassNames(String binFolderPath, String testFilePattern) {
+		File binFolder = new File(binFolderPath);
+		List<File> binFiles = fileUtil.getAllContainedFiles(binFolder);
+		
+		List<String> testClassNames = new ArrayList<String>();
+		final String CLASS_ENDING = ".class";
+		for (String binFilePath : binFiles.stream()
+					.map(it -> it.getAbsolutePath())
+					.filter(it -> it.matches(testFilePattern) && it.endsWith(CLASS_ENDING) && !it.contains("$")).toList()) {
+			String javaClassName = binFilePath.substring(1 + binFolder.getAbsolutePath().length())
+						.replaceAll("\\\\", ".").replaceAll("/", ".");
+			javaClassName = javaClassName.substring(0,
+					javaClassName.length() - CLASS_ENDING.length());
+			
+			testClassNames.add(javaClassName);
+		}
+		return testClassNames;
+	}
+	
 	//
 	
 	private Map<State, Integer> calculateTraceMetrics(File file, Map<State, Integer> metrics) {
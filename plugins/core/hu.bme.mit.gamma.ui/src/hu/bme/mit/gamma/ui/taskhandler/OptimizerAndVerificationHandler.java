@@ -189,8 +189,8 @@ public class OptimizerAndVerificationHandler extends TaskHandler {
 			checkableFormulas.clear();
 			checkableFormulas.add(formula);
 			
-			// Reload XSTS to retrieve all variables
-			XSTS xSts = (XSTS) ecoreUtil.normalLoad(gStsFile);
+			// Reload XSTS to retrieve all variables (a new instance, as it is modified)
+			XSTS xSts = (XSTS) modelRegistry.load(gStsFile);
 			
 			// Optimize XSTS based on formula
 			List<ComponentInstanceVariableReferenceExpression> keepableVariableReferences =
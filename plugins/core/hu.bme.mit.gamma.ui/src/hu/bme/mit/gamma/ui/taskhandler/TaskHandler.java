@@ -43,6 +43,7 @@ import hu.bme.mit.gamma.transformation.util.GammaFileNamer;
 import hu.bme.mit.gamma.util.FileUtil;
 import hu.bme.mit.gamma.util.GammaEcoreUtil;
 import hu.bme.mit.gamma.util.JavaUtil;
+import hu.bme.mit.gamma.util.ModelRegistry;
 
 public abstract class TaskHandler {
 	
@@ -55,6 +56,7 @@ public abstract class TaskHandler {
 	protected final ExpressionEvaluator expressionEvaluator = ExpressionEvaluator.INSTANCE;
 	
 	protected final GammaFileNamer fileNamer = GammaFileNamer.INSTANCE;
+	protected final ModelRegistry modelRegistry = ModelRegistry.INSTANCE;
 	
 	protected final ModelSerializer serializer = ModelSerializer.INSTANCE;
 	
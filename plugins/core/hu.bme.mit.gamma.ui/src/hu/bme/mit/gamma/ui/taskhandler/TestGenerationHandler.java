@@ -15,9 +15,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.List;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.emf.common.util.URI;
 
 import hu.bme.mit.gamma.genmodel.model.ProgrammingLanguage;
@@ -25,6 +35,7 @@ import hu.bme.mit.gamma.genmodel.model.TestGeneration;
 import hu.bme.mit.gamma.trace.model.ExecutionTrace;
 import hu.bme.mit.gamma.trace.testgeneration.c.MakefileGenerator;
 import hu.bme.mit.gamma.trace.testgeneration.java.TestGenerator;
+import hu.bme.mit.gamma.trace.testgeneration.java.TraceReplayer;
 
 public class TestGenerationHandler extends TaskHandler {
 
@@ -47,7 +58,12 @@ public class TestGenerationHandler extends TaskHandler {
 		
 		switch (programmingLanguage) {
 			case JAVA:
-				generateJavaTest(testGeneration, packageName);
+				if (testGeneration.isReplay()) {
+					replayJavaTest(testGeneration);
+				}
+				else {
+					generateJavaTest(testGeneration, packageName);
+				}
 				break;
 			case C:
 				generateCTest(testGeneration);
@@ -85,6 +101,35 @@ public class TestGenerationHandler extends TaskHandler {
 				fileName + ".java", testClass);
 	}
 	
+	private void replayJavaTest(TestGeneration testGeneration) throws IOException {
+		ExecutionTrace executionTrace = testGeneration.getExecutionTrace();
+		logger.info("Replaying trace on the generated Java code: " + executionTrace.getName());
+		// The generated code is loaded from the bin folder, so the project is built (incrementally) first
+		IContainer container = ResourcesPlugin.getWorkspace().getRoot()
+				.getContainerForLocation(new Path(projectLocation));
+		IProject project = (container != null) ? container.getProject() : file.getProject();
+		try {
+			project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD,
+					"org.eclipse.jdt.core.javabuilder", null, new NullProgressMonitor());
+		} catch (CoreException e) {
+			throw new IOException("Could not build project " + project.getName(), e);
+		}
+		URL binUrl = new File(getBinUri()).toURI().toURL();
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { binUrl },
+				TraceReplayer.class.getClassLoader())) {
+			TraceReplayer replayer = new TraceReplayer(classLoader, testGeneration.getPackageName().get(0));
+			TraceReplayer.Result result = replayer.replay(executionTrace);
+			if (result.isPassed()) {
+				logger.info("The trace passed on the generated code: " + executionTrace.getName());
+			}
+			else {
+				logger.warning("The trace failed on the generated code: " + executionTrace.getName() +
+						": " + result.getMessage());
+			}
+		}
+	}
+	
 	private void setTestGeneration(TestGeneration testGeneration, String packageName) {
 		List<String> fileNames = testGeneration.getFileName();
 		List<String> packageNames = testGeneration.getPackageName();
@@ -14,8 +14,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -24,6 +29,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -74,6 +85,7 @@ import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition;
 import hu.bme.mit.gamma.theta.verification.ThetaVerification;
 import hu.bme.mit.gamma.trace.model.ExecutionTrace;
 import hu.bme.mit.gamma.trace.testgeneration.java.TestGenerator;
+import hu.bme.mit.gamma.trace.util.TraceCoverageIndex;
 import hu.bme.mit.gamma.trace.util.TraceUtil;
 import hu.bme.mit.gamma.transformation.util.GammaFileNamer;
 import hu.bme.mit.gamma.transformation.util.StatechartEcoreUtil;
@@ -83,9 +95,12 @@ import hu.bme.mit.gamma.ui.taskhandler.VerificationHandler.ExecutionTraceSeriali
 import hu.bme.mit.gamma.uppaal.verification.UppaalVerification;
 import hu.bme.mit.gamma.uppaal.verification.XstsUppaalVerification;
 import hu.bme.mit.gamma.util.FileUtil;
+import hu.bme.mit.gamma.util.InterruptableCallable;
+import hu.bme.mit.gamma.util.ThreadRacer;
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean;
 import hu.bme.mit.gamma.verification.util.AbstractVerification;
 import hu.bme.mit.gamma.verification.util.AbstractVerifier.Result;
+import hu.bme.mit.gamma.verification.util.VerificationResultCache;
 import hu.bme.mit.gamma.xsts.derivedfeatures.XstsDerivedFeatures;
 import hu.bme.mit.gamma.xsts.model.XSTS;
 import hu.bme.mit.gamma.xsts.util.XstsActionUtil;
@@ -104,6 +119,10 @@ public class VerificationHandler extends TaskHandler {
 	
 	protected TimeSpecification timeout = null;
 	
+	// Set by the Headless Gamma server to follow the results as they are retrieved
+	public static final String PROGRESS_FILE_ENVIRONMENT_VARIABLE = "GAMMA_VERIFICATION_PROGRESS_FILE";
+	protected final String progressFileName = System.getenv(PROGRESS_FILE_ENVIRONMENT_VARIABLE);
+	
 	//
 	
 	protected PropertySerializer propertySerializer = null;
@@ -111,6 +130,10 @@ public class VerificationHandler extends TaskHandler {
 	//
 	
 	protected final List<ExecutionTrace> traces = new ArrayList<ExecutionTrace>();
+	// Coverage index of the retrieved traces, rebuilt if the list of retrieved traces has been changed
+	protected List<ExecutionTrace> indexedTraces = null;
+	protected int indexedTraceCount = 0;
+	protected TraceCoverageIndex<ExecutionTrace> traceCoverageIndex = null;
 	
 	//
 	
@@ -119,6 +142,7 @@ public class VerificationHandler extends TaskHandler {
 	protected final XstsActionUtil xStsUtil = XstsActionUtil.INSTANCE;
 	protected final StatechartEcoreUtil statechartEcoreUtil = StatechartEcoreUtil.INSTANCE;
 	protected final ExecutionTraceSerializer serializer = ExecutionTraceSerializer.INSTANCE;
+	protected final VerificationResultCache verificationResultCache = VerificationResultCache.INSTANCE;
 	
 	//
 	
@@ -145,35 +169,22 @@ public class VerificationHandler extends TaskHandler {
 		List<String> verificationArguments = verification.getVerificationArguments();
 		
 		boolean distinguishStringFormulas = false;
+		boolean isPortfolio = false;
 		
 		AbstractVerification verificationTask = null;
 		propertySerializer = null;
 		for (AnalysisLanguage analysisLanguage : languagesSet) {
-			switch (analysisLanguage) {
-				case UPPAAL:
-					verificationTask = UppaalVerification.INSTANCE;
-					propertySerializer = UppaalPropertySerializer.INSTANCE;
-					break;
-				case THETA:
-					verificationTask = ThetaVerification.INSTANCE;
-					propertySerializer = ThetaPropertySerializer.INSTANCE;
-					distinguishStringFormulas = true;
-					break;
-				case XSTS_UPPAAL:
-					verificationTask = XstsUppaalVerification.INSTANCE;
-					propertySerializer = XstsUppaalPropertySerializer.INSTANCE;
-					break;
-				case PROMELA:
-					verificationTask = PromelaVerification.INSTANCE;
-					propertySerializer = PromelaPropertySerializer.INSTANCE;
-					break;
-				case NUXMV:
-					verificationTask = NuxmvVerification.INSTANCE;
-					propertySerializer = NuxmvPropertySerializer.INSTANCE;
-					break;
-				default:
-					throw new IllegalArgumentException(analysisLanguage + " is not supported");
-			}
+			isPortfolio = analysisLanguage == AnalysisLanguage.PORTFOLIO;
+			// The portfolio uses the verification tasks of its languages, the XSTS ids are used for logging
+			verificationTask = isPortfolio ? null : getVerificationTask(analysisLanguage);
+			propertySerializer = getPropertySerializer(isPortfolio ? AnalysisLanguage.THETA : analysisLanguage);
+			distinguishStringFormulas = analysisLanguage == AnalysisLanguage.THETA;
+		}
+		if (isPortfolio) {
+			checkArgument(verification.getQueryFiles().isEmpty(),
+					"Portfolio verification supports only property models");
+			checkArgument(verificationArguments.isEmpty(),
+					"Portfolio verification supports only default arguments");
 		}
 		String filePath = verification.getFileName().get(0);
 		File modelFile = new File(filePath);
@@ -183,7 +194,7 @@ public class VerificationHandler extends TaskHandler {
 		File emfModelFile = new File(emfModelFilePath);
 		XSTS xSts = null;
 		try {
-			xSts = (XSTS) ecoreUtil.normalLoad(emfModelFile);
+			xSts = (XSTS) modelRegistry.get(emfModelFile); // Only read
 		} catch (RuntimeException e) {
 			// The EMF xSts model is not found
 		}
@@ -250,48 +261,38 @@ public class VerificationHandler extends TaskHandler {
 				verification.getPropertyPackages().stream()
 					.allMatch(it -> PropertyModelDerivedFeatures.areAllPropertiesInvariants(it));
 		String[] arguments = verificationArguments.isEmpty() ?
-				(areAllPropertiesInvariants ?
-						verificationTask.getDefaultArgumentsForInvarianceChecking(modelFile) : 
-							verificationTask.getDefaultArguments(modelFile)) :
+				(isPortfolio ? new String[0] : // Every model checker uses its own default arguments
+					getDefaultArguments(verificationTask, modelFile, areAllPropertiesInvariants)) :
 					verificationArguments.toArray(new String[verificationArguments.size()]);
 		
 		// Execution
-		while (!formulaQueue.isEmpty()) {
-			Entry<String, StateFormula> formula = formulaQueue.poll();
-			String serializedFormula = formula.getKey();
-			
-			// Saving the string
-			File file = modelFile;
-			String fileName = fileNamer.getHiddenSerializedPropertyFileName(file.getName());
-			File queryFile = new File(file.getParentFile().toString() + File.separator + fileName);
-			fileUtil.saveString(queryFile, serializedFormula);
-			queryFile.deleteOnExit();
-			
-			Stopwatch stopwatch = Stopwatch.createStarted();
-			
-			Result result = execute(verificationTask, modelFile, queryFile, arguments,
-					retrievedTraces, isOptimize);
-			ExecutionTrace trace = result.getTrace();
-			ThreeStateBoolean verificationResult = result.getResult();
-			
-			stopwatch.stop();
-			
-			// Adding comment to connect the trace with the property
-			if (trace != null) {
-				traceUtil.addComment(trace, serializedFormula);
-			}
-			
-			TimeUnit timeUnit = TimeUnit.MILLISECONDS;
-			long elapsed = stopwatch.elapsed(timeUnit);
-			String elapsedString = elapsed + " " + timeUnit;
-			
-			retrievedVerificationResults.add(
-				new VerificationResult(
-					serializedFormula, verificationResult, arguments, elapsedString));
-			
-			// Checking if some of the unchecked properties are already covered
-			if (isOptimize) {
-				removeCoveredProperties(trace, formulaQueue);
+		int parallelism = getParallelism(verification);
+		AbstractVerification task = verificationTask;
+		// In case of a portfolio, every formula is verified by a race of the model checkers
+		FormulaVerifier formulaVerifier = isPortfolio ?
+				(formula, queryFilePostfix) -> verifyPortfolio(modelFile, formula.getKey(), formula.getValue(),
+						queryFilePostfix, areAllPropertiesInvariants) :
+				(formula, queryFilePostfix) -> verify(task, modelFile, formula.getKey(),
+						queryFilePostfix, arguments);
+		if (parallelism > 1 && formulaQueue.size() > 1) {
+			executeInParallel(formulaVerifier, formulas.keySet(), formulaQueue, arguments,
+					parallelism, retrievedVerificationResults, retrievedTraces, isOptimize);
+		}
+		else if (!isPortfolio && timeout == null && verificationTask.isBatchVerificationSupported() &&
+				formulaQueue.size() > 1 &&
+				formulaQueue.stream().noneMatch(it -> it.getKey().contains(System.lineSeparator()))) {
+			executeInBatch(verificationTask, modelFile, formulaQueue, arguments,
+					retrievedVerificationResults, retrievedTraces, isOptimize);
+		}
+		else {
+			while (!formulaQueue.isEmpty()) {
+				Entry<String, StateFormula> formula = formulaQueue.poll();
+				
+				TimedResult timedResult = formulaVerifier.verify(formula, null);
+				VerificationResult verificationResult = handleResult(timedResult, formulaQueue,
+						arguments, retrievedTraces, isOptimize);
+				
+				retrievedVerificationResults.add(verificationResult);
 			}
 		}
 		if (isOptimize) {
@@ -328,6 +329,302 @@ public class VerificationHandler extends TaskHandler {
 	
 	//
 	
+	protected void executeInParallel(FormulaVerifier formulaVerifier,
+			Collection<String> orderedFormulas, Queue<Entry<String, StateFormula>> formulaQueue,
+			String[] arguments, int parallelism, List<VerificationResult> retrievedVerificationResults,
+			List<ExecutionTrace> retrievedTraces, boolean isOptimize) throws InterruptedException {
+		logger.info("Verifying " + formulaQueue.size() + " formulas using " + parallelism + " workers");
+		Map<String, VerificationResult> verificationResults = new HashMap<String, VerificationResult>();
+		Map<String, ExecutionTrace> verificationTraces = new HashMap<String, ExecutionTrace>();
+		int firstTraceIndex = retrievedTraces.size();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		CompletionService<TimedResult> completionService = new ExecutorCompletionService<TimedResult>(executor);
+		try {
+			int inFlight = 0;
+			// Formulas are polled only on this thread, so covered ones can be removed from the queue
+			// while others are being verified
+			while (!formulaQueue.isEmpty() || inFlight > 0) {
+				while (!formulaQueue.isEmpty() && inFlight < parallelism) {
+					Entry<String, StateFormula> formula = formulaQueue.poll();
+					completionService.submit(() -> formulaVerifier.verify(formula,
+							Thread.currentThread().getName())); // Per-worker query files
+					++inFlight;
+				}
+				
+				Future<TimedResult> future = completionService.take();
+				--inFlight;
+				TimedResult timedResult = null;
+				try {
+					timedResult = future.get();
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+				
+				int traceCount = retrievedTraces.size();
+				VerificationResult verificationResult = handleResult(timedResult, formulaQueue,
+						arguments, retrievedTraces, isOptimize);
+				String serializedFormula = timedResult.getSerializedFormula();
+				verificationResults.put(serializedFormula, verificationResult);
+				if (retrievedTraces.size() > traceCount) { // The trace is not covered by the previous ones
+					verificationTraces.put(serializedFormula, retrievedTraces.get(traceCount));
+				}
+			}
+		} finally {
+			// In case of interruption or exception, the still running workers are cancelled
+			executor.shutdownNow();
+		}
+		
+		// Keeping the original order of the formulas for both the results and the traces (added in the
+		// order of completion), so the ids of the .get file and the entries of the .json file match
+		retrievedTraces.subList(firstTraceIndex, retrievedTraces.size()).clear();
+		for (String serializedFormula : orderedFormulas) {
+			VerificationResult verificationResult = verificationResults.get(serializedFormula);
+			if (verificationResult != null) {
+				retrievedVerificationResults.add(verificationResult);
+			}
+			ExecutionTrace trace = verificationTraces.get(serializedFormula);
+			if (trace != null) {
+				retrievedTraces.add(trace);
+			}
+		}
+	}
+	
+	/**
+	 * Verifies the formulas in a single run of the back-end, e.g., in a single nuXmv session,
+	 * so the model is parsed and encoded only once. Formulas covered by the traces of the
+	 * preceding ones (in case of optimization) are not handled.
+	 */
+	protected void executeInBatch(AbstractVerification verificationTask, File modelFile,
+			Queue<Entry<String, StateFormula>> formulaQueue, String[] arguments,
+			List<VerificationResult> retrievedVerificationResults, List<ExecutionTrace> retrievedTraces,
+			boolean isOptimize) throws InterruptedException {
+		List<Entry<String, StateFormula>> formulas = new ArrayList<Entry<String, StateFormula>>(formulaQueue);
+		List<String> serializedFormulas = formulas.stream()
+				.map(it -> it.getKey()).collect(Collectors.toList());
+		logger.info("Verifying " + formulas.size() + " formulas in a single back-end run");
+		
+		verificationResultCache.resetThreadCounts();
+		
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		List<Result> results = verificationTask.executeBatch(modelFile, serializedFormulas, arguments,
+				-1, null); // Batches are used only without timeout
+		
+		stopwatch.stop();
+		
+		TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+		String elapsedString = stopwatch.elapsed(timeUnit) + " " + timeUnit;
+		
+		for (int i = 0; i < formulas.size(); i++) {
+			Entry<String, StateFormula> formula = formulas.get(i);
+			if (formulaQueue.remove(formula)) { // Not covered by the traces of the preceding formulas
+				// The time and the cache counts belong to the whole batch
+				TimedResult timedResult = new TimedResult(formula.getKey(), results.get(i), elapsedString);
+				timedResult.setBatchSize(formulas.size());
+				if (verificationResultCache.isEnabled()) {
+					timedResult.setCacheCounts(
+						verificationResultCache.getThreadHitCount(),
+						verificationResultCache.getThreadMissCount());
+				}
+				VerificationResult verificationResult = handleResult(timedResult, formulaQueue,
+						arguments, retrievedTraces, isOptimize);
+				
+				retrievedVerificationResults.add(verificationResult);
+			}
+		}
+	}
+	
+	protected TimedResult verify(AbstractVerification verificationTask, File modelFile,
+			String serializedFormula, String queryFilePostfix, String[] arguments) throws InterruptedException {
+		// Saving the string
+		String fileName = (queryFilePostfix == null) ?
+				fileNamer.getHiddenSerializedPropertyFileName(modelFile.getName()) :
+					fileNamer.getHiddenSerializedPropertyFileName(modelFile.getName(), queryFilePostfix);
+		File queryFile = new File(modelFile.getParentFile().toString() + File.separator + fileName);
+		fileUtil.saveString(queryFile, serializedFormula);
+		queryFile.deleteOnExit();
+		
+		// Cache counters are thread-local, so parallel verification tasks do not interfere
+		verificationResultCache.resetThreadCounts();
+		
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		Result result = verify(verificationTask, modelFile, queryFile, arguments);
+		
+		stopwatch.stop();
+		
+		TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+		long elapsed = stopwatch.elapsed(timeUnit);
+		String elapsedString = elapsed + " " + timeUnit;
+		
+		TimedResult timedResult = new TimedResult(serializedFormula, result, elapsedString);
+		if (verificationResultCache.isEnabled()) {
+			timedResult.setCacheCounts(
+				verificationResultCache.getThreadHitCount(),
+				verificationResultCache.getThreadMissCount());
+		}
+		return timedResult;
+	}
+	
+	/**
+	 * Races the model checkers of the portfolio on the same property using their own models
+	 * (derived from the same component) and default arguments; the first definitive (not UNDEF)
+	 * result wins and the processes of the other model checkers are killed.
+	 */
+	protected TimedResult verifyPortfolio(File modelFile, String serializedFormula, StateFormula formula,
+			String queryFilePostfix, boolean isInvariant) throws InterruptedException {
+		File folder = modelFile.getParentFile();
+		String plainFileName = fileUtil.getExtensionlessName(modelFile);
+		
+		List<InterruptableCallable<Entry<AnalysisLanguage, Result>>> callables =
+				new ArrayList<InterruptableCallable<Entry<AnalysisLanguage, Result>>>();
+		for (AnalysisLanguage language : AnalysisModelTransformationHandler.PORTFOLIO_LANGUAGES) {
+			AbstractVerification verificationTask = getVerificationTask(language);
+			File languageModelFile = new File(folder,
+					plainFileName + "." + fileNamer.getFileExtension(language));
+			String languageFormula = getPropertySerializer(language).serialize(formula);
+			String[] arguments = getDefaultArguments(verificationTask, languageModelFile, isInvariant);
+			// The engines serialize the property differently, so they need their own query files
+			// (also per worker if the formulas are verified in parallel)
+			String languageQueryFilePostfix = (queryFilePostfix == null) ? language.toString() :
+				language + "-" + queryFilePostfix;
+			
+			callables.add(new InterruptableCallable<Entry<AnalysisLanguage, Result>>() {
+				private volatile Thread thread;
+				@Override
+				public Entry<AnalysisLanguage, Result> call() throws Exception {
+					thread = Thread.currentThread();
+					TimedResult timedResult = verify(verificationTask, languageModelFile,
+							languageFormula, languageQueryFilePostfix, arguments);
+					logger.info(language + " finished in " + timedResult.getElapsedTime());
+					return Map.entry(language, timedResult.getResult());
+				}
+				@Override
+				public void cancel() {
+					Thread thread = this.thread;
+					if (thread != null) {
+						// Kills the processes of the model checker started by this thread
+						verificationTask.cancel(thread);
+					}
+				}
+			});
+		}
+		
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		ThreadRacer<Entry<AnalysisLanguage, Result>> racer = new ThreadRacer<Entry<AnalysisLanguage, Result>>(
+				callables, -1, null, it -> it != null && it.getValue().getResult() != ThreeStateBoolean.UNDEF);
+		Entry<AnalysisLanguage, Result> winner = racer.execute();
+		
+		stopwatch.stop();
+		
+		TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+		String elapsedString = stopwatch.elapsed(timeUnit) + " " + timeUnit;
+		
+		// If no model checker returns a definitive result, the racer returns a rejected (UNDEF) result
+		if (winner == null || winner.getValue().getResult() == ThreeStateBoolean.UNDEF) {
+			// Every model checker failed
+			logger.warning("No model checker of the portfolio returned a definitive result");
+			return new TimedResult(serializedFormula, new Result(ThreeStateBoolean.UNDEF, null), elapsedString);
+		}
+		AnalysisLanguage engine = winner.getKey();
+		logger.info(engine + " won the portfolio race in " + elapsedString);
+		
+		TimedResult timedResult = new TimedResult(serializedFormula, winner.getValue(), elapsedString);
+		timedResult.setEngine(engine.toString());
+		return timedResult;
+	}
+	
+	private VerificationResult handleResult(TimedResult timedResult,
+			Collection<? extends Entry<?, StateFormula>> formulaQueue, String[] arguments,
+			List<ExecutionTrace> retrievedTraces, boolean isOptimize) {
+		String serializedFormula = timedResult.getSerializedFormula();
+		Result result = handleTrace(timedResult.getResult(), retrievedTraces, isOptimize);
+		ExecutionTrace trace = result.getTrace();
+		ThreeStateBoolean verificationResult = result.getResult();
+		
+		// Adding comment to connect the trace with the property
+		if (trace != null) {
+			traceUtil.addComment(trace, serializedFormula);
+		}
+		
+		// Checking if some of the unchecked properties are already covered
+		if (isOptimize) {
+			removeCoveredProperties(trace, formulaQueue);
+		}
+		
+		VerificationResult handledResult = new VerificationResult(serializedFormula, verificationResult,
+				arguments, timedResult.getElapsedTime(),
+				timedResult.getCacheHits(), timedResult.getCacheMisses(), timedResult.getEngine(),
+				timedResult.getBatchSize());
+		reportProgress(handledResult);
+		
+		return handledResult;
+	}
+	
+	private void reportProgress(VerificationResult verificationResult) {
+		if (progressFileName != null) {
+			try {
+				serializer.appendProgress(
+						projectLocation + File.separator + progressFileName, verificationResult);
+			} catch (IOException e) {
+				logger.warning("Cannot report the progress of the verification: " + e.getMessage());
+			}
+		}
+	}
+	
+	private AbstractVerification getVerificationTask(AnalysisLanguage analysisLanguage) {
+		switch (analysisLanguage) {
+			case UPPAAL:
+				return UppaalVerification.INSTANCE;
+			case THETA:
+				return ThetaVerification.INSTANCE;
+			case XSTS_UPPAAL:
+				return XstsUppaalVerification.INSTANCE;
+			case PROMELA:
+				return PromelaVerification.INSTANCE;
+			case NUXMV:
+				return NuxmvVerification.INSTANCE;
+			default:
+				throw new IllegalArgumentException(analysisLanguage + " is not supported");
+		}
+	}
+	
+	private PropertySerializer getPropertySerializer(AnalysisLanguage analysisLanguage) {
+		switch (analysisLanguage) {
+			case UPPAAL:
+				return UppaalPropertySerializer.INSTANCE;
+			case THETA:
+				return ThetaPropertySerializer.INSTANCE;
+			case XSTS_UPPAAL:
+				return XstsUppaalPropertySerializer.INSTANCE;
+			case PROMELA:
+				return PromelaPropertySerializer.INSTANCE;
+			case NUXMV:
+				return NuxmvPropertySerializer.INSTANCE;
+			default:
+				throw new IllegalArgumentException(analysisLanguage + " is not supported");
+		}
+	}
+	
+	private String[] getDefaultArguments(AbstractVerification verificationTask, File modelFile,
+			boolean areAllPropertiesInvariants) {
+		return areAllPropertiesInvariants ?
+				verificationTask.getDefaultArgumentsForInvarianceChecking(modelFile) :
+					verificationTask.getDefaultArguments(modelFile);
+	}
+	
+	private int getParallelism(Verification verification) {
+		BigInteger parallelism = verification.getParallelism();
+		if (parallelism == null) {
+			return 1;
+		}
+		return parallelism.intValue();
+	}
+	
+	//
+	
 	private void adjustProperty(StateFormula formula, XSTS xSts) {
 		// Event references
 		List<ComponentInstanceEventReferenceExpression> eventReferences =
@@ -444,19 +741,28 @@ public class VerificationHandler extends TaskHandler {
 	
 	protected Result execute(AbstractVerification verificationTask, File modelFile, File queryFile,
 			String[] arguments, List<ExecutionTrace> retrievedTraces, boolean isOptimize) throws InterruptedException {
+		Result result = verify(verificationTask, modelFile, queryFile, arguments);
+		return handleTrace(result, retrievedTraces, isOptimize);
+	}
+	
+	protected Result verify(AbstractVerification verificationTask, File modelFile, File queryFile,
+			String[] arguments) throws InterruptedException {
 		long timeoutInMilliseconds = (timeout == null) ? -1 : expressionEvaluator.evaluateInteger(
 				StatechartModelDerivedFeatures.getTimeInMilliseconds(timeout));
 		// If arguments are empty, we execute a task with default arguments
 		Result result = (arguments.length == 0) ?
 				verificationTask.execute(modelFile, queryFile, timeoutInMilliseconds, TimeUnit.MILLISECONDS) :
 					verificationTask.execute(modelFile, queryFile, arguments, timeoutInMilliseconds, TimeUnit.MILLISECONDS);
-		
+		return result;
+	}
+	
+	protected Result handleTrace(Result result, List<ExecutionTrace> retrievedTraces, boolean isOptimize) {
 		ExecutionTrace trace = result.getTrace();
 		// Maybe there is no trace
 		if (trace != null) {
 			if (isOptimize) {
 				logger.info("Checking if trace is already covered by previous traces...");
-				if (traceUtil.isCovered(trace, retrievedTraces)) {
+				if (traceUtil.isCovered(trace, getTraceCoverageIndex(retrievedTraces))) {
 					logger.info("Trace is already covered");
 					return new Result(result.getResult(), null);
 					// We do not return a trace as it is already covered
@@ -466,11 +772,25 @@ public class VerificationHandler extends TaskHandler {
 			}
 			if (!trace.getSteps().isEmpty()) {
 				retrievedTraces.add(trace);
+				if (isOptimize) {
+					traceUtil.addToCoverageIndex(traceCoverageIndex, trace);
+					indexedTraceCount = retrievedTraces.size();
+				}
 			}
 		}
 		return result;
 	}
 	
+	protected TraceCoverageIndex<ExecutionTrace> getTraceCoverageIndex(List<ExecutionTrace> retrievedTraces) {
+		if (traceCoverageIndex == null || indexedTraces != retrievedTraces ||
+				indexedTraceCount != retrievedTraces.size()) {
+			traceCoverageIndex = traceUtil.createCoverageIndex(retrievedTraces);
+			indexedTraces = retrievedTraces;
+			indexedTraceCount = retrievedTraces.size();
+		}
+		return traceCoverageIndex;
+	}
+	
 	private void setVerification(Verification verification) {
 		List<String> packageNames = verification.getPackageName();
 		if (packageNames.isEmpty()) {
@@ -536,6 +856,78 @@ public class VerificationHandler extends TaskHandler {
 	
 	//
 	
+	/**
+	 * Verifies a single formula; the postfix distinguishes the query files of parallel workers.
+	 */
+	@FunctionalInterface
+	protected interface FormulaVerifier {
+		
+		TimedResult verify(Entry<String, StateFormula> formula, String queryFilePostfix)
+				throws InterruptedException;
+		
+	}
+	
+	protected static class TimedResult {
+		
+		private final String serializedFormula;
+		private final Result result;
+		private final String elapsedTime;
+		private Integer cacheHits; // Null if no cache is used
+		private Integer cacheMisses;
+		private String engine; // Null if no portfolio is used
+		private Integer batchSize; // Null if the property is not verified in a batch
+		
+		public TimedResult(String serializedFormula, Result result, String elapsedTime) {
+			this.serializedFormula = serializedFormula;
+			this.result = result;
+			this.elapsedTime = elapsedTime;
+		}
+		
+		public void setCacheCounts(int cacheHits, int cacheMisses) {
+			this.cacheHits = cacheHits;
+			this.cacheMisses = cacheMisses;
+		}
+		
+		public void setEngine(String engine) {
+			this.engine = engine;
+		}
+		
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+		
+		public String getSerializedFormula() {
+			return serializedFormula;
+		}
+		
+		public Result getResult() {
+			return result;
+		}
+		
+		public String getElapsedTime() {
+			return elapsedTime;
+		}
+		
+		public Integer getCacheHits() {
+			return cacheHits;
+		}
+		
+		public Integer getCacheMisses() {
+			return cacheMisses;
+		}
+		
+		public String getEngine() {
+			return engine;
+		}
+		
+		public Integer getBatchSize() {
+			return batchSize;
+		}
+		
+	}
+	
+	//
+	
 	public static class ExecutionTraceSerializer {
 		//
 		public static ExecutionTraceSerializer INSTANCE = new ExecutionTraceSerializer();
@@ -618,6 +1010,13 @@ public class VerificationHandler extends TaskHandler {
 			fileUtil.saveString(resultFolderUri + File.separator + fileName, jsonResult);
 		}
 		
+		// One JSON line per result, so the file can be followed while the verification is running
+		public void appendProgress(String progressFileUri, VerificationResult result) throws IOException {
+			String jsonResult = gson.toJson(result);
+			Files.writeString(Path.of(progressFileUri), jsonResult + System.lineSeparator(),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+		
 		@SuppressWarnings("unused")
 		public static class VerificationResult {
 			
@@ -625,6 +1024,10 @@ public class VerificationHandler extends TaskHandler {
 			private ThreeStateBoolean result;
 			private String[] parameters;
 			private String executionTime;
+			private Integer cacheHits; // Not serialized if null
+			private Integer cacheMisses;
+			private String engine; // The winner of the portfolio
+			private Integer batchSize; // The execution time and cache counts are shared by the batch
 			
 			public VerificationResult(String query, ThreeStateBoolean result) {
 				this(query, result, null, null);
@@ -632,10 +1035,30 @@ public class VerificationHandler extends TaskHandler {
 			
 			public VerificationResult(String query, ThreeStateBoolean result,
 					String[] parameters, String executionTime) {
+				this(query, result, parameters, executionTime, null, null);
+			}
+			
+			public VerificationResult(String query, ThreeStateBoolean result,
+					String[] parameters, String executionTime, Integer cacheHits, Integer cacheMisses) {
+				this(query, result, parameters, executionTime, cacheHits, cacheMisses, null);
+			}
+			
+			public VerificationResult(String query, ThreeStateBoolean result, String[] parameters,
+					String executionTime, Integer cacheHits, Integer cacheMisses, String engine) {
+				this(query, result, parameters, executionTime, cacheHits, cacheMisses, engine, null);
+			}
+			
+			public VerificationResult(String query, ThreeStateBoolean result, String[] parameters,
+					String executionTime, Integer cacheHits, Integer cacheMisses, String engine,
+					Integer batchSize) {
 				this.query = query;
 				this.result = result;
 				this.parameters = parameters;
 				this.executionTime = executionTime;
+				this.cacheHits = cacheHits;
+				this.cacheMisses = cacheMisses;
+				this.engine = engine;
+				this.batchSize = batchSize;
 			}
 			
 		}
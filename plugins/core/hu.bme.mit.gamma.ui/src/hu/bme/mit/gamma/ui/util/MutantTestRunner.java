@@ -0,0 +1,270 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.ui.util;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherConfig;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.junit.vintage.engine.VintageTestEngine;
+
+import hu.bme.mit.gamma.util.FileUtil;
+
+/**
+ * Checks whether the existing tests of a project kill a mutant without modifying the project.
+ * The code of the mutant (generated into its own folder) is compiled in memory against the bin folder
+ * of the project, and the compiled tests of the project are executed in-process with the JUnit Platform
+ * using a class loader that prefers the classes of the mutant to the original ones in the bin folder.
+ * As every mutant has its own class loader, the mutants can be checked in parallel.
+ */
+public class MutantTestRunner {
+	
+	protected final File binFolder;
+	protected final List<String> testClassNames;
+	protected final long timeout; // In milliseconds
+	
+	// Test threads of timed out mutants that have not terminated (yet) despite the interruption
+	protected static final AtomicInteger runawayTestThreadCount = new AtomicInteger(0);
+	protected static final int MAX_RUNAWAY_TEST_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+	
+	protected final FileUtil fileUtil = FileUtil.INSTANCE;
+	protected final Logger logger = Logger.getLogger("GammaLogger");
+	
+	public MutantTestRunner(File binFolder, List<String> testClassNames, long timeout) {
+		this.binFolder = binFolder;
+		this.testClassNames = testClassNames;
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * Returns whether the mutant is killed, i.e., one of the tests fails or the tests time out.
+	 * Mutants that cannot be compiled are not considered killed, as the tests are not executed on them.
+	 * Neither are mutants checked if too many test threads of timed out mutants are still running.
+	 */
+	public boolean isKilled(File mutantSourceFolder) throws IOException, InterruptedException {
+		String mutantName = mutantSourceFolder.getName();
+		if (runawayTestThreadCount.get() >= MAX_RUNAWAY_TEST_THREAD_COUNT) {
+			logger.warning("Too many timed out tests are still running, " + mutantName + " is not checked");
+			return false;
+		}
+		Map<String, byte[]> mutantClasses = compile(mutantSourceFolder);
+		if (mutantClasses == null) {
+			return false;
+		}
+		
+		MutantClassLoader classLoader = new MutantClassLoader(binFolder, mutantClasses,
+				getClass().getClassLoader());
+		AtomicReference<TestExecutionSummary> summary = new AtomicReference<TestExecutionSummary>();
+		AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		AtomicBoolean isFinished = new AtomicBoolean(false);
+		AtomicBoolean isAbandoned = new AtomicBoolean(false);
+		// The tests are executed on their own thread, so they can be abandoned after the timeout
+		Thread testThread = new Thread(() -> {
+			try {
+				summary.set(
+						runTests(classLoader));
+			} catch (Throwable e) {
+				error.set(e);
+			} finally {
+				// The class loader is closed only after the tests, even if they are abandoned
+				try {
+					classLoader.close();
+				} catch (IOException e) {
+					logger.warning("Cannot close the class loader of " + mutantName);
+				}
+				synchronized (isAbandoned) {
+					isFinished.set(true);
+					if (isAbandoned.get()) {
+						runawayTestThreadCount.decrementAndGet();
+					}
+				}
+			}
+		}, "Gamma mutant test " + mutantName);
+		testThread.setDaemon(true);
+		testThread.setContextClassLoader(classLoader);
+		testThread.start();
+		testThread.join(timeout);
+		
+		synchronized (isAbandoned) {
+			if (!isFinished.get()) {
+				// The thread is abandoned if the mutant code does not react, but it is counted
+				isAbandoned.set(true);
+				runawayTestThreadCount.incrementAndGet();
+				testThread.interrupt();
+				logger.info("The tests of " + mutantName + " timed out, it is considered killed");
+				return true;
+			}
+		}
+		testThread.join(); // The class loader is closed
+		if (error.get() != null) {
+			throw new IllegalStateException("Cannot run the tests on " + mutantName, error.get());
+		}
+		return summary.get().getTotalFailureCount() > 0;
+	}
+	
+	//
+	
+	protected Map<String, byte[]> compile(File sourceFolder) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		checkState(compiler != null, "No Java compiler is available, a JDK is needed to check the mutants");
+		
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		try (StandardJavaFileManager standardFileManager =
+					compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+				InMemoryFileManager fileManager = new InMemoryFileManager(standardFileManager)) {
+			List<File> sourceFiles = fileUtil.getAllContainedFiles(sourceFolder).stream()
+					.filter(it -> it.getName().endsWith(Kind.SOURCE.extension))
+					.collect(Collectors.toList());
+			Iterable<? extends JavaFileObject> compilationUnits =
+					standardFileManager.getJavaFileObjectsFromFiles(sourceFiles);
+			// The classes of the mutant are compiled against the original classes of the project
+			List<String> options = List.of("-classpath", binFolder.getAbsolutePath(), "-proc:none", "-nowarn");
+			
+			boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits)
+					.call();
+			if (!success) {
+				logger.warning("Cannot compile " + sourceFolder.getName() + ", it is not considered killed: " +
+						diagnostics.getDiagnostics());
+				return null;
+			}
+			return fileManager.getClasses();
+		}
+	}
+	
+	protected TestExecutionSummary runTests(ClassLoader classLoader) throws ClassNotFoundException {
+		List<DiscoverySelector> selectors = new ArrayList<DiscoverySelector>();
+		for (String testClassName : testClassNames) {
+			selectors.add(
+					DiscoverySelectors.selectClass(classLoader.loadClass(testClassName)));
+		}
+		LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+				.selectors(selectors).build();
+		// The generated tests are JUnit 4 tests; the engine is registered explicitly,
+		// as the service loader of the launcher does not see the engine bundle in OSGi
+		Launcher launcher = LauncherFactory.create(LauncherConfig.builder()
+				.enableTestEngineAutoRegistration(false)
+				.addTestEngines(new VintageTestEngine())
+				.build());
+		SummaryGeneratingListener listener = new SummaryGeneratingListener();
+		launcher.execute(request, listener);
+		
+		return listener.getSummary();
+	}
+	
+	//
+	
+	protected static class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+		
+		private final Map<String, ByteArrayOutputStream> classes =
+				new ConcurrentHashMap<String, ByteArrayOutputStream>();
+		
+		public InMemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+		
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind,
+				FileObject sibling) {
+			URI uri = URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+			return new SimpleJavaFileObject(uri, kind) {
+				@Override
+				public OutputStream openOutputStream() {
+					ByteArrayOutputStream stream = new ByteArrayOutputStream();
+					classes.put(className, stream);
+					return stream;
+				}
+			};
+		}
+		
+		public Map<String, byte[]> getClasses() {
+			return classes.entrySet().stream().collect(
+					Collectors.toMap(it -> it.getKey(), it -> it.getValue().toByteArray()));
+		}
+		
+	}
+	
+	/**
+	 * Child-first class loader: the classes of the mutant are defined from memory, the other classes
+	 * of the project (e.g., the tests) are loaded from the bin folder by this loader too, so they refer
+	 * to the mutant classes; only the remaining classes (e.g., JUnit) are delegated to the parent.
+	 */
+	protected static class MutantClassLoader extends URLClassLoader {
+		
+		private final Map<String, byte[]> mutantClasses;
+		
+		public MutantClassLoader(File binFolder, Map<String, byte[]> mutantClasses, ClassLoader parent)
+				throws IOException {
+			super(new URL[] { binFolder.toURI().toURL() }, parent);
+			this.mutantClasses = mutantClasses;
+		}
+		
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> loadedClass = findLoadedClass(name);
+				if (loadedClass == null) {
+					byte[] bytes = mutantClasses.get(name);
+					if (bytes != null) {
+						loadedClass = defineClass(name, bytes, 0, bytes.length);
+					}
+					else {
+						try {
+							loadedClass = findClass(name);
+						} catch (ClassNotFoundException e) {
+							return super.loadClass(name, resolve);
+						}
+					}
+				}
+				if (resolve) {
+					resolveClass(loadedClass);
+				}
+				return loadedClass;
+			}
+		}
+		
+	}
+	
+}
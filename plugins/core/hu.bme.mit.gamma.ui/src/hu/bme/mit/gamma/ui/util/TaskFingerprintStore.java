@@ -0,0 +1,332 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.ui.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import hu.bme.mit.gamma.genmodel.model.Task;
+import hu.bme.mit.gamma.util.FileUtil;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+
+/**
+ * Stores the fingerprints of the input resources and output files of executed tasks in the project,
+ * so a task can be skipped in a subsequent run if none of its inputs and outputs have changed.
+ * The inputs of a task are its own definition in the genmodel file and every resource that is
+ * (transitively) referenced by the task, e.g., statechart, interface and property models; so editing
+ * a task does not affect the other tasks of the same genmodel file.
+ * The outputs of a task are the files in the project that were created or modified during its
+ * execution, determined by comparing the project files before and after the execution.
+ */
+public class TaskFingerprintStore {
+	
+	public static final String FINGERPRINT_FILE_NAME = ".gamma-build.json";
+	
+	protected final File projectFolder;
+	protected final File fingerprintFile;
+	protected final Map<String, TaskFingerprint> fingerprints;
+	
+	protected final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+	protected final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+	protected final FileUtil fileUtil = FileUtil.INSTANCE;
+	
+	protected final Logger logger = Logger.getLogger("GammaLogger");
+	
+	public TaskFingerprintStore(File projectFolder) {
+		this.projectFolder = projectFolder;
+		this.fingerprintFile = new File(projectFolder, FINGERPRINT_FILE_NAME);
+		this.fingerprints = load();
+	}
+	
+	//
+	
+	public boolean isUpToDate(Task task) {
+		TaskFingerprint fingerprint = fingerprints.get(getKey(task));
+		if (fingerprint == null) {
+			return false;
+		}
+		if (!fingerprint.inputHash.equals(getInputHash(task))) {
+			return false;
+		}
+		// The outputs must not have been modified or deleted since the last execution
+		for (Entry<String, String> output : fingerprint.outputHashes.entrySet()) {
+			File outputFile = new File(projectFolder, output.getKey());
+			if (!outputFile.exists() || !output.getValue().equals(hash(outputFile))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Must be called before the execution of the task, as task handlers may modify the task,
+	 * e.g., by setting default values.
+	 */
+	public TaskExecution startExecution(Task task) {
+		long startTime = System.currentTimeMillis();
+		Map<String, FileState> projectFiles = new HashMap<String, FileState>();
+		collectFiles(projectFolder, startTime, projectFiles);
+		return new TaskExecution(getKey(task), getInputHash(task), startTime, projectFiles);
+	}
+	
+	public void endExecution(TaskExecution execution) {
+		Map<String, FileState> projectFiles = new HashMap<String, FileState>();
+		collectFiles(projectFolder, execution.startTime, projectFiles);
+		// Only the files written by this task are recorded, not the ones of the previous tasks
+		Map<String, String> outputHashes = new TreeMap<String, String>();
+		for (Entry<String, FileState> projectFile : projectFiles.entrySet()) {
+			String relativePath = projectFile.getKey();
+			FileState newState = projectFile.getValue();
+			FileState oldState = execution.projectFiles.get(relativePath);
+			if (oldState == null || newState.isModified(oldState)) {
+				File file = new File(projectFolder, relativePath);
+				outputHashes.put(relativePath, newState.hash != null ? newState.hash : hash(file));
+			}
+		}
+		
+		fingerprints.put(execution.key, new TaskFingerprint(execution.inputHash, outputHashes));
+		save();
+	}
+	
+	//
+	
+	protected String getKey(Task task) {
+		return EcoreUtil.getURI(task).toString();
+	}
+	
+	protected String getInputHash(Task task) {
+		Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(getKey(task), StandardCharsets.UTF_8);
+		Set<EObject> definitions = new LinkedHashSet<EObject>();
+		Set<Resource> resources = new LinkedHashSet<Resource>();
+		collectInputs(task, definitions, resources);
+		// Instead of the whole genmodel file, only the task and the objects it refers to in the file
+		for (EObject definition : definitions) {
+			hashDefinition(definition, hasher);
+		}
+		// Sorted to get a deterministic hash
+		Map<String, File> inputFiles = new TreeMap<String, File>();
+		for (Resource resource : resources) {
+			URI uri = resource.getURI();
+			if (uri.isPlatformResource() || uri.isFile()) { // Library resources of plugins are not considered
+				File file = ecoreUtil.getFile(resource);
+				inputFiles.put(file.getAbsolutePath(), file);
+			}
+		}
+		for (Entry<String, File> inputFile : inputFiles.entrySet()) {
+			hasher.putString(inputFile.getKey(), StandardCharsets.UTF_8);
+			hasher.putString(hash(inputFile.getValue()), StandardCharsets.UTF_8);
+		}
+		return hasher.hash().toString();
+	}
+	
+	/**
+	 * Collects the objects of the genmodel file the task depends on (the task itself and the objects
+	 * it refers to in the same file) and the other resources (transitively) referenced by them.
+	 */
+	protected void collectInputs(Task task, Set<EObject> definitions, Set<Resource> resources) {
+		Resource taskResource = task.eResource();
+		definitions.add(task);
+		
+		Deque<EObject> roots = new ArrayDeque<EObject>();
+		roots.add(task);
+		while (!roots.isEmpty()) {
+			EObject root = roots.poll();
+			TreeIterator<EObject> contents = EcoreUtil.getAllContents(root, true);
+			Set<EObject> objects = new LinkedHashSet<EObject>();
+			objects.add(root);
+			contents.forEachRemaining(it -> objects.add(it));
+			for (EObject object : objects) {
+				for (EObject referencedObject : object.eCrossReferences()) {
+					Resource resource = referencedObject.eResource();
+					if (resource == taskResource) {
+						if (definitions.add(referencedObject)) {
+							roots.add(referencedObject);
+						}
+					}
+					// Every content of newly found resources is traversed
+					else if (resource != null && resources.add(resource)) {
+						roots.addAll(resource.getContents());
+					}
+				}
+			}
+		}
+	}
+	
+	protected void hashDefinition(EObject definition, Hasher hasher) {
+		TreeIterator<EObject> contents = EcoreUtil.getAllContents(definition, true);
+		List<EObject> objects = new ArrayList<EObject>();
+		objects.add(definition);
+		contents.forEachRemaining(it -> objects.add(it));
+		for (EObject object : objects) {
+			hasher.putString(object.eClass().getName(), StandardCharsets.UTF_8);
+			for (EAttribute attribute : object.eClass().getEAllAttributes()) {
+				if (!attribute.isDerived() && !attribute.isTransient()) {
+					hasher.putString(attribute.getName(), StandardCharsets.UTF_8);
+					hasher.putString(String.valueOf(object.eGet(attribute)), StandardCharsets.UTF_8);
+				}
+			}
+			for (EReference reference : object.eClass().getEAllReferences()) {
+				if (!reference.isContainment() && !reference.isContainer() &&
+						!reference.isDerived() && !reference.isTransient()) {
+					hasher.putString(reference.getName(), StandardCharsets.UTF_8);
+					// The referenced objects are identified by their URIs
+					for (EObject referencedObject : getReferencedObjects(object, reference)) {
+						hasher.putString(EcoreUtil.getURI(referencedObject).toString(), StandardCharsets.UTF_8);
+					}
+				}
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	protected Collection<EObject> getReferencedObjects(EObject object, EReference reference) {
+		Object value = object.eGet(reference);
+		if (reference.isMany()) {
+			return (List<EObject>) value;
+		}
+		return (value == null) ? List.of() : List.of((EObject) value);
+	}
+	
+	protected void collectFiles(File folder, long startTime, Map<String, FileState> projectFiles) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				// Hidden folders and the bin folder (compiled by the IDE) are not considered
+				if (!fileUtil.isHiddenFile(file) && !file.getName().equals("bin")) {
+					collectFiles(file, startTime, projectFiles);
+				}
+			}
+			else if (!file.equals(fingerprintFile)) {
+				String relativePath = projectFolder.toPath().relativize(file.toPath()).toString();
+				long lastModified = file.lastModified();
+				// On file systems with second precision timestamps, a file written in the same second
+				// before and during the execution has the same timestamp, so its content is compared
+				String hash = (lastModified >= startTime - 1000) ? hash(file) : null;
+				projectFiles.put(relativePath, new FileState(lastModified, file.length(), hash));
+			}
+		}
+	}
+	
+	protected String hash(File file) {
+		try {
+			return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+		} catch (IOException e) {
+			return ""; // Not readable, considered changed
+		}
+	}
+	
+	//
+	
+	protected Map<String, TaskFingerprint> load() {
+		if (fingerprintFile.exists()) {
+			try {
+				String json = fileUtil.loadString(fingerprintFile);
+				Map<String, TaskFingerprint> fingerprints = gson.fromJson(json,
+						new TypeToken<Map<String, TaskFingerprint>>() {}.getType());
+				if (fingerprints != null) {
+					return fingerprints;
+				}
+			} catch (Exception e) {
+				logger.warning("Cannot load task fingerprints: " + e.getMessage());
+			}
+		}
+		return new HashMap<String, TaskFingerprint>();
+	}
+	
+	protected void save() {
+		fileUtil.saveString(fingerprintFile, gson.toJson(fingerprints));
+	}
+	
+	//
+	
+	public static class TaskExecution {
+		
+		private final String key;
+		private final String inputHash;
+		private final long startTime;
+		private final Map<String, FileState> projectFiles; // Before the execution
+		
+		private TaskExecution(String key, String inputHash, long startTime,
+				Map<String, FileState> projectFiles) {
+			this.key = key;
+			this.inputHash = inputHash;
+			this.startTime = startTime;
+			this.projectFiles = projectFiles;
+		}
+		
+	}
+	
+	protected static class FileState {
+		
+		private final long lastModified;
+		private final long length;
+		private final String hash; // Only for files with recent timestamps
+		
+		public FileState(long lastModified, long length, String hash) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = hash;
+		}
+		
+		public boolean isModified(FileState oldState) {
+			if (lastModified != oldState.lastModified || length != oldState.length) {
+				return true;
+			}
+			return hash != null && oldState.hash != null && !hash.equals(oldState.hash);
+		}
+		
+	}
+	
+	protected static class TaskFingerprint {
+		
+		private String inputHash;
+		private Map<String, String> outputHashes;
+		
+		public TaskFingerprint(String inputHash, Map<String, String> outputHashes) {
+			this.inputHash = inputHash;
+			this.outputHashes = outputHashes;
+		}
+		
+	}
+	
+}
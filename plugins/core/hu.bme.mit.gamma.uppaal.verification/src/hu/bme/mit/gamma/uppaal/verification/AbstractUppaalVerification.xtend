@@ -22,6 +22,10 @@ abstract class AbstractUppaalVerification extends AbstractVerification {
 		return new UppaalVerifier
 	}
 	
+	override protected getBackendVersionCommand() {
+		return #["verifyta", "-v"]
+	}
+	
 	override getDefaultArguments() {
 		return #[ "-C -t0" ]
 //		-C Difference Bound Matrix
@@ -0,0 +1,116 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.util
+
+import java.util.Collection
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.EReference
+import org.eclipse.emf.ecore.EStructuralFeature.Setting
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter
+import org.eclipse.emf.ecore.util.EcoreUtil
+
+/**
+ * Incrementally maintained inverse cross-reference index of a containment tree. If an index is
+ * attached to the root of a model, GammaEcoreUtil uses it (instead of traversing the whole
+ * container tree) to look up the usages of an object in any container inside this tree, e.g.,
+ * in change, changeAll, isReferenced and inlineReferences. The index follows the modifications
+ * of the tree (also newly added contents), so it is intended to be attached for the duration
+ * of a transformation step and then closed:
+ * <pre>
+ * val index = CrossReferenceIndex.attach(xSts)
+ * try { ... } finally { index.close }
+ * </pre>
+ */
+class CrossReferenceIndex extends ECrossReferenceAdapter implements AutoCloseable {
+	
+	final EObject root
+	int attachmentCount = 1 // Nested attachments are closed by the outermost one
+	
+	protected new(EObject root) {
+		this.root = root
+	}
+	
+	/**
+	 * Attaches a new index to the root and all its (transitive) contents, or returns the index
+	 * that is already attached to the given object. In the latter case, the index is detached only
+	 * when the outermost attachment is closed.
+	 */
+	static def CrossReferenceIndex attach(EObject root) {
+		val attachedIndex = root.getAttachedIndex
+		if (attachedIndex !== null) {
+			attachedIndex.attachmentCount++
+			return attachedIndex
+		}
+		val index = new CrossReferenceIndex(root)
+		root.eAdapters += index // Propagated to the contents
+		return index
+	}
+	
+	/**
+	 * Returns the index that covers the given object and all its contents, or null, if there is none.
+	 */
+	static def CrossReferenceIndex getAttachedIndex(EObject object) {
+		for (adapter : object.eAdapters) {
+			if (adapter instanceof CrossReferenceIndex) {
+				return adapter
+			}
+		}
+		return null
+	}
+	
+	def getRoot() {
+		return root
+	}
+	
+	/**
+	 * Returns the settings referencing the target from the container or its (transitive) contents,
+	 * i.e., the same settings as UsageCrossReferencer.find(target, container).
+	 * The returned collection is a copy, so the settings can be modified during its iteration.
+	 */
+	def Collection<Setting> findUsages(EObject target, EObject container) {
+		val usages = newArrayList
+		for (setting : target.crossReferenceSettings) {
+			val referenceHolder = setting.EObject
+			if (EcoreUtil.isAncestor(container, referenceHolder)) {
+				usages += setting
+			}
+		}
+		return usages
+	}
+	
+	def isReferenced(EObject target, EObject container) {
+		for (setting : target.crossReferenceSettings) {
+			if (EcoreUtil.isAncestor(container, setting.EObject)) {
+				return true
+			}
+		}
+		return false
+	}
+	
+	/**
+	 * Returns the inverse references of the target except for the containment (and container) ones,
+	 * as the navigable inverse references also contain the containment setting of the eContainer.
+	 */
+	protected def getCrossReferenceSettings(EObject target) {
+		return target.getInverseReferences(true).filter[
+			val reference = it.EStructuralFeature as EReference
+			!reference.containment && !reference.container
+		]
+	}
+	
+	override close() {
+		attachmentCount--
+		if (attachmentCount == 0) {
+			root.eAdapters -= this // Propagated to the contents
+		}
+	}
+	
+}
@@ -16,6 +16,7 @@ import java.util.Collections
 import java.util.Comparator
 import java.util.Iterator
 import java.util.List
+import java.util.Objects
 import java.util.logging.Level
 import java.util.logging.Logger
 import org.eclipse.core.resources.ResourcesPlugin
@@ -23,6 +24,8 @@ import org.eclipse.core.runtime.Path
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.EObject
 import org.eclipse.emf.ecore.EReference
+import org.eclipse.emf.ecore.EStructuralFeature.Setting
+import org.eclipse.emf.ecore.InternalEObject
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.emf.ecore.resource.ResourceSet
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
@@ -30,6 +33,7 @@ import org.eclipse.emf.ecore.util.EcoreUtil
 import org.eclipse.emf.ecore.util.EcoreUtil.Copier
 import org.eclipse.emf.ecore.util.EcoreUtil.EqualityHelper
 import org.eclipse.emf.ecore.util.EcoreUtil.UsageCrossReferencer
+import org.eclipse.emf.ecore.util.FeatureMapUtil
 
 import static com.google.common.base.Preconditions.checkState
 
@@ -47,12 +51,16 @@ class GammaEcoreUtil {
 	}
 	
 	def isReferenced(EObject target, EObject container) {
+		val index = container.attachedIndex
+		if (index !== null) {
+			return index.isReferenced(target, container)
+		}
 		val settings = UsageCrossReferencer.find(target, container)
 		return !settings.empty
 	}
 	
 	def inlineReferences(EObject target, EObject newObject, EObject container) {
-		val settings = UsageCrossReferencer.find(target, container).toSet
+		val settings = target.findUsages(container).toSet
 		for (setting : settings) {
 			val referenceHolder = setting.EObject // The EObject from which the reference is made
 			val clonedNewObject = newObject.clone
@@ -84,7 +92,7 @@ class GammaEcoreUtil {
 	 */
 	@SuppressWarnings("unchecked")
 	def void change(EObject newObject, EObject oldObject, EObject container) {
-		val oldReferences = UsageCrossReferencer.find(oldObject, container)
+		val oldReferences = oldObject.findUsages(container)
 		for (oldReference : oldReferences) {
 			val referenceHolder = oldReference.get(true)
 			if (referenceHolder instanceof List) {
@@ -110,6 +118,26 @@ class GammaEcoreUtil {
 		}
 	}
 	
+	/**
+	 * Uses the cross-reference index attached to the container (see CrossReferenceIndex) if there is one,
+	 * otherwise, the container tree is traversed.
+	 */
+	def Collection<Setting> findUsages(EObject target, EObject container) {
+		val index = container.attachedIndex
+		if (index !== null) {
+			return index.findUsages(target, container)
+		}
+		return UsageCrossReferencer.find(target, container)
+	}
+	
+	def attachCrossReferenceIndex(EObject root) {
+		return CrossReferenceIndex.attach(root)
+	}
+	
+	protected def getAttachedIndex(EObject object) {
+		return CrossReferenceIndex.getAttachedIndex(object)
+	}
+	
 	def void change(EObject newObject, EObject oldObject, Iterable<? extends EObject> containers) {
 		for (container : containers) {
 			newObject.change(oldObject, container)
@@ -631,6 +659,48 @@ class GammaEcoreUtil {
 		return helper.equals(lhs, rhs)
 	}
 	
+	/**
+	 * Returns a hash code that is consistent with helperEquals, i.e., equal for structurally equal objects:
+	 * contained objects are hashed recursively, referenced objects only by their class and attributes.
+	 */
+	def int helperHashCode(EObject object) {
+		return object.helperHashCode(true)
+	}
+	
+	protected def int helperHashCode(EObject object, boolean isDeep) {
+		if (object === null) {
+			return 0
+		}
+		val eClass = object.eClass
+		var hashCode = eClass.hashCode
+		if (object.eIsProxy) {
+			return 31 * hashCode + (object as InternalEObject).eProxyURI.hashCode
+		}
+		for (feature : eClass.EAllStructuralFeatures.reject[it.derived]) {
+			val value = object.eGet(feature)
+			val featureHashCode = if (feature instanceof EReference) {
+				if (!isDeep) {
+					0 // Referenced objects are hashed only by their attributes
+				}
+				else if (feature.many) {
+					(value as List<? extends EObject>).fold(1)[hash, it |
+							31 * hash + it.helperHashCode(feature.containment)]
+				}
+				else {
+					(value as EObject).helperHashCode(feature.containment)
+				}
+			}
+			else if (FeatureMapUtil.isFeatureMap(feature)) {
+				0 // Feature maps are compared by their entries
+			}
+			else {
+				Objects.hashCode(value)
+			}
+			hashCode = 31 * hashCode + featureHashCode
+		}
+		return hashCode
+	}
+	
 	def boolean allHelperEquals(List<? extends EObject> objects) {
 		for (var i = 0; i < objects.size - 1; i++) {
 			val lhs = objects.get(i)
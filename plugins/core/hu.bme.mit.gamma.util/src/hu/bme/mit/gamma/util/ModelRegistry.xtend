@@ -0,0 +1,305 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.util
+
+import java.io.File
+import java.lang.ref.SoftReference
+import java.util.Collections
+import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.logging.Level
+import java.util.logging.Logger
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.InternalEObject
+import org.eclipse.emf.ecore.resource.Resource
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.emf.ecore.util.EcoreUtil
+import org.eclipse.emf.ecore.util.InternalEList
+
+/**
+ * Registry of the models created by a task (e.g., an analysis model transformation) keyed by the paths
+ * of their files, so subsequent tasks (e.g., verification) can use them without loading them from disk.
+ * The registered models are shared, so they must not be modified (not even by proxy resolution or adapters);
+ * models to be used by a single task must be copied, and models to be modified must be checked out. The models are softly referenced, and models whose files have been overwritten since their
+ * registration are not returned, in which cases the models are loaded from disk again.
+ */
+class ModelRegistry {
+	// Singleton
+	public static final ModelRegistry INSTANCE = new ModelRegistry
+	protected new() {}
+	//
+	
+	protected final Map<String, Entry> entries = new ConcurrentHashMap
+	protected final ExecutorService serializer = Executors.newSingleThreadExecutor[
+		val thread = new Thread(it, "GammaModelSerializer")
+		thread.daemon = true
+		return thread
+	]
+	protected volatile boolean asynchronousSerialization = false
+	
+	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	protected final Logger logger = Logger.getLogger("GammaLogger")
+	
+	//
+	
+	/**
+	 * If set, the files of the models are serialized by a background thread and the models can be used
+	 * in the meantime; disk readers have to await the serialization, see {@link #load(File)}.
+	 */
+	def setAsynchronousSerialization(boolean asynchronousSerialization) {
+		this.asynchronousSerialization = asynchronousSerialization
+	}
+	
+	def isAsynchronousSerialization() {
+		return asynchronousSerialization
+	}
+	
+	//
+	
+	def void save(EObject model, String parentFolder, String fileName) {
+		val file = new File(parentFolder + File.separator + fileName)
+		// The last serialization of the file must not overwrite this one
+		file.awaitSerialization
+		// The resource is created on this thread, only the serialization can be asynchronous
+		val resource = new ResourceSetImpl().createResource(
+				URI.createFileURI(file.absolutePath))
+		resource.contents += model
+		val entry = new Entry(model)
+		if (asynchronousSerialization) {
+			// The entry is registered before the serialization starts, so readers await it
+			val serialization = new FutureTask<Void>[
+				try {
+					resource.save
+					entry.stamp(file)
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Could not serialize " + file, e)
+				}
+				return null
+			]
+			entry.serialization = serialization
+			entries.put(file.key, entry)
+			serializer.execute(serialization)
+		}
+		else {
+			resource.save
+			entry.stamp(file)
+			entries.put(file.key, entry)
+		}
+	}
+	
+	/**
+	 * Registers a model that has already been saved into the given file.
+	 */
+	def void register(EObject model, File file) {
+		file.awaitSerialization
+		val entry = new Entry(model)
+		entry.stamp(file)
+		entries.put(file.key, entry)
+	}
+	
+	/**
+	 * Registers a copy of a model that has already been saved into the given file, so the model can be
+	 * modified afterwards. The copy is contained by a resource of the file, so references to its elements
+	 * are serialized the same way as references to the elements of the loaded model.
+	 */
+	def void registerCopy(EObject model, File file) {
+		val copy = model.clone
+		val resource = new ResourceSetImpl().createResource(
+				URI.createFileURI(file.absolutePath))
+		resource.contents += copy
+		copy.register(file)
+	}
+	
+	//
+	
+	def EObject get(String parentFolder, String fileName) {
+		return new File(parentFolder + File.separator + fileName).get
+	}
+	
+	/**
+	 * Returns the registered model of the file, or loads and registers it. The returned model is shared,
+	 * so it must not be modified.
+	 */
+	def EObject get(File file) {
+		val key = file.key
+		val model = entries.get(key)?.getModel(file)
+		if (model !== null) {
+			return model
+		}
+		val loadedModel = file.load
+		register(loadedModel, file)
+		return loadedModel
+	}
+	
+	def EObject getCopy(String parentFolder, String fileName) {
+		return new File(parentFolder + File.separator + fileName).getCopy
+	}
+	
+	/**
+	 * Returns a private copy of the registered model of the file (or of the loaded model), which can be
+	 * used, e.g., resolved or adapted, without interfering with other users of the registered model.
+	 * The registered model is only read: its proxies are not resolved, and references to other resources
+	 * are turned into proxies in the copy, so they are resolved in the resource set of the copy.
+	 */
+	def EObject getCopy(File file) {
+		val model = file.get
+		val copy = synchronized (model) {
+			model.clone(false, true)
+		}
+		val resource = new ResourceSetImpl().createResource(
+				URI.createFileURI(file.absolutePath))
+		resource.contents += copy
+		copy.proxifyExternalReferences
+		return copy
+	}
+	
+	protected def proxifyExternalReferences(EObject copy) {
+		val resource = copy.eResource
+		for (object : copy.getSelfAndAllContentsOfType(EObject)) {
+			for (reference : object.eClass.EAllReferences.filter[
+					!it.containment && !it.container && !it.derived && it.changeable]) {
+				if (reference.many) {
+					// Proxies must not be resolved in the copy either, as it would load the resources
+					val values = object.eGet(reference) as InternalEList<EObject> // The list itself
+					for (var i = 0; i < values.size; i++) {
+						val value = values.basicGet(i)
+						if (value.isExternal(resource)) {
+							values.setUnique(i, value.createProxy)
+						}
+					}
+				}
+				else {
+					val value = object.eGet(reference, false) as EObject
+					if (value !== null && value.isExternal(resource)) {
+						object.eSet(reference, value.createProxy)
+					}
+				}
+			}
+		}
+	}
+	
+	protected def isExternal(EObject object, Resource resource) {
+		val objectResource = object.eResource
+		return !object.eIsProxy && objectResource !== null && objectResource !== resource
+	}
+	
+	protected def createProxy(EObject object) {
+		val proxy = EcoreUtil.create(object.eClass) as InternalEObject
+		proxy.eSetProxyURI(EcoreUtil.getURI(object))
+		return proxy
+	}
+	
+	def EObject checkOut(String parentFolder, String fileName) {
+		return new File(parentFolder + File.separator + fileName).checkOut
+	}
+	
+	/**
+	 * Removes the model of the file from the registry and returns it, so it can be modified.
+	 * The model is loaded from disk if it is not registered.
+	 */
+	def EObject checkOut(File file) {
+		// Modifications must not interfere with the serialization
+		file.awaitSerialization
+		val model = entries.remove(file.key)?.getModel(file)
+		if (model !== null) {
+			return model
+		}
+		return file.load
+	}
+	
+	/**
+	 * Loads a new instance of the model from disk, after the pending serialization of the file.
+	 */
+	def EObject load(File file) {
+		file.awaitSerialization
+		return file.normalLoad
+	}
+	
+	//
+	
+	def void awaitSerialization(File file) {
+		entries.get(file.key)?.awaitSerialization
+	}
+	
+	def void awaitSerializations() {
+		for (entry : entries.values) {
+			entry.awaitSerialization
+		}
+	}
+	
+	def void remove(File file) {
+		file.awaitSerialization
+		entries.remove(file.key)
+	}
+	
+	def void clear() {
+		awaitSerializations
+		entries.clear
+	}
+	
+	def getRegisteredFiles() {
+		return Collections.unmodifiableSet(entries.keySet)
+	}
+	
+	//
+	
+	protected def getKey(File file) {
+		return file.toPath.toAbsolutePath.normalize.toString
+	}
+	
+	//
+	
+	protected static class Entry {
+		
+		protected final SoftReference<EObject> reference
+		protected volatile Future<?> serialization
+		// The file stamp after the serialization, so overwritten files can be detected
+		protected volatile long lastModified = -1
+		protected volatile long length = -1
+		
+		new(EObject model) {
+			this.reference = new SoftReference(model)
+		}
+		
+		def stamp(File file) {
+			lastModified = file.lastModified
+			length = file.length
+		}
+		
+		def getModel(File file) {
+			val isSerialized = serialization === null || serialization.done
+			if (isSerialized && (lastModified != file.lastModified || length != file.length)) {
+				return null // Overwritten (or not serialized)
+			}
+			return reference.get
+		}
+		
+		def awaitSerialization() {
+			if (serialization !== null) {
+				try {
+					serialization.get
+				} catch (ExecutionException e) {
+					// Not thrown, serialization errors are logged by the task
+				} catch (InterruptedException e) {
+					Thread.currentThread.interrupt
+				}
+			}
+		}
+		
+	}
+	
+}
@@ -18,6 +18,7 @@ import java.util.concurrent.Executors
 import java.util.concurrent.Future
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Predicate
 import java.util.logging.Logger
 
 class ThreadRacer<T> {
@@ -31,6 +32,9 @@ class ThreadRacer<T> {
 	final TimeUnit unit
 	
 	volatile T object
+	volatile T rejectedObject // Returned if no callable returns an accepted object
+	
+	final Predicate<? super T> acceptor // Callables returning not accepted objects do not win the race
 
 	final int numberOfCallablesShouldBeRunning
 	final AtomicInteger numberOfAbortedCallables = new AtomicInteger
@@ -48,6 +52,11 @@ class ThreadRacer<T> {
 	}
 
 	new(Collection<? extends InterruptableCallable<T>> callables, long timeout, TimeUnit unit) {
+		this(callables, timeout, unit, [true])
+	}
+	
+	new(Collection<? extends InterruptableCallable<T>> callables, long timeout, TimeUnit unit,
+			Predicate<? super T> acceptor) {
 		val size = callables.size
 		this.numberOfCallablesShouldBeRunning = size
 		
@@ -56,14 +65,17 @@ class ThreadRacer<T> {
 		
 		this.timeout = timeout
 		this.unit = unit
+		this.acceptor = acceptor
 	}
 	
 	def T execute() {
 		try {
-			for (callable :  callables) {
-				val wrappedCallable = callable.wrap
-				wrappedCallables += wrappedCallable
-				futures += executor.submit(wrappedCallable)
+			synchronized (this) { // The racer can be shut down by other threads
+				for (callable :  callables) {
+					val wrappedCallable = callable.wrap
+					wrappedCallables += wrappedCallable
+					futures += executor.submit(wrappedCallable)
+				}
 			}
 			
 			// Racing
@@ -78,14 +90,14 @@ class ThreadRacer<T> {
 			}
 			//
 			
-			return object
+			return object ?: rejectedObject
 		} finally {
 			// In case of interruption - finally block
 			shutdown
 		}
 	}
 	
-	def shutdown() {
+	def synchronized shutdown() {
 		// Canceling working threads
 		for (future : futures) {
 			future.cancel(true)
@@ -105,6 +117,14 @@ class ThreadRacer<T> {
 	//
 	
 	protected def synchronized fillObject(T object) {
+		if (!acceptor.test(object)) {
+			logger.info('''Result of «Thread.currentThread.name» is not accepted''')
+			if (rejectedObject === null) {
+				rejectedObject = object
+			}
+			incrementNumberOfAbortedCallables
+			return
+		}
 		if (this.object === null) {
 			this.object = object
 			latch.countDown
@@ -17,10 +17,15 @@ import hu.bme.mit.gamma.util.FileUtil
 import hu.bme.mit.gamma.util.GammaEcoreUtil
 import hu.bme.mit.gamma.util.InterruptableCallable
 import hu.bme.mit.gamma.util.JavaUtil
+import hu.bme.mit.gamma.util.ModelRegistry
 import hu.bme.mit.gamma.util.ThreadRacer
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
 import hu.bme.mit.gamma.verification.util.AbstractVerifier.Result
 import java.io.File
+import java.io.IOException
+import java.util.List
+import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 import java.util.logging.Logger
 import java.util.regex.Pattern
@@ -30,7 +35,13 @@ abstract class AbstractVerification {
 	protected final FileUtil fileUtil = FileUtil.INSTANCE
 	protected final extension JavaUtil javaUtil = JavaUtil.INSTANCE
 	protected final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	protected final ModelRegistry modelRegistry = ModelRegistry.INSTANCE
 	protected final extension GammaFileNamer fileNamer = GammaFileNamer.INSTANCE
+	protected final VerificationResultCache verificationResultCache = VerificationResultCache.INSTANCE
+	
+	protected String cachedBackendVersion // Lazily computed
+	// The instances are shared, so the racers are stored for the threads executing the verification
+	protected final Map<Thread, ThreadRacer<?>> runningRacers = new ConcurrentHashMap
 
 	protected final Logger logger = Logger.getLogger("GammaLogger")
 	
@@ -66,16 +77,135 @@ abstract class AbstractVerification {
 	
 	def Result execute(File modelFile, File queryFile, String[] arguments,
 			long timeout, TimeUnit unit) throws InterruptedException {
+		if (verificationResultCache.enabled) {
+			return modelFile.executeWithCache(queryFile, arguments, timeout, unit)
+		}
 		// Racer callable(s)
 		val callables = modelFile.loadModelAndCreateVerificationCallables(queryFile, arguments)
 		// Racer, but for only one thread
 		val racer = new ThreadRacer<Result>(callables, timeout, unit)
 		//
-		var result = racer.execute
+		var result = racer.race
 		// Handle in case of timeout
 		return result.handleNull
 	}
 	
+	protected def Result executeWithCache(File modelFile, File queryFile, String[] arguments,
+			long timeout, TimeUnit unit) throws InterruptedException {
+		val traceabilityFile = new File(modelFile.parent + File.separator +
+				modelFile.name.traceabilityFileName)
+		val key = verificationResultCache.getKey(modelFile, traceabilityFile, queryFile,
+				arguments, backendVersion)
+		val traceabilityObject = modelRegistry.getCopy(traceabilityFile) // Resolved and adapted by the verifiers
+		
+		val cachedResult = verificationResultCache.load(key, traceabilityObject)
+		if (cachedResult !== null) {
+			return cachedResult
+		}
+		
+		arguments.sanitizeArguments
+		val callables = traceabilityObject.createVerificationCallables(arguments, modelFile, queryFile)
+		val racer = new ThreadRacer<Result>(callables, timeout, unit)
+		val result = racer.race.handleNull
+		
+		verificationResultCache.store(key, result, traceabilityObject)
+		
+		return result
+	}
+	
+	/**
+	 * Verifies the queries in a single back-end run (if the back-end supports batched verification),
+	 * so the model is parsed and encoded only once; the results are returned in the order of the queries.
+	 * The timeout refers to the whole batch. Cached results are not verified again.
+	 */
+	def List<Result> executeBatch(File modelFile, List<String> queries, String[] arguments,
+			long timeout, TimeUnit unit) throws InterruptedException {
+		val traceabilityFile = new File(modelFile.parent + File.separator +
+				modelFile.name.traceabilityFileName)
+		val traceabilityObject = modelRegistry.getCopy(traceabilityFile) // Resolved and adapted by the verifiers
+		val Iterable<String> batchArguments = arguments.empty ? modelFile.getDefaultArguments : arguments
+		batchArguments.sanitizeArguments
+		
+		val List<Result> results = newArrayList
+		val List<String> keys = newArrayList
+		val List<String> uncheckedQueries = newArrayList
+		for (query : queries) {
+			var Result cachedResult = null
+			if (verificationResultCache.enabled) {
+				val key = verificationResultCache.getKey(modelFile, traceabilityFile, query,
+						batchArguments, backendVersion)
+				keys += key
+				cachedResult = verificationResultCache.load(key, traceabilityObject)
+			}
+			results += cachedResult
+			if (cachedResult === null) {
+				uncheckedQueries += query
+			}
+		}
+		if (uncheckedQueries.empty) {
+			return results
+		}
+		
+		val callables = <InterruptableCallable<List<Result>>>newArrayList
+		for (argument : batchArguments) {
+			val verifier = createVerifier
+			val className = verifier.class.name
+			
+			callables += new InterruptableCallable<List<Result>> {
+				override List<Result> call() {
+					logger.info('''Starting «className» instance with "«argument»" on «uncheckedQueries.size» queries''')
+					return verifier.verifyQueries(traceabilityObject, argument, modelFile, uncheckedQueries)
+				}
+				override void cancel() {
+					verifier.cancel
+					logger.info('''«className» instance with "«argument»" has been cancelled''')
+				}
+			}
+		}
+		val racer = new ThreadRacer<List<Result>>(callables, timeout, unit)
+		val batchResults = racer.race
+		
+		// Demultiplexing the results of the batch into the places of the unchecked queries
+		var j = 0
+		for (var i = 0; i < results.size; i++) {
+			if (results.get(i) === null) {
+				val result = batchResults?.get(j).handleNull
+				results.set(i, result)
+				if (verificationResultCache.enabled) {
+					verificationResultCache.store(keys.get(i), result, traceabilityObject)
+				}
+				j++
+			}
+		}
+		
+		return results
+	}
+	
+	/**
+	 * Cancels the verification executed by the given thread: the processes of its verifiers
+	 * are killed before this method returns.
+	 */
+	def cancel(Thread thread) {
+		runningRacers.get(thread)?.shutdown
+	}
+	
+	protected def <T> T race(ThreadRacer<T> racer) throws InterruptedException {
+		val thread = Thread.currentThread
+		runningRacers.put(thread, racer)
+		try {
+			return racer.execute
+		} finally {
+			runningRacers.remove(thread)
+		}
+	}
+	
+	/**
+	 * Returns whether the verifiers of the back-end can check multiple properties in a single run.
+	 */
+	def boolean isBatchVerificationSupported() {
+		return false
+	}
+	
 	def handleNull(Result result) {
 		if (result === null) {
 			return new Result(ThreeStateBoolean.UNDEF, null)
@@ -89,7 +219,7 @@ abstract class AbstractVerification {
 			File queryFile, String[] arguments) {
 		val fileName = modelFile.name
 		val traceabilityFileName = fileName.traceabilityFileName
-		val traceabilityObject = ecoreUtil.normalLoad(modelFile.parent, traceabilityFileName)
+		val traceabilityObject = modelRegistry.getCopy(modelFile.parent, traceabilityFileName)
 		
 		arguments.sanitizeArguments
 		// Creating the racer callable(s)
@@ -124,6 +254,38 @@ abstract class AbstractVerification {
 	
 	abstract protected def AbstractVerifier createVerifier()
 	
+	/**
+	 * Returns a string identifying the version of the back-end tool. It is part of the key
+	 * of the cached verification results, so results of different tool versions are not mixed.
+	 */
+	protected def String getBackendVersion() {
+		if (cachedBackendVersion === null) {
+			val className = this.class.name
+			val command = backendVersionCommand
+			cachedBackendVersion = (command === null) ? className :
+				className + ":" + command.executeAndReadOutput
+		}
+		return cachedBackendVersion
+	}
+	
+	protected def List<String> getBackendVersionCommand() {
+		return null
+	}
+	
+	protected def String executeAndReadOutput(List<String> command) {
+		try {
+			val process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.start
+			val output = new String(process.inputStream.readAllBytes)
+			process.waitFor
+			return output.trim
+		} catch (IOException e) {
+			logger.warning("Cannot execute " + command.join(" ") + ": " + e.message)
+			return ""
+		}
+	}
+	
 	abstract protected def PropertySerializer createPropertySerializer()
 	
 	//
@@ -18,6 +18,7 @@ import hu.bme.mit.gamma.util.JavaUtil
 import hu.bme.mit.gamma.util.PathEscaper
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
 import java.io.File
+import java.util.List
 import java.util.logging.Logger
 import org.eclipse.xtend.lib.annotations.Data
 
@@ -52,6 +53,20 @@ abstract class AbstractVerifier {
 	
 	def abstract Result verifyQuery(Object traceability, String parameters, File modelFile,	File queryFile)
 	
+	/**
+	 * Verifies the queries and returns their results in the order of the queries. By default, the queries
+	 * are verified one by one; back-ends that can check multiple properties on a single model encoding
+	 * override this method.
+	 */
+	def List<Result> verifyQueries(Object traceability, String parameters, File modelFile,
+			List<String> queries) {
+		val results = <Result>newArrayList
+		for (query : queries) {
+			results += traceability.verifyQuery(parameters, modelFile, query)
+		}
+		return results
+	}
+	
 	def cancel() {
 		if (!isCancelled) {
 			isCancelled = true
@@ -74,7 +89,8 @@ abstract class AbstractVerifier {
 	}
 	
 	protected def getTemporaryQueryFilename(File modelFile) {
-		return fileNamer.getHiddenSerializedPropertyFileName(modelFile.name)
+		// Thread.currentThread.name is needed to prevent race conditions
+		return fileNamer.getHiddenSerializedPropertyFileName(modelFile.name, Thread.currentThread.name)
 	}
 	
 	//
@@ -0,0 +1,73 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.verification.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+
+/**
+ * Entry point of a warm worker process that executes the main class of an executable jar
+ * (e.g., the Theta XSTS CLI) repeatedly in the same JVM. Every line of the standard input
+ * contains the (tab-separated) arguments of a single execution; the end of the output of an
+ * execution is marked by a separate line. Executed in a separate JVM, so it must not depend
+ * on anything but the JDK and must not contain nested classes (only this class file is
+ * put on the class path of the worker).
+ */
+public class JarMainDaemon {
+	
+	public static final String END_MARKER = "#GAMMA-DAEMON-END";
+	public static final String EXIT_MARKER = "#GAMMA-DAEMON-EXIT";
+	public static final String ARGUMENT_SEPARATOR = "\t";
+	
+	public static void main(String[] args) throws Exception {
+		File jar = new File(args[0]);
+		String mainClassName;
+		try (JarFile jarFile = new JarFile(jar)) {
+			mainClassName = jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+		}
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() },
+				JarMainDaemon.class.getClassLoader());
+		Thread.currentThread().setContextClassLoader(classLoader);
+		Method mainMethod = classLoader.loadClass(mainClassName).getMethod("main", String[].class);
+		
+		PrintStream out = System.out;
+		// If the executed main method calls System.exit, the output is still terminated properly
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			out.println();
+			out.println(EXIT_MARKER);
+			out.flush();
+		}));
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String[] arguments = line.isEmpty() ? new String[0] : line.split(ARGUMENT_SEPARATOR);
+			try {
+				mainMethod.invoke(null, (Object) arguments);
+			} catch (InvocationTargetException e) {
+				e.getCause().printStackTrace();
+			}
+			out.println();
+			out.println(END_MARKER);
+			out.flush();
+		}
+	}
+	
+}
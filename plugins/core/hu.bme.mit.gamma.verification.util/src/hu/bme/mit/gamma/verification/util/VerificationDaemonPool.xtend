@@ -0,0 +1,204 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.verification.util
+
+import java.io.BufferedReader
+import java.io.File
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.io.PrintWriter
+import java.lang.ProcessBuilder.Redirect
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.ArrayDeque
+import java.util.Deque
+import java.util.List
+import java.util.Map
+import java.util.Set
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Logger
+
+/**
+ * Pool of warm worker processes that execute jar-based verification back-ends (see JarMainDaemon),
+ * so the JVM startup and class loading costs are paid only once per worker instead of once per query.
+ * Workers are shared among models, as models are passed to the back-end in the arguments of every query.
+ * The pool is active only if the GAMMA_VERIFICATION_DAEMON environment variable is set to true;
+ * back-ends that terminate the JVM after an execution are not supported and are marked, so that
+ * the callers can fall back to the one process per query mode.
+ */
+class VerificationDaemonPool {
+	// Singleton
+	public static final VerificationDaemonPool INSTANCE = new VerificationDaemonPool
+	protected new() {
+		Runtime.runtime.addShutdownHook(new Thread[shutdown])
+	}
+	//
+	public static final String ENVIRONMENT_VARIABLE_FOR_DAEMON_MODE = "GAMMA_VERIFICATION_DAEMON"
+	
+	protected final Map<String, Deque<DaemonWorker>> idleWorkers = newHashMap
+	protected final Set<String> unsupportedJars = ConcurrentHashMap.newKeySet
+	protected final int maxIdleWorkerCount = Runtime.runtime.availableProcessors
+	
+	protected File workerClassFolder
+	
+	protected final Logger logger = Logger.getLogger("GammaLogger")
+	//
+	
+	def isEnabled() {
+		return Boolean.parseBoolean(System.getenv(ENVIRONMENT_VARIABLE_FOR_DAEMON_MODE))
+	}
+	
+	def isSupported(File jar) {
+		return enabled && !unsupportedJars.contains(jar.canonicalPath)
+	}
+	
+	def synchronized DaemonWorker acquireWorker(File jar) {
+		val jarPath = jar.canonicalPath
+		val workers = idleWorkers.get(jarPath)
+		while (!workers.nullOrEmpty) {
+			val worker = workers.pop
+			if (worker.alive) {
+				return worker
+			}
+		}
+		return new DaemonWorker(jarPath, getWorkerClassFolder)
+	}
+	
+	def synchronized void releaseWorker(DaemonWorker worker) {
+		if (worker.exited) {
+			new File(worker.jarPath).markUnsupported
+		}
+		if (!worker.alive) {
+			return
+		}
+		val workers = idleWorkers.computeIfAbsent(worker.jarPath)[new ArrayDeque]
+		if (workers.size < maxIdleWorkerCount) {
+			workers.push(worker)
+		}
+		else {
+			worker.destroy
+		}
+	}
+	
+	def void markUnsupported(File jar) {
+		val jarPath = jar.canonicalPath
+		if (unsupportedJars.add(jarPath)) {
+			logger.warning("The back-end cannot be executed in a worker process, falling back to one process per query: " +
+				jarPath)
+		}
+	}
+	
+	def synchronized void shutdown() {
+		for (workers : idleWorkers.values) {
+			for (worker : workers) {
+				worker.destroy
+			}
+		}
+		idleWorkers.clear
+	}
+	
+	protected def getWorkerClassFolder() {
+		if (workerClassFolder === null) {
+			// The worker class is copied as the class path of this bundle is not necessarily a folder or jar
+			val folder = Files.createTempDirectory("gamma-daemon")
+			val className = JarMainDaemon.name
+			val classFile = folder.resolve(className.replace(".", File.separator) + ".class")
+			Files.createDirectories(classFile.parent)
+			val classStream = JarMainDaemon.getResourceAsStream(JarMainDaemon.simpleName + ".class")
+			try {
+				Files.copy(classStream, classFile, StandardCopyOption.REPLACE_EXISTING)
+			} finally {
+				classStream.close
+			}
+			workerClassFolder = folder.toFile
+			workerClassFolder.deleteOnExit
+		}
+		return workerClassFolder
+	}
+	
+	//
+	
+	static class DaemonWorker {
+		
+		final String jarPath
+		final Process process
+		final PrintWriter writer
+		final BufferedReader reader
+		
+		boolean exited = false
+		
+		protected final Logger logger = Logger.getLogger("GammaLogger")
+		
+		new(String jarPath, File workerClassFolder) {
+			this.jarPath = jarPath
+			val command = #["java", "-cp", workerClassFolder.absolutePath, JarMainDaemon.name, jarPath]
+			logger.info("Starting worker process: " + command.join(" "))
+			this.process = new ProcessBuilder(command)
+				.redirectError(Redirect.INHERIT)
+				.start
+			this.writer = new PrintWriter(new OutputStreamWriter(process.outputStream, StandardCharsets.UTF_8))
+			this.reader = new BufferedReader(new InputStreamReader(process.inputStream, StandardCharsets.UTF_8))
+		}
+		
+		/**
+		 * Returns the output lines of the execution, or null if the worker has been terminated
+		 * before producing the complete output (e.g., it has been destroyed or it could not start).
+		 */
+		def List<String> execute(List<String> arguments) {
+			writer.println(arguments.join(JarMainDaemon.ARGUMENT_SEPARATOR))
+			writer.flush
+			
+			val lines = newArrayList
+			var line = reader.readLine
+			while (line !== null) {
+				val trimmedLine = line.trim
+				if (trimmedLine == JarMainDaemon.END_MARKER) {
+					return lines
+				}
+				if (trimmedLine == JarMainDaemon.EXIT_MARKER) {
+					// The back-end called System.exit, the output is complete, but the worker cannot be reused
+					exited = true
+					return lines
+				}
+				if (!trimmedLine.empty) {
+					logger.info(line)
+					lines += line
+				}
+				line = reader.readLine
+			}
+			return null
+		}
+		
+		def getProcess() {
+			return process
+		}
+		
+		def getJarPath() {
+			return jarPath
+		}
+		
+		def isExited() {
+			return exited
+		}
+		
+		def isAlive() {
+			return !exited && process.alive
+		}
+		
+		def destroy() {
+			writer.close // The worker terminates when its input is closed
+			process.destroyForcibly
+		}
+		
+	}
+	
+}
@@ -0,0 +1,222 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.verification.util
+
+import com.google.common.hash.Hashing
+import com.google.common.io.Files
+import hu.bme.mit.gamma.trace.model.ExecutionTrace
+import hu.bme.mit.gamma.transformation.util.GammaFileNamer
+import hu.bme.mit.gamma.util.FileUtil
+import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.util.JavaUtil
+import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
+import hu.bme.mit.gamma.verification.util.AbstractVerifier.Result
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Logger
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.InternalEObject
+import org.eclipse.emf.ecore.resource.Resource
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.emf.ecore.util.InternalEList
+
+/**
+ * Content-addressed on-disk cache of verification results. The key is the hash of the model file,
+ * the traceability file, the query, the arguments and the version of the back-end tool;
+ * the stored value is the verdict and the (optional) serialized execution trace.
+ * The cache is active only if the GAMMA_VERIFICATION_CACHE_PATH environment variable
+ * refers to a folder (it is created if it does not exist).
+ */
+class VerificationResultCache {
+	// Singleton
+	public static final VerificationResultCache INSTANCE = new VerificationResultCache
+	protected new() {}
+	//
+	public static final String ENVIRONMENT_VARIABLE_FOR_CACHE_FOLDER = "GAMMA_VERIFICATION_CACHE_PATH"
+	
+	protected final String RESULT_FILE_NAME = "result.txt"
+	protected final String TRACE_FILE_NAME = GammaFileNamer.EXECUTION_TRACE_FILE_NAME + "." +
+		GammaFileNamer.EXECUTION_EMF_EXTENSION
+	
+	protected final AtomicInteger hitCount = new AtomicInteger
+	protected final AtomicInteger missCount = new AtomicInteger
+	// Per-thread counters to connect hits and misses to single verification tasks
+	protected final ThreadLocal<int[]> threadCounts = ThreadLocal.withInitial[ newIntArrayOfSize(2) ]
+	
+	protected final extension FileUtil fileUtil = FileUtil.INSTANCE
+	protected final extension JavaUtil javaUtil = JavaUtil.INSTANCE
+	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	
+	protected final Logger logger = Logger.getLogger("GammaLogger")
+	//
+	
+	def isEnabled() {
+		return cacheFolder !== null
+	}
+	
+	def getCacheFolder() {
+		val path = System.getenv(ENVIRONMENT_VARIABLE_FOR_CACHE_FOLDER)
+		if (path.nullOrEmpty) {
+			return null
+		}
+		return new File(path)
+	}
+	
+	def String getKey(File modelFile, File traceabilityFile, File queryFile,
+			Iterable<String> arguments, String backendVersion) {
+		return getKey(modelFile, traceabilityFile, queryFile.loadString, arguments, backendVersion)
+	}
+	
+	def String getKey(File modelFile, File traceabilityFile, String query,
+			Iterable<String> arguments, String backendVersion) {
+		val hasher = Hashing.sha256.newHasher
+		hasher.putBytes(Files.toByteArray(modelFile))
+		if (traceabilityFile.exists) {
+			hasher.putBytes(Files.toByteArray(traceabilityFile))
+		}
+		hasher.putString(query, StandardCharsets.UTF_8)
+		for (argument : arguments) {
+			hasher.putInt(argument.length) // Separator to avoid collisions of concatenated arguments
+			hasher.putString(argument, StandardCharsets.UTF_8)
+		}
+		hasher.putString(backendVersion ?: "", StandardCharsets.UTF_8)
+		return hasher.hash.toString
+	}
+	
+	def Result load(String key, EObject traceability) {
+		val entryFolder = key.entryFolder
+		val resultFile = new File(entryFolder, RESULT_FILE_NAME)
+		if (!resultFile.exists) {
+			incrementMissCount
+			return null
+		}
+		try {
+			val lines = resultFile.loadString.splitLines
+			val result = ThreeStateBoolean.valueOf(lines.head.trim)
+			val traceFile = new File(entryFolder, TRACE_FILE_NAME)
+			var ExecutionTrace trace = null
+			if (traceFile.exists) {
+				// Loading into a private resource set, so the resource set of the caller is not modified
+				val cachedTrace = traceFile.normalLoad(new ResourceSetImpl) as ExecutionTrace
+				// The returned clone is not contained in the cache resource; its references are
+				// redirected to the currently loaded traceability model
+				val originalTraceabilityUri = URI.createURI(lines.get(1).trim)
+				trace = cachedTrace.clone(false, true)
+				trace.redirectReferences(originalTraceabilityUri, traceability.eResource)
+			}
+			incrementHitCount
+			logger.info("Verification result found in cache: " + key)
+			return new Result(result, trace)
+		} catch (Exception e) {
+			logger.warning("Invalid verification cache entry: " + key)
+			entryFolder.forceDelete
+			incrementMissCount
+			return null
+		}
+	}
+	
+	def void store(String key, Result result, EObject traceability) {
+		val verdict = result?.result
+		if (verdict === null || verdict == ThreeStateBoolean.UNDEF) {
+			return // Timeouts and cancellations are not cached
+		}
+		val entryFolder = key.entryFolder
+		val trace = result.trace
+		if (trace !== null) {
+			// Cloning, so the returned trace is not contained in the cache resource
+			ecoreUtil.normalSave(trace.clone, entryFolder.absolutePath, TRACE_FILE_NAME)
+		}
+		// Saved last, so partially written entries are not considered hits
+		val traceabilityUri = traceability.eResource.URI
+		new File(entryFolder, RESULT_FILE_NAME).saveString(
+			verdict.toString + System.lineSeparator + traceabilityUri + System.lineSeparator)
+	}
+	
+	protected def redirectReferences(EObject clone, URI originalUri, Resource resource) {
+		for (object : clone.getSelfAndAllContentsOfType(EObject)) {
+			for (reference : object.eClass.EAllReferences.filter[
+					!it.containment && !it.container && !it.derived && it.changeable]) {
+				if (reference.many) {
+					val values = object.eGet(reference) as InternalEList<EObject> // Not resolving proxies
+					for (var i = 0; i < values.size; i++) {
+						val value = values.basicGet(i).getRedirectedObject(originalUri, resource)
+						if (value !== null) {
+							values.setUnique(i, value)
+						}
+					}
+				}
+				else {
+					val value = (object.eGet(reference, false) as EObject)
+							.getRedirectedObject(originalUri, resource)
+					if (value !== null) {
+						object.eSet(reference, value)
+					}
+				}
+			}
+		}
+	}
+	
+	protected def getRedirectedObject(EObject object, URI originalUri, Resource resource) {
+		if (object === null || !object.eIsProxy) {
+			return null
+		}
+		val proxyUri = (object as InternalEObject).eProxyURI
+		if (proxyUri.trimFragment != originalUri) {
+			return null // Resolved in the resource set of the caller if needed
+		}
+		return resource.getEObject(proxyUri.fragment)
+	}
+	
+	protected def getEntryFolder(String key) {
+		return new File(cacheFolder, key)
+	}
+	
+	//
+	
+	protected def incrementHitCount() {
+		hitCount.incrementAndGet
+		val counts = threadCounts.get
+		counts.set(0, counts.get(0) + 1)
+	}
+	
+	protected def incrementMissCount() {
+		missCount.incrementAndGet
+		val counts = threadCounts.get
+		counts.set(1, counts.get(1) + 1)
+	}
+	
+	def getHitCount() {
+		return hitCount.get
+	}
+	
+	def getMissCount() {
+		return missCount.get
+	}
+	
+	/**
+	 * Resets the counters of the current thread, which are not reset otherwise, as pooled threads
+	 * can execute multiple verification tasks.
+	 */
+	def resetThreadCounts() {
+		threadCounts.remove
+	}
+	
+	def getThreadHitCount() {
+		return threadCounts.get.get(0)
+	}
+	
+	def getThreadMissCount() {
+		return threadCounts.get.get(1)
+	}
+	
+}
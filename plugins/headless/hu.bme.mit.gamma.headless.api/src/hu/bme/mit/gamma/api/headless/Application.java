@@ -13,6 +13,7 @@ public class Application implements IApplication {
 	private GammaEntryPoint gammaEntryPoint;
 	private ProjectImporter projectImporter;
 	private WorkspaceGenerator workspaceGenerator;
+	private GammaWorker gammaWorker;
 	protected Logger logger = Logger.getLogger("GammaLogger");
 
 	@Override
@@ -30,7 +31,7 @@ public class Application implements IApplication {
 		 */
 		if (appArgs.length == 0) {
 			logger.log(Level.WARNING,
-					"Arguments must be given! Either a \"workspace\", \"import\" or \"gamma\" argument is expected.");
+					"Arguments must be given! Either a \"workspace\", \"import\", \"gamma\" or \"worker\" argument is expected.");
 			return null;
 		} else {
 			// The second argument is the log level. This is INFO by default. This can be
@@ -67,6 +68,11 @@ public class Application implements IApplication {
 				gammaEntryPoint = new GammaEntryPoint(context, appArgs, level);
 				gammaEntryPoint.execute();
 				break;
+			case "worker":
+				// Resident process executing the jobs of the workspace
+				gammaWorker = new GammaWorker(context, appArgs, level);
+				gammaWorker.execute();
+				break;
 			}
 
 		}
@@ -46,6 +46,8 @@ public class GammaEntryPoint extends HeadlessApplicationCommandHandler {
 
 	private static final String UNDER_OPERATION_PROPERTY = "underOperation";
 
+	private static boolean setupsDone = false;
+
 	public GammaEntryPoint(IApplicationContext context, String[] appArgs, Level level) {
 		super(context, appArgs, level);
 		logger.setLevel(level);
@@ -55,77 +57,91 @@ public class GammaEntryPoint extends HeadlessApplicationCommandHandler {
 	public void execute() throws Exception {
 		
 		//necessary setups
+		doSetups();
+
+		if (appArgs.length >= 1) { // Checking the length of arguments. These are passed by the web server.
+			String ggenFilePath = URI.decode(appArgs[2]); // Path of the .ggen file to be executed
+			String projectDescriptorPath = URI.decode(appArgs[3]); // Path of the projectDescriptor.json
+			executeGgen(ggenFilePath);
+
+			beforeExitOperation(projectDescriptorPath);
+		}
+
+	}
+
+	// Sets up the languages, needed only once in a (resident) Headless Gamma process
+	public static synchronized void doSetups() {
+		if (setupsDone) {
+			return;
+		}
 		ExpressionLanguageStandaloneSetup.doSetup();
 		ActionLanguageStandaloneSetup.doSetup();
 		StatechartLanguageStandaloneSetup.doSetup();
 		TraceLanguageStandaloneSetup.doSetup();
 		PropertyLanguageStandaloneSetup.doSetup();
 		GenModelStandaloneSetup.doSetup();
+		setupsDone = true;
+	}
 
-		if (appArgs.length >= 1) { // Checking the length of arguments. These are passed by the web server.
-			String ggenFilePath = URI.decode(appArgs[2]); // Path of the .ggen file to be executed
-			File ggenFile = new File(ggenFilePath);
-			String projectDescriptorPath = URI.decode(appArgs[3]); // Path of the projectDescriptor.json
-			File projectFolder = getContainingProject(ggenFile);
-			String projectName = projectFolder.getName();
-			String fileWorkspaceRelativePath = ggenFilePath.substring(projectFolder.getParent().length());
-			IWorkspace workspace = ResourcesPlugin.getWorkspace();
-			IWorkspaceRoot workspaceRoot = workspace.getRoot();
-			IPath workspaceLocation = workspaceRoot.getLocation();
-			File workspaceFolder = workspaceLocation.toFile();
-			IProgressMonitor progressMonitor = new NullProgressMonitor();
-			// The file and its containing project is not in the given workspace
-			// The project has to be copied into the workspace
-			if (!contains(workspaceFolder, ggenFile)) {
-				// Note that in this case the ggen cannot refer to models outside of the project
-				IProject project = workspaceRoot.getProject(projectName);
+	// Executes the .ggen file found at the given path, without updating the project descriptor
+	public void executeGgen(String ggenFilePath) throws Exception {
+		File ggenFile = new File(ggenFilePath);
+		File projectFolder = getContainingProject(ggenFile);
+		String projectName = projectFolder.getName();
+		String fileWorkspaceRelativePath = ggenFilePath.substring(projectFolder.getParent().length());
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IWorkspaceRoot workspaceRoot = workspace.getRoot();
+		IPath workspaceLocation = workspaceRoot.getLocation();
+		File workspaceFolder = workspaceLocation.toFile();
+		IProgressMonitor progressMonitor = new NullProgressMonitor();
+		// The file and its containing project is not in the given workspace
+		// The project has to be copied into the workspace
+		if (!contains(workspaceFolder, ggenFile)) {
+			// Note that in this case the ggen cannot refer to models outside of the project
+			IProject project = workspaceRoot.getProject(projectName);
+			try {
+				project.create(progressMonitor);
+			} catch (CoreException creationException) {
+				// Project with same name exists, trying to open it
 				try {
+					project.open(progressMonitor);
+				} catch (CoreException openException) {
+					// Open did not succeed, deleting and creating needed
+					project.delete(true, progressMonitor);
 					project.create(progressMonitor);
-				} catch (CoreException creationException) {
-					// Project with same name exists, trying to open it
-					try {
-						project.open(progressMonitor);
-					} catch (CoreException openException) {
-						// Open did not succeed, deleting and creating needed
-						project.delete(true, progressMonitor);
-						project.create(progressMonitor);
-					}
 				}
-				project.open(progressMonitor);
-				IProjectDescription description = project.getDescription();
-				//description.setNatureIds(new String[] { XtextProjectHelper.NATURE_ID });
-				project.setDescription(description, progressMonitor);
-				// Not needed to add project natures like this, maybe copyDirectory does that?
-				copyDirectory(projectFolder, project);
-				workspace.save(true, progressMonitor);
 			}
-			// The file and its containing project is in the given workspace
-			GammaApi gammaApi = new GammaApi();
-
-			gammaApi.run(fileWorkspaceRelativePath, new ResourceSetCreator() {
-				private Injector injector = null;
-
-				private Injector getInjector() {
-					if (injector == null) {
-						injector = new StatechartLanguageStandaloneSetupGenerated()
-								.createInjectorAndDoEMFRegistration();
-					}
-					return injector;
-				}
+			project.open(progressMonitor);
+			IProjectDescription description = project.getDescription();
+			//description.setNatureIds(new String[] { XtextProjectHelper.NATURE_ID });
+			project.setDescription(description, progressMonitor);
+			// Not needed to add project natures like this, maybe copyDirectory does that?
+			copyDirectory(projectFolder, project);
+			workspace.save(true, progressMonitor);
+		}
+		// The file and its containing project is in the given workspace
+		GammaApi gammaApi = new GammaApi();
 
-				public ResourceSet createResourceSet() {
-					Injector injector = getInjector();
-					XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
-					return resourceSet;
-				}
-			});
-			// Commented due to repeatedly throwing exceptions. The application works
-			// without it.
-			// workspace.save(true, progressMonitor);
+		gammaApi.run(fileWorkspaceRelativePath, new ResourceSetCreator() {
+			private Injector injector = null;
 
-			beforeExitOperation(projectDescriptorPath);
-		}
+			private Injector getInjector() {
+				if (injector == null) {
+					injector = new StatechartLanguageStandaloneSetupGenerated()
+							.createInjectorAndDoEMFRegistration();
+				}
+				return injector;
+			}
 
+			public ResourceSet createResourceSet() {
+				Injector injector = getInjector();
+				XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
+				return resourceSet;
+			}
+		});
+		// Commented due to repeatedly throwing exceptions. The application works
+		// without it.
+		// workspace.save(true, progressMonitor);
 	}
 
 	private boolean contains(File folder, File file) {
@@ -0,0 +1,87 @@
+package hu.bme.mit.gamma.api.headless;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.equinox.app.IApplicationContext;
+
+// Resident Headless Gamma process that executes the jobs of a single workspace
+// Jobs are read from the standard input, one per line: <command>\t<job ID>\t<argument>, where the command
+// is "gamma" (the argument is the path of the .ggen file) or "import" (the argument is the project name).
+// The end of each job is signaled on the standard output with a line starting with JOB_DONE or JOB_FAILED.
+public class GammaWorker extends HeadlessApplicationCommandHandler {
+
+	public static final String READY = "GAMMA_WORKER_READY";
+	public static final String JOB_DONE = "GAMMA_WORKER_JOB_DONE";
+	public static final String JOB_FAILED = "GAMMA_WORKER_JOB_FAILED";
+	public static final String SEPARATOR = "\t";
+
+	private static final String GAMMA_OPERATION = "gamma";
+	private static final String IMPORT_OPERATION = "import";
+	private static final String EXIT_OPERATION = "exit";
+
+	public GammaWorker(IApplicationContext context, String[] appArgs, Level level) {
+		super(context, appArgs, level);
+		logger.setLevel(level);
+	}
+
+	@Override
+	public void execute() throws Exception {
+		// The costly setups are done only once for all jobs
+		GammaEntryPoint.doSetups();
+		ResourcesPlugin.getWorkspace(); // The workspace is created if it does not exist yet
+		signal(READY);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String[] job = line.split(SEPARATOR);
+			String operation = job[0];
+			if (operation.equals(EXIT_OPERATION)) {
+				break;
+			}
+			if (job.length < 3) {
+				logger.log(Level.WARNING, "Invalid job: " + line);
+				continue;
+			}
+			String jobId = job[1];
+			String argument = URI.decode(job[2]);
+			try {
+				// The server may have modified the files of the workspace since the last job
+				ResourcesPlugin.getWorkspace().getRoot().refreshLocal(IResource.DEPTH_INFINITE,
+						new NullProgressMonitor());
+				switch (operation) {
+				case GAMMA_OPERATION:
+					new GammaEntryPoint(context, appArgs, level).executeGgen(argument);
+					break;
+				case IMPORT_OPERATION:
+					new ProjectImporter(context, appArgs, level).importProject(argument);
+					break;
+				default:
+					throw new IllegalArgumentException("Not known operation: " + operation);
+				}
+				signal(JOB_DONE, jobId);
+			} catch (Throwable e) {
+				// The worker stays alive, only the job fails
+				e.printStackTrace();
+				String message = String.valueOf(e.getMessage()).replaceAll("\\s+", " ");
+				signal(JOB_FAILED, jobId, message);
+			}
+		}
+		logger.log(Level.INFO, "Gamma worker exiting");
+	}
+
+	private void signal(String... message) {
+		synchronized (System.out) {
+			System.out.println(String.join(SEPARATOR, message));
+			System.out.flush();
+		}
+	}
+
+}
@@ -31,12 +31,18 @@ public class ProjectImporter extends HeadlessApplicationCommandHandler {
 
 	@Override
 	public void execute() throws Exception {
-		IWorkspace workspace = ResourcesPlugin.getWorkspace(); // Workspace will be created where the -data argument
-																// specifies it
 		// All "-etc" arguments will be handled like regular arguments
 
 		String projectName = appArgs[2];
 
+		importProject(projectName);
+	}
+
+	// Imports the project from the zip found next to it in the workspace
+	public void importProject(String projectName) throws Exception {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace(); // Workspace will be created where the -data argument
+																// specifies it
+
 		IProjectDescription newProjectDescription = workspace.newProjectDescription(projectName);
 		IProject newProject = workspace.getRoot().getProject(projectName);
 		newProject.create(newProjectDescription, null);
@@ -54,6 +60,7 @@ public class ProjectImporter extends HeadlessApplicationCommandHandler {
 		ImportOperation op = new ImportOperation(path, structureProvider.getRoot(), structureProvider, overwriteQuery,
 				list);
 		op.run(new NullProgressMonitor());
+		srcZipFile.close(); // The zip is deleted afterwards, and the process may be resident
 	}
 
 	private static List prepareFileList(ZipFileStructureProvider structure, ZipEntry entry, List list) {
@@ -3,13 +3,16 @@ package hu.bme.mit.gamma.headless.server;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -20,10 +23,14 @@ import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 
+import hu.bme.mit.gamma.headless.server.service.Job;
+import hu.bme.mit.gamma.headless.server.service.JobExecutor;
 import hu.bme.mit.gamma.headless.server.service.ProcessBuilderCli;
 import hu.bme.mit.gamma.headless.server.service.Provider;
+import hu.bme.mit.gamma.headless.server.service.ResultStreamer;
 import hu.bme.mit.gamma.headless.server.service.Validator;
 import hu.bme.mit.gamma.headless.server.util.FileHandlerUtil;
+import hu.bme.mit.gamma.headless.server.util.ResponseOutputStream;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
@@ -31,6 +38,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -50,6 +58,9 @@ public class OpenApiWebServer extends AbstractVerticle {
 	private static final String WORKSPACE = "workspace";
 	private static final String PARSED_PARAMETERS = "parsedParameters";
 	private static final String PROJECT_NAME = "project";
+	private static final String JOB_ID = "jobId";
+	private static final String END_EVENT = "end";
+	private static final long STREAM_POLLING_PERIOD = 1000;
 	HttpServer server;
 	private static final String DIRECTORY_OF_WORKSPACES_PROPERTY_NAME = "root.of.workspaces.path";
 	private static final String DIRECTORY_OF_LOGGER_OUTPUT_FILE = "logger.output.directory";
@@ -78,7 +89,7 @@ public class OpenApiWebServer extends AbstractVerticle {
 				routerFactory.createRouter().route().handler(sessionHandler);
 
 				// Runs a .ggen file
-				routerFactory.operation("runOperation").handler(routingContext -> {
+				routerFactory.operation("runOperation").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"runOperation\" has started." + ANSI_RESET);
 
@@ -89,33 +100,38 @@ public class OpenApiWebServer extends AbstractVerticle {
 					String workspace = params.pathParameter(WORKSPACE).getString();
 					String filePath = routingContext.request().formAttributes().get("ggenPath");
 					boolean success = false;
+					Job job = null;
 					try {
 						errorHandlerPOJO = getErrorObject(workspace, projectName);
 						if (errorHandlerPOJO.getErrorObject() == null) {
 							success = true;
 							// Passing the parameters to the CLI, so the operation can be started
-							ProcessBuilderCli.runGammaOperations(projectName, workspace, filePath);
+							job = ProcessBuilderCli.runGammaOperations(projectName, workspace, filePath);
 							logger.log(Level.INFO,
 									ANSI_YELLOW + "Operation \"runOperation\": parameters passed to CLI." + ANSI_RESET);
 						}
+					} catch (RejectedExecutionException e) {
+						success = false;
+						errorHandlerPOJO = new ErrorHandlerPOJO(new JsonObject().put("code", 503).put(MESSAGE,
+								"The job queue is full, try again later!"), 503);
 					} catch (IOException e) {
 						e.printStackTrace();
 					}
 					if (success) {
-						// If it succeeds, the response is 200
+						// If it succeeds, the response is 200 (with the queued job in resident mode)
 						routingContext.response().setStatusCode(200)
-								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end();
+								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+								.end(job == null ? "" : job.toJson().encode());
 					} else {
 						sendErrorResponse(routingContext, errorHandlerPOJO);
 					}
-				});
+				}));
 
 				// Gets files from a project
-				routerFactory.operation("getResult").handler(routingContext -> {
+				routerFactory.operation("getResult").handler(blocking(routingContext -> {
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"getResult\" has started." + ANSI_RESET);
 
 					ErrorHandlerPOJO errorHandlerPOJO = null;
-					String zipPath = null;
 					// Getting parameters from path and request body
 					RequestParameters params = routingContext.get(PARSED_PARAMETERS);
 					String projectName = params.pathParameter(PROJECT_NAME).getString();
@@ -128,26 +144,33 @@ public class OpenApiWebServer extends AbstractVerticle {
 						errorHandlerPOJO = getErrorObject(workspace, projectName);
 						if (errorHandlerPOJO.getErrorObject() == null) {
 							success = true;
-							// Passing it to the provider, which creates a zip file
-							zipPath = Provider.getResultZipFilePath(jsonArray, FileHandlerUtil
-									.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME).concat(workspace), projectName);
+							// Passing the response to the provider, which zips the files directly into it
+							HttpServerResponse response = routingContext.response().setStatusCode(200)
+									.setChunked(true).putHeader(HttpHeaders.CONTENT_TYPE, "application/zip")
+									.putHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"result.zip\"");
+							try (OutputStream outputStream = new ResponseOutputStream(response)) {
+								Provider.writeResultZip(jsonArray, FileHandlerUtil
+										.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME).concat(workspace),
+										projectName, outputStream);
+							}
+							response.end();
 							logger.log(Level.INFO,
 									ANSI_YELLOW + "Operation \"getResult\": results zipped successfully." + ANSI_RESET);
 						}
 					} catch (IOException e) {
 						e.printStackTrace();
+						if (success) {
+							// The zip has been partially sent, so the client is notified by closing the connection
+							routingContext.response().close();
+						}
 					}
-					if (success && zipPath != null) {
-						// Sending that zip file back as response
-						routingContext.response().setStatusCode(200)
-								.putHeader(HttpHeaders.CONTENT_TYPE, "application/zip").sendFile(zipPath);
-					} else {
+					if (!success) {
 						sendErrorResponse(routingContext, errorHandlerPOJO);
 					}
-				});
+				}));
 
 				// Gets the log file from a workspace
-				routerFactory.operation("getLogs").handler(routingContext -> {
+				routerFactory.operation("getLogs").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"getLogs\" has started." + ANSI_RESET);
 
@@ -185,10 +208,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
 					}
 
-				});
+				}));
 
 				// Adds a project to a workspace, which is uploaded as a zip in the form body
-				routerFactory.operation("addProject").handler(routingContext -> {
+				routerFactory.operation("addProject").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"addProject\" has started." + ANSI_RESET);
 					// Getting parameters from path
@@ -225,10 +248,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 						routingContext.response().setStatusCode(400)
 								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
 					}
-				});
+				}));
 
 				// Creates a workspace, returns its unique ID
-				routerFactory.operation("addWorkspace").handler(routingContext -> {
+				routerFactory.operation("addWorkspace").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"addWorkspace\" has started." + ANSI_RESET);
 
@@ -248,10 +271,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 						routingContext.response().setStatusCode(200)
 								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(Json.encode(workspaceUUID));
 					}
-				});
+				}));
 
 				// Stops an active operation in a workspace + project pair
-				routerFactory.operation("stopOperation").handler(routingContext -> {
+				routerFactory.operation("stopOperation").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"stopOperation\" has started." + ANSI_RESET);
 
@@ -283,10 +306,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 					} else {
 						sendErrorResponse(routingContext, errorHandlerPOJO);
 					}
-				});
+				}));
 
 				// Deletes a project from a given workspace
-				routerFactory.operation("deleteProject").handler(routingContext -> {
+				routerFactory.operation("deleteProject").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"deleteProject\" has started." + ANSI_RESET);
 
@@ -313,10 +336,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 					} else {
 						sendErrorResponse(routingContext, errorHandlerPOJO);
 					}
-				});
+				}));
 
 				// Deletes a workspace, if its empty
-				routerFactory.operation("deleteWorkspace").handler(routingContext -> {
+				routerFactory.operation("deleteWorkspace").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"deleteWorkspace\" has started." + ANSI_RESET);
 					// Getting parameters from path
@@ -335,10 +358,10 @@ public class OpenApiWebServer extends AbstractVerticle {
 						routingContext.response().setStatusCode(400)
 								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
 					}
-				});
+				}));
 
 				// Gets the status of a workspace + project pair
-				routerFactory.operation("getStatus").handler(routingContext -> {
+				routerFactory.operation("getStatus").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"getStatus\" has started." + ANSI_RESET);
 
@@ -349,24 +372,46 @@ public class OpenApiWebServer extends AbstractVerticle {
 					StatusResponsePOJO returnedResult = null;
 					try {
 						// Checks if the project is under load in the given workspace
-
-						if (Validator.checkIfProjectHasRunIntoError(workspace, projectName)) {
-							returnedResult = new StatusResponsePOJO(Status.Failure);
-						} else {
-							if (Validator.checkIfProjectIsUnderLoad(workspace, projectName)) {
-								returnedResult = new StatusResponsePOJO(Status.Running);
-							} else {
-								returnedResult = new StatusResponsePOJO(Status.Done);
-							}
-						}
-
+						returnedResult = new StatusResponsePOJO(getProjectStatus(workspace, projectName));
 					} catch (IOException e) {
 						e.printStackTrace();
 					}
 					JsonObject returnedJson = JsonObject.mapFrom(returnedResult);
 					routingContext.response().setStatusCode(200).putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
 							.end(Json.encode(returnedJson));
-				});
+				}));
+
+				// Streams the verification results and traces of the operation in a project as server-sent events,
+				// so the client does not have to poll the status and download the results at the end
+				routerFactory.operation("streamResults").handler(blocking(routingContext -> {
+
+					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"streamResults\" has started." + ANSI_RESET);
+
+					// Getting parameters from path
+					RequestParameters params = routingContext.get(PARSED_PARAMETERS);
+					String projectName = params.pathParameter(PROJECT_NAME).getString();
+					String workspace = params.pathParameter(WORKSPACE).getString();
+					boolean exists = false;
+					try {
+						exists = Validator.checkIfProjectAlreadyExistsUnderWorkspace(workspace, projectName);
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+					if (exists) {
+						HttpServerResponse response = routingContext.response().setStatusCode(200).setChunked(true)
+								.putHeader(HttpHeaders.CONTENT_TYPE, "text/event-stream")
+								.putHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+						ResultStreamer streamer = new ResultStreamer(workspace, projectName);
+						long timerId = vertx.setPeriodic(STREAM_POLLING_PERIOD,
+								id -> streamResults(id, streamer, response, workspace, projectName));
+						response.closeHandler(v -> vertx.cancelTimer(timerId));
+					} else {
+						JsonObject errorObject = new JsonObject().put("code", 404).put(MESSAGE,
+								"Project " + projectName + " does not exists under this workspace!");
+						routingContext.response().setStatusCode(404)
+								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
+					}
+				}));
 
 				// Adds a project to a workspace and executes a command
 				// TODO: this request currently doesn't work
@@ -434,8 +479,28 @@ public class OpenApiWebServer extends AbstractVerticle {
 //					}
 //				});
 
+				// Gets a job queued by "runOperation" in resident mode
+				routerFactory.operation("getJob").handler(routingContext -> {
+
+					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"getJob\" has started." + ANSI_RESET);
+
+					RequestParameters params = routingContext.get(PARSED_PARAMETERS);
+					String jobId = params.pathParameter(JOB_ID).getString();
+					Optional<Job> job = JobExecutor.isEnabled() ? JobExecutor.getInstance().getJob(jobId)
+							: Optional.empty();
+					if (job.isPresent()) {
+						routingContext.response().setStatusCode(200)
+								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(job.get().toJson().encode());
+					} else {
+						JsonObject errorObject = new JsonObject().put("code", 404).put(MESSAGE,
+								"Job " + jobId + " does not exist.");
+						routingContext.response().setStatusCode(404)
+								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
+					}
+				});
+
 				// Lists all files found in a workspace + project pair
-				routerFactory.operation("list").handler(routingContext -> {
+				routerFactory.operation("list").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"list\" has started." + ANSI_RESET);
 
@@ -474,7 +539,7 @@ public class OpenApiWebServer extends AbstractVerticle {
 					} else {
 						sendErrorResponse(routingContext, errorHandlerPOJO);
 					}
-				});
+				}));
 
 				// Sets the log level for both the web server and the Headless Gamma
 				routerFactory.operation("setLogLevel").handler(routingContext -> {
@@ -548,7 +613,7 @@ public class OpenApiWebServer extends AbstractVerticle {
 
 				});
 
-				routerFactory.operation("getHeadlessLogs").handler(routingContext -> {
+				routerFactory.operation("getHeadlessLogs").handler(blocking(routingContext -> {
 
 					logger.log(Level.INFO, ANSI_YELLOW + "Operation \"getHeadlessLogs\" has started." + ANSI_RESET);
 
@@ -575,7 +640,7 @@ public class OpenApiWebServer extends AbstractVerticle {
 								.putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON).end(errorObject.encode());
 					}
 
-				});
+				}));
 
 				Router router = routerFactory.createRouter();
 
@@ -605,6 +670,81 @@ public class OpenApiWebServer extends AbstractVerticle {
 		});
 	}
 
+	// Executes the handler on a worker thread instead of the event loop, as the handlers access files
+	// and wait for processes
+	private io.vertx.core.Handler<RoutingContext> blocking(io.vertx.core.Handler<RoutingContext> handler) {
+		return routingContext -> vertx.<Void>executeBlocking(promise -> {
+			handler.handle(routingContext);
+			promise.complete();
+		}, false, result -> {
+			if (result.failed()) {
+				logger.log(Level.SEVERE, "Unexpected error in Headless Gamma Webserver", result.cause());
+				if (!routingContext.response().ended()) {
+					routingContext.response().setStatusCode(500).putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+							.end("Unexpected error in Headless Gamma Webserver");
+				}
+			}
+		});
+	}
+
+	// Returns the status of the last operation in a project
+	private Status getProjectStatus(String workspace, String projectName) throws IOException {
+		Optional<Job> latestJob = JobExecutor.isEnabled()
+				? JobExecutor.getInstance().getLatestJob(workspace, projectName)
+				: Optional.empty();
+		if (latestJob.isPresent()) {
+			// The state of the job is more precise than the project descriptor
+			switch (latestJob.get().getState()) {
+			case QUEUED:
+			case RUNNING:
+				return Status.Running;
+			case FAILED:
+				return Status.Failure;
+			default:
+				return Status.Done;
+			}
+		}
+		if (Validator.checkIfProjectHasRunIntoError(workspace, projectName)) {
+			return Status.Failure;
+		}
+		if (Validator.checkIfProjectIsUnderLoad(workspace, projectName)) {
+			return Status.Running;
+		}
+		return Status.Done;
+	}
+
+	// Sends the new results of a stream, and ends the stream with the status of the operation when it has ended
+	private void streamResults(long timerId, ResultStreamer streamer, HttpServerResponse response, String workspace,
+			String projectName) {
+		vertx.<Map.Entry<Status, List<String>>>executeBlocking(promise -> {
+			try {
+				// The status is retrieved first, so the last results are sent before ending the stream
+				Status status = getProjectStatus(workspace, projectName);
+				promise.complete(Map.entry(status, streamer.poll()));
+			} catch (IOException e) {
+				promise.fail(e);
+			}
+		}, true, result -> {
+			if (response.closed() || response.ended()) {
+				vertx.cancelTimer(timerId);
+			} else if (result.failed()) {
+				logger.log(Level.WARNING, "Cannot stream the results of project " + projectName, result.cause());
+				vertx.cancelTimer(timerId);
+				response.end();
+			} else {
+				Status status = result.result().getKey();
+				for (String event : result.result().getValue()) {
+					response.write(event);
+				}
+				if (status != Status.Running) {
+					vertx.cancelTimer(timerId);
+					response.end(ResultStreamer.toEvent(END_EVENT,
+							JsonObject.mapFrom(new StatusResponsePOJO(status)).encode()));
+				}
+			}
+		});
+	}
+
 	// Creates and error response for more common errors related to workspaces and
 	// projects
 	private ErrorHandlerPOJO getErrorObject(String workspace, String projectName) throws IOException {
@@ -666,6 +806,9 @@ public class OpenApiWebServer extends AbstractVerticle {
 	@Override
 	public void stop() {
 		this.server.close();
+		if (JobExecutor.isEnabled()) {
+			JobExecutor.getInstance().shutdown();
+		}
 	}
 
 	// Starts the server and the periodic listing of projects and workspaces
@@ -673,11 +816,15 @@ public class OpenApiWebServer extends AbstractVerticle {
 	public static void main(String[] args) {
 		Vertx vertx = Vertx.vertx();
 		vertx.setPeriodic(10000, aLong -> {
-			try {
-				listWorkspacesAndProjects();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			// Not on the event loop as it reads the project descriptors
+			vertx.executeBlocking(promise -> {
+				try {
+					listWorkspacesAndProjects();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				promise.complete();
+			}, false, null);
 		});
 		vertx.deployVerticle(new OpenApiWebServer(), ar -> {
 			if (ar.succeeded()) {
@@ -0,0 +1,182 @@
+package hu.bme.mit.gamma.headless.server.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hu.bme.mit.gamma.headless.server.util.FileHandlerUtil;
+
+// A resident Headless Gamma process (started with the "worker" argument) bound to a single workspace
+// The jobs are passed through the standard input of the process, one at a time, and their ends are read
+// from its standard output; other output lines are forwarded to the standard output of the server
+class GammaWorkerProcess implements AutoCloseable {
+
+	// Protocol of hu.bme.mit.gamma.api.headless.GammaWorker
+	private static final String READY = "GAMMA_WORKER_READY";
+	private static final String JOB_DONE = "GAMMA_WORKER_JOB_DONE";
+	private static final String JOB_FAILED = "GAMMA_WORKER_JOB_FAILED";
+	private static final String SEPARATOR = "\t";
+	private static final String EXIT_OPERATION = "exit";
+
+	private static final String DIRECTORY_OF_WORKSPACES_PROPERTY_NAME = "root.of.workspaces.path";
+	private static final String DIRECTORY_OF_GAMMA_HEADLESS_ECLIPSE_PROPERTY = "headless.gamma.path";
+	private static final String WORKER_OPERATION = "worker";
+	private static final long STARTUP_TIMEOUT_SECONDS = 300;
+
+	protected static Logger logger = Logger.getLogger("GammaLogger");
+
+	private final String workspace;
+	private final Process process;
+	private final BufferedWriter input;
+	private final CompletableFuture<Void> ready = new CompletableFuture<>();
+	private final Map<String, CompletableFuture<Void>> pendingJobs = new ConcurrentHashMap<>();
+	private volatile long lastUseTime = System.currentTimeMillis();
+
+	GammaWorkerProcess(String workspace, String logLevel) throws IOException {
+		this.workspace = workspace;
+		ProcessBuilder pb = new ProcessBuilder(
+				FileHandlerUtil.getProperty(DIRECTORY_OF_GAMMA_HEADLESS_ECLIPSE_PROPERTY), "-consoleLog", "-data",
+				FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace, WORKER_OPERATION,
+				logLevel);
+		pb.redirectErrorStream(true);
+		ResultStreamer.setProgressFile(pb);
+		this.process = pb.start();
+		this.input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+		Thread outputReader = new Thread(this::readOutput, "gamma-worker-" + workspace);
+		outputReader.setDaemon(true);
+		outputReader.start();
+	}
+
+	// Waits until the OSGi runtime and the workspace of the worker are up
+	void awaitStartup() throws IOException, InterruptedException {
+		try {
+			ready.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			close();
+			throw new IOException("The Gamma worker of workspace " + workspace + " could not start", e);
+		}
+	}
+
+	// Executes a job in the worker and waits for its end
+	void execute(String operation, String jobId, String argument) throws IOException, InterruptedException {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		pendingJobs.put(jobId, result);
+		lastUseTime = System.currentTimeMillis();
+		try {
+			send(operation, jobId, encode(argument));
+			result.get();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			pendingJobs.remove(jobId);
+			lastUseTime = System.currentTimeMillis();
+		}
+	}
+
+	long getPid() {
+		return process.pid();
+	}
+
+	boolean isAlive() {
+		return process.isAlive();
+	}
+
+	boolean isIdle() {
+		return pendingJobs.isEmpty();
+	}
+
+	long getLastUseTime() {
+		return lastUseTime;
+	}
+
+	void touch() {
+		lastUseTime = System.currentTimeMillis();
+	}
+
+	// Stops the worker: the worker is asked to exit, and it is killed if it does not do so in time
+	@Override
+	public void close() {
+		if (process.isAlive() && isIdle()) {
+			try {
+				send(EXIT_OPERATION);
+				process.waitFor(10, TimeUnit.SECONDS);
+			} catch (IOException e) {
+				// The worker is killed in the following
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		kill();
+	}
+
+	// Kills the worker and its subprocesses, e.g., running verification back-ends
+	void kill() {
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		process.destroyForcibly();
+	}
+
+	private void send(String... message) throws IOException {
+		synchronized (input) {
+			input.write(String.join(SEPARATOR, message));
+			input.newLine();
+			input.flush();
+		}
+	}
+
+	private void readOutput() {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] message = line.split(SEPARATOR, 3);
+				switch (message[0]) {
+				case READY:
+					ready.complete(null);
+					break;
+				case JOB_DONE:
+					complete(message[1], null);
+					break;
+				case JOB_FAILED:
+					complete(message[1], message.length > 2 ? message[2] : "Unknown error");
+					break;
+				default:
+					System.out.println(line); // Like inheritIO in case of non-resident processes
+				}
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Cannot read the output of the Gamma worker of workspace " + workspace);
+		}
+		// The process has terminated (or has been killed)
+		IOException exception = new IOException("The Gamma worker of workspace " + workspace + " has terminated");
+		ready.completeExceptionally(exception);
+		pendingJobs.values().forEach(it -> it.completeExceptionally(exception));
+	}
+
+	private void complete(String jobId, String errorMessage) {
+		CompletableFuture<Void> result = pendingJobs.get(jobId);
+		if (result != null) {
+			if (errorMessage == null) {
+				result.complete(null);
+			} else {
+				result.completeExceptionally(new IOException(errorMessage));
+			}
+		}
+	}
+
+	// Arguments are decoded by the worker, so they cannot break the line-based protocol
+	private static String encode(String argument) {
+		return argument.replace("%", "%25").replace(SEPARATOR, "%09").replace("\n", "%0A").replace("\r", "%0D");
+	}
+
+}
@@ -0,0 +1,118 @@
+package hu.bme.mit.gamma.headless.server.service;
+
+import java.util.UUID;
+
+import io.vertx.core.json.JsonObject;
+
+// A Gamma operation (execution of a .ggen file) submitted to the JobExecutor
+public class Job {
+
+	public enum State {
+		QUEUED, RUNNING, DONE, FAILED, CANCELLED
+	}
+
+	private final String id = String.valueOf(UUID.randomUUID());
+	private final String workspace;
+	private final String projectName;
+	private final String filePath;
+	private final long submissionTime = System.currentTimeMillis();
+
+	private State state = State.QUEUED;
+	private long startTime;
+	private long endTime;
+	private String message;
+
+	Job(String workspace, String projectName, String filePath) {
+		this.workspace = workspace;
+		this.projectName = projectName;
+		this.filePath = filePath;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getWorkspace() {
+		return workspace;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public long getSubmissionTime() {
+		return submissionTime;
+	}
+
+	public synchronized long getEndTime() {
+		return endTime;
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized boolean isActive() {
+		return state == State.QUEUED || state == State.RUNNING;
+	}
+
+	// State transitions: QUEUED -> RUNNING -> DONE | FAILED, and QUEUED | RUNNING -> CANCELLED
+
+	synchronized boolean start() {
+		if (state != State.QUEUED) {
+			return false; // Cancelled in the meantime
+		}
+		state = State.RUNNING;
+		startTime = System.currentTimeMillis();
+		return true;
+	}
+
+	synchronized void finish() {
+		end(State.RUNNING, State.DONE, null);
+	}
+
+	synchronized void fail(String message) {
+		if (isActive()) { // Also if the worker could not be started for the queued job
+			end(state, State.FAILED, message);
+		}
+	}
+
+	// Returns the state before the cancellation, or null if the job has already ended
+	synchronized State cancel() {
+		if (!isActive()) {
+			return null;
+		}
+		State previousState = state;
+		end(state, State.CANCELLED, "Stopped by request");
+		return previousState;
+	}
+
+	private void end(State expectedState, State newState, String message) {
+		if (state == expectedState) {
+			state = newState;
+			endTime = System.currentTimeMillis();
+			this.message = message;
+		}
+	}
+
+	public synchronized JsonObject toJson() {
+		JsonObject json = new JsonObject().put("jobId", id).put("workspace", workspace)
+				.put("project", projectName).put("ggenPath", filePath).put("state", state.name())
+				.put("submissionTime", submissionTime);
+		if (startTime != 0) {
+			json.put("startTime", startTime);
+		}
+		if (endTime != 0) {
+			json.put("endTime", endTime);
+		}
+		if (message != null) {
+			json.put("message", message);
+		}
+		return json;
+	}
+
+}
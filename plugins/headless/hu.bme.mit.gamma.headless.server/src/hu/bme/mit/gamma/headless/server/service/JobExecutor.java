@@ -0,0 +1,275 @@
+package hu.bme.mit.gamma.headless.server.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hu.bme.mit.gamma.headless.server.util.FileHandlerUtil;
+
+// Executes Gamma operations in resident Headless Gamma worker processes instead of starting a new process
+// (and paying for the OSGi startup and workspace loading) for every request
+// Every workspace has its own worker and job queue, so the jobs of a workspace are executed one after the
+// other (occupying a single thread of the pool), whereas the jobs of different workspaces are executed
+// in parallel up to the configured worker count
+public class JobExecutor {
+
+	private static final String EXECUTOR_MODE_PROPERTY = "executor.mode";
+	private static final String RESIDENT_MODE = "resident";
+	private static final String WORKER_COUNT_PROPERTY = "executor.worker.count";
+	private static final String QUEUE_CAPACITY_PROPERTY = "executor.queue.capacity";
+	private static final String WORKER_IDLE_TIMEOUT_PROPERTY = "executor.worker.idle.timeout";
+
+	private static final String GAMMA_OPERATION = "gamma";
+	private static final String IMPORT_OPERATION = "import";
+
+	protected static Logger logger = Logger.getLogger("GammaLogger");
+
+	private static JobExecutor instance;
+
+	private final ThreadPoolExecutor executor;
+	private final ScheduledExecutorService idleWorkerCloser;
+	private final long workerIdleTimeout;
+	private final int queueCapacity;
+	// Waiting jobs of the workspaces; a workspace has an entry if its jobs are scheduled in the pool
+	private final Map<String, Queue<Job>> workspaceQueues = new HashMap<>(); // Guarded by itself
+	private int waitingJobCount = 0; // Guarded by workspaceQueues
+	private final Map<String, GammaWorkerProcess> workers = new ConcurrentHashMap<>();
+	private final Map<String, Object> workerStartupLocks = new ConcurrentHashMap<>();
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	private JobExecutor() {
+		int workerCount = Integer.parseInt(FileHandlerUtil.getConfigurationProperty(WORKER_COUNT_PROPERTY,
+				String.valueOf(Runtime.getRuntime().availableProcessors())));
+		this.queueCapacity = Integer
+				.parseInt(FileHandlerUtil.getConfigurationProperty(QUEUE_CAPACITY_PROPERTY, "64"));
+		this.workerIdleTimeout = TimeUnit.SECONDS.toMillis(
+				Long.parseLong(FileHandlerUtil.getConfigurationProperty(WORKER_IDLE_TIMEOUT_PROPERTY, "600")));
+		// At most one task per workspace is in the queue of the pool, the jobs wait in the workspace queues
+		this.executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>());
+		this.idleWorkerCloser = Executors.newSingleThreadScheduledExecutor();
+		idleWorkerCloser.scheduleWithFixedDelay(this::closeIdleWorkers, 1, 1, TimeUnit.MINUTES);
+	}
+
+	// Returns whether the resident mode is configured in config.properties
+	public static boolean isEnabled() {
+		return RESIDENT_MODE.equals(FileHandlerUtil.getConfigurationProperty(EXECUTOR_MODE_PROPERTY, "process"));
+	}
+
+	public static synchronized JobExecutor getInstance() {
+		if (instance == null) {
+			instance = new JobExecutor();
+		}
+		return instance;
+	}
+
+	// Queues the execution of a .ggen file; throws RejectedExecutionException if the queue is full
+	public Job submit(String workspace, String projectName, String filePath) {
+		Job job = new Job(workspace, projectName, filePath);
+		synchronized (workspaceQueues) {
+			if (waitingJobCount >= queueCapacity) {
+				throw new RejectedExecutionException("The job queue is full");
+			}
+			Queue<Job> queue = workspaceQueues.get(workspace);
+			if (queue == null) { // No job of the workspace is scheduled
+				executor.execute(() -> runNext(workspace));
+				queue = new ArrayDeque<>();
+				workspaceQueues.put(workspace, queue);
+			}
+			queue.add(job);
+			++waitingJobCount;
+			jobs.put(job.getId(), job);
+		}
+		return job;
+	}
+
+	public Optional<Job> getJob(String jobId) {
+		return Optional.ofNullable(jobs.get(jobId));
+	}
+
+	// Returns the most recently submitted job of a project
+	public Optional<Job> getLatestJob(String workspace, String projectName) {
+		return jobs.values().stream()
+				.filter(it -> it.getWorkspace().equals(workspace) && it.getProjectName().equals(projectName))
+				.max(Comparator.comparingLong(Job::getSubmissionTime));
+	}
+
+	// Cancels the queued and running jobs of a project; the worker of a running job is killed
+	// (and restarted for the next job of the workspace)
+	public boolean cancel(String workspace, String projectName) {
+		boolean cancelled = false;
+		for (Job job : jobs.values()) {
+			if (job.getWorkspace().equals(workspace) && job.getProjectName().equals(projectName)) {
+				Job.State previousState = job.cancel(); // Atomic, so a just started job is not missed
+				if (previousState != null) {
+					cancelled = true;
+					if (previousState == Job.State.RUNNING) {
+						GammaWorkerProcess worker = workers.remove(workspace);
+						if (worker != null) {
+							worker.kill();
+						}
+					}
+				}
+			}
+		}
+		return cancelled;
+	}
+
+	// Imports a project into the workspace through its worker, as the workspace is locked by the worker
+	public void importProject(String workspace, String projectName) throws IOException, InterruptedException {
+		while (true) {
+			GammaWorkerProcess worker = getWorker(workspace);
+			synchronized (worker) {
+				if (!isCurrentWorker(workspace, worker)) {
+					continue; // Killed or closed while waiting for the lock
+				}
+				worker.execute(IMPORT_OPERATION, String.valueOf(UUID.randomUUID()), projectName);
+				return;
+			}
+		}
+	}
+
+	// Starts the worker of a workspace, so it is warm when the first job arrives
+	public void startWorker(String workspace) throws IOException, InterruptedException {
+		getWorker(workspace);
+	}
+
+	// Stops the worker of a workspace, e.g., before deleting (a project from) the workspace
+	public void closeWorker(String workspace) {
+		GammaWorkerProcess worker = workers.remove(workspace);
+		if (worker != null) {
+			synchronized (worker) { // Waiting for the end of the current job
+				worker.close();
+			}
+		}
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+		idleWorkerCloser.shutdownNow();
+		for (String workspace : workers.keySet()) {
+			closeWorker(workspace);
+		}
+	}
+
+	//
+
+	// Executes the next job of a workspace, then schedules the following one behind the tasks of the other
+	// workspaces, so queued jobs do not hold threads of the pool and every workspace gets its turn
+	private void runNext(String workspace) {
+		Job job;
+		synchronized (workspaceQueues) {
+			job = workspaceQueues.get(workspace).remove();
+			--waitingJobCount;
+		}
+		try {
+			run(job);
+		} finally {
+			synchronized (workspaceQueues) {
+				Queue<Job> queue = workspaceQueues.get(workspace);
+				if (queue.isEmpty()) {
+					workspaceQueues.remove(workspace);
+				}
+				else {
+					try {
+						executor.execute(() -> runNext(workspace));
+					} catch (RejectedExecutionException e) { // Shut down
+						workspaceQueues.remove(workspace);
+						waitingJobCount -= queue.size();
+						queue.forEach(Job::cancel);
+					}
+				}
+			}
+		}
+	}
+
+	private void run(Job job) {
+		String workspace = job.getWorkspace();
+		String projectName = job.getProjectName();
+		try {
+			boolean isExecuted = false;
+			while (!isExecuted) {
+				GammaWorkerProcess worker = getWorker(workspace);
+				synchronized (worker) { // Imports and closing do not interfere with the job
+					if (!isCurrentWorker(workspace, worker)) {
+						// The worker has been killed (cancelled job) or closed while this job was queued
+						continue;
+					}
+					isExecuted = true;
+					if (!job.start()) {
+						return; // Cancelled while queued
+					}
+					logger.log(Level.INFO, "Job " + job.getId() + " is running in workspace " + workspace);
+					ProcessBuilderCli.updateUnderOperationStatus(projectName, workspace, true, (int) worker.getPid());
+					try {
+						worker.execute(GAMMA_OPERATION, job.getId(),
+								ProcessBuilderCli.getFullFilePath(job.getFilePath(), workspace, projectName));
+						job.finish();
+					} finally {
+						ProcessBuilderCli.updateUnderOperationStatus(projectName, workspace, false, 0);
+					}
+				}
+			}
+		} catch (IOException e) {
+			job.fail(e.getMessage());
+		} catch (InterruptedException e) {
+			job.cancel();
+			Thread.currentThread().interrupt();
+		}
+		logger.log(Level.INFO, "Job " + job.getId() + " ended in state " + job.getState());
+	}
+
+	// Must be checked after acquiring the lock of a worker, as it can be replaced while waiting for the lock
+	private boolean isCurrentWorker(String workspace, GammaWorkerProcess worker) {
+		return worker.isAlive() && workers.get(workspace) == worker;
+	}
+
+	private GammaWorkerProcess getWorker(String workspace) throws IOException, InterruptedException {
+		GammaWorkerProcess worker = workers.get(workspace);
+		if (worker != null && worker.isAlive()) {
+			worker.touch(); // So it is not closed as an idle worker
+			return worker;
+		}
+		// Workers of different workspaces can start in parallel
+		synchronized (workerStartupLocks.computeIfAbsent(workspace, it -> new Object())) {
+			worker = workers.get(workspace);
+			if (worker == null || !worker.isAlive()) {
+				logger.log(Level.INFO, "Starting Gamma worker for workspace " + workspace);
+				worker = new GammaWorkerProcess(workspace, ProcessBuilderCli.getLogLevel());
+				worker.awaitStartup();
+				workers.put(workspace, worker);
+			}
+			return worker;
+		}
+	}
+
+	private void closeIdleWorkers() {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, GammaWorkerProcess> entry : workers.entrySet()) {
+			GammaWorkerProcess worker = entry.getValue();
+			if (worker.isIdle() && now - worker.getLastUseTime() > workerIdleTimeout) {
+				if (workers.remove(entry.getKey(), worker)) {
+					logger.log(Level.INFO, "Stopping idle Gamma worker of workspace " + entry.getKey());
+					worker.close();
+				}
+			}
+		}
+		// Forgetting old finished jobs
+		jobs.values().removeIf(it -> !it.isActive() && now - it.getEndTime() > workerIdleTimeout);
+	}
+
+}
@@ -38,7 +38,13 @@ public class ProcessBuilderCli {
 	private static String logLevel = "info";
 
 	// Creates a command which runs a Gamma opeartion, e.g. executes a .ggen file
-	public static void runGammaOperations(String projectName, String workspace, String filePath) throws IOException {
+	// In resident mode, the operation is queued in the JobExecutor and the job is returned, otherwise null
+	public static Job runGammaOperations(String projectName, String workspace, String filePath) throws IOException {
+		// The results of the previous operation are not streamed anymore
+		ResultStreamer.startRun(workspace, projectName);
+		if (JobExecutor.isEnabled()) {
+			return JobExecutor.getInstance().submit(workspace, projectName, filePath);
+		}
 
 		ProcessBuilder pb = new ProcessBuilder(
 				FileHandlerUtil.getProperty(DIRECTORY_OF_GAMMA_HEADLESS_ECLIPSE_PROPERTY), "-consoleLog", "-data",
@@ -48,12 +54,20 @@ public class ProcessBuilderCli {
 						+ projectName + File.separator + PROJECT_DESCRIPTOR_JSON);
 		pb.redirectErrorStream(true);
 		pb.inheritIO();
+		ResultStreamer.setProgressFile(pb);
 		// Updates the status of the workspace + project pair to be "under operation"
 		updateUnderOperationStatus(projectName, workspace, true, (int) pb.start().pid());
+		return null;
 	}
 
 	// Stops the operation by killing the process using the PID assigned
 	public static void stopOperation(String projectName, String workspace) throws IOException {
+		if (JobExecutor.isEnabled()) {
+			// Cancels the queued jobs of the project too
+			JobExecutor.getInstance().cancel(workspace, projectName);
+			updateUnderOperationStatus(projectName, workspace, false, 0);
+			return;
+		}
 		int pid = FileHandlerUtil.getPid(workspace, projectName);
 		if (Validator.isValidPid(pid)) {
 			String cmd = "";
@@ -70,13 +84,13 @@ public class ProcessBuilderCli {
 	}
 
 	// Gets the full file path of a given file under a workspace + project pair
-	private static String getFullFilePath(String filePath, String workspace, String projectName) {
+	static String getFullFilePath(String filePath, String workspace, String projectName) {
 		return FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace + File.separator
 				+ projectName + File.separator + filePath;
 	}
 
 	// Updates the operation status of a project found in a workspace
-	private static void updateUnderOperationStatus(String projectName, String workspace, Boolean status, int pid)
+	static synchronized void updateUnderOperationStatus(String projectName, String workspace, Boolean status, int pid)
 			throws IOException {
 		File jsonFile = new File(FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace
 				+ File.separator + projectName + File.separator + PROJECT_DESCRIPTOR_JSON);
@@ -119,6 +133,13 @@ public class ProcessBuilderCli {
 	// Creates an Eclipse project in a workspace
 	public static void createEclipseProject(String projectName, String workspace)
 			throws IOException, InterruptedException {
+		if (JobExecutor.isEnabled()) {
+			// The workspace is locked by its worker, so the project is imported by the worker
+			JobExecutor.getInstance().importProject(workspace, projectName);
+			createProjectJSONFile(workspace, projectName);
+			deleteSourceZip(workspace, projectName);
+			return;
+		}
 		String commandToExecute = FileHandlerUtil.getProperty(DIRECTORY_OF_GAMMA_HEADLESS_ECLIPSE_PROPERTY)
 				+ CONSTANT_ARGUMENTS + FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace
 				+ " " + IMPORT_OPERATION + " " + logLevel + " " + projectName;
@@ -132,6 +153,11 @@ public class ProcessBuilderCli {
 	// Creates a workspace
 	public static String createWorkspaceForUser() throws IOException, InterruptedException {
 		String workspace = String.valueOf(UUID.randomUUID());
+		if (JobExecutor.isEnabled()) {
+			// The worker creates the workspace and stays warm for the upcoming requests
+			JobExecutor.getInstance().startWorker(workspace);
+			return workspace;
+		}
 		String commandToExecute = FileHandlerUtil.getProperty(DIRECTORY_OF_GAMMA_HEADLESS_ECLIPSE_PROPERTY)
 				+ CONSTANT_ARGUMENTS + FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace
 				+ " " + WORKSPACE_OPERATION + " " + logLevel;
@@ -158,4 +184,9 @@ public class ProcessBuilderCli {
 	public static void setProcessCliLogLevel(String level) {
 		logLevel = level;
 	}
+
+	// Gets the logging level of the Headless Gamma
+	static String getLogLevel() {
+		return logLevel;
+	}
 }
@@ -2,6 +2,7 @@ package hu.bme.mit.gamma.headless.server.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -9,8 +10,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
-import org.apache.commons.io.FileUtils;
+import java.util.zip.ZipOutputStream;
 
 import hu.bme.mit.gamma.headless.server.util.FileHandlerUtil;
 import hu.bme.mit.gamma.headless.server.util.ZipUtils;
@@ -36,47 +36,26 @@ public class Provider {
 	 *                            path of workspace: C:\wf\01234-2314
 	 * @param projectName         Name of the project where we will zip the results
 	 *                            example: gamma.test.project
-	 * @return The path to the result.zip file
+	 * @param outputStream        The stream the zip is written into (e.g., the
+	 *                            response), no temporary zip file is created
 	 */
-	public static String getResultZipFilePath(JsonArray requiredDirectories, String workspace, String projectName)
-			throws IOException {
+	public static void writeResultZip(JsonArray requiredDirectories, String workspace, String projectName,
+			OutputStream outputStream) throws IOException {
 		List<String> resultDirs = convertJsonArrayToStringArray(requiredDirectories);
 		String pathPrefix = workspace + File.separator + projectName + File.separator;
-		deletePreviousResultZip(pathPrefix);
-		if (resultDirs.contains(".")) {
-			return ZipUtils.getOutputZipFilePath(workspace, projectName, "");
-		}
-
-		try {
-			File result = new File(pathPrefix + RESULT_DIR_NAME);
-			if (result.exists()) {
-				deleteDirectory(result);
+		try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+			if (resultDirs.contains(".")) {
+				ZipUtils.addToZip(zos, new File(pathPrefix), projectName);
+			} else {
+				for (String relativePath : resultDirs) {
+					File resultFile = new File(pathPrefix + relativePath);
+					if (resultFile.exists()) {
+						ZipUtils.addToZip(zos, resultFile,
+								RESULT_DIR_NAME + "/" + relativePath.replace(File.separatorChar, '/'));
+					}
+				}
 			}
-			Files.createDirectories(Paths.get(pathPrefix + RESULT_DIR_NAME));
-			resultDirs.stream().filter(relativePath -> new File(pathPrefix + relativePath).exists())
-					.forEach(relativePath -> {
-						if (new File(pathPrefix + relativePath).isDirectory()) {
-							try {
-								copyDirectory(pathPrefix + relativePath,
-										result.getPath() + File.separator + relativePath);
-							} catch (IOException e) {
-								e.printStackTrace();
-							}
-						} else {
-							try {
-								FileUtils.copyFile(new File(pathPrefix + relativePath),
-										new File(result.getPath() + File.separator + relativePath));
-							} catch (IOException e) {
-								e.printStackTrace();
-							}
-						}
-
-					});
-
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
-		return ZipUtils.getOutputZipFilePath(workspace, projectName, File.separator + RESULT_DIR_NAME);
 	}
 
 	private static List<String> convertJsonArrayToStringArray(JsonArray requiredDirectories) {
@@ -100,22 +79,12 @@ public class Provider {
 		return true;
 	}
 
-	private static void copyDirectory(String sourceDirectoryLocation, String destinationDirectoryLocation)
-			throws IOException {
-		File sourceDirectory = new File(sourceDirectoryLocation);
-		File destinationDirectory = new File(destinationDirectoryLocation);
-		FileUtils.copyDirectory(sourceDirectory, destinationDirectory);
-	}
-
-	private static void deletePreviousResultZip(String pathPrefix) throws IOException {
-		File zip = new File(pathPrefix + RESULT_DIR_NAME + ".zip");
-		if (zip.exists()) {
-			Files.delete(Paths.get(zip.getPath()));
-		}
-	}
-
 	// Deletes a project with all of its contents
 	public static void deleteProject(String workspace, String projectName) {
+		if (JobExecutor.isEnabled()) {
+			// The worker would keep the deleted project open; it is restarted for the next job
+			JobExecutor.getInstance().closeWorker(workspace);
+		}
 		File result = new File(FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace
 				+ File.separator + projectName);
 		if (result.exists()) {
@@ -138,6 +107,9 @@ public class Provider {
 				Map<String, Set<String>> projectsByWorkspaces = FileHandlerUtil.getProjectsByWorkspaces();
 				Set<String> projects = projectsByWorkspaces.getOrDefault(workspace, Collections.emptySet());
 				if (projects.isEmpty()) { 
+					if (JobExecutor.isEnabled()) {
+						JobExecutor.getInstance().closeWorker(workspace);
+					}
 					return deleteDirectory(result); // If workspace is, then it can't be deleted
 				}
 			} catch (IOException e) {
@@ -0,0 +1,133 @@
+package hu.bme.mit.gamma.headless.server.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import hu.bme.mit.gamma.headless.server.util.FileHandlerUtil;
+import io.vertx.core.json.JsonObject;
+
+// Follows the results of the operation of a project: the verification results reported by the Headless Gamma
+// into the progress file of the project (one JSON line per property), and the serialized .get traces
+// The results are returned as server-sent events
+public class ResultStreamer {
+
+	// The Headless Gamma appends the verification results to this file (relative to the project) if set
+	private static final String PROGRESS_FILE_ENVIRONMENT_VARIABLE = "GAMMA_VERIFICATION_PROGRESS_FILE";
+	private static final String PROGRESS_FILE_NAME = ".verification-progress.jsonl";
+	private static final String TRACE_EXTENSION = ".get";
+	private static final String DIRECTORY_OF_WORKSPACES_PROPERTY_NAME = "root.of.workspaces.path";
+
+	public static final String VERDICT_EVENT = "verdict";
+	public static final String TRACE_EVENT = "trace";
+
+	// Start times of the last operations of the projects, traces older than these are not sent
+	private static final Map<String, Long> runStartTimes = new ConcurrentHashMap<>();
+
+	private final String workspace;
+	private final String projectName;
+	private final Path projectPath;
+	private final Path progressFile;
+	private final Map<Path, Long> sentTraces = new HashMap<>();
+	private long progressOffset = 0;
+
+	public ResultStreamer(String workspace, String projectName) {
+		this.workspace = workspace;
+		this.projectName = projectName;
+		this.projectPath = getProjectPath(workspace, projectName);
+		this.progressFile = projectPath.resolve(PROGRESS_FILE_NAME);
+	}
+
+	// Called when an operation is started in a project: the results of the previous operation are not streamed
+	static void startRun(String workspace, String projectName) throws IOException {
+		Files.deleteIfExists(getProjectPath(workspace, projectName).resolve(PROGRESS_FILE_NAME));
+		runStartTimes.put(workspace + File.separator + projectName, System.currentTimeMillis());
+	}
+
+	// Makes the started Headless Gamma process report the verification results into the progress files
+	static void setProgressFile(ProcessBuilder processBuilder) {
+		processBuilder.environment().put(PROGRESS_FILE_ENVIRONMENT_VARIABLE, PROGRESS_FILE_NAME);
+	}
+
+	// Returns the events of the verification results and traces created since the last call
+	// A trace is sent again if it has been modified since, e.g., if it was being written at the last call
+	public synchronized List<String> poll() throws IOException {
+		List<String> events = new ArrayList<>();
+		for (String line : readNewProgressLines()) {
+			events.add(toEvent(VERDICT_EVENT, line));
+		}
+		long runStartTime = runStartTimes.getOrDefault(workspace + File.separator + projectName, 0L);
+		for (Path trace : getTraces()) {
+			long lastModified = Files.getLastModifiedTime(trace).toMillis();
+			Long sentLastModified = sentTraces.get(trace);
+			if (lastModified >= runStartTime && (sentLastModified == null || sentLastModified != lastModified)) {
+				sentTraces.put(trace, lastModified);
+				JsonObject data = new JsonObject()
+						.put("path", projectPath.relativize(trace).toString().replace(File.separatorChar, '/'))
+						.put("content", new String(Files.readAllBytes(trace), StandardCharsets.UTF_8));
+				events.add(toEvent(TRACE_EVENT, data.encode()));
+			}
+		}
+		return events;
+	}
+
+	// Server-sent event format: the data is a single line JSON
+	public static String toEvent(String name, String data) {
+		return "event: " + name + "\ndata: " + data + "\n\n";
+	}
+
+	//
+
+	private List<String> readNewProgressLines() throws IOException {
+		List<String> lines = new ArrayList<>();
+		if (!Files.exists(progressFile)) {
+			progressOffset = 0; // A new operation has been started
+			return lines;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(progressFile.toFile(), "r")) {
+			if (file.length() < progressOffset) {
+				progressOffset = 0; // Recreated by a new operation in the meantime
+			}
+			byte[] bytes = new byte[(int) (file.length() - progressOffset)];
+			file.seek(progressOffset);
+			file.readFully(bytes);
+			// Only complete lines are processed, the rest is read at the next call
+			int end = 0;
+			for (int i = 0; i < bytes.length; i++) {
+				if (bytes[i] == '\n') {
+					String line = new String(bytes, end, i - end, StandardCharsets.UTF_8).trim();
+					if (!line.isEmpty()) {
+						lines.add(line);
+					}
+					end = i + 1;
+				}
+			}
+			progressOffset += end;
+		}
+		return lines;
+	}
+
+	private List<Path> getTraces() throws IOException {
+		try (Stream<Path> paths = Files.walk(projectPath)) {
+			return paths.filter(it -> Files.isRegularFile(it) && it.getFileName().toString().endsWith(TRACE_EXTENSION))
+					.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static Path getProjectPath(String workspace, String projectName) {
+		return Paths.get(FileHandlerUtil.getProperty(DIRECTORY_OF_WORKSPACES_PROPERTY_NAME) + workspace,
+				projectName);
+	}
+
+}
@@ -66,4 +66,20 @@ public class FileHandlerUtil {
 		return "";
 
 	}
+
+	// Gets a property that is not a path, i.e., it is not resolved relative to the current directory
+	public static String getConfigurationProperty(String propertyName, String defaultValue) {
+		try (InputStream input = FileHandlerUtil.class.getClassLoader().getResourceAsStream("config.properties")) {
+			if (input == null) {
+				logger.log(Level.INFO, "Sorry, unable to find config.properties");
+				return defaultValue;
+			}
+			Properties prop = new Properties();
+			prop.load(input);
+			return prop.getProperty(propertyName, defaultValue).trim();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+		return defaultValue;
+	}
 }
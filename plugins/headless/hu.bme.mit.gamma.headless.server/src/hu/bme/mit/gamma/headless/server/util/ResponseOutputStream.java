@@ -0,0 +1,93 @@
+package hu.bme.mit.gamma.headless.server.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+// Writes into a chunked HTTP response from a worker thread, so files can be streamed without creating
+// them on the disk first; the writer waits while the write queue of the response is full
+// Closing the stream does not end the response
+public class ResponseOutputStream extends OutputStream {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final HttpServerResponse response;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int count = 0;
+
+	public ResponseOutputStream(HttpServerResponse response) {
+		this.response = response;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buffer.length) {
+			flush();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		while (length > 0) {
+			if (count == buffer.length) {
+				flush();
+			}
+			int copied = Math.min(length, buffer.length - count);
+			System.arraycopy(bytes, offset, buffer, count, copied);
+			count += copied;
+			offset += copied;
+			length -= copied;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			awaitDrain();
+			response.write(Buffer.buffer(Arrays.copyOf(buffer, count)));
+			count = 0;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	//
+
+	private void awaitDrain() throws IOException {
+		while (response.writeQueueFull()) {
+			if (response.closed()) {
+				throw new IOException("The connection has been closed by the client");
+			}
+			CompletableFuture<Void> drained = new CompletableFuture<>();
+			response.drainHandler(it -> drained.complete(null));
+			if (!response.writeQueueFull()) {
+				return; // Drained before the handler was set
+			}
+			try {
+				drained.get(1, TimeUnit.SECONDS); // The connection is checked again after the timeout
+			} catch (TimeoutException e) {
+				// Checking the connection again
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+		}
+		if (response.closed()) {
+			throw new IOException("The connection has been closed by the client");
+		}
+	}
+
+}
@@ -10,8 +10,16 @@
  ********************************************************************************/
 package hu.bme.mit.gamma.mutation
 
+import hu.bme.mit.gamma.expression.model.AddExpression
+import hu.bme.mit.gamma.expression.model.AndExpression
+import hu.bme.mit.gamma.expression.model.BinaryExpression
 import hu.bme.mit.gamma.expression.model.DirectReferenceExpression
 import hu.bme.mit.gamma.expression.model.Expression
+import hu.bme.mit.gamma.expression.model.MultiaryExpression
+import hu.bme.mit.gamma.expression.model.OrExpression
+import hu.bme.mit.gamma.expression.model.ParameterDeclaration
+import hu.bme.mit.gamma.expression.model.SubtractExpression
+import hu.bme.mit.gamma.expression.util.ExpressionEvaluator
 import hu.bme.mit.gamma.statechart.composite.AsynchronousAdapter
 import hu.bme.mit.gamma.statechart.composite.Channel
 import hu.bme.mit.gamma.statechart.composite.CompositeComponent
@@ -19,6 +27,7 @@ import hu.bme.mit.gamma.statechart.composite.PortBinding
 import hu.bme.mit.gamma.statechart.composite.SchedulableCompositeComponent
 import hu.bme.mit.gamma.statechart.interface_.Component
 import hu.bme.mit.gamma.statechart.interface_.EventParameterReferenceExpression
+import hu.bme.mit.gamma.statechart.interface_.Package
 import hu.bme.mit.gamma.statechart.phase.MissionPhaseAnnotation
 import hu.bme.mit.gamma.statechart.phase.MissionPhaseStateAnnotation
 import hu.bme.mit.gamma.statechart.phase.VariableBinding
@@ -42,6 +51,7 @@ import java.util.Random
 import java.util.Set
 import java.util.logging.Logger
 import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.EStructuralFeature
 
 import static com.google.common.base.Preconditions.checkState
 
@@ -89,6 +99,17 @@ class ModelMutator {
 	
 	
 	protected final Set<MissionPhaseStateAnnotation> adaptationChangeHistoryMutations = newHashSet	
+	
+	// Filtering equivalent and duplicate mutants
+	protected final Map<Integer, List<Package>> mutantPackages = newHashMap // Canonical hash - clones
+	protected boolean lastMutantDistinct = true
+	
+	protected Object appliedMutationType
+	protected boolean isMutationSiteReachable
+	protected Expression originalExpression // Clone
+	protected EObject expressionContainer
+	protected EStructuralFeature expressionFeature
+	protected int expressionIndex
 	//
 	
 	protected final extension ModelElementMutator modelElementMutator
@@ -98,6 +119,9 @@ class ModelMutator {
 	
 	protected final extension StatechartUtil statechartUtil = StatechartUtil.INSTANCE
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	protected final ExpressionEvaluator evaluator = ExpressionEvaluator.INSTANCE
+	
+	protected final Logger logger = Logger.getLogger("GammaLogger")
 	
 	//
 	
@@ -162,10 +186,22 @@ class ModelMutator {
 	//
 	
 	def mutate(Component component) {
+		val mutantPackage = component.containingPackage
+		if (mutantPackages.empty) {
+			// Mutants identical to the original model are filtered too
+			mutantPackage.registerMutant(mutantPackage.helperHashCode)
+		}
+		component.mutateUntilSuccess
+		
+		lastMutantDistinct = mutantPackage.isDistinctMutant
+	}
+	
+	protected def mutateUntilSuccess(Component component) {
 		var success = true
 		do {
  			try {
  				success = true
+ 				resetMutationSite
 				switch (component) {
 					StatechartDefinition: {
 						// Adaptive
@@ -200,6 +236,7 @@ class ModelMutator {
 	
 	protected def mutateOnce(StatechartDefinition statechart) {
 		val mutationType = StatechartMutationType.mutationType
+		appliedMutationType = mutationType
 		switch (mutationType) {
 			case TRANSITION_STRUCTURE_SOURCE_CHANGE: {
 				val transition = statechart.selectTransitionForSourceChange
@@ -296,6 +333,7 @@ class ModelMutator {
 		val stateAnnotation = stateAnnotations.selectElementForMutation
 		
 		val mutationType = AdaptationMutationType.mutationType
+		appliedMutationType = mutationType
 		switch (mutationType) {
 			case ANNOTATION_STRUCTURE_REMOVE: {
 				stateAnnotation.removeAnnotation
@@ -337,6 +375,7 @@ class ModelMutator {
 	
 	protected def mutateOnce(CompositeComponent composite) {
 		val mutationType = CompositeComponentMutationType.mutationType
+		appliedMutationType = mutationType
 		//
 		val componentScheduleList = switch (composite) {
 			SchedulableCompositeComponent: composite.executionList.empty ?
@@ -595,9 +634,162 @@ class ModelMutator {
 		
 		unselectableObjects += object
 		
+		object.recordMutationSite
+		
 		return object
 	}
 	
+	// Equivalent and duplicate mutants
+	
+	def isLastMutantDistinct() {
+		return lastMutantDistinct
+	}
+	
+	protected def resetMutationSite() {
+		appliedMutationType = null
+		isMutationSiteReachable = true
+		originalExpression = null
+		expressionContainer = null
+		expressionFeature = null
+		expressionIndex = -1
+	}
+	
+	protected def recordMutationSite(EObject object) {
+		// Statically unreachable elements cannot affect the behavior (guards are not considered)
+		val stateNode = object.selfOrContainingOrSourceStateNode
+		isMutationSiteReachable = (stateNode === null) ||
+				stateNode.containingStatechart.containedStateNodeDistances.containsKey(stateNode)
+		// Expressions are compared with their mutated versions
+		if (object instanceof Expression) {
+			originalExpression = object.clone
+			expressionContainer = object.eContainer
+			expressionFeature = object.eContainingFeature
+			expressionIndex = expressionFeature.many ?
+					(expressionContainer.eGet(expressionFeature) as List<?>).indexOf(object) : -1
+		}
+		else {
+			originalExpression = null
+		}
+	}
+	
+	protected def isDistinctMutant(Package mutantPackage) {
+		// Cheap static equivalence checks
+		if (!isMutationSiteReachable &&
+				appliedMutationType != StatechartMutationType.TRANSITION_STRUCTURE_SOURCE_CHANGE) {
+			logger.info("The mutated element is unreachable, the mutant is equivalent")
+			return false
+		}
+		if (originalExpression !== null && originalExpression.isEquivalent(mutatedExpression)) {
+			logger.info("The mutated expression is equivalent to the original one")
+			return false
+		}
+		// Duplicates (and the original model) are compared only if their canonical hashes match
+		val hash = mutantPackage.helperHashCode
+		val packages = mutantPackages.getOrDefault(hash, #[])
+		if (packages.exists[it.helperEquals(mutantPackage)]) {
+			logger.info("The mutant is identical to a previous mutant or the original model")
+			return false
+		}
+		mutantPackage.registerMutant(hash)
+		return true
+	}
+	
+	protected def registerMutant(Package mutantPackage, int hash) {
+		// Cloned, as the mutants are modified later, e.g., annotated
+		val packages = mutantPackages.computeIfAbsent(hash, [newArrayList])
+		packages += mutantPackage.clone
+	}
+	
+	protected def getMutatedExpression() {
+		val value = expressionContainer.eGet(expressionFeature)
+		if (value instanceof List<?>) {
+			return (0 <= expressionIndex && expressionIndex < value.size) ?
+					value.get(expressionIndex) as Expression : null
+		}
+		return value as Expression
+	}
+	
+	protected def isEquivalent(Expression original, Expression mutant) {
+		if (mutant === null) {
+			return false
+		}
+		if (original.helperEquals(mutant)) {
+			return true
+		}
+		// Changing the operator of identical operands, e.g., a && a to a || a
+		if ((original instanceof AndExpression || original instanceof OrExpression) &&
+				(mutant instanceof AndExpression || mutant instanceof OrExpression)) {
+			val operands = (original as MultiaryExpression).operands
+			val head = operands.head
+			if (operands.forall[it.helperEquals(head)] && original.hasSameOperands(mutant)) {
+				return true
+			}
+		}
+		// Adding or subtracting zeros, e.g., a + 0 to a - 0
+		if ((original instanceof AddExpression || original instanceof SubtractExpression) &&
+				(mutant instanceof AddExpression || mutant instanceof SubtractExpression)) {
+			if (original.subsequentOperands.forall[it.zero] && original.hasSameOperands(mutant)) {
+				return true
+			}
+		}
+		// Evaluable expressions, e.g., -0 or inverted comparisons of constants
+		if (!original.evaluable || !mutant.evaluable) {
+			return false
+		}
+		try {
+			return evaluator.evaluate(original) == evaluator.evaluate(mutant)
+		} catch (IllegalArgumentException | ArithmeticException e) {
+			return false // Not evaluable, e.g., division by zero
+		}
+	}
+	
+	protected def isEvaluable(Expression expression) {
+		// Parameters are bound to different arguments in different instances
+		return expression.getSelfAndAllContentsOfType(DirectReferenceExpression)
+				.forall[!(it.declaration instanceof ParameterDeclaration)] &&
+			expression.getSelfAndAllContentsOfType(EventParameterReferenceExpression).empty
+	}
+	
+	protected def List<? extends Expression> getSubsequentOperands(Expression expression) {
+		return expression.allOperands.tail.toList
+	}
+	
+	protected def List<? extends Expression> getAllOperands(Expression expression) {
+		if (expression instanceof MultiaryExpression) {
+			return expression.operands
+		}
+		if (expression instanceof BinaryExpression) {
+			return #[expression.leftOperand, expression.rightOperand]
+		}
+		return #[]
+	}
+	
+	protected def hasSameOperands(Expression original, Expression mutant) {
+		// Only the operator may be changed, e.g., a + 0 to b - 0 is not equivalent
+		val originalOperands = original.allOperands
+		val mutantOperands = mutant.allOperands
+		if (originalOperands.size != mutantOperands.size) {
+			return false
+		}
+		for (var i = 0; i < originalOperands.size; i++) {
+			if (!originalOperands.get(i).helperEquals(mutantOperands.get(i))) {
+				return false
+			}
+		}
+		return true
+	}
+	
+	protected def isZero(Expression expression) {
+		if (!expression.evaluable) {
+			return false
+		}
+		try {
+			return evaluator.evaluateInteger(expression) == 0
+		} catch (IllegalArgumentException | ArithmeticException e) {
+			return false
+		}
+	}
+	
 	//
 	
 	protected def <T> getMutationType(Class<T> clazz) {
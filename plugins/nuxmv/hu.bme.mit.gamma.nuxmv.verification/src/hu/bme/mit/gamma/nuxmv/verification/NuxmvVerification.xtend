@@ -28,6 +28,14 @@ class NuxmvVerification extends AbstractVerification {
 		return new NuxmvVerifier
 	}
 	
+	override isBatchVerificationSupported() {
+		return true
+	}
+	
+	override protected getBackendVersionCommand() {
+		return #["nuXmv", "-h"] // The banner contains the version
+	}
+	
 	//
 	
 	override getDefaultArgumentsForInvarianceChecking(File modelFile) {
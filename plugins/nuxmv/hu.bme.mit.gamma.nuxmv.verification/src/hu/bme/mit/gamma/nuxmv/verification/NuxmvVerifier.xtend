@@ -16,6 +16,7 @@ import hu.bme.mit.gamma.util.ScannerLogger
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
 import hu.bme.mit.gamma.verification.util.AbstractVerifier
 import java.io.File
+import java.util.List
 import java.util.Scanner
 
 class NuxmvVerifier extends AbstractVerifier {
@@ -30,6 +31,9 @@ class NuxmvVerifier extends AbstractVerifier {
 	public static final String NUXMV_SETUP_UNTIMED = "go_msat"
 	public static final String NUXMV_SETUP_TIMED = /*"time_setup" + System.lineSeparator +*/ "go_time"
 	
+	protected static final String PROPERTY_END_MARKER = "GAMMA_PROPERTY_END" // Echoed after every property
+	protected static final String PROPERTY_LINE_PATTERN = "[0-9]{3} :.*" // Line of a property in the property list
+	
 	//
 	protected final static extension FileUtil fileUtil = FileUtil.INSTANCE
 	//
@@ -47,15 +51,7 @@ class NuxmvVerifier extends AbstractVerifier {
 			val isPropertyUnconvertible = convertedProperty.nullOrEmpty
 			//
 			
-			val possiblyCovertedParameters = if (isPropertyUnconvertible) {
-				parameters
-			} else if (parameters == CHECK_UNTIMED_LTL) {
-				CHECK_UNTIMED_INVAR
-			} else if (parameters == CHECK_TIMED_LTL) {
-				CHECK_TIMED_INVAR
-			} else {
-				parameters
-			}
+			val possiblyCovertedParameters = parameters.getPossiblyConvertedParameters(isPropertyUnconvertible)
 			
 			val possiblyConvertedProperty = (isPropertyUnconvertible) ? singleQuery : convertedProperty
 			
@@ -162,44 +158,147 @@ class NuxmvVerifier extends AbstractVerifier {
 		return traceResult
 	}
 	
-	override getTemporaryQueryFilename(File modelFile) {
-		return "." + modelFile.extensionlessName + ".s"
+	/**
+	 * Verifies the queries in a single nuXmv session, so the model is parsed and encoded only once.
+	 * The properties are converted to invariants (if possible) in a single session, too.
+	 */
+	override verifyQueries(Object traceability, String parameters, File modelFile, List<String> queries) {
+		val conversionResults = modelFile.convertToInvariants(queries, parameters)
+		val convertedParameters = <String>newArrayList
+		val convertedQueries = <String>newArrayList
+		for (var i = 0; i < queries.size; i++) {
+			val convertedProperty = conversionResults.get(i)?.key
+			val isPropertyUnconvertible = convertedProperty.nullOrEmpty
+			convertedParameters += parameters.getPossiblyConvertedParameters(isPropertyUnconvertible)
+			convertedQueries += (isPropertyUnconvertible) ? queries.get(i) : convertedProperty
+		}
+		
+		val results = traceability.verifyQueriesInSession(parameters, convertedParameters,
+				modelFile, convertedQueries)
+		for (var i = 0; i < queries.size; i++) {
+			val isPropertyInverted = conversionResults.get(i)?.value?.booleanValue
+			if (isPropertyInverted) { // Needed due to potential invar adaptation
+				results.set(i, results.get(i)?.invert) // Adaptation
+			}
+		}
+		
+		return results
 	}
 	
-	//
-	
-	protected def convertToInvariant(File modelFile, String query, String argument) {
+	protected def verifyQueriesInSession(Object traceability, String parameters,
+			List<String> checkingParameters, File modelFile, List<String> queries) {
+		val queryAdapters = queries.map[new LtlQueryAdapter].toList
+		// Creating the configuration file: the checks are separated by echoed markers in the output
 		val parentFile = modelFile.parent
-		val isTimedModel = modelFile.timedModel
+		val commandFile = new File(parentFile + File.separator + '''.nuXmv-batch-commands-«Thread.currentThread.name».cmd''')
+		commandFile.deleteOnExit
 		
-		val commandExtension = argument.commandLineArgumentExtension
+		val serializedCommand = '''
+			set input_file "«modelFile.absolutePath»"
+			«parameters.setupCommand»
+			set default_trace_plugin 1
+			«FOR i : 0 ..< queries.size»
+				«checkingParameters.get(i)» "«queryAdapters.get(i).adaptQuery(queries.get(i))»"
+				echo «PROPERTY_END_MARKER»
+			«ENDFOR»
+			quit
+		'''
+		fileUtil.saveString(commandFile, serializedCommand)
+		
+		val commandExtension = parameters.commandLineArgumentExtension
 		val nuXmvCommandExtension = commandExtension.nullOrEmpty ? #[] : #[commandExtension]
+		val nuXmvCommand = #["nuXmv"] + nuXmvCommandExtension + #["-source", commandFile.absolutePath]
+		logger.info("Running nuXmv on " + queries.size + " properties: " + nuXmvCommand.join(" "))
 		
-		val extension queryAdapter = new LtlQueryAdapter // We expect a CTL property
+		var Scanner resultReader = null
+		var ScannerLogger errorReader = null
+		val results = <Result>newArrayList
 		
-		val discretizedModelPath = modelFile.extendAndHideFileName("-untimed")
-		if (isTimedModel) {
-			// For timed models, we cannot use the convert_property_to_invar command, so we have to convert them first
-			val discretizationCommand = '''
-				set on_failure_script_quits
-				set input_file "«modelFile.absolutePath»"
-				«NUXMV_SETUP_TIMED»
-				write_untimed_model -o "«discretizedModelPath.absolutePath»"
-				quit
-			'''
+		try {
+			process = Runtime.getRuntime().exec(nuXmvCommand)
 			
-			val commandFile = new File(parentFile + File.separator + '''.nuXmv-discretization-«Thread.currentThread.name».cmd''')
-			fileUtil.saveString(commandFile, discretizationCommand)
-			commandFile.deleteOnExit
+			resultReader = new Scanner(process.inputReader)
+			errorReader = new ScannerLogger(new Scanner(process.errorReader), false)
+			errorReader.start
 			
-			val nuXmvCommand = #["nuXmv"] + nuXmvCommandExtension + #["-source", commandFile.absolutePath]
-			logger.info("Running nuXmv to discretize timed model: " + nuXmvCommand.join(" "))
+			val gammaPackage = traceability as Package
+			var propertyOutput = <String>newArrayList
+			while (resultReader.hasNextLine && results.size < queries.size) {
+				val line = resultReader.nextLine
+				if (line.trim == PROPERTY_END_MARKER) {
+					val index = results.size
+					results += gammaPackage.parseResult(propertyOutput, queryAdapters.get(index), queries.get(index))
+					propertyOutput = newArrayList
+				}
+				else {
+					propertyOutput += line
+				}
+			}
+			// The session has ended prematurely
+			while (results.size < queries.size) {
+				logger.severe("nuXmv could not verify the model with the property: " + queries.get(results.size))
+				results += new Result(ThreeStateBoolean.UNDEF, null)
+			}
 			
-			val process = Runtime.getRuntime().exec(nuXmvCommand)
-			process.waitFor
+			logger.info("Quitting nuXmv shell")
+		} finally {
+			resultReader?.close
+			errorReader?.cancel
+			cancel
 		}
-
-		val checkableModel = isTimedModel ? discretizedModelPath : modelFile
+		
+		return results
+	}
+	
+	protected def parseResult(Package gammaPackage, List<String> propertyOutput,
+			LtlQueryAdapter queryAdapter, String query) {
+		val resultPattern = '''(.*invariant.*is.*)|(.*specification.*is.*)'''
+		var result = ThreeStateBoolean.UNDEF
+		var resultIndex = -1
+		for (var i = 0; i < propertyOutput.size && resultIndex < 0; i++) {
+			val line = propertyOutput.get(i)
+			if (!line.nullOrEmpty && !line.startsWith("***")) { // No header printing
+				logger.info("nuXmv: " + line)
+			}
+			if (line.matches(resultPattern)) {
+				resultIndex = i
+				if (line.endsWith("true")) {
+					result = ThreeStateBoolean.TRUE
+				}
+				else if (line.endsWith("false")) {
+					result = ThreeStateBoolean.FALSE
+				} // In case of any other outcome, the result will remain undef
+			}
+		}
+		if (resultIndex < 0) {
+			logger.severe("nuXmv could not verify the model with the property: " + query)
+			return new Result(queryAdapter.adaptResult(result), null)
+		}
+		// The counterexample (if any) follows the result line
+		val traceOutput = propertyOutput.subList(resultIndex + 1, propertyOutput.size).join(System.lineSeparator)
+		val traceReader = new Scanner(traceOutput)
+		try {
+			val backAnnotator = new TraceBackAnnotator(gammaPackage, traceReader)
+			val trace = backAnnotator.synchronizeAndExecute
+			
+			return new Result(queryAdapter.adaptResult(result), trace)
+		} finally {
+			traceReader.close
+		}
+	}
+	
+	override getTemporaryQueryFilename(File modelFile) {
+		return "." + modelFile.extensionlessName + "-" + Thread.currentThread.name + ".s"
+	}
+	
+	//
+	
+	protected def convertToInvariant(File modelFile, String query, String argument) {
+		val parentFile = modelFile.parent
+		
+		val extension queryAdapter = new LtlQueryAdapter // We expect a CTL property
+		
+		val checkableModel = modelFile.getCheckableModel(argument)
 		//
 		val commandFile = new File(parentFile + File.separator + '''.nuXmv-invar-«Thread.currentThread.name».cmd''')
 		commandFile.deleteOnExit
@@ -255,8 +354,129 @@ class NuxmvVerifier extends AbstractVerifier {
 		}
 	}
 	
+	/**
+	 * Converts the properties to invariants in a single nuXmv session; the failing conversions
+	 * do not stop the session, and their results are null.
+	 */
+	protected def convertToInvariants(File modelFile, List<String> queries, String argument) {
+		val parentFile = modelFile.parent
+		val queryAdapters = queries.map[new LtlQueryAdapter].toList // We expect CTL properties
+		val conversionResults = <Pair<String, Boolean>>newArrayList
+		
+		val checkableModel = modelFile.getCheckableModel(argument)
+		//
+		val commandFile = new File(parentFile + File.separator + '''.nuXmv-batch-invar-«Thread.currentThread.name».cmd''')
+		commandFile.deleteOnExit
+		
+		// The property list is shown after every conversion: a new last property is the converted one
+		val serializedCommand = '''
+			set input_file "«checkableModel.absolutePath»"
+			«NUXMV_SETUP_UNTIMED /* Always, as we cannot use the below convert command for timed models */»
+			«FOR i : 0 ..< queries.size»
+				convert_property_to_invar -l -p "«queryAdapters.get(i).adaptQuery(queries.get(i))»"
+				show_property -F tabular
+				echo «PROPERTY_END_MARKER»
+			«ENDFOR»
+			quit
+		'''
+		fileUtil.saveString(commandFile, serializedCommand)
+		
+		val nuXmvCommand = #["nuXmv", "-source", commandFile.absolutePath] // No 'nuXmvCommandExtension' - always untimed SMV model
+		logger.info("Running nuXmv to convert " + queries.size + " properties to invariance: " + nuXmvCommand.join(" "))
+		
+		var Scanner resultReader = null
+		var ScannerLogger errorReader = null
+		
+		try {
+			val process = Runtime.getRuntime().exec(nuXmvCommand)
+			resultReader = new Scanner(process.inputReader)
+			errorReader = new ScannerLogger(new Scanner(process.errorReader), false)
+			errorReader.start
+			
+			var propertyCount = 0
+			var propertyLines = <String>newArrayList
+			while (resultReader.hasNextLine && conversionResults.size < queries.size) {
+				val line = resultReader.nextLine
+				if (line.trim == PROPERTY_END_MARKER) {
+					val index = conversionResults.size
+					if (propertyLines.size > propertyCount) {
+						val lastLine = propertyLines.last
+						val convertedProperty = lastLine.substring(lastLine.indexOf(":") + 1)
+						logger.info("Property is convertible to safety property: " + convertedProperty)
+						conversionResults += convertedProperty -> queryAdapters.get(index).queryInverted
+					}
+					else {
+						logger.info("Property is not convertible to safety property: " + queries.get(index))
+						conversionResults += null
+					}
+					propertyCount = propertyLines.size
+					propertyLines = newArrayList
+				}
+				else if (line.matches(PROPERTY_LINE_PATTERN)) {
+					propertyLines += line
+				}
+			}
+		} catch (Exception e) {
+			logger.warning("Properties cannot be converted to safety properties: " + e.message)
+		} finally {
+			resultReader?.close
+			errorReader?.cancel
+		}
+		// Unconvertible properties (e.g., the session has ended prematurely)
+		while (conversionResults.size < queries.size) {
+			conversionResults += null
+		}
+		
+		return conversionResults
+	}
+	
+	protected def getCheckableModel(File modelFile, String argument) {
+		val parentFile = modelFile.parent
+		val isTimedModel = modelFile.timedModel
+		
+		val commandExtension = argument.commandLineArgumentExtension
+		val nuXmvCommandExtension = commandExtension.nullOrEmpty ? #[] : #[commandExtension]
+		
+		val discretizedModelPath = modelFile.extendAndHideFileName("-untimed")
+		if (isTimedModel) {
+			// For timed models, we cannot use the convert_property_to_invar command, so we have to convert them first
+			val discretizationCommand = '''
+				set on_failure_script_quits
+				set input_file "«modelFile.absolutePath»"
+				«NUXMV_SETUP_TIMED»
+				write_untimed_model -o "«discretizedModelPath.absolutePath»"
+				quit
+			'''
+			
+			val commandFile = new File(parentFile + File.separator + '''.nuXmv-discretization-«Thread.currentThread.name».cmd''')
+			fileUtil.saveString(commandFile, discretizationCommand)
+			commandFile.deleteOnExit
+			
+			val nuXmvCommand = #["nuXmv"] + nuXmvCommandExtension + #["-source", commandFile.absolutePath]
+			logger.info("Running nuXmv to discretize timed model: " + nuXmvCommand.join(" "))
+			
+			val process = Runtime.getRuntime().exec(nuXmvCommand)
+			process.waitFor
+		}
+		
+		return isTimedModel ? discretizedModelPath : modelFile
+	}
+	
 	//
 	
+	protected def getPossiblyConvertedParameters(String parameters, boolean isPropertyUnconvertible) {
+		if (isPropertyUnconvertible) {
+			return parameters
+		}
+		if (parameters == CHECK_UNTIMED_LTL) {
+			return CHECK_UNTIMED_INVAR
+		}
+		if (parameters == CHECK_TIMED_LTL) {
+			return CHECK_TIMED_INVAR
+		}
+		return parameters
+	}
+	
 	protected def getSetupCommand(String argument) {
 		switch (argument) {
 			case CHECK_UNTIMED_LTL,
@@ -21,6 +21,7 @@ import hu.bme.mit.gamma.transformation.util.annotations.AnnotatablePreprocessabl
 import hu.bme.mit.gamma.transformation.util.annotations.DataflowCoverageCriterion
 import hu.bme.mit.gamma.transformation.util.annotations.InteractionCoverageCriterion
 import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.util.ModelRegistry
 import hu.bme.mit.gamma.xsts.model.XSTS
 import hu.bme.mit.gamma.xsts.transformation.InitialStateSetting
 import hu.bme.mit.gamma.xsts.transformation.api.Gamma2XstsTransformerSerializer
@@ -49,6 +50,7 @@ class Gamma2XstsNuxmvTransformerSerializer {
 	protected final extension XstsActionUtil actionUtil = XstsActionUtil.INSTANCE
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
 	protected final extension GammaFileNamer fileNamer = GammaFileNamer.INSTANCE
+	protected final ModelRegistry modelRegistry = ModelRegistry.INSTANCE
 	
 	new(Component component, String targetFolderUri, String fileName) {
 		this(component, #[], targetFolderUri, fileName)
@@ -109,7 +111,7 @@ class Gamma2XstsNuxmvTransformerSerializer {
 			slicingProperties, annotatableElements,
 			initialState, initialStateSetting)
 		xStsTransformer.execute
-		val xSts = targetFolderUri.normalLoad(fileName.emfXStsFileName) as XSTS
+		val xSts = modelRegistry.checkOut(targetFolderUri, fileName.emfXStsFileName) as XSTS
 		// Loop unrolling if needed (and possible)
 		xSts.unrollLoopActions
 		// SSE
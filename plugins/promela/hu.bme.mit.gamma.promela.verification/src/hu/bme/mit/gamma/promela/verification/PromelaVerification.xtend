@@ -27,6 +27,14 @@ class PromelaVerification extends AbstractVerification {
 		return new PromelaVerifier
 	}
 	
+	override isBatchVerificationSupported() {
+		return true
+	}
+	
+	override protected getBackendVersionCommand() {
+		return #["spin", "-V"]
+	}
+	
 	override getDefaultArgumentsForInvarianceChecking() {
 		val INVARIANT_ARGUMENTS = #["-DSAFETY", "-DSFH"]
 		val defaultArguments = defaultArguments
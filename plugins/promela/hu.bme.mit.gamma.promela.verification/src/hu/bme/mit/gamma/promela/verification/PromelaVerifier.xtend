@@ -11,6 +11,7 @@
 package hu.bme.mit.gamma.promela.verification
 
 import hu.bme.mit.gamma.statechart.interface_.Package
+import hu.bme.mit.gamma.util.ScannerLogger
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
 import hu.bme.mit.gamma.verification.util.AbstractVerifier
 import java.io.BufferedWriter
@@ -19,6 +20,7 @@ import java.io.FileOutputStream
 import java.io.OutputStreamWriter
 import java.util.List
 import java.util.Scanner
+import java.util.regex.Pattern
 
 import static com.google.common.base.Preconditions.checkState
 
@@ -27,6 +29,10 @@ class PromelaVerifier extends AbstractVerifier {
 	protected extension LtlQueryAdapter queryAdapter = null // One needs to be created for every verification task
 	// Save trace to file
 	protected val SAVE_TRACE = false
+	// Names of the verifiers compiled for batch verification
+	protected static final String PAN = "pan"
+	protected static final String BITSTATE_PAN = "pan-bitstate"
+	protected static final Pattern ERROR_COUNT_PATTERN = Pattern.compile("errors:\\s*(\\d+)")
 	//
 	
 	override Result verifyQuery(Object traceability, String parameters, File modelFile, File queryFile) {
@@ -75,6 +81,200 @@ class PromelaVerifier extends AbstractVerifier {
 		return result
 	}
 	
+	/**
+	 * Verifies the queries as separate claims of a single model: the model is translated and the
+	 * verifier (pan) is compiled only once, and it is executed for each claim (-N).
+	 */
+	override verifyQueries(Object traceability, String parameters, File modelFile, List<String> queries) {
+		val model = fileUtil.loadString(modelFile)
+		val queryAdapters = queries.map[new LtlQueryAdapter].toList
+		val ltls = '''
+			«FOR i : 0 ..< queries.size»
+				ltl ltl_«i» { «queryAdapters.get(i).adaptQuery(queries.get(i))» }
+			«ENDFOR»
+		'''
+		val modelWithLtls = model + System.lineSeparator + ltls
+		
+		val rootGenFolder = new File(modelFile.parent, "." + fileUtil.getExtensionlessName(modelFile))
+		rootGenFolder.mkdirs
+		val tmpGenFolder = new File(rootGenFolder + File.separator +
+				fileUtil.getExtensionlessName(modelFile) + "-batch-" + Thread.currentThread.name)
+		tmpGenFolder.mkdirs
+		
+		val fileWithLtls = new File(tmpGenFolder, fileUtil.getExtensionlessName(modelFile) + "-LTL.pml")
+		fileWithLtls.deleteOnExit
+		fileUtil.saveString(fileWithLtls, modelWithLtls)
+		
+		// The arguments of 'spin -search' are split into compilation (-D) and pan arguments
+		val splitParameters = parameters.trim.split("\\s+").filter[it != "-search"].toList
+		val compilationArguments = splitParameters.filter[it.startsWith("-D")].toList
+		val panArguments = splitParameters.filter[!it.startsWith("-D")].toList
+		if (!compilationArguments.exists[#["-DSAFETY", "-DSFH", "-DNP"].contains(it)]) {
+			panArguments.add(0, "-a") // Like in the case of 'spin -search', acceptance cycles are searched
+		}
+		
+		val results = <Result>newArrayList
+		try {
+			if (!fileWithLtls.translatePan || !fileWithLtls.compilePan(compilationArguments, PAN)) {
+				logger.warning("Cannot compile the verifier, verifying the properties one by one")
+				return super.verifyQueries(traceability, parameters, modelFile, queries)
+			}
+			var isUnderApproximationCompiled = false
+			
+			for (var i = 0; i < queries.size && !isCancelled; i++) {
+				queryAdapter = queryAdapters.get(i)
+				val claimName = "ltl_" + i
+				val claimArguments = #["-N", claimName]
+				
+				var result = fileWithLtls.runPan(PAN, panArguments + claimArguments, new BmcData(parameters))
+				var isUnderApproximation = false
+				if (result === null) { // Out of memory: under-approximation with bitstate hashing
+					if (!isUnderApproximationCompiled) {
+						isUnderApproximationCompiled = fileWithLtls.compilePan(
+								compilationArguments + #["-DBITSTATE"], BITSTATE_PAN)
+					}
+					if (isUnderApproximationCompiled) {
+						isUnderApproximation = true
+						result = fileWithLtls.runPan(BITSTATE_PAN, panArguments + claimArguments,
+								new BmcData(parameters))
+					}
+				}
+				super.result = (result === null) ? ThreeStateBoolean.UNDEF : result
+				super.result = super.result.adaptResult
+				
+				val trace = traceability.retrieveTrace(fileWithLtls, claimName)
+				// Setting result w.r.t under-approximation
+				if (isUnderApproximation && trace === null) {
+					super.result = ThreeStateBoolean.UNDEF
+				}
+				results += new Result(super.result, trace)
+			}
+			// The remaining queries in case of cancellation
+			while (results.size < queries.size) {
+				results += new Result(ThreeStateBoolean.UNDEF, null)
+			}
+		} finally {
+			cancel
+			// Setting for deletion after the exe has been generated
+			tmpGenFolder.forceDeleteOnExit
+			rootGenFolder.forceDeleteOnExit
+		}
+		
+		return results
+	}
+	
+	protected def translatePan(File modelFile) {
+		val execFolder = modelFile.parentFile
+		// spin -a PromelaFile.pml
+		val translationCommand = #["spin", "-a", modelFile.name /* see exec work-dir */]
+		return translationCommand.executeCommand(execFolder) == 0
+	}
+	
+	/**
+	 * Compiles the pan.c file generated by a previous translatePan call.
+	 */
+	protected def compilePan(File modelFile, Iterable<String> compilationArguments, String panName) {
+		val execFolder = modelFile.parentFile
+		// gcc -O2 -D... -o pan pan.c
+		val compilationCommand = #["gcc", "-O2"] + compilationArguments + #["-o", panName, "pan.c"]
+		val isCompiled = compilationCommand.toList.executeCommand(execFolder) == 0
+		new File(execFolder, panName).deleteOnExit
+		
+		return isCompiled
+	}
+	
+	/**
+	 * Returns the result of the claim given in the pan arguments, or null if pan runs out of memory.
+	 */
+	protected def runPan(File modelFile, String panName, Iterable<String> panArguments,
+			BmcData bmcData) {
+		val execFolder = modelFile.parentFile
+		val panCommand = newArrayList("./" + panName)
+		panCommand += panArguments
+		
+		// The trail of the previous claim must not be back-annotated
+		val trailFile = new File(modelFile.trailFile)
+		trailFile.delete
+		trailFile.deleteOnExit
+		
+		var Scanner resultReader = null
+		var ThreeStateBoolean result = null
+		var needsAnotherIteration = false
+		do {
+			var isSearchDepthTooSmall = false
+			var isOutOfMemory = false
+			// Setting depth
+			if (bmcData.doBmc) {
+				bmcData.adjustSpinArgument(panCommand)
+			}
+			logger.info("Executing command: " + panCommand.join(" "))
+			try {
+				process = Runtime.getRuntime().exec(panCommand, null, execFolder)
+				resultReader = new Scanner(process.inputStream)
+				
+				// The verdict is based on the error count of the summary ("State-vector ... errors: N"),
+				// as the first lines of the output vary (e.g., "pan: ltl formula ltl_i" for multiple claims)
+				var Integer errorCount = null
+				while (resultReader.hasNext) {
+					val line = resultReader.nextLine
+					if (line.contains("error: max search depth too small")) {
+						isSearchDepthTooSmall = true
+					}
+					if (line.contains("out of memory")) {
+						isOutOfMemory = true
+					}
+					val errorMatcher = ERROR_COUNT_PATTERN.matcher(line)
+					if (errorMatcher.find) {
+						errorCount = Integer.valueOf(errorMatcher.group(1))
+					}
+				}
+				process.waitFor
+				
+				val hasError = (errorCount !== null) ? errorCount > 0 : trailFile.exists
+				if (hasError) {
+					result = ThreeStateBoolean.FALSE
+				}
+				else if (isOutOfMemory) {
+					return null
+				}
+				else if (isSearchDepthTooSmall) {
+					result = ThreeStateBoolean.UNDEF
+				}
+				else {
+					result = ThreeStateBoolean.TRUE
+				}
+			} finally {
+				resultReader?.close
+			}
+			// BMC-related operations
+			needsAnotherIteration = bmcData.doBmc && result == ThreeStateBoolean.UNDEF &&
+					isSearchDepthTooSmall && !isCancelled
+			if (needsAnotherIteration) {
+				bmcData.increaseDepth
+				logger.info('''Max search depth is too small. Increasing it to «bmcData.depth»''')
+			}
+		} while (needsAnotherIteration)
+		
+		return result
+	}
+	
+	protected def executeCommand(List<String> command, File execFolder) {
+		logger.info("Executing command: " + command.join(" "))
+		process = Runtime.getRuntime().exec(command, null, execFolder)
+		val outputReader = new Scanner(process.inputReader)
+		val errorReader = new ScannerLogger(new Scanner(process.errorReader), false)
+		errorReader.start
+		try {
+			while (outputReader.hasNextLine) {
+				outputReader.nextLine // Only the errors are interesting
+			}
+			return process.waitFor
+		} finally {
+			outputReader.close
+			errorReader.cancel
+		}
+	}
+	
 	private def Result verify(Object traceability, String parameters, File modelFile) {
 		return this.verify(traceability, parameters, modelFile, new BmcData(parameters))
 	}
@@ -175,26 +375,56 @@ class PromelaVerifier extends AbstractVerifier {
 			// Adapting result
 			super.result = super.result.adaptResult
 			
-			if (!trailFile.exists) {
-				// No proof/counterexample
-				return new Result(result, null)
-			}
-			
-			// spin -t -p -g -l -w PromelaFile.pml
-			val traceCommand = #["spin", "-t", "-p", "-g", /*"-l",*/ "-w", modelFile.name /* see exec wokr-dir */]
+			val trace = traceability.retrieveTrace(modelFile)
 			
-			// Never claim file
-			val nvrFile = new File(execFolder, "_spin_nvr.tmp")
-			nvrFile.deleteOnExit
-			
-			// Executing the trace command
-			logger.info("Executing command: " + traceCommand.join(" "))
-			process = Runtime.getRuntime().exec(traceCommand, null, execFolder)
-			
-			val traceOutputStream = process.inputStream
-			// Reading the result of the command
-			resultReader = new Scanner(traceOutputStream)
+			// Setting result w.r.t under-approximation
+			if (isUnderApproximation && trace === null) {
+				super.result = ThreeStateBoolean.UNDEF
+			}
+			//
 			
+			return new Result(result, trace)
+		} finally {
+			resultReader?.close
+			cancel
+		}
+	}
+	
+	protected def retrieveTrace(Object traceability, File modelFile) {
+		return traceability.retrieveTrace(modelFile, null)
+	}
+	
+	/**
+	 * The claim has to be named if the model contains multiple ones, as the trail is replayed
+	 * with the first claim otherwise.
+	 */
+	protected def retrieveTrace(Object traceability, File modelFile, String claimName) {
+		val execFolder = modelFile.parentFile
+		val trailFile = new File(modelFile.trailFile)
+		if (!trailFile.exists) {
+			// No proof/counterexample
+			return null
+		}
+		
+		// spin -t -p -g -l -w [-N ltl_i] PromelaFile.pml
+		val traceCommand = newArrayList("spin", "-t", "-p", "-g", /*"-l",*/ "-w")
+		if (claimName !== null) {
+			traceCommand += #["-N", claimName]
+		}
+		traceCommand += modelFile.name /* see exec wokr-dir */
+		
+		// Never claim file
+		val nvrFile = new File(execFolder, "_spin_nvr.tmp")
+		nvrFile.deleteOnExit
+		
+		// Executing the trace command
+		logger.info("Executing command: " + traceCommand.join(" "))
+		process = Runtime.getRuntime().exec(traceCommand, null, execFolder)
+		
+		val traceOutputStream = process.inputStream
+		// Reading the result of the command
+		var resultReader = new Scanner(traceOutputStream)
+		try {
 			// save trace
 			if (SAVE_TRACE) {
 				// Trace file
@@ -209,24 +439,16 @@ class PromelaVerifier extends AbstractVerifier {
 					bw.write(System.lineSeparator)
 				}
 				bw.close
+				resultReader.close
 				
 				resultReader = new Scanner(traceFile)
 			}
 			
 			val gammaPackage = traceability as Package
 			val backAnnotator = new TraceBackAnnotator(gammaPackage, resultReader)
-			val trace = backAnnotator.synchronizeAndExecute
-			
-			// Setting result w.r.t under-approximation
-			if (isUnderApproximation && trace === null) {
-				super.result = ThreeStateBoolean.UNDEF
-			}
-			//
-			
-			return new Result(result, trace)
+			return backAnnotator.synchronizeAndExecute
 		} finally {
-			resultReader?.close
-			cancel
+			resultReader.close
 		}
 	}
 	
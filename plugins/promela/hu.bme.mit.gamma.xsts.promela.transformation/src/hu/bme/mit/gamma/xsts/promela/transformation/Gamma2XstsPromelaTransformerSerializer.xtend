@@ -19,6 +19,7 @@ import hu.bme.mit.gamma.transformation.util.annotations.AnnotatablePreprocessabl
 import hu.bme.mit.gamma.transformation.util.annotations.DataflowCoverageCriterion
 import hu.bme.mit.gamma.transformation.util.annotations.InteractionCoverageCriterion
 import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.util.ModelRegistry
 import hu.bme.mit.gamma.xsts.model.XSTS
 import hu.bme.mit.gamma.xsts.transformation.InitialStateSetting
 import hu.bme.mit.gamma.xsts.transformation.api.Gamma2XstsTransformerSerializer
@@ -45,6 +46,7 @@ class Gamma2XstsPromelaTransformerSerializer {
 	
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
 	protected final extension GammaFileNamer fileNamer = GammaFileNamer.INSTANCE
+	protected final ModelRegistry modelRegistry = ModelRegistry.INSTANCE
 	
 	new(Component component, String targetFolderUri, String fileName) {
 		this(component, #[], targetFolderUri, fileName)
@@ -105,7 +107,7 @@ class Gamma2XstsPromelaTransformerSerializer {
 			slicingProperties, annotatableElements,
 			initialState, initialStateSetting)
 		xStsTransformer.execute
-		val xSts = targetFolderUri.normalLoad(fileName.emfXStsFileName) as XSTS
+		val xSts = modelRegistry.checkOut(targetFolderUri, fileName.emfXStsFileName) as XSTS
 		val promelaTransformer = new XstsToPromelaTransformer(xSts,
 			targetFolderUri, fileName)
 		promelaTransformer.execute
@@ -0,0 +1,90 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.lowlevel.xsts.transformation.optimizer
+
+import com.google.common.hash.HashCode
+import com.google.common.hash.Hasher
+import com.google.common.hash.Hashing
+import java.nio.charset.StandardCharsets
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.List
+import java.util.Map
+import org.eclipse.emf.ecore.EAttribute
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.EReference
+
+/**
+ * Computes structural fingerprints of actions, so the fixpoint of the optimization iterations can
+ * be detected without cloning the action and comparing the clone with the optimized action.
+ * Two actions have the same fingerprint if they are equal according to helperEquals (in the
+ * sense of the EqualityHelper): references to elements inside the action (e.g., local variables)
+ * are considered by their position, references to other elements by their identity.
+ */
+class ActionFingerprinter {
+	// Singleton
+	public static final ActionFingerprinter INSTANCE =  new ActionFingerprinter
+	protected new() {}
+	//
+	
+	def HashCode getFingerprint(EObject object) {
+		val hasher = Hashing.murmur3_128.newHasher
+		if (object === null) {
+			return hasher.putInt(0).hash
+		}
+		// Positions of the contained elements for local references
+		val positions = new IdentityHashMap<EObject, Integer>
+		positions.put(object, positions.size)
+		val contents = object.eAllContents
+		while (contents.hasNext) {
+			positions.put(contents.next, positions.size)
+		}
+		hasher.putFingerprint(object, positions)
+		return hasher.hash
+	}
+	
+	protected def void putFingerprint(Hasher hasher, EObject object, Map<EObject, Integer> positions) {
+		val eClass = object.eClass
+		hasher.putString(eClass.name, StandardCharsets.UTF_8)
+		// Container references are not considered, the action can be moved between iterations
+		for (feature : eClass.EAllStructuralFeatures.filter[!it.derived &&
+				!(it instanceof EReference && (it as EReference).container)]) {
+			hasher.putInt(eClass.getFeatureID(feature))
+			val value = object.eGet(feature, false)
+			val List<?> values = if (feature.many) value as List<?> else Collections.singletonList(value)
+			hasher.putInt(values.size)
+			for (element : values) {
+				if (element === null) {
+					hasher.putInt(0)
+				}
+				else if (feature instanceof EAttribute) {
+					hasher.putString(element.toString, StandardCharsets.UTF_8)
+				}
+				else if (feature instanceof EReference) {
+					val referencedObject = element as EObject
+					if (feature.containment) {
+						hasher.putFingerprint(referencedObject, positions)
+					}
+					else {
+						val position = positions.get(referencedObject)
+						if (position !== null) {
+							hasher.putInt(1).putInt(position) // Local reference
+						}
+						else {
+							hasher.putInt(2).putInt(System.identityHashCode(referencedObject))
+						}
+					}
+				}
+			}
+		}
+	}
+	
+}
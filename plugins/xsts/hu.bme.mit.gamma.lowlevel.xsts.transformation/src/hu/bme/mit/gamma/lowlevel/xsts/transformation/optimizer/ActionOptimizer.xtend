@@ -10,6 +10,7 @@
  ********************************************************************************/
 package hu.bme.mit.gamma.lowlevel.xsts.transformation.optimizer
 
+import com.google.common.hash.HashCode
 import hu.bme.mit.gamma.expression.model.AndExpression
 import hu.bme.mit.gamma.expression.model.ArithmeticExpression
 import hu.bme.mit.gamma.expression.model.ExpressionModelFactory
@@ -54,6 +55,7 @@ class ActionOptimizer {
 	protected final extension XstsActionUtil xStsActionUtil = XstsActionUtil.INSTANCE
 	protected final extension ExpressionEvaluator expressionEvaluator = ExpressionEvaluator.INSTANCE
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	protected final extension ActionFingerprinter actionFingerprinter = ActionFingerprinter.INSTANCE
 	// Model factories
 	protected final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE
 	protected final extension XSTSModelFactory xStsFactory = XSTSModelFactory.eINSTANCE
@@ -82,13 +84,14 @@ class ActionOptimizer {
 		val containsParallelAction = action.isOrContainsTypesTransitively(ParallelAction)
 		
 		var i = 0
-		var Action oldXStsAction
+		var HashCode oldFingerprint
 		var Action newXStsAction = action
+		var newFingerprint = newXStsAction.fingerprint
 		// Until the action cannot be optimized any more
-		while (!oldXStsAction.helperEquals(newXStsAction)) {
+		while (oldFingerprint != newFingerprint) {
 			logger.info("Starting optimization iteration " + i++)
 			
-			oldXStsAction = newXStsAction.clone
+			oldFingerprint = newFingerprint // No clone is needed for the comparison
 			newXStsAction = newXStsAction
 				/* Cannot use "clone" as local variable actions contain variable declarations and
 				   cloning would break the references: they would be set to the "old" declaration */
@@ -109,6 +112,8 @@ class ActionOptimizer {
 			newXStsAction.deleteDefinitelyFalseBranches
 			newXStsAction.deleteDefinitelyFalseBranchesFromAssumptions
 			newXStsAction.optimizeExpressions // Could be extracted to the expression metamodel?
+			
+			newFingerprint = newXStsAction.fingerprint
 		}
 		
 		return newXStsAction
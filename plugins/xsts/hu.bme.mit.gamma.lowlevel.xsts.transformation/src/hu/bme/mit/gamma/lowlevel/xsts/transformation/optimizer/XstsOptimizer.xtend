@@ -10,6 +10,7 @@
  ********************************************************************************/
 package hu.bme.mit.gamma.lowlevel.xsts.transformation.optimizer
 
+import com.google.common.hash.HashCode
 import hu.bme.mit.gamma.util.GammaEcoreUtil
 import hu.bme.mit.gamma.xsts.model.Action
 import hu.bme.mit.gamma.xsts.model.SequentialAction
@@ -28,6 +29,7 @@ class XstsOptimizer {
 	protected final extension ActionOptimizer actionOptimizer = ActionOptimizer.INSTANCE
 	protected final extension RemovableVariableRemover variableRemover = RemovableVariableRemover.INSTANCE
 	protected final extension VariableInliner variableInliner = VariableInliner.INSTANCE
+	protected final extension ActionFingerprinter actionFingerprinter = ActionFingerprinter.INSTANCE
 	
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
 	protected final extension XstsActionUtil actionUtil = XstsActionUtil.INSTANCE
@@ -109,13 +111,20 @@ class XstsOptimizer {
 	}
 	
 	def optimizeAction(Action action, Action context) {
-		var Action oldAction = null
+		// The action is optimized in place, changes are detected using fingerprints instead of clones
+		var HashCode oldFingerprint
 		var newAction = action
-		while (!oldAction.helperEquals(newAction)) {
-			oldAction = newAction
-			newAction = newAction.clone
+		var newFingerprint = newAction.fingerprint
+		var optimized = false
+		while (oldFingerprint != newFingerprint) {
+			oldFingerprint = newFingerprint
 			newAction.inline(context)
-			newAction = newAction.optimize
+			// If nothing has been inlined into an optimized action, the optimizer would not change it either
+			if (!optimized || newAction.fingerprint != oldFingerprint) {
+				newAction = newAction.optimize
+				optimized = true
+			}
+			newFingerprint = newAction.fingerprint
 		}
 		return newAction
 	}
@@ -42,6 +42,7 @@ import hu.bme.mit.gamma.util.GammaEcoreUtil;
 import hu.bme.mit.gamma.xsts.codegeneration.java.CommonizedVariableActionSerializer;
 import hu.bme.mit.gamma.xsts.codegeneration.java.InlinedChoiceActionSerializer;
 import hu.bme.mit.gamma.xsts.codegeneration.java.StatechartToJavaCodeGenerator;
+import hu.bme.mit.gamma.xsts.codegeneration.java.SwitchDispatchActionSerializer;
 import hu.bme.mit.gamma.xsts.model.XSTS;
 import hu.bme.mit.gamma.xsts.transformation.serializer.ActionSerializer;
 import hu.bme.mit.gamma.xsts.util.XstsActionUtil;
@@ -86,6 +87,16 @@ public class CommandHandler extends AbstractHandler {
 
 	public void run(StatechartDefinition gammaStatechart, String modelFolderUri,
 			String targetFolderUri, String basePackageName) {
+		run(gammaStatechart, modelFolderUri, targetFolderUri, basePackageName, false);
+	}
+	
+	public void run(StatechartDefinition gammaStatechart, String modelFolderUri,
+			String targetFolderUri, String basePackageName, boolean timingWheelTimers) {
+		run(gammaStatechart, modelFolderUri, targetFolderUri, basePackageName, timingWheelTimers, false);
+	}
+	
+	public void run(StatechartDefinition gammaStatechart, String modelFolderUri,
+			String targetFolderUri, String basePackageName, boolean timingWheelTimers, boolean switchDispatch) {
 		modelFolderUri = URI.decode(modelFolderUri);
 		targetFolderUri = URI.decode(targetFolderUri);
 		
@@ -108,8 +119,9 @@ public class CommandHandler extends AbstractHandler {
 		
 		// XSTS to Java serializer
 		hu.bme.mit.gamma.xsts.codegeneration.java.ActionSerializer javaActionSerializer = null;
-		// Set the following variable to specify the action priming setting
-		ActionPrimingSetting setting = ActionPrimingSetting.VARIABLE_COMMONIZER;
+		// The switch dispatch keeps the generated methods small for large statecharts
+		ActionPrimingSetting setting = switchDispatch ?
+				ActionPrimingSetting.CHOICE_SWITCH_DISPATCHER : ActionPrimingSetting.VARIABLE_COMMONIZER;
 		if (setting == ActionPrimingSetting.VARIABLE_COMMONIZER) {
 			ActionPrimer actionPrimer = new VariableCommonizer(); // Not necessary to use it for code generation
 			javaActionSerializer = new CommonizedVariableActionSerializer(); // Good for the original actions too
@@ -118,7 +130,8 @@ public class CommandHandler extends AbstractHandler {
 		}
 		else {
 			ActionPrimer actionPrimer = new ChoiceInliner(true);
-			javaActionSerializer = new InlinedChoiceActionSerializer();
+			javaActionSerializer = (setting == ActionPrimingSetting.CHOICE_INLINER) ?
+					new InlinedChoiceActionSerializer() : new SwitchDispatchActionSerializer();
 			xSts.setVariableInitializingTransition(actionPrimer.transform(xSts.getVariableInitializingTransition()));
 			xSts.setConfigurationInitializingTransition(actionPrimer.transform(xSts.getConfigurationInitializingTransition()));
 			xSts.setEntryEventTransition(actionPrimer.transform(xSts.getEntryEventTransition()));
@@ -142,13 +155,13 @@ public class CommandHandler extends AbstractHandler {
 		}
 		logger.log(Level.INFO, "Starting xSTS Java code generation");
 		StatechartToJavaCodeGenerator codeGenerator = new StatechartToJavaCodeGenerator(
-			targetFolderUri, basePackageName, gammaStatechart, xSts, javaActionSerializer);
+			targetFolderUri, basePackageName, gammaStatechart, xSts, javaActionSerializer, timingWheelTimers);
 		codeGenerator.execute();
 		logger.log(Level.INFO, "The xSTS transformation has been finished");
 	}
 	
 	enum ActionPrimingSetting {
-		VARIABLE_COMMONIZER, CHOICE_INLINER
+		VARIABLE_COMMONIZER, CHOICE_INLINER, CHOICE_SWITCH_DISPATCHER
 	}
 	
 }
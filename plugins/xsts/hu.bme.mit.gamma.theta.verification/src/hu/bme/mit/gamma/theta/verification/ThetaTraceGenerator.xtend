@@ -99,8 +99,8 @@ class ThetaTraceGenerator {
 
 	protected def backAnnotate(Package gammaPackage, Scanner traceFileScanner) {
 		val backAnnotator = new TraceBackAnnotator(gammaPackage, traceFileScanner)
-		// Must be synchronized due to the non-thread-safe VIATRA engine
-		return backAnnotator.synchronizeAndExecute
+		// No global synchronization, the back-annotator relies on a thread-safe per-model index
+		return backAnnotator.execute
 	}
 
 	private def cleanFolder(File folder) {
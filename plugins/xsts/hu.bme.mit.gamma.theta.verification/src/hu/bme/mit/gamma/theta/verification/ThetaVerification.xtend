@@ -10,8 +10,11 @@
  ********************************************************************************/
 package hu.bme.mit.gamma.theta.verification
 
+import com.google.common.hash.Hashing
+import com.google.common.io.Files
 import hu.bme.mit.gamma.verification.util.AbstractVerification
 import hu.bme.mit.gamma.querygenerator.serializer.ThetaPropertySerializer
+import java.io.File
 
 class ThetaVerification extends AbstractVerification {
 	// Singleton
@@ -27,6 +30,18 @@ class ThetaVerification extends AbstractVerification {
 		return new ThetaVerifier
 	}
 	
+	override protected getBackendVersion() {
+		if (cachedBackendVersion === null) {
+			// The content hash of the jar file identifies the Theta version
+			val jarPath = System.getenv(ThetaVerifier.ENVIRONMENT_VARIABLE_FOR_THETA_JAR)
+			val jar = jarPath.nullOrEmpty ? null : new File(jarPath)
+			val version = (jar === null || !jar.file) ? "" :
+					Files.asByteSource(jar).hash(Hashing.sha256).toString
+			cachedBackendVersion = this.class.name + ":" + version
+		}
+		return cachedBackendVersion
+	}
+	
 	override getDefaultArguments() {
 		return #[
 				"",
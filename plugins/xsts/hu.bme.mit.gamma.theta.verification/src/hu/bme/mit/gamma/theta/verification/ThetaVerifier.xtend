@@ -14,17 +14,20 @@ import hu.bme.mit.gamma.statechart.interface_.Package
 import hu.bme.mit.gamma.util.FileUtil
 import hu.bme.mit.gamma.verification.result.ThreeStateBoolean
 import hu.bme.mit.gamma.verification.util.AbstractVerifier
+import hu.bme.mit.gamma.verification.util.VerificationDaemonPool
 import java.io.File
+import java.util.List
 import java.util.Scanner
 
 import static com.google.common.base.Preconditions.checkState
 
 class ThetaVerifier extends AbstractVerifier {
 	//
-	protected final extension ThetaQueryAdapter thetaQueryAdapter = ThetaQueryAdapter.INSTANCE
+	protected final extension ThetaQueryAdapter thetaQueryAdapter = new ThetaQueryAdapter // Stateful (invert), one per verifier
 	protected final extension ThetaValidator thetaValidator = ThetaValidator.INSTANCE
+	protected final VerificationDaemonPool daemonPool = VerificationDaemonPool.INSTANCE
 	
-	final String ENVIRONMENT_VARIABLE_FOR_THETA_JAR = "THETA_XSTS_CLI_PATH"
+	public static final String ENVIRONMENT_VARIABLE_FOR_THETA_JAR = "THETA_XSTS_CLI_PATH"
 	final String PROP_KEYWORD = "prop"
 	
 	final String SAFE = "SafetyResult Safe"
@@ -77,26 +80,35 @@ class ThetaVerifier extends AbstractVerifier {
 			traceFile.deleteOnExit // So the cex with this random name does not remain on disk
 			
 			val splitParameters = parameters.split("\\s+")
-			val command = newArrayList
-			command += #["java", "-jar", jar]
+			val arguments = newArrayList
 			if (!parameters.nullOrEmpty && !splitParameters.empty) {
-				command += splitParameters // Some environments do not accept a space
+				arguments += splitParameters // Some environments do not accept a space
 				// due to the join(" ") after the non-existing parameter
 			}
-			command +=
+			arguments +=
 				#["--model", modelFile.canonicalPath, "--property", queryFile.canonicalPath,
 					"--cex", traceFile.canonicalPath, "--stacktrace"]
-			// Executing the command
-			logger.info("Executing command: " + command.join(" "))
-			process = Runtime.getRuntime().exec(command)
 			
-			val outputStream = process.inputStream
-			resultReader = new Scanner(outputStream)
 			var line = ""
-			while (resultReader.hasNext) {
-				// (SafetyResult Safe) or (SafetyResult Unsafe)
-				line = resultReader.nextLine
-				logger.info(line)
+			val daemonOutput = new File(jar).executeInDaemon(arguments)
+			if (daemonOutput !== null) {
+				line = daemonOutput.last ?: ""
+			}
+			else {
+				val command = newArrayList
+				command += #["java", "-jar", jar]
+				command += arguments
+				// Executing the command
+				logger.info("Executing command: " + command.join(" "))
+				process = Runtime.getRuntime().exec(command)
+				
+				val outputStream = process.inputStream
+				resultReader = new Scanner(outputStream)
+				while (resultReader.hasNext) {
+					// (SafetyResult Safe) or (SafetyResult Unsafe)
+					line = resultReader.nextLine
+					logger.info(line)
+				}
 			}
 			// Variable 'line' contains the last line of the output - the result
 			if (line.contains(SAFE)) {
@@ -134,14 +146,38 @@ class ThetaVerifier extends AbstractVerifier {
 		}
 	}
 	
+	protected def executeInDaemon(File jar, List<String> arguments) {
+		if (!daemonPool.isSupported(jar)) {
+			return null
+		}
+		val worker = daemonPool.acquireWorker(jar)
+		process = worker.process // So cancellation destroys the worker
+		try {
+			logger.info("Executing query in worker process: " + arguments.join(" "))
+			val output = worker.execute(arguments)
+			if (output === null) {
+				if (isCancelled) {
+					return #[] // Interpreted as an interruption
+				}
+				// The worker could not execute the query, so the query is executed in a new process
+				daemonPool.markUnsupported(jar)
+			}
+			return output
+		} finally {
+			process = null // The worker is not destroyed at the end of the verification
+			daemonPool.releaseWorker(worker)
+		}
+	}
+	
 	protected def backAnnotate(Package gammaPackage, Scanner traceFileScanner) {
 		val backAnnotator = new TraceBackAnnotator(gammaPackage, traceFileScanner)
-		// Must be synchronized due to the non-thread-safe VIATRA engine
-		return backAnnotator.synchronizeAndExecute
+		// No global synchronization, the back-annotator relies on a thread-safe per-model index
+		return backAnnotator.execute
 	}
 	
 	override getTemporaryQueryFilename(File modelFile) {
-		return "." + modelFile.extensionlessName + ".prop"
+		// Thread.currentThread.name is needed to prevent race conditions
+		return "." + modelFile.extensionlessName + "-" + Thread.currentThread.name + ".prop"
 	}
 	
 	def getTraceFile(File modelFile) {
@@ -153,9 +189,7 @@ class ThetaVerifier extends AbstractVerifier {
 }
 
 class ThetaQueryAdapter {
-	public static ThetaQueryAdapter INSTANCE = new ThetaQueryAdapter
-	private new() {}
-	// Singleton
+	
 	final String EF = "E<>"
 	final String AG = "A[]"
 	
@@ -23,6 +23,8 @@ import hu.bme.mit.gamma.verification.util.TraceBuilder
 import java.util.NoSuchElementException
 import java.util.Scanner
 import java.util.logging.Logger
+import org.eclipse.emf.common.notify.impl.AdapterImpl
+import org.eclipse.emf.ecore.util.EcoreUtil
 
 import static com.google.common.base.Preconditions.checkState
 
@@ -69,18 +71,27 @@ class TraceBackAnnotator {
 		else {
 			this.schedulingConstraint = null
 		}
-		synchronized (engineSynchronizationObject) { // Due to the VIATRA engine
-			this.thetaQueryGenerator = new ThetaQueryGenerator(component)
-		}
+		this.thetaQueryGenerator = component.indexedQueryGenerator
 		this.xStsBackAnnotator = new XstsBackAnnotator(thetaQueryGenerator, ThetaArrayParser.INSTANCE)
 	}
 	
-	def ExecutionTrace synchronizeAndExecute() {
-		synchronized (engineSynchronizationObject) {
-			return execute
+	protected static def getIndexedQueryGenerator(Component component) {
+		synchronized (engineSynchronizationObject) { // Due to the VIATRA engine
+			val adapter = component.eAdapters.filter(QueryGeneratorAdapter).head
+			if (adapter !== null) {
+				return adapter.queryGenerator
+			}
+			// Proxies are resolved now, so back-annotations do not modify the resource set concurrently
+			EcoreUtil.resolveAll(component.eResource.resourceSet)
+			val queryGenerator = new ThetaQueryGenerator(component)
+			queryGenerator.buildBackAnnotationIndex
+			component.eAdapters += new QueryGeneratorAdapter(queryGenerator)
+			return queryGenerator
 		}
 	}
 	
+	// Can be called concurrently: the query generator uses an immutable per-model index instead of
+	// the VIATRA engine, so back-annotations of the same model do not have to be serialized
 	def ExecutionTrace execute() {
 		// Creating the trace component
 		val trace = createExecutionTrace => [
@@ -232,4 +243,19 @@ class TraceBackAnnotator {
 	
 	enum BackAnnotatorState {INIT, STATE_CHECK, ENVIRONMENT_CHECK}
 	
+	// Stores the indexed query generator of a model, so racing and parallel verifications share it
+	protected static class QueryGeneratorAdapter extends AdapterImpl {
+		
+		final ThetaQueryGenerator queryGenerator
+		
+		new(ThetaQueryGenerator queryGenerator) {
+			this.queryGenerator = queryGenerator
+		}
+		
+		def getQueryGenerator() {
+			return queryGenerator
+		}
+		
+	}
+	
 }
\ No newline at end of file
@@ -165,7 +165,7 @@ class InlinedChoiceActionSerializer extends ActionSerializer {
 	'''
 	
 	/** Needed because of too long methods */
-	private def CharSequence serializeNonDeterministicAction(NonDeterministicAction action) {
+	protected def CharSequence serializeNonDeterministicAction(NonDeterministicAction action) {
 		val INITIAL_CHANGE_STATE_METHOD_VALUE = decisionMethodCount
 		val MAX_ACTION = 2048
 		val ACTION_SIZE = action.actions.size
@@ -196,7 +196,7 @@ class InlinedChoiceActionSerializer extends ActionSerializer {
 	}
 	
 	/** Needed because of too long methods */
-	private def serializeAction(Action xStsSubaction) {
+	protected def serializeAction(Action xStsSubaction) {
 		actionMethodMap.put(actionMethodCount, xStsSubaction.serialize)
 		return ACTION_METHOD_NAME + actionMethodCount++ + "();"
 	}
@@ -231,12 +231,12 @@ class InlinedChoiceActionSerializer extends ActionSerializer {
 	
 	// Get conditions
 	
-	private def dispatch getCondition(Action action) {
+	protected def dispatch getCondition(Action action) {
 		throw new IllegalArgumentException("Condition retrieval is supported only for
 			NonDeterminsiticActions: " + action)
 	}
 	
-	private def dispatch getCondition(SequentialAction action) {
+	protected def dispatch getCondition(SequentialAction action) {
 		val firstXStsSubaction = action.actions.head
 		checkArgument(firstXStsSubaction instanceof AssumeAction)
 		val firstXStAssumeAction = firstXStsSubaction as AssumeAction
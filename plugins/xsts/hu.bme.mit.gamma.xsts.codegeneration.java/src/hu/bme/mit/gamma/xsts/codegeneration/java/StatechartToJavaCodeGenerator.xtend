@@ -58,6 +58,11 @@ class StatechartToJavaCodeGenerator {
 	
 	new(String targetFolderUri, String basePackageName,
 			StatechartDefinition gammaStatechart, XSTS xSts, ActionSerializer actionSerializer) {
+		this(targetFolderUri, basePackageName, gammaStatechart, xSts, actionSerializer, false)
+	}
+	
+	new(String targetFolderUri, String basePackageName, StatechartDefinition gammaStatechart,
+			XSTS xSts, ActionSerializer actionSerializer, boolean timingWheelTimers) {
 		this.gammaStatechart = gammaStatechart
 		this.xSts = xSts
 		this.BASE_PACKAGE_NAME = basePackageName
@@ -70,8 +75,8 @@ class StatechartToJavaCodeGenerator {
 		this.typeDeclarationSerializer = new TypeDeclarationGenerator(BASE_PACKAGE_NAME)
 		this.timerInterfaceGenerator = new TimerInterfaceGenerator(BASE_PACKAGE_NAME)
 		this.timerCallbackInterfaceGenerator = new TimerCallbackInterfaceGenerator(BASE_PACKAGE_NAME)
-		this.timerServiceCodeGenerator = new TimerServiceCodeGenerator(BASE_PACKAGE_NAME)
-		this.virtualTimerServiceCodeGenerator = new VirtualTimerServiceCodeGenerator(BASE_PACKAGE_NAME)
+		this.timerServiceCodeGenerator = new TimerServiceCodeGenerator(BASE_PACKAGE_NAME, timingWheelTimers)
+		this.virtualTimerServiceCodeGenerator = new VirtualTimerServiceCodeGenerator(BASE_PACKAGE_NAME, timingWheelTimers)
 		this.interfaceGenerator = new InterfaceCodeGenerator(BASE_PACKAGE_NAME)
 		this.statechartInterfaceGenerator = new StatechartInterfaceCodeGenerator(BASE_PACKAGE_NAME,
 			STATECHART_PACKAGE_NAME, gammaStatechart)
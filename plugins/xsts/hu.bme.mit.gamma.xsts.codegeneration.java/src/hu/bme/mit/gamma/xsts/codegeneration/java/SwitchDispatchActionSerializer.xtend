@@ -0,0 +1,283 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.xsts.codegeneration.java
+
+import hu.bme.mit.gamma.expression.model.AndExpression
+import hu.bme.mit.gamma.expression.model.Declaration
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression
+import hu.bme.mit.gamma.expression.model.EnumerationLiteralDefinition
+import hu.bme.mit.gamma.expression.model.EnumerationLiteralExpression
+import hu.bme.mit.gamma.expression.model.EnumerationTypeDefinition
+import hu.bme.mit.gamma.expression.model.EqualityExpression
+import hu.bme.mit.gamma.expression.model.Expression
+import hu.bme.mit.gamma.expression.model.VariableDeclaration
+import hu.bme.mit.gamma.xsts.model.NonDeterministicAction
+import java.util.List
+import java.util.Map
+import org.eclipse.xtend.lib.annotations.Data
+
+/**
+ * Serializes the choices of the merged action as switch statements over the values of the region
+ * variables, so the state configuration is not evaluated again in every branch of an if-else chain.
+ * The switch statements are nested according to the region hierarchy and the transitions are
+ * serialized into small auxiliary methods. The cases and the if-else chains are moved into auxiliary
+ * methods based on their serialized length, so every generated method can be compiled by the JIT.
+ */
+class SwitchDispatchActionSerializer extends InlinedChoiceActionSerializer {
+	
+	// The JIT does not compile methods with more than 8000 bytes of bytecode (HugeMethodLimit);
+	// the generated if-else chains and switches compile to about half a byte per serialized
+	// character, so this length is kept well below the limit
+	protected final int MAX_METHOD_LENGTH = 4096
+	protected final int MAX_INLINED_CASE_LENGTH = 256
+	protected final int MIN_SWITCH_BRANCH_COUNT = 2
+	
+	protected final Map<Branch, String> conditionCalls = newHashMap
+	
+	//
+	
+	override dispatch CharSequence serialize(NonDeterministicAction action) '''
+		«action.actions.map[new Branch(it.serializeAction, it.getCondition.conjuncts)].toList.serializeDispatch.outline»
+	'''
+	
+	protected def String serializeDispatch(List<Branch> branches) {
+		val dispatchVariable = branches.dispatchVariable
+		if (dispatchVariable === null) {
+			return branches.serializeChain
+		}
+		val stateConjunct = branches.map[it.getStateConjunct(dispatchVariable)].filterNull.head
+		val literals = (stateConjunct.stateLiteral.eContainer as EnumerationTypeDefinition).literals
+		val unconstrainedBranches = branches.filter[it.getStateConjunct(dispatchVariable) === null].toList
+		// Every case contains the branches of its literal and the unconstrained branches
+		// in the original order, so the priority of the branches in the if-else chain is kept
+		val cases = <Case>newArrayList
+		for (caseLiteral : literals) {
+			val caseBranches = <Branch>newArrayList
+			var isConstrained = false
+			for (branch : branches) {
+				val branchStateConjunct = branch.getStateConjunct(dispatchVariable)
+				if (branchStateConjunct === null) {
+					caseBranches += branch
+				}
+				else if (branchStateConjunct.stateLiteral === caseLiteral) {
+					val conjuncts = <Expression>newArrayList
+					conjuncts += branch.conjuncts
+					conjuncts -= branchStateConjunct
+					caseBranches += new Branch(branch.actionCall, conjuncts)
+					isConstrained = true
+				}
+			}
+			// Cases with only unconstrained branches are handled by the default case
+			if (isConstrained) {
+				// The labels are the constants of the generated Java enum, so no literal order is assumed
+				cases += new Case('''case «caseLiteral.name»:''', caseBranches.serializeDispatch)
+			}
+		}
+		if (!unconstrainedBranches.empty) {
+			cases += new Case('''default:''', unconstrainedBranches.serializeDispatch)
+		}
+		// Outlining the long cases and then the longest ones until the switch fits into a single method
+		var length = 0
+		for (var i = 0; i < cases.size; i++) {
+			val ^case = cases.get(i)
+			if (^case.body.length > MAX_INLINED_CASE_LENGTH) {
+				cases.set(i, ^case.outline)
+			}
+			length += cases.get(i).length
+		}
+		val indexes = (0 ..< cases.size).sortBy[-cases.get(it).length]
+		for (index : indexes) {
+			if (length > MAX_METHOD_LENGTH) {
+				val ^case = cases.get(index)
+				val outlinedCase = ^case.outline
+				cases.set(index, outlinedCase)
+				length -= ^case.length - outlinedCase.length
+			}
+		}
+		return stateConjunct.stateReference.serialize.serializeSwitch(cases)
+	}
+	
+	/**
+	 * Serializes the cases as a switch statement. If the cases do not fit into a single method even
+	 * with outlined bodies, e.g., in the case of regions with a large number of states, the remaining
+	 * cases are moved into a switch in another method, which is called in the default case.
+	 */
+	protected def String serializeSwitch(String dispatchExpression, List<Case> cases) {
+		var length = cases.head.length
+		var count = 1
+		while (count < cases.size && length + cases.get(count).length <= MAX_METHOD_LENGTH) {
+			length += cases.get(count).length
+			count++
+		}
+		val switchCases = cases.subList(0, count).toList
+		if (count < cases.size) {
+			val remainingCases = cases.subList(count, cases.size)
+			val remainingCase = remainingCases.head
+			// A single remaining default case is not wrapped into another switch
+			val defaultBody = (remainingCases.size == 1 && remainingCase.isDefault) ? remainingCase.body :
+				dispatchExpression.serializeSwitch(remainingCases).outline
+			switchCases += new Case('''default:''', defaultBody)
+		}
+		return '''
+			switch («dispatchExpression») {
+				«FOR ^case : switchCases»
+					«^case.label»
+						«^case.body»
+						break;
+				«ENDFOR»
+			}
+		'''
+	}
+	
+	/**
+	 * Serializes the branches as an if-else chain, the rest of which is moved into another method
+	 * if the chain gets longer than the maximum method length.
+	 */
+	protected def String serializeChain(List<Branch> branches) {
+		val builder = new StringBuilder
+		for (var i = 0; i < branches.size; i++) {
+			val branch = branches.get(i)
+			if (builder.length > MAX_METHOD_LENGTH) {
+				builder.append(System.lineSeparator + 'else ')
+				builder.append(branches.subList(i, branches.size).serializeChain.outline)
+				return builder.toString
+			}
+			if (i > 0) {
+				builder.append(System.lineSeparator + 'else ')
+			}
+			val condition = branch.serializeCondition
+			if (condition === null) {
+				// The branch is always taken, the subsequent branches are unreachable
+				builder.append(branch.actionCall)
+				return builder.toString
+			}
+			builder.append('''if («condition») «branch.actionCall»''')
+		}
+		return builder.toString
+	}
+	
+	protected def serializeCondition(Branch branch) {
+		val conjuncts = branch.conjuncts
+		if (conjuncts.empty) {
+			return null
+		}
+		if (!conditionCalls.containsKey(branch)) {
+			val condition = (conjuncts.size == 1) ? conjuncts.head.serialize :
+				conjuncts.map['''(«it.serialize»)'''].join(' && ')
+			if (condition.length > MAX_INLINED_CASE_LENGTH) {
+				// Unconstrained branches are contained by multiple cases, so long conditions are not duplicated
+				conditionMethodMap.put(conditionMethodCount, condition)
+				conditionCalls.put(branch, CONDITION_METHOD_NAME + conditionMethodCount++ + "()")
+			}
+			else {
+				conditionCalls.put(branch, condition)
+			}
+		}
+		return conditionCalls.get(branch)
+	}
+	
+	protected def outline(String code) {
+		decisionMethodMap.put(decisionMethodCount, code)
+		return DECISION_METHOD_NAME + decisionMethodCount++ + "();"
+	}
+	
+	protected def outline(Case ^case) {
+		return new Case(^case.label, ^case.body.outline)
+	}
+	
+	// Region variables
+	
+	/**
+	 * Returns the region variable that is constrained by the most branches, if the switch over it
+	 * is worth it, or null.
+	 */
+	protected def getDispatchVariable(List<Branch> branches) {
+		val branchCounts = <Declaration, Integer>newLinkedHashMap
+		for (branch : branches) {
+			for (variable : branch.conjuncts.map[it.stateReference].filterNull.map[it.declaration].toSet) {
+				branchCounts.merge(variable, 1, [a, b | a + b])
+			}
+		}
+		if (branchCounts.empty) {
+			return null
+		}
+		val entry = branchCounts.entrySet.maxBy[it.value]
+		val count = entry.value
+		if (count < MIN_SWITCH_BRANCH_COUNT || count < branches.size - count) {
+			return null
+		}
+		return entry.key
+	}
+	
+	protected def getStateConjunct(Branch branch, Declaration variable) {
+		return branch.conjuncts.findFirst[it.stateReference?.declaration === variable]
+	}
+	
+	protected def DirectReferenceExpression getStateReference(Expression conjunct) {
+		if (conjunct instanceof EqualityExpression) {
+			val leftOperand = conjunct.leftOperand
+			val rightOperand = conjunct.rightOperand
+			if (leftOperand.isVariableReference && rightOperand instanceof EnumerationLiteralExpression) {
+				return leftOperand as DirectReferenceExpression
+			}
+			if (rightOperand.isVariableReference && leftOperand instanceof EnumerationLiteralExpression) {
+				return rightOperand as DirectReferenceExpression
+			}
+		}
+		return null
+	}
+	
+	protected def EnumerationLiteralDefinition getStateLiteral(Expression conjunct) {
+		val equality = conjunct as EqualityExpression
+		val leftOperand = equality.leftOperand
+		if (leftOperand instanceof EnumerationLiteralExpression) {
+			return leftOperand.reference
+		}
+		val rightOperand = equality.rightOperand as EnumerationLiteralExpression
+		return rightOperand.reference
+	}
+	
+	protected def isVariableReference(Expression expression) {
+		return expression instanceof DirectReferenceExpression &&
+			(expression as DirectReferenceExpression).declaration instanceof VariableDeclaration
+	}
+	
+	protected def List<Expression> getConjuncts(Expression expression) {
+		if (expression instanceof AndExpression) {
+			return expression.operands.map[it.conjuncts].flatten.toList
+		}
+		return #[expression]
+	}
+	
+	//
+	
+	@Data
+	protected static class Branch {
+		String actionCall
+		List<Expression> conjuncts
+	}
+	
+	@Data
+	protected static class Case {
+		String label
+		String body
+		
+		def getLength() {
+			// The break statement is serialized too
+			return label.length + body.length + "break;".length
+		}
+		
+		def isDefault() {
+			return label == "default:"
+		}
+	}
+	
+}
@@ -31,9 +31,11 @@ import hu.bme.mit.gamma.statechart.composite.MessageQueue
 import hu.bme.mit.gamma.statechart.composite.ScheduledAsynchronousCompositeComponent
 import hu.bme.mit.gamma.statechart.interface_.Component
 import hu.bme.mit.gamma.statechart.interface_.Event
+import hu.bme.mit.gamma.statechart.interface_.InterfaceModelPackage
 import hu.bme.mit.gamma.statechart.interface_.Port
 import hu.bme.mit.gamma.statechart.lowlevel.model.Package
 import hu.bme.mit.gamma.statechart.lowlevel.transformation.GammaToLowlevelTransformer
+import hu.bme.mit.gamma.statechart.lowlevel.transformation.MergeStateEliminator
 import hu.bme.mit.gamma.statechart.lowlevel.transformation.Trace
 import hu.bme.mit.gamma.statechart.lowlevel.transformation.ValueDeclarationTransformer
 import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition
@@ -55,6 +57,14 @@ import java.util.List
 import java.util.Map
 import java.util.Map.Entry
 import java.util.logging.Logger
+import java.util.stream.Collectors
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.EReference
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.emf.ecore.util.EcoreUtil
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier
 
 import static com.google.common.base.Preconditions.checkState
 
@@ -69,6 +79,7 @@ class ComponentTransformer {
 	// This gammaToLowlevelTransformer must be the same during this transformation cycle due to tracing
 	protected final GammaToLowlevelTransformer gammaToLowlevelTransformer
 	protected final MessageQueueTraceability queueTraceability
+	protected final StatechartTemplateCache statechartTemplates = new StatechartTemplateCache
 	// Traceability
 	protected XSTS xSts
 	// Transformation settings
@@ -76,6 +87,7 @@ class ComponentTransformer {
 	protected final boolean optimize
 	protected final boolean optimizeEnvironmentalMessageQueues
 	protected final TransitionMerging transitionMerging
+	protected final boolean transformStatechartsInParallel
 	// Auxiliary objects
 	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
 	protected final extension JavaUtil javaUtil = JavaUtil.INSTANCE
@@ -98,11 +110,19 @@ class ComponentTransformer {
 	
 	new(GammaToLowlevelTransformer gammaToLowlevelTransformer, boolean transformOrthogonalActions,
 			boolean optimize, boolean optimizeEnvironmentalMessageQueues, TransitionMerging transitionMerging) {
+		this(gammaToLowlevelTransformer, transformOrthogonalActions, optimize,
+			optimizeEnvironmentalMessageQueues, transitionMerging, false)
+	}
+	
+	new(GammaToLowlevelTransformer gammaToLowlevelTransformer, boolean transformOrthogonalActions,
+			boolean optimize, boolean optimizeEnvironmentalMessageQueues, TransitionMerging transitionMerging,
+			boolean transformStatechartsInParallel) {
 		this.gammaToLowlevelTransformer = gammaToLowlevelTransformer
 		this.transformOrthogonalActions = transformOrthogonalActions
 		this.optimize = optimize
 		this.optimizeEnvironmentalMessageQueues = optimizeEnvironmentalMessageQueues
 		this.transitionMerging = transitionMerging
+		this.transformStatechartsInParallel = transformStatechartsInParallel
 		this.queueTraceability = new MessageQueueTraceability
 	}
 	
@@ -1150,14 +1170,18 @@ class ComponentTransformer {
 			return xSts
 		}
 		
+		val statechartXStss = component.transformStatechartSubcomponents
+		
 		// Input, output and tracing merged actions
 		for (var i = 0; i < components.size; i++) {
 			val subcomponent = components.get(i)
 			val subcomponentType = subcomponent.type
 			
 			// Normal transformation
-			subcomponentType.extractParameters(subcomponent.arguments) // Change the reference from parameters to constants
-			val newXSts = subcomponentType.transform(lowlevelPackage)
+			val newXSts = statechartXStss.get(subcomponent) ?: {
+				subcomponentType.extractParameters(subcomponent.arguments) // Change the reference from parameters to constants
+				subcomponentType.transform(lowlevelPackage)
+			}
 			newXSts.customizeDeclarationNames(subcomponent)
 			
 			// Internal event handling here as EventReferenceHandler cannot be used without customizeDeclarationNames
@@ -1299,9 +1323,26 @@ class ComponentTransformer {
 	}
 	
 	def dispatch XSTS transform(StatechartDefinition statechart, Package lowlevelPackage) {
+		// Instances of the same statechart type with the same arguments are transformed only once
+		val templateXSts = statechartTemplates.get(statechart)
+		if (templateXSts !== null) {
+			logger.info( "Reusing the transformation of an equivalent statechart for " + statechart.name)
+			return templateXSts
+		}
 		logger.info( "Transforming statechart " + statechart.name)
+		// The key is cloned before the statechart is modified (merge state elimination),
+		// so it can be compared to the statecharts that are not transformed yet
+		val template = statechart.clone
 		/* Note that the package is already transformed and traced because of
 		   the "val lowlevelPackage = gammaToLowlevelTransformer.transform(_package)" call */
+		val xSts = statechart.transform(gammaToLowlevelTransformer, lowlevelPackage)
+		statechartTemplates.put(template, xSts) // Before the customization of the declaration names
+		
+		return xSts
+	}
+	
+	protected def XSTS transform(StatechartDefinition statechart,
+			GammaToLowlevelTransformer gammaToLowlevelTransformer, Package lowlevelPackage) {
 		val lowlevelStatechart = gammaToLowlevelTransformer.transform(statechart)
 		lowlevelPackage.components += lowlevelStatechart
 		val lowlevelToXSTSTransformer = new LowlevelToXstsTransformer(
@@ -1318,6 +1359,119 @@ class ComponentTransformer {
 		return xSts
 	}
 	
+	/**
+	 * Transforms the statechart subcomponents of the composite on the common fork-join pool if every
+	 * subcomponent is a statechart, as they are independent until they are merged. Every statechart
+	 * is copied (together with its declarations and imports) into a private resource set and transformed
+	 * with a new lowlevel transformer, lowlevel package and VIATRA engine, so the parallel transformations
+	 * do not touch the shared Gamma models (not even with the adapters of derived features).
+	 * The shared statecharts are preprocessed (merge state elimination and proxy resolution) and copied
+	 * sequentially, so they end up in the same state as after the sequential transformation.
+	 * The returned XSTS models (before the customization of the declaration names) are merged in the
+	 * order of the subcomponents, so the result is the same as the one of the sequential transformation.
+	 * If the returned map is empty, the subcomponents must be transformed one by one.
+	 */
+	protected def Map<ComponentInstance, XSTS> transformStatechartSubcomponents(
+			AbstractSynchronousCompositeComponent component) {
+		val statechartXStss = <ComponentInstance, XSTS>newHashMap
+		val subcomponents = component.components
+		if (!transformStatechartsInParallel || subcomponents.size < 2 ||
+				!subcomponents.forall[it.type.statechart]) {
+			return statechartXStss
+		}
+		// No new constants are created during the transformation of statecharts,
+		// so the parameters are extracted in the same order as in the sequential transformation
+		for (subcomponent : subcomponents) {
+			subcomponent.type.extractParameters(subcomponent.arguments)
+		}
+		// Instances of the same statechart type with the same arguments are transformed only once;
+		// the statecharts are compared before they are modified by the preprocessing
+		val statecharts = <StatechartDefinition>newArrayList
+		val templates = <StatechartDefinition>newArrayList
+		val subcomponentTemplates = <ComponentInstance, StatechartDefinition>newHashMap
+		for (subcomponent : subcomponents) {
+			val statechart = subcomponent.type as StatechartDefinition
+			if (!statechartTemplates.contains(statechart)) {
+				val template = templates.findFirst[statechartTemplates.isEquivalent(it, statechart)]
+				if (template === null) {
+					val newTemplate = statechart.clone
+					statecharts += statechart
+					templates += newTemplate
+					subcomponentTemplates.put(subcomponent, newTemplate)
+				}
+				else {
+					subcomponentTemplates.put(subcomponent, template)
+				}
+			}
+			else {
+				subcomponentTemplates.put(subcomponent, statechart)
+			}
+		}
+		// In-place preprocessing of the shared statecharts
+		for (statechart : statecharts) {
+			val mergeStateEliminator = new MergeStateEliminator(statechart)
+			mergeStateEliminator.execute // Not modifying the statechart again in the parallel transformation
+			EcoreUtil.resolveAll(statechart) // Proxy resolution modifies the reference lists
+		}
+		val isolatedStatecharts = statecharts.map[it.cloneIntoPrivateResourceSet].toList
+		logger.info( "Transforming " + statecharts.size + " statecharts in parallel in " + component.name)
+		val xStss = isolatedStatecharts.parallelStream
+				.map[it.transformInIsolation]
+				.collect(Collectors.toList)
+		for (var i = 0; i < statecharts.size; i++) {
+			statechartTemplates.put(templates.get(i), xStss.get(i))
+		}
+		for (subcomponent : subcomponents) {
+			val template = subcomponentTemplates.get(subcomponent)
+			statechartXStss.put(subcomponent, statechartTemplates.get(template))
+		}
+		
+		return statechartXStss
+	}
+	
+	protected def XSTS transformInIsolation(StatechartDefinition statechart) {
+		val gammaToLowlevelTransformer = new GammaToLowlevelTransformer
+		// Creates only the traced lowlevel package, the statechart is transformed in the next call
+		val lowlevelPackage = gammaToLowlevelTransformer.transform(statechart.containingPackage)
+		return statechart.transform(gammaToLowlevelTransformer, lowlevelPackage)
+	}
+	
+	/**
+	 * Copies the package of the statechart (without its other components) and the packages it imports
+	 * into a new resource set, and returns the copy of the statechart.
+	 */
+	protected def StatechartDefinition cloneIntoPrivateResourceSet(StatechartDefinition statechart) {
+		val _package = statechart.containingPackage
+		val packages = <hu.bme.mit.gamma.statechart.interface_.Package>newArrayList
+		packages += _package
+		packages += _package.allImports.reject[it === _package]
+		val copier = new Copier {
+			override protected copyContainment(EReference reference, EObject object, EObject copyEObject) {
+				if (reference == InterfaceModelPackage.Literals.PACKAGE__COMPONENTS) {
+					// Other components are not needed (and would be copied for every statechart)
+					if (object === _package) {
+						(copyEObject as hu.bme.mit.gamma.statechart.interface_.Package).components +=
+								copy(statechart) as Component
+					}
+					return
+				}
+				super.copyContainment(reference, object, copyEObject)
+			}
+		}
+		val packageCopies = copier.copyAll(packages)
+		copier.copyReferences
+		
+		val resourceSet = new ResourceSetImpl
+		for (var i = 0; i < packages.size; i++) {
+			val uri = packages.get(i).eResource?.URI ?: URI.createURI(i + ".gcd")
+			val resource = new ResourceImpl(uri)
+			resourceSet.resources += resource
+			resource.contents += packageCopies.get(i)
+		}
+		
+		return copier.get(statechart) as StatechartDefinition
+	}
+	
 	// Utils
 	
 	private def void extractAllParameters(AbstractAsynchronousCompositeComponent component) {
@@ -110,9 +110,21 @@ class GammaToXstsTransformer {
 			boolean unfoldMessageQueues, boolean optimizeEnvironmentalMessageQueues,
 			TransitionMerging transitionMerging,
 			PropertyPackage initialState, InitialStateSetting initialStateSetting) {
+		this(minSchedulingConstraint, maxSchedulingConstraint, transformOrthogonalActions, optimize,
+			optimizeOneCapacityArrays, unfoldMessageQueues, optimizeEnvironmentalMessageQueues,
+			transitionMerging, initialState, initialStateSetting, false)
+	}
+	
+	new(Integer minSchedulingConstraint, Integer maxSchedulingConstraint,
+			boolean transformOrthogonalActions,	boolean optimize, boolean optimizeOneCapacityArrays,
+			boolean unfoldMessageQueues, boolean optimizeEnvironmentalMessageQueues,
+			TransitionMerging transitionMerging,
+			PropertyPackage initialState, InitialStateSetting initialStateSetting,
+			boolean transformStatechartsInParallel) {
 		this.gammaToLowlevelTransformer = new GammaToLowlevelTransformer
 		this.componentTransformer = new ComponentTransformer(this.gammaToLowlevelTransformer,
-			transformOrthogonalActions, optimize, optimizeEnvironmentalMessageQueues, transitionMerging)
+			transformOrthogonalActions, optimize, optimizeEnvironmentalMessageQueues, transitionMerging,
+			transformStatechartsInParallel)
 		this.minSchedulingConstraint = minSchedulingConstraint
 		this.maxSchedulingConstraint = maxSchedulingConstraint
 		this.initialState = initialState
@@ -278,15 +290,21 @@ class GammaToXstsTransformer {
 	protected def removeDuplicatedTypes(XSTS xSts) {
 		logger.info("Checking if the XSTS contains multiple type declarations with the same name")
 		val types = xSts.typeDeclarations
-		for (var i = 0; i < types.size - 1; i++) {
-			val lhs = types.get(i)
-			for (var j = i + 1; j < types.size; j++) {
-				val rhs = types.get(j)
-				if (lhs.name == rhs.name && lhs.helperEquals(rhs)) {
-					lhs.changeAllAndRemove(rhs, xSts) // Remove instead of delete to speed up
-					j--
+		// Every type reference is looked up in the index instead of traversing the XSTS
+		val index = xSts.attachCrossReferenceIndex
+		try {
+			for (var i = 0; i < types.size - 1; i++) {
+				val lhs = types.get(i)
+				for (var j = i + 1; j < types.size; j++) {
+					val rhs = types.get(j)
+					if (lhs.name == rhs.name && lhs.helperEquals(rhs)) {
+						lhs.changeAllAndRemove(rhs, xSts) // Remove instead of delete to speed up
+						j--
+					}
 				}
 			}
+		} finally {
+			index.close
 		}
 		// Type declaration names are not customized as multiple types can refer to the same type
 		// These types would be different in XSTS, when they are the same in Gamma
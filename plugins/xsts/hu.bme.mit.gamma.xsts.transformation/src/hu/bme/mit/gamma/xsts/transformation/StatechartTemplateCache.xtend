@@ -0,0 +1,84 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Gamma project
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ ********************************************************************************/
+package hu.bme.mit.gamma.xsts.transformation
+
+import hu.bme.mit.gamma.expression.model.ConstantDeclaration
+import hu.bme.mit.gamma.expression.model.ExpressionModelPackage
+import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition
+import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.xsts.model.XSTS
+import java.util.Map
+import org.eclipse.emf.ecore.EAttribute
+import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.util.EcoreUtil.EqualityHelper
+
+/**
+ * Stores the XSTS models of the transformed statecharts (before the customization of the declaration
+ * names), so the instances of the same statechart type with the same arguments are transformed
+ * only once, and the other instances get a clone of the XSTS model.
+ * In the unfolded model, every instance has its own statechart, whose parameters are extracted into
+ * constants with instance-specific names; therefore, two statecharts are considered equivalent if they
+ * are equal apart from the names of the (extracted or cloned) constants they refer to.
+ * The transformation modifies the statecharts (e.g., eliminates merge states), so the statecharts
+ * have to be put into the cache as they were before their transformation.
+ */
+class StatechartTemplateCache {
+	
+	protected final Map<StatechartDefinition, XSTS> templates = newLinkedHashMap
+	
+	protected final extension GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE
+	
+	/**
+	 * Returns a clone of the XSTS model of an equivalent statechart, or null if there is none.
+	 */
+	def XSTS get(StatechartDefinition statechart) {
+		for (template : templates.keySet) {
+			if (template.isEquivalent(statechart)) {
+				val xSts = templates.get(template)
+				return xSts.clone
+			}
+		}
+		return null
+	}
+	
+	def boolean contains(StatechartDefinition statechart) {
+		return templates.keySet.exists[it.isEquivalent(statechart)]
+	}
+	
+	def void put(StatechartDefinition statechart, XSTS xSts) {
+		// The returned XSTS is modified by the caller, so a clone is stored
+		templates.put(statechart, xSts.clone)
+	}
+	
+	def boolean isEquivalent(StatechartDefinition lhs, StatechartDefinition rhs) {
+		if (lhs.name != rhs.name) { // The clones of the same type have the same name
+			return false
+		}
+		val helper = new ConstantNameIgnoringEqualityHelper
+		return helper.equals(lhs, rhs)
+	}
+	
+	//
+	
+	static class ConstantNameIgnoringEqualityHelper extends EqualityHelper {
+		
+		override protected haveEqualAttribute(EObject eObject1, EObject eObject2, EAttribute attribute) {
+			// Constant variable names do not matter in terms of traceability, their values are compared
+			if (eObject1 instanceof ConstantDeclaration &&
+					attribute == ExpressionModelPackage.Literals.NAMED_ELEMENT__NAME) {
+				return true
+			}
+			return super.haveEqualAttribute(eObject1, eObject2, attribute)
+		}
+		
+	}
+	
+}
@@ -22,6 +22,7 @@ import hu.bme.mit.gamma.transformation.util.annotations.InteractionCoverageCrite
 import hu.bme.mit.gamma.transformation.util.preprocessor.AnalysisModelPreprocessor
 import hu.bme.mit.gamma.util.FileUtil
 import hu.bme.mit.gamma.util.GammaEcoreUtil
+import hu.bme.mit.gamma.util.ModelRegistry
 import hu.bme.mit.gamma.xsts.model.XSTS
 import hu.bme.mit.gamma.xsts.transformation.GammaToXstsTransformer
 import hu.bme.mit.gamma.xsts.transformation.InitialStateSetting
@@ -46,6 +47,7 @@ class Gamma2XstsTransformerSerializer {
 	protected final boolean optimizeMessageQueues
 	protected final boolean optimizeEnvironmentalMessageQueues
 	protected final TransitionMerging transitionMerging
+	protected final boolean transformStatechartsInParallel
 	// Slicing
 	protected final PropertyPackage slicingProperties
 	// Annotation
@@ -59,6 +61,7 @@ class Gamma2XstsTransformerSerializer {
 	protected final extension GammaFileNamer fileNamer = GammaFileNamer.INSTANCE
 	protected final extension ActionSerializer actionSerializer = ActionSerializer.INSTANCE
 	protected final extension FileUtil fileUtil = FileUtil.INSTANCE
+	protected final ModelRegistry modelRegistry = ModelRegistry.INSTANCE
 	
 	new(Component component, String targetFolderUri, String fileName) {
 		this(component, #[], targetFolderUri, fileName)
@@ -90,6 +93,23 @@ class Gamma2XstsTransformerSerializer {
 			PropertyPackage slicingProperties,
 			AnnotatablePreprocessableElements annotatableElements,
 			PropertyPackage initialState, InitialStateSetting initialStateSetting) {
+		this(component, arguments, targetFolderUri, fileName,
+			minSchedulingConstraint, maxSchedulingConstraint,
+			optimize, optimizeArray, optimizeMessageQueues, optimizeEnvironmentalMessageQueues,
+			transitionMerging, slicingProperties, annotatableElements,
+			initialState, initialStateSetting, false)
+	}
+	
+	new(Component component, List<? extends Expression> arguments,
+			String targetFolderUri, String fileName,
+			Integer minSchedulingConstraint, Integer maxSchedulingConstraint,
+			boolean optimize, boolean optimizeArray,
+			boolean optimizeMessageQueues, boolean optimizeEnvironmentalMessageQueues,
+			TransitionMerging transitionMerging,
+			PropertyPackage slicingProperties,
+			AnnotatablePreprocessableElements annotatableElements,
+			PropertyPackage initialState, InitialStateSetting initialStateSetting,
+			boolean transformStatechartsInParallel) {
 		this.component = component
 		this.arguments = arguments
 		this.targetFolderUri = targetFolderUri
@@ -102,6 +122,7 @@ class Gamma2XstsTransformerSerializer {
 		this.optimizeMessageQueues = optimizeMessageQueues
 		this.optimizeEnvironmentalMessageQueues = optimizeEnvironmentalMessageQueues
 		this.transitionMerging = transitionMerging
+		this.transformStatechartsInParallel = transformStatechartsInParallel
 		//
 		this.slicingProperties = slicingProperties
 		//
@@ -128,11 +149,15 @@ class Gamma2XstsTransformerSerializer {
 			minSchedulingConstraint, maxSchedulingConstraint,
 			true, true, optimizeArray,
 			optimizeMessageQueues, optimizeEnvironmentalMessageQueues,
-			transitionMerging, initialState, initialStateSetting)
+			transitionMerging, initialState, initialStateSetting, transformStatechartsInParallel)
+		// Registering the unfolded package (traceability) while it matches its file, as the
+		// transformation modifies it (e.g., merge state elimination), so a copy is registered
+		modelRegistry.registerCopy(newGammaPackage,
+				new File(targetFolderUri + File.separator + fileName.unfoldedPackageFileName))
 		// Normal transformation
 		val xSts = gammaToXSTSTransformer.execute(newGammaPackage)
-		// EMF
-		xSts.normalSave(targetFolderUri, fileName.emfXStsFileName)
+		// EMF (asynchronously, if set in the registry)
+		modelRegistry.save(xSts, targetFolderUri, fileName.emfXStsFileName)
 		// String
 		xSts.serializeAndSaveXSts
 	}
@@ -0,0 +1,217 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import hu.bme.mit.gamma.expression.model.AddExpression;
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression;
+import hu.bme.mit.gamma.expression.model.Expression;
+import hu.bme.mit.gamma.expression.model.ExpressionModelFactory;
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression;
+import hu.bme.mit.gamma.expression.model.SubtractExpression;
+import hu.bme.mit.gamma.expression.model.VariableDeclaration;
+import hu.bme.mit.gamma.lowlevel.xsts.transformation.optimizer.ActionFingerprinter;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+import hu.bme.mit.gamma.xsts.model.Action;
+import hu.bme.mit.gamma.xsts.model.AssignmentAction;
+import hu.bme.mit.gamma.xsts.model.SequentialAction;
+import hu.bme.mit.gamma.xsts.model.VariableDeclarationAction;
+import hu.bme.mit.gamma.xsts.model.XSTSModelFactory;
+
+public class ActionFingerprinterTest {
+	private final XSTSModelFactory xStsFactory = XSTSModelFactory.eINSTANCE;
+	private final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE;
+	private final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+	private final ActionFingerprinter fingerprinter = ActionFingerprinter.INSTANCE;
+
+	// External variables, i.e., not contained by the fingerprinted actions
+	private final VariableDeclaration a = createVariable("a");
+	private final VariableDeclaration b = createVariable("b");
+
+	@Test
+	public void testEqualActionsHaveEqualFingerprints() {
+		// Arrange
+		// a := b + 1; b := a
+		SequentialAction lhs = createSequence(
+				createAssignment(a, createAdd(createReference(b), createIntegerLiteral(1))),
+				createAssignment(b, createReference(a)));
+		SequentialAction rhs = createSequence(
+				createAssignment(a, createAdd(createReference(b), createIntegerLiteral(1))),
+				createAssignment(b, createReference(a)));
+
+		// Act
+		Object lhsFingerprint = fingerprinter.getFingerprint(lhs);
+		Object rhsFingerprint = fingerprinter.getFingerprint(rhs);
+
+		// Assert
+		assertTrue(ecoreUtil.helperEquals(lhs, rhs));
+		assertEquals(lhsFingerprint, rhsFingerprint);
+		// The fingerprint is deterministic
+		assertEquals(lhsFingerprint, fingerprinter.getFingerprint(lhs));
+	}
+
+	@Test
+	public void testDifferentActionsHaveDifferentFingerprints() {
+		// Arrange
+		SequentialAction action = createSequence(
+				createAssignment(a, createAdd(createReference(b), createIntegerLiteral(1))));
+		// Different literal
+		SequentialAction otherLiteral = createSequence(
+				createAssignment(a, createAdd(createReference(b), createIntegerLiteral(2))));
+		// Different operator
+		SequentialAction otherOperator = createSequence(
+				createAssignment(a, createSubtract(createReference(b), createIntegerLiteral(1))));
+		// Different order of the operands
+		SequentialAction otherOrder = createSequence(
+				createAssignment(a, createAdd(createIntegerLiteral(1), createReference(b))));
+		// Additional action
+		SequentialAction otherLength = createSequence(
+				createAssignment(a, createAdd(createReference(b), createIntegerLiteral(1))),
+				createAssignment(b, createReference(a)));
+
+		// Act
+		Object fingerprint = fingerprinter.getFingerprint(action);
+
+		// Assert
+		assertNotEquals(fingerprint, fingerprinter.getFingerprint(otherLiteral));
+		assertNotEquals(fingerprint, fingerprinter.getFingerprint(otherOperator));
+		assertNotEquals(fingerprint, fingerprinter.getFingerprint(otherOrder));
+		assertNotEquals(fingerprint, fingerprinter.getFingerprint(otherLength));
+	}
+
+	@Test
+	public void testExternalReferencesByIdentity() {
+		// Arrange
+		// A different variable with the same name and type
+		VariableDeclaration otherA = createVariable("a");
+		SequentialAction action = createSequence(createAssignment(b, createReference(a)));
+		SequentialAction otherAction = createSequence(createAssignment(b, createReference(otherA)));
+
+		// Act
+		Object fingerprint = fingerprinter.getFingerprint(action);
+		Object otherFingerprint = fingerprinter.getFingerprint(otherAction);
+
+		// Assert
+		assertFalse(ecoreUtil.helperEquals(action, otherAction));
+		assertNotEquals(fingerprint, otherFingerprint);
+	}
+
+	@Test
+	public void testLocalReferencesByPosition() {
+		// Arrange
+		// var x := a; b := x
+		SequentialAction action = createLocalVariableAction();
+		// The clone contains its own local variable, so its references point to another object
+		SequentialAction clone = ecoreUtil.clone(action);
+		// var x := a; b := a, i.e., the second reference points to another position
+		SequentialAction otherAction = createLocalVariableAction();
+		AssignmentAction otherAssignment = (AssignmentAction) otherAction.getActions().get(1);
+		otherAssignment.setRhs(createReference(a));
+
+		// Act
+		Object fingerprint = fingerprinter.getFingerprint(action);
+		Object cloneFingerprint = fingerprinter.getFingerprint(clone);
+		Object otherFingerprint = fingerprinter.getFingerprint(otherAction);
+
+		// Assert
+		assertTrue(ecoreUtil.helperEquals(action, clone));
+		assertEquals(fingerprint, cloneFingerprint);
+		assertFalse(ecoreUtil.helperEquals(action, otherAction));
+		assertNotEquals(fingerprint, otherFingerprint);
+	}
+
+	@Test
+	public void testContainerIsNotConsidered() {
+		// Arrange
+		AssignmentAction assignment = createAssignment(a, createReference(b));
+		Object fingerprint = fingerprinter.getFingerprint(assignment);
+
+		// Act
+		// The optimizer moves the actions between containers
+		SequentialAction container = createSequence(assignment);
+		Object containedFingerprint = fingerprinter.getFingerprint(assignment);
+		SequentialAction otherContainer = createSequence(createAssignment(b, createReference(a)));
+		otherContainer.getActions().add(assignment);
+		Object movedFingerprint = fingerprinter.getFingerprint(assignment);
+
+		// Assert
+		assertFalse(container.getActions().contains(assignment));
+		assertEquals(fingerprint, containedFingerprint);
+		assertEquals(fingerprint, movedFingerprint);
+	}
+
+	@Test
+	public void testNullFingerprint() {
+		// Act
+		Object fingerprint = fingerprinter.getFingerprint(null);
+
+		// Assert
+		assertEquals(fingerprint, fingerprinter.getFingerprint(null));
+		assertNotEquals(fingerprint, fingerprinter.getFingerprint(xStsFactory.createEmptyAction()));
+	}
+
+	// Auxiliary methods
+
+	private SequentialAction createLocalVariableAction() {
+		VariableDeclaration x = createVariable("x");
+		x.setExpression(createReference(a));
+		VariableDeclarationAction declarationAction = xStsFactory.createVariableDeclarationAction();
+		declarationAction.setVariableDeclaration(x);
+		return createSequence(declarationAction, createAssignment(b, createReference(x)));
+	}
+
+	private SequentialAction createSequence(Action... actions) {
+		SequentialAction sequence = xStsFactory.createSequentialAction();
+		for (Action action : actions) {
+			sequence.getActions().add(action);
+		}
+		return sequence;
+	}
+
+	private VariableDeclaration createVariable(String name) {
+		VariableDeclaration variable = expressionFactory.createVariableDeclaration();
+		variable.setName(name);
+		variable.setType(expressionFactory.createIntegerTypeDefinition());
+		return variable;
+	}
+
+	private AssignmentAction createAssignment(VariableDeclaration variable, Expression rhs) {
+		AssignmentAction assignment = xStsFactory.createAssignmentAction();
+		assignment.setLhs(createReference(variable));
+		assignment.setRhs(rhs);
+		return assignment;
+	}
+
+	private DirectReferenceExpression createReference(VariableDeclaration variable) {
+		DirectReferenceExpression reference = expressionFactory.createDirectReferenceExpression();
+		reference.setDeclaration(variable);
+		return reference;
+	}
+
+	private AddExpression createAdd(Expression left, Expression right) {
+		AddExpression add = expressionFactory.createAddExpression();
+		add.getOperands().add(left);
+		add.getOperands().add(right);
+		return add;
+	}
+
+	private SubtractExpression createSubtract(Expression left, Expression right) {
+		SubtractExpression subtract = expressionFactory.createSubtractExpression();
+		subtract.setLeftOperand(left);
+		subtract.setRightOperand(right);
+		return subtract;
+	}
+
+	private IntegerLiteralExpression createIntegerLiteral(int value) {
+		IntegerLiteralExpression literal = expressionFactory.createIntegerLiteralExpression();
+		literal.setValue(BigInteger.valueOf(value));
+		return literal;
+	}
+
+}
@@ -0,0 +1,185 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+import hu.bme.mit.gamma.expression.model.AddExpression;
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression;
+import hu.bme.mit.gamma.expression.model.Expression;
+import hu.bme.mit.gamma.expression.model.ExpressionModelFactory;
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression;
+import hu.bme.mit.gamma.expression.model.VariableDeclaration;
+import hu.bme.mit.gamma.util.CrossReferenceIndex;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+import hu.bme.mit.gamma.xsts.model.AssignmentAction;
+import hu.bme.mit.gamma.xsts.model.SequentialAction;
+import hu.bme.mit.gamma.xsts.model.XSTS;
+import hu.bme.mit.gamma.xsts.model.XSTSModelFactory;
+import hu.bme.mit.gamma.xsts.model.XTransition;
+
+public class CrossReferenceIndexTest {
+	private final XSTSModelFactory xStsFactory = XSTSModelFactory.eINSTANCE;
+	private final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE;
+	private final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+
+	// a := b; b := a + 1; a := a + b
+	private XSTS xSts;
+	private VariableDeclaration a;
+	private VariableDeclaration b;
+	private SequentialAction action;
+
+	@Test
+	public void testFindUsagesMatchesTraversal() {
+		// Arrange
+		createXsts();
+		Set<EObject> expectedAUsages = getReferenceHolders(ecoreUtil.findUsages(a, xSts));
+		Set<EObject> expectedBUsages = getReferenceHolders(ecoreUtil.findUsages(b, xSts));
+		AssignmentAction firstAssignment = (AssignmentAction) action.getActions().get(0);
+		Set<EObject> expectedFirstAssignmentUsages = getReferenceHolders(
+				ecoreUtil.findUsages(b, firstAssignment));
+
+		// Act
+		try (CrossReferenceIndex index = ecoreUtil.attachCrossReferenceIndex(xSts)) {
+			Set<EObject> aUsages = getReferenceHolders(ecoreUtil.findUsages(a, xSts));
+			Set<EObject> bUsages = getReferenceHolders(ecoreUtil.findUsages(b, xSts));
+			Set<EObject> firstAssignmentUsages = getReferenceHolders(
+					index.findUsages(b, firstAssignment));
+
+			// Assert
+			assertEquals(4, expectedAUsages.size());
+			assertEquals(expectedAUsages, aUsages);
+			assertEquals(expectedBUsages, bUsages);
+			// Only the usages inside the given container
+			assertEquals(1, firstAssignmentUsages.size());
+			assertEquals(expectedFirstAssignmentUsages, firstAssignmentUsages);
+		}
+	}
+
+	@Test
+	public void testIndexFollowsModifications() {
+		// Arrange
+		createXsts();
+		VariableDeclaration c = createVariable("c");
+		xSts.getVariableDeclarations().add(c);
+
+		try (CrossReferenceIndex index = ecoreUtil.attachCrossReferenceIndex(xSts)) {
+			// Act
+			// New contents are indexed too
+			AssignmentAction newAssignment = createAssignment(c, createReference(b));
+			action.getActions().add(newAssignment);
+			boolean isCReferenced = ecoreUtil.isReferenced(c, xSts);
+			// Removed contents are not in the tree anymore
+			action.getActions().remove(newAssignment);
+			boolean isCReferencedAfterRemoval = ecoreUtil.isReferenced(c, xSts);
+			// Changing the references of a to c
+			ecoreUtil.change(c, a, xSts);
+
+			// Assert
+			assertTrue(isCReferenced);
+			assertFalse(isCReferencedAfterRemoval);
+			assertFalse(ecoreUtil.isReferenced(a, xSts));
+			assertEquals(4, ecoreUtil.findUsages(c, xSts).size());
+			// The index returns the same as the traversal of the tree
+			assertEquals(getReferenceHolders(index.findUsages(c, xSts)),
+					getReferenceHolders(EcoreUtil.UsageCrossReferencer.find(c, xSts)));
+		}
+	}
+
+	@Test
+	public void testNestedAttachments() {
+		// Arrange
+		createXsts();
+		AssignmentAction firstAssignment = (AssignmentAction) action.getActions().get(0);
+
+		// Act
+		CrossReferenceIndex index = CrossReferenceIndex.attach(xSts);
+		CrossReferenceIndex nestedIndex = CrossReferenceIndex.attach(xSts);
+		nestedIndex.close();
+		CrossReferenceIndex indexAfterNestedClose = CrossReferenceIndex.getAttachedIndex(firstAssignment);
+		index.close();
+
+		// Assert
+		assertSame(index, nestedIndex);
+		assertSame(xSts, index.getRoot());
+		// Detached only by the outermost close
+		assertSame(index, indexAfterNestedClose);
+		assertNull(CrossReferenceIndex.getAttachedIndex(xSts));
+		assertNull(CrossReferenceIndex.getAttachedIndex(firstAssignment));
+		// Without an index, the tree is traversed
+		assertEquals(4, ecoreUtil.findUsages(a, xSts).size());
+	}
+
+	// Auxiliary methods
+
+	private void createXsts() {
+		xSts = xStsFactory.createXSTS();
+		xSts.setName("CrossReferences");
+		a = createVariable("a");
+		b = createVariable("b");
+		xSts.getVariableDeclarations().add(a);
+		xSts.getVariableDeclarations().add(b);
+
+		action = xStsFactory.createSequentialAction();
+		action.getActions().add(createAssignment(a, createReference(b)));
+		action.getActions().add(createAssignment(b, createAdd(createReference(a), createIntegerLiteral(1))));
+		action.getActions().add(createAssignment(a, createAdd(createReference(a), createReference(b))));
+		XTransition transition = xStsFactory.createXTransition();
+		transition.setAction(action);
+		xSts.getTransitions().add(transition);
+	}
+
+	private Set<EObject> getReferenceHolders(Collection<Setting> settings) {
+		Set<EObject> referenceHolders = new HashSet<EObject>();
+		for (Setting setting : settings) {
+			referenceHolders.add(setting.getEObject());
+		}
+		return referenceHolders;
+	}
+
+	private VariableDeclaration createVariable(String name) {
+		VariableDeclaration variable = expressionFactory.createVariableDeclaration();
+		variable.setName(name);
+		variable.setType(expressionFactory.createIntegerTypeDefinition());
+		return variable;
+	}
+
+	private AssignmentAction createAssignment(VariableDeclaration variable, Expression rhs) {
+		AssignmentAction assignment = xStsFactory.createAssignmentAction();
+		assignment.setLhs(createReference(variable));
+		assignment.setRhs(rhs);
+		return assignment;
+	}
+
+	private DirectReferenceExpression createReference(VariableDeclaration variable) {
+		DirectReferenceExpression reference = expressionFactory.createDirectReferenceExpression();
+		reference.setDeclaration(variable);
+		return reference;
+	}
+
+	private AddExpression createAdd(Expression left, Expression right) {
+		AddExpression add = expressionFactory.createAddExpression();
+		add.getOperands().add(left);
+		add.getOperands().add(right);
+		return add;
+	}
+
+	private IntegerLiteralExpression createIntegerLiteral(int value) {
+		IntegerLiteralExpression literal = expressionFactory.createIntegerLiteralExpression();
+		literal.setValue(BigInteger.valueOf(value));
+		return literal;
+	}
+
+}
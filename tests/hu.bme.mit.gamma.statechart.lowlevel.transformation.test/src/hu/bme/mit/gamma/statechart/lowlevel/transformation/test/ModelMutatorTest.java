@@ -0,0 +1,295 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+import hu.bme.mit.gamma.expression.model.AddExpression;
+import hu.bme.mit.gamma.expression.model.AndExpression;
+import hu.bme.mit.gamma.expression.model.BinaryExpression;
+import hu.bme.mit.gamma.expression.model.ConstantDeclaration;
+import hu.bme.mit.gamma.expression.model.Declaration;
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression;
+import hu.bme.mit.gamma.expression.model.Expression;
+import hu.bme.mit.gamma.expression.model.ExpressionModelFactory;
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression;
+import hu.bme.mit.gamma.expression.model.MultiaryExpression;
+import hu.bme.mit.gamma.expression.model.NotExpression;
+import hu.bme.mit.gamma.expression.model.OrExpression;
+import hu.bme.mit.gamma.expression.model.ParameterDeclaration;
+import hu.bme.mit.gamma.expression.model.SubtractExpression;
+import hu.bme.mit.gamma.expression.model.VariableDeclaration;
+import hu.bme.mit.gamma.mutation.ModelMutator;
+import hu.bme.mit.gamma.statechart.interface_.InterfaceModelFactory;
+import hu.bme.mit.gamma.statechart.interface_.Package;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+
+public class ModelMutatorTest {
+	private final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE;
+	private final InterfaceModelFactory interfaceFactory = InterfaceModelFactory.eINSTANCE;
+	private final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+
+	private final TestModelMutator mutator = new TestModelMutator();
+
+	private final VariableDeclaration a = createBooleanVariable("a");
+	private final VariableDeclaration b = createBooleanVariable("b");
+	private final VariableDeclaration x = createIntegerVariable("x");
+	private final VariableDeclaration y = createIntegerVariable("y");
+
+	@Test
+	public void testChangedOperatorOfIdenticalOperands() {
+		// Assert
+		// a && a to a || a
+		assertTrue(mutator.isEquivalentMutant(
+				createAnd(createReference(a), createReference(a)),
+				createOr(createReference(a), createReference(a))));
+		// a && b to a || b
+		assertFalse(mutator.isEquivalentMutant(
+				createAnd(createReference(a), createReference(b)),
+				createOr(createReference(a), createReference(b))));
+		// a && a to b || b, i.e., not only the operator is changed
+		assertFalse(mutator.isEquivalentMutant(
+				createAnd(createReference(a), createReference(a)),
+				createOr(createReference(b), createReference(b))));
+	}
+
+	@Test
+	public void testChangedOperatorOfZeroOperands() {
+		// Assert
+		// x + 0 to x - 0
+		assertTrue(mutator.isEquivalentMutant(
+				createAdd(createReference(x), createIntegerLiteral(0)),
+				createSubtract(createReference(x), createIntegerLiteral(0))));
+		// x + 0 to y - 0, i.e., not only the operator is changed
+		assertFalse(mutator.isEquivalentMutant(
+				createAdd(createReference(x), createIntegerLiteral(0)),
+				createSubtract(createReference(y), createIntegerLiteral(0))));
+		// x + 1 to x - 1
+		assertFalse(mutator.isEquivalentMutant(
+				createAdd(createReference(x), createIntegerLiteral(1)),
+				createSubtract(createReference(x), createIntegerLiteral(1))));
+	}
+
+	@Test
+	public void testEvaluableExpressions() {
+		// Arrange
+		ParameterDeclaration parameter = expressionFactory.createParameterDeclaration();
+		parameter.setName("p");
+		parameter.setType(expressionFactory.createIntegerTypeDefinition());
+
+		// Assert
+		// 1 < 2 to 2 > 1
+		BinaryExpression less = expressionFactory.createLessExpression();
+		less.setLeftOperand(createIntegerLiteral(1));
+		less.setRightOperand(createIntegerLiteral(2));
+		BinaryExpression greater = expressionFactory.createGreaterExpression();
+		greater.setLeftOperand(createIntegerLiteral(2));
+		greater.setRightOperand(createIntegerLiteral(1));
+		assertTrue(mutator.isEquivalentMutant(less, greater));
+		// Parameters are bound to different arguments in different instances: p > 0 to p >= 1
+		BinaryExpression parameterGreater = expressionFactory.createGreaterExpression();
+		parameterGreater.setLeftOperand(createReference(parameter));
+		parameterGreater.setRightOperand(createIntegerLiteral(0));
+		BinaryExpression parameterGreaterEqual = expressionFactory.createGreaterEqualExpression();
+		parameterGreaterEqual.setLeftOperand(createReference(parameter));
+		parameterGreaterEqual.setRightOperand(createIntegerLiteral(1));
+		assertFalse(mutator.isEquivalentMutant(parameterGreater, parameterGreaterEqual));
+		// Divisions by zero are not evaluated: 1 / 0 to 2 / 0
+		assertFalse(mutator.isEquivalentMutant(createDivide(1, 0), createDivide(2, 0)));
+		// Removed expressions
+		assertFalse(mutator.isEquivalentMutant(createIntegerLiteral(1), null));
+	}
+
+	@Test
+	public void testOperandsOfExpressions() {
+		// Arrange
+		Expression first = createReference(x);
+		Expression second = createIntegerLiteral(1);
+		AddExpression add = createAdd(first, second);
+		SubtractExpression subtract = createSubtract(ecoreUtil.clone(first), ecoreUtil.clone(second));
+		NotExpression not = expressionFactory.createNotExpression();
+		not.setOperand(createReference(a));
+
+		// Act
+		List<? extends Expression> addOperands = mutator.getOperands(add);
+		List<? extends Expression> subtractOperands = mutator.getOperands(subtract);
+		List<? extends Expression> notOperands = mutator.getOperands(not);
+
+		// Assert
+		assertEquals(List.of(first, second), addOperands);
+		assertEquals(List.of(subtract.getLeftOperand(), subtract.getRightOperand()), subtractOperands);
+		assertTrue(notOperands.isEmpty());
+		assertTrue(mutator.haveSameOperands(add, subtract));
+		assertFalse(mutator.haveSameOperands(add,
+				createSubtract(createIntegerLiteral(1), createReference(x))));
+		assertFalse(mutator.haveSameOperands(add,
+				createAdd(createReference(x), createIntegerLiteral(1), createIntegerLiteral(1))));
+	}
+
+	@Test
+	public void testDistinctMutants() {
+		// Arrange
+		// const c := x + 0
+		Package _package = createPackage(createAdd(createReference(x), createIntegerLiteral(0)));
+		ConstantDeclaration constant = _package.getConstantDeclarations().get(0);
+		mutator.registerOriginal(_package);
+
+		// Act
+		// Identical to the original model
+		mutator.resetSite();
+		boolean isOriginalDistinct = mutator.isDistinct(ecoreUtil.clone(_package));
+		// Equivalent to the original expression: x + 0 to x - 0
+		mutator.recordSite(constant.getExpression());
+		EcoreUtil.replace(constant.getExpression(), createSubtract(createReference(x), createIntegerLiteral(0)));
+		boolean isEquivalentDistinct = mutator.isDistinct(_package);
+		// A real mutant: x + 0 to x + 1
+		mutator.resetSite();
+		constant.setExpression(createAdd(createReference(x), createIntegerLiteral(1)));
+		boolean isMutantDistinct = mutator.isDistinct(_package);
+		// Identical to the previous mutant
+		boolean isDuplicateDistinct = mutator.isDistinct(ecoreUtil.clone(_package));
+		// Statically unreachable mutation site
+		mutator.resetSite();
+		constant.setExpression(createAdd(createReference(x), createIntegerLiteral(2)));
+		mutator.setMutationSiteReachable(false);
+		boolean isUnreachableDistinct = mutator.isDistinct(_package);
+		// Changing the source of a transition can make it reachable
+		mutator.setAppliedMutationType(ModelMutator.StatechartMutationType.TRANSITION_STRUCTURE_SOURCE_CHANGE);
+		boolean isSourceChangeDistinct = mutator.isDistinct(_package);
+
+		// Assert
+		assertFalse(isOriginalDistinct);
+		assertFalse(isEquivalentDistinct);
+		assertTrue(isMutantDistinct);
+		assertFalse(isDuplicateDistinct);
+		assertFalse(isUnreachableDistinct);
+		assertTrue(isSourceChangeDistinct);
+	}
+
+	// Auxiliary methods
+
+	private Package createPackage(Expression constantValue) {
+		ConstantDeclaration constant = expressionFactory.createConstantDeclaration();
+		constant.setName("c");
+		constant.setType(expressionFactory.createIntegerTypeDefinition());
+		constant.setExpression(constantValue);
+		Package _package = interfaceFactory.createPackage();
+		_package.setName("mutants");
+		_package.getConstantDeclarations().add(constant);
+		return _package;
+	}
+
+	private VariableDeclaration createBooleanVariable(String name) {
+		VariableDeclaration variable = expressionFactory.createVariableDeclaration();
+		variable.setName(name);
+		variable.setType(expressionFactory.createBooleanTypeDefinition());
+		return variable;
+	}
+
+	private VariableDeclaration createIntegerVariable(String name) {
+		VariableDeclaration variable = expressionFactory.createVariableDeclaration();
+		variable.setName(name);
+		variable.setType(expressionFactory.createIntegerTypeDefinition());
+		return variable;
+	}
+
+	private DirectReferenceExpression createReference(Declaration declaration) {
+		DirectReferenceExpression reference = expressionFactory.createDirectReferenceExpression();
+		reference.setDeclaration(declaration);
+		return reference;
+	}
+
+	private AndExpression createAnd(Expression... operands) {
+		AndExpression and = expressionFactory.createAndExpression();
+		addOperands(and, operands);
+		return and;
+	}
+
+	private OrExpression createOr(Expression... operands) {
+		OrExpression or = expressionFactory.createOrExpression();
+		addOperands(or, operands);
+		return or;
+	}
+
+	private AddExpression createAdd(Expression... operands) {
+		AddExpression add = expressionFactory.createAddExpression();
+		addOperands(add, operands);
+		return add;
+	}
+
+	private void addOperands(MultiaryExpression expression, Expression... operands) {
+		for (Expression operand : operands) {
+			expression.getOperands().add(operand);
+		}
+	}
+
+	private SubtractExpression createSubtract(Expression left, Expression right) {
+		SubtractExpression subtract = expressionFactory.createSubtractExpression();
+		subtract.setLeftOperand(left);
+		subtract.setRightOperand(right);
+		return subtract;
+	}
+
+	private BinaryExpression createDivide(int left, int right) {
+		BinaryExpression divide = expressionFactory.createDivideExpression();
+		divide.setLeftOperand(createIntegerLiteral(left));
+		divide.setRightOperand(createIntegerLiteral(right));
+		return divide;
+	}
+
+	private IntegerLiteralExpression createIntegerLiteral(int value) {
+		IntegerLiteralExpression literal = expressionFactory.createIntegerLiteralExpression();
+		literal.setValue(BigInteger.valueOf(value));
+		return literal;
+	}
+
+	/**
+	 * Exposes the mutant filters of the model mutator.
+	 */
+	private static class TestModelMutator extends ModelMutator {
+
+		public boolean isEquivalentMutant(Expression original, Expression mutant) {
+			return isEquivalent(original, mutant);
+		}
+
+		public List<? extends Expression> getOperands(Expression expression) {
+			return getAllOperands(expression);
+		}
+
+		public boolean haveSameOperands(Expression original, Expression mutant) {
+			return hasSameOperands(original, mutant);
+		}
+
+		public void registerOriginal(Package original) {
+			registerMutant(original, ecoreUtil.helperHashCode(original));
+		}
+
+		public void resetSite() {
+			resetMutationSite();
+		}
+
+		public void recordSite(Expression expression) {
+			recordMutationSite(expression);
+		}
+
+		public void setMutationSiteReachable(boolean isMutationSiteReachable) {
+			this.isMutationSiteReachable = isMutationSiteReachable;
+		}
+
+		public void setAppliedMutationType(Object appliedMutationType) {
+			this.appliedMutationType = appliedMutationType;
+		}
+
+		public boolean isDistinct(Package mutantPackage) {
+			return isDistinctMutant(mutantPackage);
+		}
+
+	}
+
+}
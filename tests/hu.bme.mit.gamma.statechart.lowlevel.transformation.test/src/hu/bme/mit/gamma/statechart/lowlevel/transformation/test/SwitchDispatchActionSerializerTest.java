@@ -0,0 +1,295 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import hu.bme.mit.gamma.codegeneration.java.util.TypeDeclarationSerializer;
+import hu.bme.mit.gamma.expression.model.AndExpression;
+import hu.bme.mit.gamma.expression.model.DirectReferenceExpression;
+import hu.bme.mit.gamma.expression.model.EnumerationLiteralDefinition;
+import hu.bme.mit.gamma.expression.model.EnumerationLiteralExpression;
+import hu.bme.mit.gamma.expression.model.EnumerationTypeDefinition;
+import hu.bme.mit.gamma.expression.model.EqualityExpression;
+import hu.bme.mit.gamma.expression.model.Expression;
+import hu.bme.mit.gamma.expression.model.ExpressionModelFactory;
+import hu.bme.mit.gamma.expression.model.GreaterExpression;
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression;
+import hu.bme.mit.gamma.expression.model.TypeDeclaration;
+import hu.bme.mit.gamma.expression.model.TypeReference;
+import hu.bme.mit.gamma.expression.model.VariableDeclaration;
+import hu.bme.mit.gamma.xsts.codegeneration.java.SwitchDispatchActionSerializer;
+import hu.bme.mit.gamma.xsts.model.AssignmentAction;
+import hu.bme.mit.gamma.xsts.model.AssumeAction;
+import hu.bme.mit.gamma.xsts.model.NonDeterministicAction;
+import hu.bme.mit.gamma.xsts.model.SequentialAction;
+import hu.bme.mit.gamma.xsts.model.XSTS;
+import hu.bme.mit.gamma.xsts.model.XSTSModelFactory;
+import hu.bme.mit.gamma.xsts.model.XTransition;
+
+public class SwitchDispatchActionSerializerTest {
+	private final XSTSModelFactory xStsFactory = XSTSModelFactory.eINSTANCE;
+	private final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE;
+
+	private final String className = "SwitchDispatchStatechart";
+	private final String regionTypeName = "Main_region";
+	private final String regionVariableName = "main_region";
+	private final String counterVariableName = "counter";
+	// So many states that the switch itself does not fit into a single method
+	private final int stateCount = 1000;
+	// The JIT does not compile methods with more bytecode
+	private final int hugeMethodLimit = 8000;
+
+	@Test
+	public void testChangeStateCompilesIntoSmallMethods() throws Exception {
+		// Arrange
+		Path folder = Files.createTempDirectory(className);
+
+		// Act
+		generateAndCompile(createXsts(), folder);
+
+		// Assert
+		Map<String, Integer> codeLengths = getCodeLengths(folder.resolve(className + ".class"));
+		assertTrue(codeLengths.containsKey("changeState"));
+		for (String method : codeLengths.keySet()) {
+			int codeLength = codeLengths.get(method);
+			assertTrue(method + " has " + codeLength + " bytes of bytecode", codeLength < hugeMethodLimit);
+		}
+	}
+
+	@Test
+	public void testChangeStateDispatchesOnEveryState() throws Exception {
+		// Arrange
+		Path folder = Files.createTempDirectory(className);
+		generateAndCompile(createXsts(), folder);
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { folder.toUri().toURL() })) {
+			Class<?> statechartClass = classLoader.loadClass(className);
+			Object statechart = statechartClass.getDeclaredConstructor().newInstance();
+			for (int i = 0; i < stateCount; i++) {
+				// Act & Assert
+				// Branch of the state
+				assertEquals(i + 1, changeState(statechart, "s" + i, i));
+				// No enabled branch
+				assertEquals(stateCount, changeState(statechart, "s" + i, stateCount));
+				// Unconstrained branch
+				assertEquals(0, changeState(statechart, "s" + i, stateCount + 1));
+			}
+		}
+	}
+
+	// Auxiliary methods
+
+	/**
+	 * Creates an XSTS with a region of the given number of states, in every one of which the counter
+	 * is incremented if it equals the index of the state, and the counter is reset in every state
+	 * if it exceeds the number of states.
+	 */
+	private XSTS createXsts() {
+		EnumerationTypeDefinition regionType = expressionFactory.createEnumerationTypeDefinition();
+		for (int i = 0; i < stateCount; i++) {
+			EnumerationLiteralDefinition literal = expressionFactory.createEnumerationLiteralDefinition();
+			literal.setName("s" + i);
+			regionType.getLiterals().add(literal);
+		}
+		TypeDeclaration regionTypeDeclaration = expressionFactory.createTypeDeclaration();
+		regionTypeDeclaration.setName(regionTypeName);
+		regionTypeDeclaration.setType(regionType);
+
+		TypeReference regionTypeReference = expressionFactory.createTypeReference();
+		regionTypeReference.setReference(regionTypeDeclaration);
+		VariableDeclaration regionVariable = expressionFactory.createVariableDeclaration();
+		regionVariable.setName(regionVariableName);
+		regionVariable.setType(regionTypeReference);
+
+		VariableDeclaration counterVariable = expressionFactory.createVariableDeclaration();
+		counterVariable.setName(counterVariableName);
+		counterVariable.setType(expressionFactory.createIntegerTypeDefinition());
+
+		NonDeterministicAction choice = xStsFactory.createNonDeterministicAction();
+		for (int i = 0; i < stateCount; i++) {
+			EqualityExpression stateCondition = expressionFactory.createEqualityExpression();
+			stateCondition.setLeftOperand(createReference(regionVariable));
+			EnumerationLiteralExpression literal = expressionFactory.createEnumerationLiteralExpression();
+			literal.setReference(regionType.getLiterals().get(i));
+			stateCondition.setRightOperand(literal);
+			EqualityExpression counterCondition = expressionFactory.createEqualityExpression();
+			counterCondition.setLeftOperand(createReference(counterVariable));
+			counterCondition.setRightOperand(createIntegerLiteral(i));
+			AndExpression condition = expressionFactory.createAndExpression();
+			condition.getOperands().add(stateCondition);
+			condition.getOperands().add(counterCondition);
+			choice.getActions().add(createBranch(condition, counterVariable, i + 1));
+		}
+		GreaterExpression resetCondition = expressionFactory.createGreaterExpression();
+		resetCondition.setLeftOperand(createReference(counterVariable));
+		resetCondition.setRightOperand(createIntegerLiteral(stateCount));
+		choice.getActions().add(createBranch(resetCondition, counterVariable, 0));
+
+		XTransition transition = xStsFactory.createXTransition();
+		transition.setAction(choice);
+
+		XSTS xSts = xStsFactory.createXSTS();
+		xSts.setName(className);
+		xSts.getTypeDeclarations().add(regionTypeDeclaration);
+		xSts.getVariableDeclarations().add(regionVariable);
+		xSts.getVariableDeclarations().add(counterVariable);
+		xSts.getTransitions().add(transition);
+		return xSts;
+	}
+
+	private SequentialAction createBranch(Expression condition, VariableDeclaration variable, int value) {
+		AssumeAction assumeAction = xStsFactory.createAssumeAction();
+		assumeAction.setAssumption(condition);
+		AssignmentAction assignmentAction = xStsFactory.createAssignmentAction();
+		assignmentAction.setLhs(createReference(variable));
+		assignmentAction.setRhs(createIntegerLiteral(value));
+		SequentialAction branch = xStsFactory.createSequentialAction();
+		branch.getActions().add(assumeAction);
+		branch.getActions().add(assignmentAction);
+		return branch;
+	}
+
+	private DirectReferenceExpression createReference(VariableDeclaration variable) {
+		DirectReferenceExpression reference = expressionFactory.createDirectReferenceExpression();
+		reference.setDeclaration(variable);
+		return reference;
+	}
+
+	private IntegerLiteralExpression createIntegerLiteral(int value) {
+		IntegerLiteralExpression literal = expressionFactory.createIntegerLiteralExpression();
+		literal.setValue(BigInteger.valueOf(value));
+		return literal;
+	}
+
+	private void generateAndCompile(XSTS xSts, Path folder) throws IOException {
+		String code = TypeDeclarationSerializer.INSTANCE.serialize(xSts.getTypeDeclarations().get(0)) +
+			"public class " + className + " {\n" +
+				regionTypeName + " " + regionVariableName + " = " + regionTypeName + ".s0;\n" +
+				"int " + counterVariableName + " = 0;\n" +
+				new SwitchDispatchActionSerializer().serializeChangeState(xSts) +
+			"}\n";
+		Path file = folder.resolve(className + ".java");
+		Files.writeString(file, code);
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		int result = compiler.run(null, null, null, "-d", folder.toString(), file.toString());
+		assertEquals("The generated code does not compile", 0, result);
+	}
+
+	private int changeState(Object statechart, String state, int counter) throws Exception {
+		Class<?> statechartClass = statechart.getClass();
+		Field regionField = statechartClass.getDeclaredField(regionVariableName);
+		regionField.setAccessible(true);
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Object literal = Enum.valueOf((Class<? extends Enum>) regionField.getType(), state);
+		regionField.set(statechart, literal);
+		Field counterField = statechartClass.getDeclaredField(counterVariableName);
+		counterField.setAccessible(true);
+		counterField.setInt(statechart, counter);
+		Method changeState = statechartClass.getDeclaredMethod("changeState");
+		changeState.setAccessible(true);
+		changeState.invoke(statechart);
+		return counterField.getInt(statechart);
+	}
+
+	/**
+	 * Returns the bytecode length of each method in the class file (the code_length items of the
+	 * Code attributes).
+	 */
+	private Map<String, Integer> getCodeLengths(Path classFile) throws IOException {
+		Map<String, Integer> codeLengths = new HashMap<String, Integer>();
+		try (InputStream stream = Files.newInputStream(classFile);
+				DataInputStream input = new DataInputStream(stream)) {
+			input.readInt(); // Magic
+			input.readUnsignedShort(); // Minor version
+			input.readUnsignedShort(); // Major version
+			int constantPoolCount = input.readUnsignedShort();
+			String[] utf8Constants = new String[constantPoolCount];
+			for (int i = 1; i < constantPoolCount; i++) {
+				int tag = input.readUnsignedByte();
+				switch (tag) {
+					case 1: // Utf8
+						utf8Constants[i] = input.readUTF();
+						break;
+					case 5: // Long
+					case 6: // Double
+						skip(input, 8);
+						i++; // Takes two entries
+						break;
+					case 7: // Class
+					case 8: // String
+					case 16: // MethodType
+					case 19: // Module
+					case 20: // Package
+						skip(input, 2);
+						break;
+					case 15: // MethodHandle
+						skip(input, 3);
+						break;
+					default: // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, (Invoke)Dynamic
+						skip(input, 4);
+						break;
+				}
+			}
+			skip(input, 6); // Access flags, this class, super class
+			int interfaceCount = input.readUnsignedShort();
+			skip(input, 2 * interfaceCount);
+			int fieldCount = input.readUnsignedShort();
+			for (int i = 0; i < fieldCount; i++) {
+				skip(input, 6); // Access flags, name, descriptor
+				skipAttributes(input);
+			}
+			int methodCount = input.readUnsignedShort();
+			for (int i = 0; i < methodCount; i++) {
+				input.readUnsignedShort(); // Access flags
+				String name = utf8Constants[input.readUnsignedShort()];
+				input.readUnsignedShort(); // Descriptor
+				int attributeCount = input.readUnsignedShort();
+				for (int j = 0; j < attributeCount; j++) {
+					String attributeName = utf8Constants[input.readUnsignedShort()];
+					int attributeLength = input.readInt();
+					if (attributeName.equals("Code")) {
+						skip(input, 4); // Max stack, max locals
+						int codeLength = input.readInt();
+						codeLengths.merge(name, codeLength, Math::max);
+						skip(input, attributeLength - 8);
+					}
+					else {
+						skip(input, attributeLength);
+					}
+				}
+			}
+		}
+		return codeLengths;
+	}
+
+	private void skip(DataInputStream input, int count) throws IOException {
+		input.readFully(new byte[count]);
+	}
+
+	private void skipAttributes(DataInputStream input) throws IOException {
+		int attributeCount = input.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			input.readUnsignedShort(); // Name
+			skip(input, input.readInt());
+		}
+	}
+
+}
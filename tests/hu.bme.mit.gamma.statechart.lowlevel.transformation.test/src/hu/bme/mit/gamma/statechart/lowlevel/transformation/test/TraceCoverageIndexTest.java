@@ -0,0 +1,214 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hu.bme.mit.gamma.expression.model.ExpressionModelFactory;
+import hu.bme.mit.gamma.expression.model.IntegerLiteralExpression;
+import hu.bme.mit.gamma.statechart.interface_.Event;
+import hu.bme.mit.gamma.statechart.interface_.InterfaceModelFactory;
+import hu.bme.mit.gamma.statechart.interface_.Port;
+import hu.bme.mit.gamma.trace.model.Act;
+import hu.bme.mit.gamma.trace.model.ExecutionTrace;
+import hu.bme.mit.gamma.trace.model.RaiseEventAct;
+import hu.bme.mit.gamma.trace.model.Step;
+import hu.bme.mit.gamma.trace.model.TraceModelFactory;
+import hu.bme.mit.gamma.trace.util.TraceCoverageIndex;
+import hu.bme.mit.gamma.trace.util.TraceUtil;
+import hu.bme.mit.gamma.util.GammaEcoreUtil;
+
+public class TraceCoverageIndexTest {
+	private final InterfaceModelFactory interfaceFactory = InterfaceModelFactory.eINSTANCE;
+	private final ExpressionModelFactory expressionFactory = ExpressionModelFactory.eINSTANCE;
+	private final TraceModelFactory traceFactory = TraceModelFactory.eINSTANCE;
+	private final GammaEcoreUtil ecoreUtil = GammaEcoreUtil.INSTANCE;
+	private final TraceUtil traceUtil = TraceUtil.INSTANCE;
+
+	private Port port;
+	private Event press;
+	private Event release;
+
+	@Before
+	public void setUp() {
+		port = interfaceFactory.createPort();
+		port.setName("Button");
+		press = interfaceFactory.createEvent();
+		press.setName("press");
+		release = interfaceFactory.createEvent();
+		release.setName("release");
+	}
+
+	@Test
+	public void testHelperHashCodeIsConsistentWithHelperEquals() {
+		// Arrange
+		RaiseEventAct act = createPress(1);
+		RaiseEventAct clone = ecoreUtil.clone(act);
+		RaiseEventAct equalAct = createPress(1);
+		RaiseEventAct otherArgument = createPress(2);
+		RaiseEventAct otherEvent = createRelease();
+
+		// Act
+		int hashCode = ecoreUtil.helperHashCode(act);
+
+		// Assert
+		assertTrue(ecoreUtil.helperEquals(act, clone));
+		assertEquals(hashCode, ecoreUtil.helperHashCode(clone));
+		assertTrue(ecoreUtil.helperEquals(act, equalAct));
+		assertEquals(hashCode, ecoreUtil.helperHashCode(equalAct));
+		assertFalse(ecoreUtil.helperEquals(act, otherArgument));
+		assertNotEquals(hashCode, ecoreUtil.helperHashCode(otherArgument));
+		assertFalse(ecoreUtil.helperEquals(act, otherEvent));
+		assertEquals(ecoreUtil.helperHashCode(traceFactory.createComponentSchedule()),
+				ecoreUtil.helperHashCode(traceFactory.createComponentSchedule()));
+		assertEquals(0, ecoreUtil.helperHashCode(null));
+	}
+
+	@Test
+	public void testPrefixCoverage() {
+		// Arrange
+		TraceCoverageIndex<String> index = new TraceCoverageIndex<String>();
+		index.add("trace", List.of(createResetStep(), createStep(createPress(1)), createStep(createRelease())));
+
+		// Act
+		Set<String> prefixOwners = index.getCoveringOwners(
+				List.of(createResetStep(), createStep(createPress(1))));
+		Set<String> fullOwners = index.getCoveringOwners(
+				List.of(createResetStep(), createStep(createPress(1)), createStep(createRelease())));
+		Set<String> longerOwners = index.getCoveringOwners(List.of(createResetStep(),
+				createStep(createPress(1)), createStep(createRelease()), createStep(createRelease())));
+		Set<String> otherOwners = index.getCoveringOwners(
+				List.of(createResetStep(), createStep(createPress(2))));
+
+		// Assert
+		assertEquals(Set.of("trace"), prefixOwners);
+		assertEquals(Set.of("trace"), fullOwners);
+		assertTrue(longerOwners.isEmpty());
+		assertTrue(otherOwners.isEmpty());
+		assertTrue(index.isCovered(List.of()));
+	}
+
+	@Test
+	public void testCoverageMatchesPairwiseComparison() {
+		// Arrange
+		// Steps with different orders and multiplicities of the same acts
+		List<List<Step>> stepLists = new ArrayList<List<Step>>();
+		stepLists.add(List.of(createStep(createPress(1), createRelease())));
+		stepLists.add(List.of(createStep(createRelease(), createPress(1))));
+		stepLists.add(List.of(createStep(createPress(1), createPress(1), createRelease())));
+		stepLists.add(List.of(createStep(createPress(1), createRelease(), createRelease())));
+		stepLists.add(List.of(createStep(createPress(1), createPress(2), createRelease())));
+		stepLists.add(List.of(createStep(createPress(1))));
+		stepLists.add(List.of(createStep(createPress(1), createRelease()), createStep(createRelease())));
+
+		for (List<Step> covering : stepLists) {
+			TraceCoverageIndex<List<Step>> index = new TraceCoverageIndex<List<Step>>();
+			index.add(covering, covering);
+			for (List<Step> covered : stepLists) {
+				// Act
+				boolean isCovered = index.isCovered(covered);
+
+				// Assert
+				assertEquals(traceUtil.isCovered(covered, covering), isCovered);
+			}
+		}
+	}
+
+	@Test
+	public void testCoveringOwners() {
+		// Arrange
+		TraceCoverageIndex<String> index = new TraceCoverageIndex<String>();
+		index.add("short", List.of(createResetStep(), createStep(createPress(1))));
+		index.add("long", List.of(createResetStep(), createStep(createPress(1)), createStep(createRelease())));
+		index.add("other", List.of(createResetStep(), createStep(createPress(2))));
+
+		// Act
+		Set<String> owners = index.getCoveringOwners(List.of(createResetStep(), createStep(createPress(1))));
+		Set<String> longOwners = index.getCoveringOwners(
+				List.of(createResetStep(), createStep(createPress(1)), createStep(createRelease())));
+		Set<String> resetOwners = index.getCoveringOwners(List.of(createResetStep()));
+
+		// Assert
+		assertEquals(Set.of("short", "long"), owners);
+		assertEquals(Set.of("long"), longOwners);
+		assertEquals(Set.of("short", "long", "other"), resetOwners);
+	}
+
+	@Test
+	public void testRemoveCoveredExecutionTraces() {
+		// Arrange
+		ExecutionTrace pressTrace = createTrace(createResetStep(), createStep(createPress(1)));
+		ExecutionTrace resetTrace = createTrace(createResetStep());
+		ExecutionTrace equalPressTrace = createTrace(createResetStep(), createStep(createPress(1)));
+		// Covers the press traces with its second reset-separated step list
+		ExecutionTrace separatedTrace = createTrace(createResetStep(), createStep(createPress(2)),
+				createResetStep(), createStep(createPress(1)), createStep(createRelease()));
+		ExecutionTrace releaseTrace = createTrace(createResetStep(), createStep(createRelease()));
+		ExecutionTrace equalReleaseTrace = createTrace(createResetStep(), createStep(createRelease()));
+		List<ExecutionTrace> traces = new ArrayList<ExecutionTrace>(List.of(pressTrace, resetTrace,
+				equalPressTrace, separatedTrace, releaseTrace, equalReleaseTrace));
+
+		// Act
+		traceUtil.removeCoveredExecutionTraces(traces);
+
+		// Assert
+		// Of the equal traces, the first one is kept
+		assertEquals(List.of(separatedTrace, releaseTrace), traces);
+		// Every removed trace is covered by a kept one
+		for (ExecutionTrace trace : List.of(pressTrace, resetTrace, equalPressTrace, equalReleaseTrace)) {
+			assertTrue(traceUtil.isCovered(trace, traces));
+		}
+	}
+
+	// Auxiliary methods
+
+	private ExecutionTrace createTrace(Step... steps) {
+		ExecutionTrace trace = traceFactory.createExecutionTrace();
+		trace.setName("trace");
+		for (Step step : steps) {
+			trace.getSteps().add(step);
+		}
+		return trace;
+	}
+
+	private Step createResetStep() {
+		return createStep(traceFactory.createReset());
+	}
+
+	private Step createStep(Act... acts) {
+		Step step = traceFactory.createStep();
+		for (Act act : acts) {
+			step.getActions().add(act);
+		}
+		return step;
+	}
+
+	private RaiseEventAct createPress(int value) {
+		RaiseEventAct act = createRaiseEventAct(press);
+		IntegerLiteralExpression argument = expressionFactory.createIntegerLiteralExpression();
+		argument.setValue(BigInteger.valueOf(value));
+		act.getArguments().add(argument);
+		return act;
+	}
+
+	private RaiseEventAct createRelease() {
+		return createRaiseEventAct(release);
+	}
+
+	private RaiseEventAct createRaiseEventAct(Event event) {
+		RaiseEventAct act = traceFactory.createRaiseEventAct();
+		act.setPort(port);
+		act.setEvent(event);
+		return act;
+	}
+
+}
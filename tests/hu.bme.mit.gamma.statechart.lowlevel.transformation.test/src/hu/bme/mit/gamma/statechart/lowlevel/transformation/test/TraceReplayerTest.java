@@ -0,0 +1,250 @@
+package hu.bme.mit.gamma.statechart.lowlevel.transformation.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hu.bme.mit.gamma.statechart.interface_.Event;
+import hu.bme.mit.gamma.statechart.interface_.EventDeclaration;
+import hu.bme.mit.gamma.statechart.interface_.EventDirection;
+import hu.bme.mit.gamma.statechart.interface_.Interface;
+import hu.bme.mit.gamma.statechart.interface_.InterfaceModelFactory;
+import hu.bme.mit.gamma.statechart.interface_.InterfaceRealization;
+import hu.bme.mit.gamma.statechart.interface_.Package;
+import hu.bme.mit.gamma.statechart.interface_.Port;
+import hu.bme.mit.gamma.statechart.interface_.RealizationMode;
+import hu.bme.mit.gamma.statechart.statechart.StatechartDefinition;
+import hu.bme.mit.gamma.statechart.statechart.StatechartModelFactory;
+import hu.bme.mit.gamma.trace.model.ExecutionTrace;
+import hu.bme.mit.gamma.trace.model.RaiseEventAct;
+import hu.bme.mit.gamma.trace.model.Step;
+import hu.bme.mit.gamma.trace.model.TraceModelFactory;
+import hu.bme.mit.gamma.trace.testgeneration.java.TraceReplayer;
+
+public class TraceReplayerTest {
+	private final InterfaceModelFactory interfaceFactory = InterfaceModelFactory.eINSTANCE;
+	private final StatechartModelFactory statechartFactory = StatechartModelFactory.eINSTANCE;
+	private final TraceModelFactory traceFactory = TraceModelFactory.eINSTANCE;
+
+	private final String basePackage = "replayed";
+
+	// The Lamp component raises light in the cycle after a press
+	private Port port;
+	private Event pressEvent;
+	private Event lightEvent;
+	private StatechartDefinition lamp;
+
+	private URLClassLoader classLoader;
+
+	@Before
+	public void setUp() throws IOException {
+		createLampPackage();
+		classLoader = compileLampCode();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		classLoader.close();
+	}
+
+	@Test
+	public void testPassingTrace() {
+		// Arrange
+		TraceReplayer replayer = new TraceReplayer(classLoader, basePackage);
+		ExecutionTrace trace = createTrace("passing", true);
+
+		// Act
+		TraceReplayer.Result result = replayer.replay(trace);
+
+		// Assert
+		assertSame(trace, result.getTrace());
+		assertTrue(result.isPassed());
+		assertNull(result.getMessage());
+	}
+
+	@Test
+	public void testFailingTrace() {
+		// Arrange
+		TraceReplayer replayer = new TraceReplayer(classLoader, basePackage);
+		ExecutionTrace trace = createTrace("failing", false);
+
+		// Act
+		TraceReplayer.Result result = replayer.replay(trace);
+
+		// Assert
+		assertFalse(result.isPassed());
+		assertTrue(result.getMessage(), result.getMessage().startsWith("Step 1"));
+	}
+
+	@Test
+	public void testNegativeTrace() {
+		// Arrange
+		TraceReplayer replayer = new TraceReplayer(classLoader, basePackage);
+		ExecutionTrace failingTrace = createTrace("negativeFailing", false);
+		failingTrace.getAnnotations().add(traceFactory.createNegativeTestAnnotation());
+		ExecutionTrace passingTrace = createTrace("negativePassing", true);
+		passingTrace.getAnnotations().add(traceFactory.createNegativeTestAnnotation());
+
+		// Act
+		TraceReplayer.Result failingResult = replayer.replay(failingTrace);
+		TraceReplayer.Result passingResult = replayer.replay(passingTrace);
+
+		// Assert
+		assertTrue(failingResult.isPassed());
+		assertFalse(passingResult.isPassed());
+	}
+
+	@Test
+	public void testParallelReplayKeepsTraceOrder() {
+		// Arrange
+		TraceReplayer replayer = new TraceReplayer(classLoader, basePackage);
+		List<ExecutionTrace> traces = new ArrayList<ExecutionTrace>();
+		for (int i = 0; i < 100; i++) {
+			traces.add(createTrace("trace" + i, i % 3 != 0));
+		}
+
+		// Act
+		List<TraceReplayer.Result> results = replayer.replay(traces, 4);
+
+		// Assert
+		assertEquals(traces.size(), results.size());
+		for (int i = 0; i < traces.size(); i++) {
+			TraceReplayer.Result result = results.get(i);
+			// Pooled instances are reset, so the previous traces do not influence the result
+			assertSame(traces.get(i), result.getTrace());
+			assertEquals(i % 3 != 0, result.isPassed());
+		}
+	}
+
+	// Auxiliary methods
+
+	private void createLampPackage() {
+		pressEvent = interfaceFactory.createEvent();
+		pressEvent.setName("press");
+		EventDeclaration pressDeclaration = interfaceFactory.createEventDeclaration();
+		pressDeclaration.setDirection(EventDirection.IN);
+		pressDeclaration.setEvent(pressEvent);
+		lightEvent = interfaceFactory.createEvent();
+		lightEvent.setName("light");
+		EventDeclaration lightDeclaration = interfaceFactory.createEventDeclaration();
+		lightDeclaration.setDirection(EventDirection.OUT);
+		lightDeclaration.setEvent(lightEvent);
+		Interface _interface = interfaceFactory.createInterface();
+		_interface.setName("Switch");
+		_interface.getEvents().add(pressDeclaration);
+		_interface.getEvents().add(lightDeclaration);
+
+		InterfaceRealization realization = interfaceFactory.createInterfaceRealization();
+		realization.setRealizationMode(RealizationMode.PROVIDED);
+		realization.setInterface(_interface);
+		port = interfaceFactory.createPort();
+		port.setName("Button");
+		port.setInterfaceRealization(realization);
+
+		lamp = statechartFactory.createStatechartDefinition();
+		lamp.setName("Lamp");
+		lamp.getPorts().add(port);
+
+		Package gammaPackage = interfaceFactory.createPackage();
+		gammaPackage.setName("lamps");
+		gammaPackage.getInterfaces().add(_interface);
+		gammaPackage.getComponents().add(lamp);
+	}
+
+	/**
+	 * Creates a trace that resets the lamp and checks the light after a press if the press is
+	 * raised, or after no press otherwise.
+	 */
+	private ExecutionTrace createTrace(String name, boolean press) {
+		Step resetStep = traceFactory.createStep();
+		resetStep.getActions().add(traceFactory.createReset());
+
+		Step step = traceFactory.createStep();
+		if (press) {
+			step.getActions().add(createRaiseEventAct(pressEvent));
+		}
+		step.getActions().add(traceFactory.createComponentSchedule());
+		step.getAsserts().add(createRaiseEventAct(lightEvent));
+
+		ExecutionTrace trace = traceFactory.createExecutionTrace();
+		trace.setName(name);
+		trace.setComponent(lamp);
+		trace.getSteps().add(resetStep);
+		trace.getSteps().add(step);
+		return trace;
+	}
+
+	private RaiseEventAct createRaiseEventAct(Event event) {
+		RaiseEventAct raiseEventAct = traceFactory.createRaiseEventAct();
+		raiseEventAct.setPort(port);
+		raiseEventAct.setEvent(event);
+		return raiseEventAct;
+	}
+
+	/**
+	 * Compiles the reflective interface and the reflective class of the Lamp component, as they
+	 * would be generated, and returns a class loader that sees them.
+	 */
+	private URLClassLoader compileLampCode() throws IOException {
+		Path folder = Files.createTempDirectory("TraceReplayer");
+		Path interfaceFile = folder.resolve("ReflectiveComponentInterface.java");
+		Files.writeString(interfaceFile,
+			"package " + basePackage + ";\n" +
+			"public interface ReflectiveComponentInterface {\n" +
+			"	void reset();\n" +
+			"	void raiseEvent(String port, String event, Object[] parameters);\n" +
+			"	boolean isRaisedEvent(String port, String event, Object[] parameters);\n" +
+			"	Object[] getEventParameterValues(String port, String event);\n" +
+			"	void schedule(String instance);\n" +
+			"	boolean isStateActive(String region, String state);\n" +
+			"	Object getValue(String variable);\n" +
+			"	ReflectiveComponentInterface getComponent(String component);\n" +
+			"}\n");
+		Path classFile = folder.resolve("ReflectiveLamp.java");
+		Files.writeString(classFile,
+			"package " + basePackage + ".lamps;\n" +
+			"import " + basePackage + ".ReflectiveComponentInterface;\n" +
+			"public class ReflectiveLamp implements ReflectiveComponentInterface {\n" +
+			"	private boolean pressed = false;\n" +
+			"	private boolean light = false;\n" +
+			"	public void reset() { pressed = false; light = false; }\n" +
+			"	public void raiseEvent(String port, String event, Object[] parameters) {\n" +
+			"		if (!port.equals(\"Button\") || !event.equals(\"press\")) {\n" +
+			"			throw new IllegalArgumentException(port + \".\" + event);\n" +
+			"		}\n" +
+			"		pressed = true;\n" +
+			"	}\n" +
+			"	public boolean isRaisedEvent(String port, String event, Object[] parameters) {\n" +
+			"		return port.equals(\"Button\") && event.equals(\"light\") && light;\n" +
+			"	}\n" +
+			"	public Object[] getEventParameterValues(String port, String event) { return new Object[0]; }\n" +
+			"	public void schedule(String instance) { light = pressed; pressed = false; }\n" +
+			"	public boolean isStateActive(String region, String state) { return false; }\n" +
+			"	public Object getValue(String variable) { return null; }\n" +
+			"	public ReflectiveComponentInterface getComponent(String component) { return null; }\n" +
+			"}\n");
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		int result = compiler.run(null, null, null, "-d", folder.toString(),
+				interfaceFile.toString(), classFile.toString());
+		assertEquals(0, result);
+		return new URLClassLoader(new URL[] { folder.toUri().toURL() });
+	}
+
+}